@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2020 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.provider.external;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import com.broadleafcommerce.subscriptionoperation.domain.Subscription;
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionItem;
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
+import com.broadleafcommerce.subscriptionoperation.service.provider.page.ResponsePageGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the payload size and decode cost of a page of subscriptions with items in JSON and in
+ * Smile, as decoded by the {@link ProviderCodecRegistry}. The size of each payload is printed when
+ * its trial is set up.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec} from the {@code services} module.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class ProviderWireFormatBenchmark {
+
+    private static final DefaultDataBufferFactory BUFFER_FACTORY =
+            DefaultDataBufferFactory.sharedInstance;
+
+    /**
+     * The number of subscriptions in the page.
+     */
+    @Param({"10", "100"})
+    public int pageSize;
+
+    /**
+     * The number of items in each subscription.
+     */
+    @Param({"5"})
+    public int itemsPerSubscription;
+
+    @Param({"json", "smile"})
+    public String format;
+
+    private ProviderCodecRegistry registry;
+
+    private byte[] payload;
+
+    private final ParameterizedTypeReference<ResponsePageGenerator<SubscriptionWithItems>>
+            pageType = new ParameterizedTypeReference<>() {};
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        ObjectMapper smileMapper = ProviderCodecRegistry.smileMapper(objectMapper);
+        registry = new ProviderCodecRegistry(objectMapper, smileMapper);
+
+        List<SubscriptionWithItems> content = new ArrayList<>();
+        for (int i = 0; i < pageSize; i++) {
+            content.add(buildSubscriptionWithItems(i));
+        }
+        Map<String, Object> page = Map.of(
+                "content", content,
+                "totalElements", pageSize,
+                "pageable", Map.of("pageNumber", 0, "pageSize", pageSize));
+        payload = "smile".equals(format) ? smileMapper.writeValueAsBytes(page)
+                : objectMapper.writeValueAsBytes(page);
+        System.out.printf("%n%s page of %d: %d bytes%n", format, pageSize, payload.length);
+    }
+
+    @Benchmark
+    public Object decodePage() {
+        return registry.read(BUFFER_FACTORY.wrap(payload), pageType.getType());
+    }
+
+    private SubscriptionWithItems buildSubscriptionWithItems(int index) {
+        Subscription subscription = new Subscription();
+        subscription.setId("subscription-" + index);
+        subscription.setName("Subscription " + index);
+        subscription.setSubscriptionStatus("ACTIVE");
+        subscription.setUserRefType("BLC_CUSTOMER");
+        subscription.setUserRef("customer-1");
+        subscription.setRootItemRefType("PRODUCT");
+        subscription.setRootItemRef("product-" + index);
+        subscription.setBillingFrequency("MONTHLY");
+        subscription.setPeriodType("MONTHLY");
+
+        SubscriptionWithItems subscriptionWithItems = new SubscriptionWithItems();
+        subscriptionWithItems.setSubscription(subscription);
+        for (int i = 0; i < itemsPerSubscription; i++) {
+            SubscriptionItem item = new SubscriptionItem();
+            item.setId("item-" + index + "-" + i);
+            item.setSubscriptionId(subscription.getId());
+            item.setItemName("Item " + i);
+            item.setItemRefType("PRODUCT");
+            item.setItemRef("product-" + index + "-" + i);
+            item.setItemUnitPrice(new BigDecimal("19.99"));
+            subscriptionWithItems.getSubscriptionItems().add(item);
+        }
+        return subscriptionWithItems;
+    }
+}
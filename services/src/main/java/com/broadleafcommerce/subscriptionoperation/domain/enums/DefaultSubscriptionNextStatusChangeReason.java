@@ -38,7 +38,12 @@ public enum DefaultSubscriptionNextStatusChangeReason {
     /**
      * The {@link Subscription#isAutoRenewalEnabled() Subscription's auto renewal} is disabled.
      */
-    DISABLED_AUTO_RENEWAL("subscription.next-status-reason.disabled-auto-renewal");
+    DISABLED_AUTO_RENEWAL("subscription.next-status-reason.disabled-auto-renewal"),
+
+    /**
+     * The {@link Subscription} is cancelled immediately, rather than at the end of its term.
+     */
+    CANCELLED("subscription.next-status-reason.cancelled");
 
     private final String messagePath;
 
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.domain.enums;
+
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
+
+/**
+ * Enumerates the views in which a list of {@link SubscriptionWithItems} can be read
+ */
+public enum SubscriptionProjection {
+
+    /**
+     * Indicates the subscriptions along with all of their items and adjustments
+     */
+    FULL,
+
+    /**
+     * Indicates only the subscriptions, without their items, as is sufficient for listing them
+     */
+    SUMMARY;
+
+    public static boolean isSummary(SubscriptionProjection projection) {
+        return SUMMARY == projection;
+    }
+
+    /**
+     * Trims the given subscription to this projection. The omitted parts are set to {@code null}
+     * so that they are not serialized.
+     *
+     * @param subscriptionWithItems the subscription to trim
+     * @return the given subscription
+     * @param <SWI> the type of subscription
+     */
+    public <SWI extends SubscriptionWithItems> SWI apply(SWI subscriptionWithItems) {
+        if (this == SUMMARY && subscriptionWithItems != null) {
+            subscriptionWithItems.setSubscriptionItems(null);
+        }
+        return subscriptionWithItems;
+    }
+}
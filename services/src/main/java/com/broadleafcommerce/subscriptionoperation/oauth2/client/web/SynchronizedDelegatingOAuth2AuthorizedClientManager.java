@@ -16,6 +16,7 @@
  */
 package com.broadleafcommerce.subscriptionoperation.oauth2.client.web;
 
+import org.springframework.lang.Nullable;
 import org.springframework.security.oauth2.client.AuthorizedClientServiceOAuth2AuthorizedClientManager;
 import org.springframework.security.oauth2.client.InMemoryOAuth2AuthorizedClientService;
 import org.springframework.security.oauth2.client.OAuth2AuthorizationFailureHandler;
@@ -27,9 +28,12 @@ import org.springframework.security.oauth2.client.OAuth2AuthorizedClientProvider
 import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
 import org.springframework.util.Assert;
 
+import com.broadleafcommerce.subscriptionoperation.service.metrics.SubscriptionOperationMetrics;
+
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 import java.util.function.Function;
 
 /**
@@ -46,6 +50,10 @@ import java.util.function.Function;
  * This helps prevent a race condition where multiple threads are trying to fetch the same token at
  * the same time via a network call.
  *
+ * If {@link SubscriptionOperationMetrics} are {@link #setMetrics(SubscriptionOperationMetrics)
+ * set}, every token obtained from the auth server is recorded as either a fetch, when no token was
+ * held for the client, or a refresh, when a held token was replaced.
+ *
  * @author Kelly Tisdell (ktisdell)
  */
 public class SynchronizedDelegatingOAuth2AuthorizedClientManager
@@ -54,12 +62,16 @@ public class SynchronizedDelegatingOAuth2AuthorizedClientManager
     private final Map<String, Object> MUTEX_MAP = Collections.synchronizedMap(new HashMap<>());
     private final AuthorizedClientServiceOAuth2AuthorizedClientManager delegate;
     private final ClientRegistrationRepository clientRegistrationRepository;
+    private final InMemoryOAuth2AuthorizedClientService authorizedClientService;
+    private SubscriptionOperationMetrics metrics;
 
     public SynchronizedDelegatingOAuth2AuthorizedClientManager(
             ClientRegistrationRepository clientRegistrationRepository) {
+        this.authorizedClientService =
+                new InMemoryOAuth2AuthorizedClientService(clientRegistrationRepository);
         this.delegate = new AuthorizedClientServiceOAuth2AuthorizedClientManager(
                 clientRegistrationRepository,
-                new InMemoryOAuth2AuthorizedClientService(clientRegistrationRepository));
+                authorizedClientService);
         this.clientRegistrationRepository = clientRegistrationRepository;
     }
 
@@ -78,7 +90,7 @@ public class SynchronizedDelegatingOAuth2AuthorizedClientManager
                     // Most of the time this will use in-memory data and will be very fast.
                     // In cases where the token is expired, this will gate the call to the auth
                     // server to 1 thread per clientRegistrationId per node.
-                    return delegate.authorize(authorizeRequest);
+                    return authorizeAndRecord(authorizeRequest);
                 }
             }
         }
@@ -88,6 +100,50 @@ public class SynchronizedDelegatingOAuth2AuthorizedClientManager
         return delegate.authorize(authorizeRequest);
     }
 
+    /**
+     * Delegates the authorization, recording whether a new token had to be obtained from the auth
+     * server to do so.
+     */
+    protected OAuth2AuthorizedClient authorizeAndRecord(OAuth2AuthorizeRequest authorizeRequest) {
+        if (metrics == null) {
+            return delegate.authorize(authorizeRequest);
+        }
+
+        final String registrationId = authorizeRequest.getClientRegistrationId();
+        final OAuth2AuthorizedClient existing = authorizeRequest.getAuthorizedClient() != null
+                ? authorizeRequest.getAuthorizedClient()
+                : authorizedClientService.loadAuthorizedClient(registrationId,
+                        authorizeRequest.getPrincipal().getName());
+        final String type = existing == null
+                ? SubscriptionOperationMetrics.TOKEN_FETCH
+                : SubscriptionOperationMetrics.TOKEN_REFRESH;
+
+        final OAuth2AuthorizedClient authorized;
+        try {
+            authorized = delegate.authorize(authorizeRequest);
+        } catch (RuntimeException e) {
+            metrics.recordTokenAcquisition(registrationId, type, false);
+            throw e;
+        }
+
+        if (authorized != null && (existing == null || !Objects.equals(
+                existing.getAccessToken().getTokenValue(),
+                authorized.getAccessToken().getTokenValue()))) {
+            metrics.recordTokenAcquisition(registrationId, type, true);
+        }
+        return authorized;
+    }
+
+    /**
+     * Sets the metrics used to record token acquisitions.
+     *
+     * @param metrics the metrics used to record token acquisitions, or {@code null} to disable
+     *        recording
+     */
+    public void setMetrics(@Nullable SubscriptionOperationMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     /**
      * @see AuthorizedClientServiceOAuth2AuthorizedClientManager#setAuthorizedClientProvider(OAuth2AuthorizedClientProvider)
      */
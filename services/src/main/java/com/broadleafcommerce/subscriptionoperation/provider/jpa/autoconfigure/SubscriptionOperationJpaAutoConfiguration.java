@@ -25,6 +25,7 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.MessageSource;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.lang.Nullable;
@@ -35,9 +36,50 @@ import com.broadleafcommerce.common.jpa.data.JpaDataRoute;
 import com.broadleafcommerce.common.messaging.data.MessagingDataRouteSupporting;
 import com.broadleafcommerce.data.tracking.core.context.ContextInfoCustomizer;
 import com.broadleafcommerce.data.tracking.core.data.TrackingDataRouteSupporting;
+import com.broadleafcommerce.subscriptionoperation.domain.Subscription;
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionItem;
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
 import com.broadleafcommerce.subscriptionoperation.provider.jpa.environment.RouteConstants;
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.environment.SubscriptionIdempotencyProperties;
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.environment.SubscriptionJobProperties;
 import com.broadleafcommerce.subscriptionoperation.provider.jpa.environment.SubscriptionOperationJpaProperties;
 import com.broadleafcommerce.subscriptionoperation.provider.jpa.environment.SubscriptionOperationProviderProperties;
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.environment.SubscriptionOutboxProperties;
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.environment.SubscriptionReadModelProperties;
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.environment.SubscriptionTransitionProperties;
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.repository.JpaIdempotencyRecordRepository;
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.repository.JpaSubscriptionJobItemRepository;
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.repository.JpaSubscriptionJobRepository;
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.repository.JpaSubscriptionOwnerSyncRepository;
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.repository.JpaSubscriptionProjectionRepository;
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.repository.JpaSubscriptionWriteRepository;
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.repository.JpaTransitionPartitionLeaseRepository;
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.service.JpaDueTransitionSource;
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.service.JpaIdempotencyStore;
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.service.JpaSubscriptionJobStore;
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.service.JpaSubscriptionReadModel;
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.service.JpaSubscriptionWriteOutbox;
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.service.JpaTransitionPartitionLeases;
+import com.broadleafcommerce.subscriptionoperation.service.SubscriptionOperationService;
+import com.broadleafcommerce.subscriptionoperation.service.SubscriptionValidationService;
+import com.broadleafcommerce.subscriptionoperation.service.idempotency.IdempotencyRecordPurger;
+import com.broadleafcommerce.subscriptionoperation.service.idempotency.IdempotencyService;
+import com.broadleafcommerce.subscriptionoperation.service.idempotency.IdempotencyStore;
+import com.broadleafcommerce.subscriptionoperation.service.job.SubscriptionJobProcessor;
+import com.broadleafcommerce.subscriptionoperation.service.job.SubscriptionJobService;
+import com.broadleafcommerce.subscriptionoperation.service.job.SubscriptionJobStore;
+import com.broadleafcommerce.subscriptionoperation.service.outbox.SubscriptionWriteDispatcher;
+import com.broadleafcommerce.subscriptionoperation.service.outbox.SubscriptionWriteOutbox;
+import com.broadleafcommerce.subscriptionoperation.service.outbox.SubscriptionWriteService;
+import com.broadleafcommerce.subscriptionoperation.service.provider.SubscriptionProvider;
+import com.broadleafcommerce.subscriptionoperation.service.provider.SubscriptionReadModel;
+import com.broadleafcommerce.subscriptionoperation.service.transition.DueTransitionSource;
+import com.broadleafcommerce.subscriptionoperation.service.transition.SubscriptionTransitionProcessor;
+import com.broadleafcommerce.subscriptionoperation.service.transition.TransitionPartitionLeases;
+import com.broadleafcommerce.subscriptionoperation.service.transition.TransitionTimingWheel;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.time.Clock;
 
 import lombok.RequiredArgsConstructor;
 
@@ -55,7 +97,216 @@ public class SubscriptionOperationJpaAutoConfiguration {
             routePackage = SUBSCRIPTION_OPS_ROUTE_PACKAGE, routeKey = SUBSCRIPTION_OPS_ROUTE_KEY,
             supportingRouteTypes = {TrackingDataRouteSupporting.class,
                     MessagingDataRouteSupporting.class})
-    public static class EnabledGranularOrFlex {}
+    public static class EnabledGranularOrFlex {
+
+        /**
+         * Keeps a local copy of subscriptions to serve list and count queries from, when enabled.
+         */
+        @Configuration
+        @ConditionalOnProperty(name = "broadleaf.subscriptionoperation.read-model.enabled",
+                havingValue = "true")
+        @EnableConfigurationProperties({SubscriptionReadModelProperties.class,
+                SubscriptionTransitionProperties.class})
+        public static class SubscriptionReadModelConfiguration {
+
+            @Bean
+            @ConditionalOnMissingBean
+            public SubscriptionReadModel<SubscriptionWithItems> subscriptionReadModel(
+                    JpaSubscriptionProjectionRepository projectionRepository,
+                    JpaSubscriptionOwnerSyncRepository ownerSyncRepository,
+                    ObjectMapper objectMapper,
+                    SubscriptionReadModelProperties properties,
+                    SubscriptionTransitionProperties transitionProperties) {
+                JpaSubscriptionReadModel<SubscriptionWithItems> readModel =
+                        new JpaSubscriptionReadModel<>(projectionRepository, ownerSyncRepository,
+                                objectMapper, SubscriptionWithItems.class, properties);
+                readModel.setTransitionPartitions(transitionProperties.getPartitions());
+                return readModel;
+            }
+        }
+
+        /**
+         * Applies due next-status transitions of the subscriptions in the local copy, when
+         * enabled along with the local copy.
+         */
+        @Configuration
+        @ConditionalOnProperty(name = {"broadleaf.subscriptionoperation.transitions.enabled",
+                "broadleaf.subscriptionoperation.read-model.enabled"}, havingValue = "true")
+        @EnableConfigurationProperties(SubscriptionTransitionProperties.class)
+        public static class SubscriptionTransitionConfiguration {
+
+            @Bean
+            @ConditionalOnMissingBean
+            public DueTransitionSource subscriptionDueTransitionSource(
+                    JpaSubscriptionProjectionRepository projectionRepository) {
+                return new JpaDueTransitionSource(projectionRepository);
+            }
+
+            @Bean
+            @ConditionalOnMissingBean
+            public TransitionPartitionLeases subscriptionTransitionPartitionLeases(
+                    JpaTransitionPartitionLeaseRepository repository) {
+                return new JpaTransitionPartitionLeases(repository);
+            }
+
+            @Bean
+            @ConditionalOnMissingBean
+            public SubscriptionTransitionProcessor subscriptionTransitionProcessor(
+                    DueTransitionSource source,
+                    TransitionPartitionLeases leases,
+                    SubscriptionProvider<SubscriptionWithItems> subscriptionProvider,
+                    SubscriptionReadModel<SubscriptionWithItems> readModel,
+                    SubscriptionTransitionProperties properties) {
+                SubscriptionTransitionProcessor processor = new SubscriptionTransitionProcessor(
+                        source, leases, subscriptionProvider, readModel,
+                        properties.getPartitions(), properties.getPollInterval(),
+                        properties.getLease(), properties.getBatchSize(),
+                        properties.getConcurrency(), properties.getRetryDelay(),
+                        properties.getCatchUp().getMaxBatches(),
+                        properties.getCatchUp().getConcurrency(), Clock.systemUTC());
+                SubscriptionTransitionProperties.TimingWheel timingWheel =
+                        properties.getTimingWheel();
+                if (timingWheel.isEnabled()) {
+                    processor.setTimingWheel(new TransitionTimingWheel(timingWheel.getTick(),
+                            timingWheel.getTicksPerWheel(), timingWheel.getMaxEntries()));
+                    processor.setReloadInterval(timingWheel.getReloadInterval());
+                }
+                return processor;
+            }
+        }
+
+        /**
+         * Performs operations requested with an idempotency key only once per key, when enabled.
+         */
+        @Configuration
+        @ConditionalOnProperty(name = "broadleaf.subscriptionoperation.idempotency.enabled",
+                havingValue = "true", matchIfMissing = true)
+        @EnableConfigurationProperties(SubscriptionIdempotencyProperties.class)
+        public static class SubscriptionIdempotencyConfiguration {
+
+            @Bean
+            @ConditionalOnMissingBean
+            public IdempotencyStore subscriptionOperationIdempotencyStore(
+                    JpaIdempotencyRecordRepository repository) {
+                return new JpaIdempotencyStore(repository);
+            }
+
+            @Bean
+            @ConditionalOnMissingBean
+            public IdempotencyService subscriptionOperationIdempotencyService(
+                    IdempotencyStore store,
+                    ObjectMapper objectMapper,
+                    SubscriptionIdempotencyProperties properties) {
+                return new IdempotencyService(store, objectMapper, properties.getTtl(),
+                        properties.getPendingTtl(), properties.getMaxCachedResults());
+            }
+
+            @Bean
+            @ConditionalOnMissingBean
+            @ConditionalOnProperty(
+                    name = "broadleaf.subscriptionoperation.idempotency.purge.enabled",
+                    havingValue = "true", matchIfMissing = true)
+            public IdempotencyRecordPurger subscriptionOperationIdempotencyRecordPurger(
+                    IdempotencyStore store,
+                    SubscriptionIdempotencyProperties properties) {
+                SubscriptionIdempotencyProperties.Purge purge = properties.getPurge();
+                return new IdempotencyRecordPurger(store, purge.getInterval(),
+                        purge.getBatchSize(), purge.getMaxBatches());
+            }
+        }
+
+        /**
+         * Records subscription writes requested asynchronously in an outbox and dispatches them,
+         * when enabled.
+         */
+        @Configuration
+        @ConditionalOnProperty(name = "broadleaf.subscriptionoperation.outbox.enabled",
+                havingValue = "true")
+        @EnableConfigurationProperties(SubscriptionOutboxProperties.class)
+        public static class SubscriptionOutboxConfiguration {
+
+            @Bean
+            @ConditionalOnMissingBean
+            public SubscriptionWriteOutbox subscriptionWriteOutbox(
+                    JpaSubscriptionWriteRepository repository) {
+                return new JpaSubscriptionWriteOutbox(repository);
+            }
+
+            @Bean
+            @ConditionalOnMissingBean
+            public SubscriptionWriteService subscriptionWriteService(
+                    SubscriptionWriteOutbox outbox,
+                    SubscriptionOperationService<Subscription, SubscriptionItem, SubscriptionWithItems> subscriptionOperationService,
+                    SubscriptionValidationService subscriptionValidationService,
+                    ObjectMapper objectMapper) {
+                return new SubscriptionWriteService(outbox, subscriptionOperationService,
+                        subscriptionValidationService, objectMapper);
+            }
+
+            @Bean
+            @ConditionalOnMissingBean
+            @ConditionalOnProperty(
+                    name = "broadleaf.subscriptionoperation.outbox.dispatcher.enabled",
+                    havingValue = "true", matchIfMissing = true)
+            public SubscriptionWriteDispatcher subscriptionWriteDispatcher(
+                    SubscriptionWriteOutbox outbox,
+                    SubscriptionWriteService writeService,
+                    SubscriptionOutboxProperties properties) {
+                SubscriptionOutboxProperties.Dispatcher dispatcher = properties.getDispatcher();
+                return new SubscriptionWriteDispatcher(outbox, writeService,
+                        dispatcher.getPollInterval(), dispatcher.getBatchSize(),
+                        dispatcher.getConcurrency(), dispatcher.getLease(),
+                        dispatcher.getMaxAttempts(), dispatcher.getInitialBackoff(),
+                        dispatcher.getMaxBackoff());
+            }
+        }
+
+        /**
+         * Accepts bulk subscription jobs and processes them in checkpointed chunks, when enabled.
+         */
+        @Configuration
+        @ConditionalOnProperty(name = "broadleaf.subscriptionoperation.jobs.enabled",
+                havingValue = "true")
+        @EnableConfigurationProperties(SubscriptionJobProperties.class)
+        public static class SubscriptionJobConfiguration {
+
+            @Bean
+            @ConditionalOnMissingBean
+            public SubscriptionJobStore subscriptionJobStore(
+                    JpaSubscriptionJobRepository jobRepository,
+                    JpaSubscriptionJobItemRepository itemRepository) {
+                return new JpaSubscriptionJobStore(jobRepository, itemRepository);
+            }
+
+            @Bean
+            @ConditionalOnMissingBean
+            public SubscriptionJobService subscriptionJobService(SubscriptionJobStore store,
+                    SubscriptionProvider<SubscriptionWithItems> subscriptionProvider,
+                    SubscriptionOperationService<Subscription, SubscriptionItem, SubscriptionWithItems> subscriptionOperationService,
+                    SubscriptionValidationService subscriptionValidationService,
+                    MessageSource messageSource,
+                    ObjectMapper objectMapper,
+                    SubscriptionJobProperties properties) {
+                return new SubscriptionJobService(store, subscriptionProvider,
+                        subscriptionOperationService, subscriptionValidationService,
+                        messageSource, objectMapper, properties.getMaxItems());
+            }
+
+            @Bean
+            @ConditionalOnMissingBean
+            @ConditionalOnProperty(
+                    name = "broadleaf.subscriptionoperation.jobs.processor.enabled",
+                    havingValue = "true", matchIfMissing = true)
+            public SubscriptionJobProcessor subscriptionJobProcessor(SubscriptionJobStore store,
+                    SubscriptionJobService jobService,
+                    SubscriptionJobProperties properties) {
+                SubscriptionJobProperties.Processor processor = properties.getProcessor();
+                return new SubscriptionJobProcessor(store, jobService,
+                        processor.getPollInterval(), processor.getChunkSize(),
+                        processor.getConcurrency(), processor.getLease());
+            }
+        }
+    }
 
     /**
      * Defines a {@link DataRouteSupporting} for Subscription Ops. By default, this is detached from
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.provider.jpa.domain;
+
+import org.hibernate.Length;
+import org.springframework.data.domain.Persistable;
+
+import com.broadleafcommerce.subscriptionoperation.service.idempotency.IdempotencyRecord;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * The persisted form of an {@link IdempotencyRecord}.
+ * <p>
+ * New records are always inserted, never merged, so that two instances beginning the same
+ * operation concurrently cannot both succeed.
+ */
+@Entity
+@Table(name = "BLC_SUB_OP_IDEMPOTENCY",
+        indexes = @Index(name = "IDX_SUB_OP_IDEM_EXPIRES", columnList = "EXPIRES_AT"))
+@Data
+public class JpaIdempotencyRecord implements Persistable<String>, Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The hash of the tenant, operation and idempotency key.
+     */
+    @Id
+    @Column(name = "ID", length = 64, nullable = false)
+    private String id;
+
+    @Column(name = "REQUEST_HASH", length = 64, nullable = false)
+    private String requestHash;
+
+    /**
+     * The JSON of the operation's result, or null while the operation is in progress.
+     */
+    @Column(name = "RESPONSE", length = Length.LONG32)
+    private String response;
+
+    @Column(name = "CREATED_AT", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "EXPIRES_AT", nullable = false)
+    private Instant expiresAt;
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean newRecord = true;
+
+    @Override
+    public boolean isNew() {
+        return newRecord;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        newRecord = false;
+    }
+
+    public IdempotencyRecord toRecord() {
+        return new IdempotencyRecord(id, requestHash, response, expiresAt);
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.provider.jpa.domain;
+
+import org.hibernate.Length;
+import org.hibernate.type.YesNoConverter;
+
+import com.broadleafcommerce.subscriptionoperation.service.job.SubscriptionJob;
+import com.broadleafcommerce.subscriptionoperation.service.job.SubscriptionJobStatus;
+import com.broadleafcommerce.subscriptionoperation.service.job.SubscriptionJobType;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import lombok.Data;
+
+/**
+ * The persisted form of a {@link SubscriptionJob}, along with its lease by the instance
+ * processing it.
+ */
+@Entity
+@Table(name = "BLC_SUB_OP_JOB",
+        indexes = @Index(name = "IDX_SUB_OP_JOB_STATUS",
+                columnList = "STATUS, LEASE_EXPIRES_AT"))
+@Data
+public class JpaSubscriptionJob implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name = "ID", length = 36, nullable = false)
+    private String id;
+
+    @Column(name = "JOB_TYPE", length = 50, nullable = false)
+    @Enumerated(EnumType.STRING)
+    private SubscriptionJobType type;
+
+    @Column(name = "STATUS", length = 20, nullable = false)
+    @Enumerated(EnumType.STRING)
+    private SubscriptionJobStatus status;
+
+    @Convert(converter = YesNoConverter.class)
+    @Column(name = "IMMEDIATE_CANCELLATION", length = 1, nullable = false)
+    private boolean immediate;
+
+    @Convert(converter = YesNoConverter.class)
+    @Column(name = "AUTO_RENEWAL_ENABLED", length = 1)
+    private Boolean autoRenewalEnabled;
+
+    @Column(name = "SUBSCRIPTION_STATUS", length = 50)
+    private String subscriptionStatus;
+
+    @Column(name = "REASON")
+    private String reason;
+
+    @Column(name = "TENANT_ID")
+    private String tenantId;
+
+    @Column(name = "CONTEXT_REQUEST", length = Length.LONG32)
+    private String contextRequest;
+
+    @Column(name = "TOTAL_ITEMS", nullable = false)
+    private int totalItems;
+
+    @Column(name = "SUCCEEDED_ITEMS", nullable = false)
+    private int succeededItems;
+
+    @Column(name = "SKIPPED_ITEMS", nullable = false)
+    private int skippedItems;
+
+    @Column(name = "FAILED_ITEMS", nullable = false)
+    private int failedItems;
+
+    @Column(name = "CHECKPOINT", nullable = false)
+    private int checkpoint;
+
+    /**
+     * The instance processing a {@link SubscriptionJobStatus#RUNNING running} job, if any.
+     */
+    @Column(name = "OWNER", length = 36)
+    private String owner;
+
+    @Column(name = "LEASE_EXPIRES_AT")
+    private Instant leaseExpiresAt;
+
+    @Column(name = "CREATED_AT", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "STARTED_AT")
+    private Instant startedAt;
+
+    @Column(name = "COMPLETED_AT")
+    private Instant completedAt;
+
+    @Version
+    @Column(name = "VERSION", nullable = false)
+    private int version;
+
+    public SubscriptionJob toJob() {
+        SubscriptionJob job = new SubscriptionJob();
+        job.setId(id);
+        job.setType(type);
+        job.setStatus(status);
+        job.setImmediate(immediate);
+        job.setAutoRenewalEnabled(autoRenewalEnabled);
+        job.setSubscriptionStatus(subscriptionStatus);
+        job.setReason(reason);
+        job.setTenantId(tenantId);
+        job.setContextRequest(contextRequest);
+        job.setTotalItems(totalItems);
+        job.setSucceededItems(succeededItems);
+        job.setSkippedItems(skippedItems);
+        job.setFailedItems(failedItems);
+        job.setCheckpoint(checkpoint);
+        job.setCreatedAt(createdAt);
+        job.setStartedAt(startedAt);
+        job.setCompletedAt(completedAt);
+        return job;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.provider.jpa.domain;
+
+import org.springframework.data.domain.Persistable;
+
+import com.broadleafcommerce.subscriptionoperation.service.job.SubscriptionJobItem;
+import com.broadleafcommerce.subscriptionoperation.service.job.SubscriptionJobItemStatus;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * The persisted form of a {@link SubscriptionJobItem}.
+ */
+@Entity
+@Table(name = "BLC_SUB_OP_JOB_ITEM",
+        indexes = {
+                @Index(name = "IDX_SUB_OP_JOB_ITEM_SEQ", columnList = "JOB_ID, SEQUENCE_NUMBER"),
+                @Index(name = "IDX_SUB_OP_JOB_ITEM_STATUS", columnList = "JOB_ID, STATUS")})
+@Data
+public class JpaSubscriptionJobItem implements Persistable<String>, Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The job id and sequence, see {@link #buildId(String, int)}.
+     */
+    @Id
+    @Column(name = "ID", length = 50, nullable = false)
+    private String id;
+
+    @Column(name = "JOB_ID", length = 36, nullable = false)
+    private String jobId;
+
+    @Column(name = "SEQUENCE_NUMBER", nullable = false)
+    private int sequence;
+
+    @Column(name = "SUBSCRIPTION_ID", nullable = false)
+    private String subscriptionId;
+
+    @Column(name = "STATUS", length = 20, nullable = false)
+    @Enumerated(EnumType.STRING)
+    private SubscriptionJobItemStatus status;
+
+    @Column(name = "ERROR_MESSAGE", length = 1000)
+    private String error;
+
+    @Column(name = "PROCESSED_AT")
+    private Instant processedAt;
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean newRecord = true;
+
+    @Override
+    public boolean isNew() {
+        return newRecord;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        newRecord = false;
+    }
+
+    public SubscriptionJobItem toItem() {
+        SubscriptionJobItem item = new SubscriptionJobItem();
+        item.setJobId(jobId);
+        item.setSequence(sequence);
+        item.setSubscriptionId(subscriptionId);
+        item.setStatus(status);
+        item.setError(error);
+        item.setProcessedAt(processedAt);
+        return item;
+    }
+
+    public static String buildId(String jobId, int sequence) {
+        return jobId + '|' + sequence;
+    }
+}
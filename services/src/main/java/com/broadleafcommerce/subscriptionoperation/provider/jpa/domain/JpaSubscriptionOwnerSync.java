@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.provider.jpa.domain;
+
+import org.hibernate.type.YesNoConverter;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * Records when all of a user's subscriptions were last copied into
+ * {@link JpaSubscriptionProjection}. The copies of a user's subscriptions are only used to serve
+ * list and count queries while this is recent enough, since subscriptions can be created directly
+ * in the billing service.
+ */
+@Entity
+@Table(name = "BLC_SUB_OP_OWNER_SYNC")
+@Data
+public class JpaSubscriptionOwnerSync implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The tenant, user type and user id, see {@link #buildId(String, String, String)}.
+     */
+    @Id
+    @Column(name = "ID", length = 330, nullable = false)
+    private String id;
+
+    /**
+     * When all of the user's subscriptions were last copied.
+     */
+    @Column(name = "SYNCED_AT", nullable = false)
+    private Instant syncedAt;
+
+    /**
+     * Whether the user had too many subscriptions to be copied, in which case none are, and the
+     * user's subscriptions are read from the billing service until this expires.
+     */
+    @Convert(converter = YesNoConverter.class)
+    @Column(name = "TOO_LARGE", length = 1, nullable = false)
+    private boolean tooLarge;
+
+    public static String buildId(String tenantId, String userRefType, String userRef) {
+        return tenantId + '|' + userRefType + '|' + userRef;
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.provider.jpa.domain;
+
+import org.hibernate.Length;
+
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
+import com.broadleafcommerce.subscriptionoperation.service.transition.DueTransitionSource;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * A local, indexed copy of a subscription read from the billing service, used to serve list and
+ * count queries without calling it. The indexed columns are copied from the subscription, while
+ * the {@link SubscriptionWithItems} itself is kept as JSON in {@link #payload}.
+ */
+@Entity
+@Table(name = "BLC_SUB_OP_SUBSCRIPTION",
+        indexes = {
+                @Index(name = "IDX_SUB_OP_SUB_USER",
+                        columnList = "TENANT_ID,USER_REF_TYPE,USER_REF"),
+                @Index(name = "IDX_SUB_OP_SUB_STATUS", columnList = "SUBSCRIPTION_STATUS"),
+                @Index(name = "IDX_SUB_OP_SUB_NEXT_CHANGE",
+                        columnList = "NEXT_STATUS_CHANGE_DATE"),
+                @Index(name = "IDX_SUB_OP_SUB_ROOT_ITEM",
+                        columnList = "ROOT_ITEM_REF_TYPE,ROOT_ITEM_REF"),
+                @Index(name = "IDX_SUB_OP_SUB_TRANSITION",
+                        columnList = "TRANSITION_PARTITIONS,TRANSITION_PARTITION,"
+                                + "NEXT_STATUS_CHANGE_DATE")})
+@Data
+public class JpaSubscriptionProjection implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The id of the subscription.
+     */
+    @Id
+    @Column(name = "ID", length = 36, nullable = false)
+    private String id;
+
+    /**
+     * The tenant the subscription belongs to, or an empty string if there is none.
+     */
+    @Column(name = "TENANT_ID", length = 36, nullable = false)
+    private String tenantId;
+
+    @Column(name = "USER_REF_TYPE")
+    private String userRefType;
+
+    @Column(name = "USER_REF", length = 36)
+    private String userRef;
+
+    @Column(name = "SUBSCRIPTION_STATUS")
+    private String subscriptionStatus;
+
+    @Column(name = "SUBSCRIPTION_NEXT_STATUS")
+    private String subscriptionNextStatus;
+
+    @Column(name = "NEXT_STATUS_CHANGE_DATE")
+    private Instant nextStatusChangeDate;
+
+    @Column(name = "ROOT_ITEM_REF_TYPE")
+    private String rootItemRefType;
+
+    @Column(name = "ROOT_ITEM_REF", length = 36)
+    private String rootItemRef;
+
+    @Column(name = "CREATED_DATE")
+    private Instant createdDate;
+
+    /**
+     * The version of the subscription in the billing service, if it has one.
+     */
+    @Column(name = "SUBSCRIPTION_VERSION")
+    private Integer subscriptionVersion;
+
+    /**
+     * The subscription with its items, serialized as JSON.
+     */
+    @Column(name = "PAYLOAD", length = Length.LONG32, nullable = false)
+    private String payload;
+
+    /**
+     * When this copy was last updated from the billing service.
+     */
+    @Column(name = "PROJECTED_AT", nullable = false)
+    private Instant projectedAt;
+
+    /**
+     * Spreads subscriptions across the partitions processed for due next-status transitions.
+     *
+     * @see DueTransitionSource#getPartitionKey(String)
+     */
+    @Column(name = "PARTITION_KEY", nullable = false)
+    private int partitionKey;
+
+    /**
+     * The number of partitions {@link #transitionPartition} was determined for. Copies written
+     * for another number of partitions are repartitioned before due transitions are found.
+     */
+    @Column(name = "TRANSITION_PARTITIONS", nullable = false)
+    private int transitionPartitions;
+
+    /**
+     * The partition processed for the due next-status transition of the subscription, stored so
+     * that due transitions are found by partition through an index.
+     *
+     * @see DueTransitionSource#getPartition(String, int)
+     */
+    @Column(name = "TRANSITION_PARTITION", nullable = false)
+    private int transitionPartition;
+
+    /**
+     * When the next-status transition may be attempted again after failing to be applied, if it
+     * did.
+     */
+    @Column(name = "TRANSITION_RETRY_AT")
+    private Instant transitionRetryAt;
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.provider.jpa.domain;
+
+import org.hibernate.Length;
+
+import com.broadleafcommerce.subscriptionoperation.service.outbox.SubscriptionWrite;
+import com.broadleafcommerce.subscriptionoperation.service.outbox.SubscriptionWriteOperation;
+import com.broadleafcommerce.subscriptionoperation.service.outbox.SubscriptionWriteStatus;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import lombok.Data;
+
+/**
+ * The persisted form of a {@link SubscriptionWrite} in the outbox.
+ */
+@Entity
+@Table(name = "BLC_SUB_OP_OUTBOX",
+        indexes = {
+                @Index(name = "IDX_SUB_OP_OUTBOX_KEY",
+                        columnList = "ORDERING_KEY, SEQUENCE_NUMBER"),
+                @Index(name = "IDX_SUB_OP_OUTBOX_DUE",
+                        columnList = "STATUS, NEXT_ATTEMPT_AT")})
+@Data
+public class JpaSubscriptionWrite implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name = "ID", length = 36, nullable = false)
+    private String id;
+
+    @Column(name = "OPERATION", length = 20, nullable = false)
+    @Enumerated(EnumType.STRING)
+    private SubscriptionWriteOperation operation;
+
+    @Column(name = "ORDERING_KEY", nullable = false)
+    private String orderingKey;
+
+    /**
+     * Orders the writes with the same ordering key, increasing with the time they were added.
+     */
+    @Column(name = "SEQUENCE_NUMBER", nullable = false)
+    private long sequenceNumber;
+
+    @Column(name = "PAYLOAD", length = Length.LONG32, nullable = false)
+    private String payload;
+
+    @Column(name = "CONTEXT_REQUEST", length = Length.LONG32)
+    private String contextRequest;
+
+    @Column(name = "STATUS", length = 20, nullable = false)
+    @Enumerated(EnumType.STRING)
+    private SubscriptionWriteStatus status;
+
+    @Column(name = "ATTEMPTS", nullable = false)
+    private int attempts;
+
+    /**
+     * The earliest time a {@link SubscriptionWriteStatus#PENDING pending} write may be attempted.
+     */
+    @Column(name = "NEXT_ATTEMPT_AT", nullable = false)
+    private Instant nextAttemptAt;
+
+    /**
+     * When the claim of a {@link SubscriptionWriteStatus#DISPATCHING dispatching} write expires.
+     */
+    @Column(name = "LEASE_EXPIRES_AT")
+    private Instant leaseExpiresAt;
+
+    @Column(name = "LAST_ERROR", length = 1000)
+    private String lastError;
+
+    @Column(name = "CREATED_AT", nullable = false)
+    private Instant createdAt;
+
+    @Version
+    @Column(name = "VERSION", nullable = false)
+    private int version;
+
+    public SubscriptionWrite toWrite() {
+        SubscriptionWrite write = new SubscriptionWrite();
+        write.setId(id);
+        write.setOperation(operation);
+        write.setOrderingKey(orderingKey);
+        write.setPayload(payload);
+        write.setContextRequest(contextRequest);
+        write.setStatus(status);
+        write.setAttempts(attempts);
+        write.setLastError(lastError);
+        write.setCreatedAt(createdAt);
+        return write;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.provider.jpa.domain;
+
+import org.springframework.data.domain.Persistable;
+
+import com.broadleafcommerce.subscriptionoperation.service.transition.TransitionPartitionLeases;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * The lease of a partition of due subscription transitions by an instance of the service.
+ *
+ * @see TransitionPartitionLeases
+ */
+@Entity
+@Table(name = "BLC_SUB_OP_TRANSITION_LEASE")
+@Data
+public class JpaTransitionPartitionLease implements Persistable<Integer>, Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name = "PARTITION_ID", nullable = false)
+    private Integer id;
+
+    /**
+     * The instance holding the lease, or null if the partition is not leased.
+     */
+    @Column(name = "OWNER", length = 36)
+    private String owner;
+
+    @Column(name = "LEASE_EXPIRES_AT", nullable = false)
+    private Instant leaseExpiresAt;
+
+    @Column(name = "VERSION", nullable = false)
+    private int version;
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean newRecord = true;
+
+    @Override
+    public boolean isNew() {
+        return newRecord;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        newRecord = false;
+    }
+
+    public boolean isHeld(Instant now) {
+        return owner != null && leaseExpiresAt.isAfter(now);
+    }
+}
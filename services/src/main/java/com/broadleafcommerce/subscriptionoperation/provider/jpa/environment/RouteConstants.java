@@ -26,6 +26,8 @@ public class RouteConstants {
         public static final String SUBSCRIPTION_OPS_ROUTE_PACKAGE =
                 "com.broadleafcommerce.subscriptionoperation";
         public static final String SUBSCRIPTION_OPS_ROUTE_KEY = "subscriptionoperation";
+        public static final String SUBSCRIPTION_OPS_TX_MANAGER =
+                "subscriptionoperationTransactionManager";
     }
 
 }
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.provider.jpa.environment;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+import lombok.Data;
+
+/**
+ * Contains properties dictating how operations requested with an {@code Idempotency-Key} header
+ * are recorded and replayed.
+ */
+@Data
+@ConfigurationProperties("broadleaf.subscriptionoperation.idempotency")
+public class SubscriptionIdempotencyProperties {
+
+    /**
+     * Whether operations requested with an idempotency key are only performed once per key.
+     * Requires the JPA database provider. Default is true.
+     */
+    private boolean enabled = true;
+
+    /**
+     * How long the result of an operation is returned for retries with the same key. Default is
+     * 24 hours.
+     */
+    private Duration ttl = Duration.ofHours(24);
+
+    /**
+     * How long an operation in progress holds its key, should the instance performing it stop
+     * before recording its result. Should exceed the longest time an operation may take. Default
+     * is 1 minute.
+     */
+    private Duration pendingTtl = Duration.ofMinutes(1);
+
+    /**
+     * The largest number of results kept in memory in front of the database. Default is 1000.
+     */
+    private int maxCachedResults = 1000;
+
+    private Purge purge = new Purge();
+
+    @Data
+    public static class Purge {
+
+        /**
+         * Whether expired records are purged by this instance. Default is true.
+         */
+        private boolean enabled = true;
+
+        /**
+         * The time between purges. Default is 10 minutes.
+         */
+        private Duration interval = Duration.ofMinutes(10);
+
+        /**
+         * The largest number of records removed in a single transaction. Default is 500.
+         */
+        private int batchSize = 500;
+
+        /**
+         * The largest number of batches removed in a single purge. Default is 20.
+         */
+        private int maxBatches = 20;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.provider.jpa.environment;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+import lombok.Data;
+
+/**
+ * Contains properties dictating how bulk subscription jobs are submitted and processed.
+ */
+@Data
+@ConfigurationProperties("broadleaf.subscriptionoperation.jobs")
+public class SubscriptionJobProperties {
+
+    /**
+     * Whether bulk subscription jobs may be submitted. Requires the JPA database provider.
+     * Default is false.
+     */
+    private boolean enabled = false;
+
+    /**
+     * The largest number of subscriptions a single job may apply to. Default is 10000.
+     */
+    private int maxItems = 10_000;
+
+    private Processor processor = new Processor();
+
+    @Data
+    public static class Processor {
+
+        /**
+         * Whether jobs are processed by this instance. Default is true.
+         */
+        private boolean enabled = true;
+
+        /**
+         * The time between checks for jobs to process. Default is 5 seconds.
+         */
+        private Duration pollInterval = Duration.ofSeconds(5);
+
+        /**
+         * The number of items processed between checkpoints. At most this many items are
+         * processed again when a job is resumed. Default is 100.
+         */
+        private int chunkSize = 100;
+
+        /**
+         * The largest number of items processed at the same time by this instance. Default is
+         * 4.
+         */
+        private int concurrency = 4;
+
+        /**
+         * How long a job is held by an instance without a checkpoint before it may be resumed
+         * by another. Should exceed the time taken to process a chunk. Default is 5 minutes.
+         */
+        private Duration lease = Duration.ofMinutes(5);
+    }
+}
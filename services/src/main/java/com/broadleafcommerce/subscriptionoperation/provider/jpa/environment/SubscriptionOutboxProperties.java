@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.provider.jpa.environment;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+import lombok.Data;
+
+/**
+ * Contains properties dictating how subscription writes requested with
+ * {@code Prefer: respond-async} are recorded in the outbox and dispatched.
+ */
+@Data
+@ConfigurationProperties("broadleaf.subscriptionoperation.outbox")
+public class SubscriptionOutboxProperties {
+
+    /**
+     * Whether subscription writes may be requested asynchronously. Requires the JPA database
+     * provider. Default is false.
+     */
+    private boolean enabled = false;
+
+    private Dispatcher dispatcher = new Dispatcher();
+
+    @Data
+    public static class Dispatcher {
+
+        /**
+         * Whether writes are dispatched by this instance. Default is true.
+         */
+        private boolean enabled = true;
+
+        /**
+         * The time between checks for due writes. Default is 1 second.
+         */
+        private Duration pollInterval = Duration.ofSeconds(1);
+
+        /**
+         * The largest number of writes claimed at once. Default is 100.
+         */
+        private int batchSize = 100;
+
+        /**
+         * The largest number of writes dispatched at the same time by this instance. Default is
+         * 8.
+         */
+        private int concurrency = 8;
+
+        /**
+         * How long claimed writes are held by an instance before they may be claimed by another.
+         * Should exceed the time taken to dispatch a batch. Default is 1 minute.
+         */
+        private Duration lease = Duration.ofMinutes(1);
+
+        /**
+         * The largest number of attempts made to dispatch a write before it is failed. Default
+         * is 10.
+         */
+        private int maxAttempts = 10;
+
+        /**
+         * The delay before the second attempt of a write, doubling with each further attempt.
+         * Default is 5 seconds.
+         */
+        private Duration initialBackoff = Duration.ofSeconds(5);
+
+        /**
+         * The longest delay between attempts of a write. Default is 10 minutes.
+         */
+        private Duration maxBackoff = Duration.ofMinutes(10);
+    }
+}
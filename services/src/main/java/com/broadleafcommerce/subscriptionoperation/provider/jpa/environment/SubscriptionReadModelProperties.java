@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.provider.jpa.environment;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+import lombok.Data;
+
+/**
+ * Contains properties dictating how the local copy of subscriptions used to serve list and count
+ * queries is maintained.
+ */
+@Data
+@ConfigurationProperties("broadleaf.subscriptionoperation.read-model")
+public class SubscriptionReadModelProperties {
+
+    /**
+     * Whether list and count queries for a user's subscriptions are served from a local copy
+     * rather than the billing service. Requires the JPA database provider. Default is false.
+     */
+    private boolean enabled = false;
+
+    /**
+     * How long a user's subscriptions are served from the local copy after all of them were last
+     * read from the billing service. This bounds how long a subscription created directly in the
+     * billing service may be missing from the local copy, if no change notification is received
+     * for it. Default is 5 minutes.
+     */
+    private Duration ownerTtl = Duration.ofMinutes(5);
+
+    /**
+     * The largest number of subscriptions a user may have to be served from the local copy.
+     * Users with more subscriptions are always served by the billing service. Default is 200.
+     */
+    private int maxSubscriptionsPerOwner = 200;
+}
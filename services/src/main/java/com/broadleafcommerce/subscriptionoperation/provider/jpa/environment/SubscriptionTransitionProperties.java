@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.provider.jpa.environment;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+import lombok.Data;
+
+/**
+ * Contains properties dictating how due next-status transitions of subscriptions, such as the
+ * cancellation at the end of term when auto-renewal is disabled, are applied.
+ */
+@Data
+@ConfigurationProperties("broadleaf.subscriptionoperation.transitions")
+public class SubscriptionTransitionProperties {
+
+    /**
+     * Whether due transitions are applied by this instance. Transitions are found in the local
+     * copy of subscriptions, so this requires
+     * {@code broadleaf.subscriptionoperation.read-model.enabled}. Default is false.
+     */
+    private boolean enabled = false;
+
+    /**
+     * The number of partitions transitions are spread across, each processed by a single
+     * instance at a time. Should be at least the number of instances, and at most 1024. Default
+     * is 16.
+     */
+    private int partitions = 16;
+
+    /**
+     * The time between checks for due transitions. Default is 30 seconds.
+     */
+    private Duration pollInterval = Duration.ofSeconds(30);
+
+    /**
+     * How long partitions are held by an instance without being renewed. Should exceed the time
+     * taken to process a batch. Default is 2 minutes.
+     */
+    private Duration lease = Duration.ofMinutes(2);
+
+    /**
+     * The largest number of transitions processed in a batch. Default is 100.
+     */
+    private int batchSize = 100;
+
+    /**
+     * The largest number of transitions applied at the same time by an instance. Default is 4.
+     */
+    private int concurrency = 4;
+
+    /**
+     * How long a transition that failed to apply is postponed. Default is 5 minutes.
+     */
+    private Duration retryDelay = Duration.ofMinutes(5);
+
+    private CatchUp catchUp = new CatchUp();
+
+    private TimingWheel timingWheel = new TimingWheel();
+
+    /**
+     * Dictates how a backlog of due transitions, such as after downtime, is caught up on. An
+     * instance catches up when a batch comes back full.
+     */
+    @Data
+    public static class CatchUp {
+
+        /**
+         * The largest number of batches processed back to back in a single check. Default is
+         * 50.
+         */
+        private int maxBatches = 50;
+
+        /**
+         * The largest number of transitions applied at the same time while catching up. Default
+         * is 16.
+         */
+        private int concurrency = 16;
+    }
+
+    /**
+     * Dictates how upcoming transitions are held in memory, so that they are applied as soon as
+     * they are due rather than on the next check.
+     */
+    @Data
+    public static class TimingWheel {
+
+        /**
+         * Whether upcoming transitions are held in memory. Default is false.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The precision transitions are applied with. Default is 1 second.
+         */
+        private Duration tick = Duration.ofSeconds(1);
+
+        /**
+         * The number of ticks held in memory, which with the tick dictates how far ahead
+         * transitions are loaded. Default is 3600, which is an hour with the default tick.
+         */
+        private int ticksPerWheel = 3600;
+
+        /**
+         * The largest number of transitions held in memory by an instance. Default is 1000000.
+         */
+        private int maxEntries = 1_000_000;
+
+        /**
+         * How often upcoming transitions are reloaded, to pick up changes made by other
+         * instances or directly in the billing service. Default is 5 minutes.
+         */
+        private Duration reloadInterval = Duration.ofMinutes(5);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.provider.jpa.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.domain.JpaIdempotencyRecord;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface JpaIdempotencyRecordRepository
+        extends JpaRepository<JpaIdempotencyRecord, String> {
+
+    @Query("SELECT r.id FROM JpaIdempotencyRecord r WHERE r.expiresAt <= :now")
+    List<String> findExpiredIds(@Param("now") Instant now, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM JpaIdempotencyRecord r WHERE r.id IN :ids AND r.expiresAt <= :now")
+    int deleteExpired(@Param("ids") Collection<String> ids, @Param("now") Instant now);
+
+    @Modifying
+    @Query("UPDATE JpaIdempotencyRecord r SET r.response = :response, r.expiresAt = :expiresAt"
+            + " WHERE r.id = :id")
+    int complete(@Param("id") String id,
+            @Param("response") String response,
+            @Param("expiresAt") Instant expiresAt);
+}
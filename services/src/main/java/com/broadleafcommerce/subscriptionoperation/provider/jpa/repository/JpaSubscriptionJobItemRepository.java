@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.provider.jpa.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.domain.JpaSubscriptionJobItem;
+import com.broadleafcommerce.subscriptionoperation.service.job.SubscriptionJobItemStatus;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface JpaSubscriptionJobItemRepository
+        extends JpaRepository<JpaSubscriptionJobItem, String> {
+
+    List<JpaSubscriptionJobItem> findByJobIdAndSequenceGreaterThanOrderBySequence(String jobId,
+            int sequence,
+            Pageable pageable);
+
+    Page<JpaSubscriptionJobItem> findByJobIdOrderBySequence(String jobId, Pageable pageable);
+
+    Page<JpaSubscriptionJobItem> findByJobIdAndStatusOrderBySequence(String jobId,
+            SubscriptionJobItemStatus status,
+            Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE JpaSubscriptionJobItem i SET i.status = :status, i.error = :error,"
+            + " i.processedAt = :processedAt"
+            + " WHERE i.id = :id")
+    int record(@Param("id") String id,
+            @Param("status") SubscriptionJobItemStatus status,
+            @Param("error") String error,
+            @Param("processedAt") Instant processedAt);
+}
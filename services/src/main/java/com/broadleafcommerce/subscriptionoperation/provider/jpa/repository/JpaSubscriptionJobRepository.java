@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.provider.jpa.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.domain.JpaSubscriptionJob;
+import com.broadleafcommerce.subscriptionoperation.service.job.SubscriptionJobStatus;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface JpaSubscriptionJobRepository extends JpaRepository<JpaSubscriptionJob, String> {
+
+    /**
+     * Finds the jobs that may be claimed, earliest first. A job may be claimed if it is pending,
+     * or if it is running and its lease expired.
+     */
+    @Query("SELECT j FROM JpaSubscriptionJob j"
+            + " WHERE j.status = :pending"
+            + " OR (j.status = :running AND j.leaseExpiresAt <= :now)"
+            + " ORDER BY j.createdAt")
+    List<JpaSubscriptionJob> findClaimable(@Param("now") Instant now,
+            @Param("pending") SubscriptionJobStatus pending,
+            @Param("running") SubscriptionJobStatus running,
+            Pageable pageable);
+
+    /**
+     * Claims a job if it was not changed since it was read, such as by another instance claiming
+     * it first.
+     */
+    @Modifying
+    @Query("UPDATE JpaSubscriptionJob j SET j.status = :running, j.owner = :owner,"
+            + " j.leaseExpiresAt = :leaseExpiresAt, j.startedAt = COALESCE(j.startedAt, :now),"
+            + " j.version = j.version + 1"
+            + " WHERE j.id = :id AND j.version = :version")
+    int claim(@Param("id") String id,
+            @Param("version") int version,
+            @Param("running") SubscriptionJobStatus running,
+            @Param("owner") String owner,
+            @Param("now") Instant now,
+            @Param("leaseExpiresAt") Instant leaseExpiresAt);
+
+    /**
+     * Adds the results of a chunk to a job and advances its checkpoint, if it is still held by
+     * the given owner.
+     */
+    @Modifying
+    @Query("UPDATE JpaSubscriptionJob j SET j.succeededItems = j.succeededItems + :succeeded,"
+            + " j.skippedItems = j.skippedItems + :skipped,"
+            + " j.failedItems = j.failedItems + :failed, j.checkpoint = :checkpoint,"
+            + " j.leaseExpiresAt = :leaseExpiresAt, j.version = j.version + 1"
+            + " WHERE j.id = :id AND j.owner = :owner AND j.status = :running")
+    int checkpoint(@Param("id") String id,
+            @Param("owner") String owner,
+            @Param("running") SubscriptionJobStatus running,
+            @Param("succeeded") int succeeded,
+            @Param("skipped") int skipped,
+            @Param("failed") int failed,
+            @Param("checkpoint") int checkpoint,
+            @Param("leaseExpiresAt") Instant leaseExpiresAt);
+
+    @Modifying
+    @Query("UPDATE JpaSubscriptionJob j SET j.status = :completed, j.completedAt = :now,"
+            + " j.owner = NULL, j.leaseExpiresAt = NULL, j.version = j.version + 1"
+            + " WHERE j.id = :id AND j.owner = :owner")
+    int complete(@Param("id") String id,
+            @Param("owner") String owner,
+            @Param("completed") SubscriptionJobStatus completed,
+            @Param("now") Instant now);
+
+    @Modifying
+    @Query("UPDATE JpaSubscriptionJob j SET j.owner = NULL, j.leaseExpiresAt = :now,"
+            + " j.version = j.version + 1"
+            + " WHERE j.owner = :owner AND j.status = :running")
+    int releaseAll(@Param("owner") String owner,
+            @Param("running") SubscriptionJobStatus running,
+            @Param("now") Instant now);
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.provider.jpa.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Repository;
+
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.domain.JpaSubscriptionProjection;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface JpaSubscriptionProjectionRepository
+        extends JpaRepository<JpaSubscriptionProjection, String> {
+
+    Page<JpaSubscriptionProjection> findByTenantIdAndUserRefTypeAndUserRef(String tenantId,
+            String userRefType,
+            String userRef,
+            Pageable pageable);
+
+    long countByTenantIdAndUserRefTypeAndUserRef(String tenantId,
+            String userRefType,
+            String userRef);
+
+    @Modifying
+    @Query("DELETE FROM JpaSubscriptionProjection p WHERE p.tenantId = :tenantId"
+            + " AND p.userRefType = :userRefType AND p.userRef = :userRef")
+    int deleteByOwner(@Param("tenantId") String tenantId,
+            @Param("userRefType") String userRefType,
+            @Param("userRef") String userRef);
+
+    @Query("SELECT p.id AS id, p.tenantId AS tenantId,"
+            + " p.subscriptionNextStatus AS subscriptionNextStatus,"
+            + " p.nextStatusChangeDate AS nextStatusChangeDate,"
+            + " p.transitionRetryAt AS transitionRetryAt"
+            + " FROM JpaSubscriptionProjection p"
+            + " WHERE p.transitionPartitions = :partitionCount"
+            + " AND p.transitionPartition IN :partitions"
+            + " AND p.nextStatusChangeDate <= :now AND p.subscriptionNextStatus IS NOT NULL"
+            + " AND (p.transitionRetryAt IS NULL OR p.transitionRetryAt <= :now)"
+            + " ORDER BY p.nextStatusChangeDate, p.id")
+    List<DueTransitionRow> findDueTransitions(@Param("now") Instant now,
+            @Param("partitionCount") int partitionCount,
+            @Param("partitions") Collection<Integer> partitions,
+            Pageable pageable);
+
+    /**
+     * Finds the due transitions ordered after the given one, to page through them without an
+     * offset.
+     */
+    @Query("SELECT p.id AS id, p.tenantId AS tenantId,"
+            + " p.subscriptionNextStatus AS subscriptionNextStatus,"
+            + " p.nextStatusChangeDate AS nextStatusChangeDate,"
+            + " p.transitionRetryAt AS transitionRetryAt"
+            + " FROM JpaSubscriptionProjection p"
+            + " WHERE p.transitionPartitions = :partitionCount"
+            + " AND p.transitionPartition IN :partitions"
+            + " AND p.nextStatusChangeDate <= :now AND p.subscriptionNextStatus IS NOT NULL"
+            + " AND (p.transitionRetryAt IS NULL OR p.transitionRetryAt <= :now)"
+            + " AND (p.nextStatusChangeDate > :afterDate"
+            + " OR (p.nextStatusChangeDate = :afterDate AND p.id > :afterId))"
+            + " ORDER BY p.nextStatusChangeDate, p.id")
+    List<DueTransitionRow> findDueTransitionsAfter(@Param("now") Instant now,
+            @Param("partitionCount") int partitionCount,
+            @Param("partitions") Collection<Integer> partitions,
+            @Param("afterDate") Instant afterDate,
+            @Param("afterId") String afterId,
+            Pageable pageable);
+
+    /**
+     * Determines the transition partition of the copies written for another number of
+     * partitions, such as after the number was changed.
+     */
+    @Modifying
+    @Query("UPDATE JpaSubscriptionProjection p"
+            + " SET p.transitionPartition = MOD(p.partitionKey, :partitionCount),"
+            + " p.transitionPartitions = :partitionCount"
+            + " WHERE p.transitionPartitions <> :partitionCount")
+    int repartitionTransitions(@Param("partitionCount") int partitionCount);
+
+    @Modifying
+    @Query("UPDATE JpaSubscriptionProjection p SET p.transitionRetryAt = :until"
+            + " WHERE p.id = :id")
+    int postponeTransition(@Param("id") String id, @Param("until") Instant until);
+
+    /**
+     * The columns of a {@link JpaSubscriptionProjection} needed to apply its due transition,
+     * leaving out the serialized subscription.
+     */
+    interface DueTransitionRow {
+
+        String getId();
+
+        String getTenantId();
+
+        String getSubscriptionNextStatus();
+
+        Instant getNextStatusChangeDate();
+
+        @Nullable
+        Instant getTransitionRetryAt();
+    }
+}
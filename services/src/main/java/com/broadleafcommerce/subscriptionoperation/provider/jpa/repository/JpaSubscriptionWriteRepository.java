@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.provider.jpa.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.domain.JpaSubscriptionWrite;
+import com.broadleafcommerce.subscriptionoperation.service.outbox.SubscriptionWriteStatus;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface JpaSubscriptionWriteRepository
+        extends JpaRepository<JpaSubscriptionWrite, String> {
+
+    /**
+     * Finds the writes that are due for dispatch and are the earliest open write of their ordering
+     * key. A write is due if it is pending and its next attempt is due, or if its lease expired.
+     */
+    @Query("SELECT w FROM JpaSubscriptionWrite w"
+            + " WHERE ((w.status = :pending AND w.nextAttemptAt <= :now)"
+            + " OR (w.status = :dispatching AND w.leaseExpiresAt <= :now))"
+            + " AND NOT EXISTS (SELECT 1 FROM JpaSubscriptionWrite e"
+            + " WHERE e.orderingKey = w.orderingKey AND e.sequenceNumber < w.sequenceNumber"
+            + " AND e.status <> :failed)"
+            + " ORDER BY w.sequenceNumber")
+    List<JpaSubscriptionWrite> findDue(@Param("now") Instant now,
+            @Param("pending") SubscriptionWriteStatus pending,
+            @Param("dispatching") SubscriptionWriteStatus dispatching,
+            @Param("failed") SubscriptionWriteStatus failed,
+            Pageable pageable);
+
+    /**
+     * Claims a write if it was not changed since it was read, such as by another instance
+     * claiming it first.
+     */
+    @Modifying
+    @Query("UPDATE JpaSubscriptionWrite w SET w.status = :dispatching,"
+            + " w.leaseExpiresAt = :leaseExpiresAt, w.attempts = w.attempts + 1,"
+            + " w.version = w.version + 1"
+            + " WHERE w.id = :id AND w.version = :version")
+    int claim(@Param("id") String id,
+            @Param("version") int version,
+            @Param("dispatching") SubscriptionWriteStatus dispatching,
+            @Param("leaseExpiresAt") Instant leaseExpiresAt);
+
+    @Modifying
+    @Query("UPDATE JpaSubscriptionWrite w SET w.status = :status,"
+            + " w.nextAttemptAt = :nextAttemptAt, w.leaseExpiresAt = NULL,"
+            + " w.lastError = :error, w.version = w.version + 1"
+            + " WHERE w.id = :id")
+    int release(@Param("id") String id,
+            @Param("status") SubscriptionWriteStatus status,
+            @Param("nextAttemptAt") Instant nextAttemptAt,
+            @Param("error") String error);
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.provider.jpa.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.domain.JpaTransitionPartitionLease;
+
+import java.time.Instant;
+
+@Repository
+public interface JpaTransitionPartitionLeaseRepository
+        extends JpaRepository<JpaTransitionPartitionLease, Integer> {
+
+    /**
+     * Changes the lease of a partition if it was not changed since it was read, such as by
+     * another instance leasing it first.
+     */
+    @Modifying
+    @Query("UPDATE JpaTransitionPartitionLease l SET l.owner = :owner,"
+            + " l.leaseExpiresAt = :leaseExpiresAt, l.version = l.version + 1"
+            + " WHERE l.id = :id AND l.version = :version")
+    int lease(@Param("id") Integer id,
+            @Param("version") int version,
+            @Param("owner") String owner,
+            @Param("leaseExpiresAt") Instant leaseExpiresAt);
+
+    @Modifying
+    @Query("UPDATE JpaTransitionPartitionLease l SET l.owner = NULL,"
+            + " l.leaseExpiresAt = :now, l.version = l.version + 1"
+            + " WHERE l.owner = :owner")
+    int releaseAll(@Param("owner") String owner, @Param("now") Instant now);
+}
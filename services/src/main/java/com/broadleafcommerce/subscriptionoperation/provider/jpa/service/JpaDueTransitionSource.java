@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.provider.jpa.service;
+
+import static com.broadleafcommerce.subscriptionoperation.provider.jpa.environment.RouteConstants.Persistence.SUBSCRIPTION_OPS_TX_MANAGER;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.repository.JpaSubscriptionProjectionRepository;
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.repository.JpaSubscriptionProjectionRepository.DueTransitionRow;
+import com.broadleafcommerce.subscriptionoperation.service.transition.DueTransition;
+import com.broadleafcommerce.subscriptionoperation.service.transition.DueTransitionSource;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A {@link DueTransitionSource} finding transitions in the local copy of subscriptions kept by
+ * {@link JpaSubscriptionReadModel}. Only the subscriptions of owners whose subscriptions were
+ * copied are found.
+ * <p>
+ * Transitions are found by the partition stored with each copy, reading only the columns needed
+ * to apply them a {@link #getPageSize() page} at a time. Copies written for another number of
+ * partitions are repartitioned the first time transitions are found for a number.
+ */
+@RequiredArgsConstructor
+@Transactional(transactionManager = SUBSCRIPTION_OPS_TX_MANAGER)
+public class JpaDueTransitionSource implements DueTransitionSource {
+
+    @Getter(AccessLevel.PROTECTED)
+    private final JpaSubscriptionProjectionRepository projectionRepository;
+
+    /**
+     * The largest number of transitions read in a single query. Default is 1000.
+     */
+    @Getter
+    @Setter
+    private int pageSize = 1000;
+
+    private volatile int partitionedFor;
+
+    @Override
+    public List<DueTransition> findDue(Instant now,
+            int partitionCount,
+            Collection<Integer> partitions,
+            int batchSize) {
+        if (partitions.isEmpty()) {
+            return List.of();
+        }
+        if (partitionedFor != partitionCount) {
+            projectionRepository.repartitionTransitions(partitionCount);
+            partitionedFor = partitionCount;
+        }
+
+        List<DueTransition> due = new ArrayList<>();
+        int limit = Math.min(pageSize, batchSize);
+        List<DueTransitionRow> rows = projectionRepository.findDueTransitions(now, partitionCount,
+                partitions, PageRequest.of(0, limit));
+        while (true) {
+            rows.stream().map(this::toTransition).forEach(due::add);
+            if (rows.size() < limit || due.size() >= batchSize) {
+                return due;
+            }
+            DueTransitionRow last = rows.get(rows.size() - 1);
+            limit = Math.min(pageSize, batchSize - due.size());
+            rows = projectionRepository.findDueTransitionsAfter(now, partitionCount, partitions,
+                    last.getNextStatusChangeDate(), last.getId(), PageRequest.of(0, limit));
+        }
+    }
+
+    @Override
+    public void postpone(String subscriptionId, Instant until) {
+        projectionRepository.postponeTransition(subscriptionId, until);
+    }
+
+    protected DueTransition toTransition(DueTransitionRow row) {
+        return new DueTransition(row.getId(),
+                StringUtils.defaultIfEmpty(row.getTenantId(), null),
+                row.getSubscriptionNextStatus(),
+                row.getNextStatusChangeDate(),
+                row.getTransitionRetryAt());
+    }
+}
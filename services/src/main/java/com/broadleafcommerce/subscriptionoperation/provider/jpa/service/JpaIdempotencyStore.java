@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.provider.jpa.service;
+
+import static com.broadleafcommerce.subscriptionoperation.provider.jpa.environment.RouteConstants.Persistence.SUBSCRIPTION_OPS_TX_MANAGER;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.domain.JpaIdempotencyRecord;
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.repository.JpaIdempotencyRecordRepository;
+import com.broadleafcommerce.subscriptionoperation.service.idempotency.IdempotencyRecord;
+import com.broadleafcommerce.subscriptionoperation.service.idempotency.IdempotencyStore;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * An {@link IdempotencyStore} keeping the records in {@link JpaIdempotencyRecord}.
+ */
+@RequiredArgsConstructor
+@Transactional(transactionManager = SUBSCRIPTION_OPS_TX_MANAGER)
+public class JpaIdempotencyStore implements IdempotencyStore {
+
+    @Getter(AccessLevel.PROTECTED)
+    private final JpaIdempotencyRecordRepository repository;
+
+    @Override
+    @Transactional(transactionManager = SUBSCRIPTION_OPS_TX_MANAGER, readOnly = true)
+    public Optional<IdempotencyRecord> read(String id) {
+        return repository.findById(id).map(JpaIdempotencyRecord::toRecord);
+    }
+
+    @Override
+    public boolean begin(IdempotencyRecord record) {
+        Instant now = Clock.systemUTC().instant();
+        Optional<JpaIdempotencyRecord> existing = repository.findById(record.getId());
+        if (existing.isPresent()) {
+            if (!existing.get().toRecord().isExpired(now)) {
+                return false;
+            }
+            // The previous operation was abandoned or its result has expired
+            repository.delete(existing.get());
+            repository.flush();
+        }
+
+        JpaIdempotencyRecord entity = new JpaIdempotencyRecord();
+        entity.setId(record.getId());
+        entity.setRequestHash(record.getRequestHash());
+        entity.setCreatedAt(now);
+        entity.setExpiresAt(record.getExpiresAt());
+        repository.saveAndFlush(entity);
+        return true;
+    }
+
+    @Override
+    public void complete(String id, String response, Instant expiresAt) {
+        repository.complete(id, response, expiresAt);
+    }
+
+    @Override
+    public void release(String id) {
+        repository.findById(id)
+                .filter(entity -> entity.getResponse() == null)
+                .ifPresent(repository::delete);
+    }
+
+    @Override
+    public int purgeExpired(Instant now, int batchSize) {
+        List<String> ids = repository.findExpiredIds(now, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return repository.deleteExpired(ids, now);
+    }
+}
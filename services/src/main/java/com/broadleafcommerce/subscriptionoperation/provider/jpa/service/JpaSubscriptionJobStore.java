@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.provider.jpa.service;
+
+import static com.broadleafcommerce.subscriptionoperation.provider.jpa.environment.RouteConstants.Persistence.SUBSCRIPTION_OPS_TX_MANAGER;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.domain.JpaSubscriptionJob;
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.domain.JpaSubscriptionJobItem;
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.repository.JpaSubscriptionJobItemRepository;
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.repository.JpaSubscriptionJobRepository;
+import com.broadleafcommerce.subscriptionoperation.service.job.SubscriptionJob;
+import com.broadleafcommerce.subscriptionoperation.service.job.SubscriptionJobItem;
+import com.broadleafcommerce.subscriptionoperation.service.job.SubscriptionJobItemStatus;
+import com.broadleafcommerce.subscriptionoperation.service.job.SubscriptionJobStatus;
+import com.broadleafcommerce.subscriptionoperation.service.job.SubscriptionJobStore;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * A {@link SubscriptionJobStore} keeping jobs in {@link JpaSubscriptionJob} and their items in
+ * {@link JpaSubscriptionJobItem}. Jobs are claimed with a version check, so that two instances
+ * cannot claim the same job at once, and are only checkpointed by the instance holding them.
+ */
+@RequiredArgsConstructor
+@Transactional(transactionManager = SUBSCRIPTION_OPS_TX_MANAGER)
+public class JpaSubscriptionJobStore implements SubscriptionJobStore {
+
+    /**
+     * The number of jobs read at once when looking for one to claim.
+     */
+    private static final int CLAIM_CANDIDATES = 10;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final JpaSubscriptionJobRepository jobRepository;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final JpaSubscriptionJobItemRepository itemRepository;
+
+    @Override
+    public void create(SubscriptionJob job, List<String> subscriptionIds) {
+        JpaSubscriptionJob entity = new JpaSubscriptionJob();
+        entity.setId(job.getId());
+        entity.setType(job.getType());
+        entity.setStatus(SubscriptionJobStatus.PENDING);
+        entity.setImmediate(job.isImmediate());
+        entity.setAutoRenewalEnabled(job.getAutoRenewalEnabled());
+        entity.setSubscriptionStatus(job.getSubscriptionStatus());
+        entity.setReason(job.getReason());
+        entity.setTenantId(job.getTenantId());
+        entity.setContextRequest(job.getContextRequest());
+        entity.setTotalItems(subscriptionIds.size());
+        entity.setCreatedAt(job.getCreatedAt());
+        jobRepository.save(entity);
+
+        List<JpaSubscriptionJobItem> items = new ArrayList<>(subscriptionIds.size());
+        for (int i = 0; i < subscriptionIds.size(); i++) {
+            JpaSubscriptionJobItem item = new JpaSubscriptionJobItem();
+            item.setId(JpaSubscriptionJobItem.buildId(job.getId(), i + 1));
+            item.setJobId(job.getId());
+            item.setSequence(i + 1);
+            item.setSubscriptionId(subscriptionIds.get(i));
+            item.setStatus(SubscriptionJobItemStatus.PENDING);
+            items.add(item);
+        }
+        itemRepository.saveAll(items);
+    }
+
+    @Override
+    @Transactional(transactionManager = SUBSCRIPTION_OPS_TX_MANAGER, readOnly = true)
+    public Optional<SubscriptionJob> read(String jobId) {
+        return jobRepository.findById(jobId).map(JpaSubscriptionJob::toJob);
+    }
+
+    @Override
+    @Transactional(transactionManager = SUBSCRIPTION_OPS_TX_MANAGER, readOnly = true)
+    public Page<SubscriptionJobItem> readItems(String jobId,
+            @Nullable SubscriptionJobItemStatus status,
+            Pageable page) {
+        // Items are always in sequence order
+        Pageable unsorted = PageRequest.of(page.getPageNumber(), page.getPageSize());
+        Page<JpaSubscriptionJobItem> items = status == null
+                ? itemRepository.findByJobIdOrderBySequence(jobId, unsorted)
+                : itemRepository.findByJobIdAndStatusOrderBySequence(jobId, status, unsorted);
+        return items.map(JpaSubscriptionJobItem::toItem);
+    }
+
+    @Override
+    public Optional<SubscriptionJob> claim(String owner, Duration lease) {
+        Instant now = Clock.systemUTC().instant();
+        List<JpaSubscriptionJob> claimable = jobRepository.findClaimable(now,
+                SubscriptionJobStatus.PENDING,
+                SubscriptionJobStatus.RUNNING,
+                PageRequest.of(0, CLAIM_CANDIDATES));
+        for (JpaSubscriptionJob entity : claimable) {
+            // Another instance may have claimed the job since it was read
+            if (jobRepository.claim(entity.getId(), entity.getVersion(),
+                    SubscriptionJobStatus.RUNNING, owner, now, now.plus(lease)) == 1) {
+                SubscriptionJob job = entity.toJob();
+                job.setStatus(SubscriptionJobStatus.RUNNING);
+                if (job.getStartedAt() == null) {
+                    job.setStartedAt(now);
+                }
+                return Optional.of(job);
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    @Transactional(transactionManager = SUBSCRIPTION_OPS_TX_MANAGER, readOnly = true)
+    public List<SubscriptionJobItem> readChunk(String jobId, int checkpoint, int chunkSize) {
+        return itemRepository.findByJobIdAndSequenceGreaterThanOrderBySequence(jobId,
+                checkpoint, PageRequest.of(0, chunkSize))
+                .stream()
+                .map(JpaSubscriptionJobItem::toItem)
+                .toList();
+    }
+
+    @Override
+    public boolean checkpoint(String jobId,
+            String owner,
+            List<SubscriptionJobItem> results,
+            Duration lease) {
+        int succeeded = count(results, SubscriptionJobItemStatus.SUCCEEDED);
+        int skipped = count(results, SubscriptionJobItemStatus.SKIPPED);
+        int failed = count(results, SubscriptionJobItemStatus.FAILED);
+        int checkpoint = results.stream()
+                .mapToInt(SubscriptionJobItem::getSequence)
+                .max()
+                .orElse(0);
+        Instant leaseExpiresAt = Clock.systemUTC().instant().plus(lease);
+        if (jobRepository.checkpoint(jobId, owner, SubscriptionJobStatus.RUNNING, succeeded,
+                skipped, failed, checkpoint, leaseExpiresAt) == 0) {
+            return false;
+        }
+        for (SubscriptionJobItem result : results) {
+            itemRepository.record(JpaSubscriptionJobItem.buildId(jobId, result.getSequence()),
+                    result.getStatus(), result.getError(), result.getProcessedAt());
+        }
+        return true;
+    }
+
+    @Override
+    public void complete(String jobId, String owner) {
+        jobRepository.complete(jobId, owner, SubscriptionJobStatus.COMPLETED,
+                Clock.systemUTC().instant());
+    }
+
+    @Override
+    public void release(String owner) {
+        jobRepository.releaseAll(owner, SubscriptionJobStatus.RUNNING,
+                Clock.systemUTC().instant());
+    }
+
+    private static int count(List<SubscriptionJobItem> results,
+            SubscriptionJobItemStatus status) {
+        return (int) results.stream().filter(result -> result.getStatus() == status).count();
+    }
+}
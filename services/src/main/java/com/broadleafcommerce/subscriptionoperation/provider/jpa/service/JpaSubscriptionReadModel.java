@@ -0,0 +1,392 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.provider.jpa.service;
+
+import static com.broadleafcommerce.subscriptionoperation.provider.jpa.environment.RouteConstants.Persistence.SUBSCRIPTION_OPS_TX_MANAGER;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.broadleafcommerce.data.tracking.core.context.ContextInfo;
+import com.broadleafcommerce.data.tracking.core.context.ContextRequest;
+import com.broadleafcommerce.subscriptionoperation.domain.Subscription;
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.domain.JpaSubscriptionOwnerSync;
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.domain.JpaSubscriptionProjection;
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.environment.SubscriptionReadModelProperties;
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.repository.JpaSubscriptionOwnerSyncRepository;
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.repository.JpaSubscriptionProjectionRepository;
+import com.broadleafcommerce.subscriptionoperation.service.provider.SubscriptionReadModel;
+import com.broadleafcommerce.subscriptionoperation.service.transition.DueTransitionSource;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A {@link SubscriptionReadModel} keeping the copies of subscriptions in
+ * {@link JpaSubscriptionProjection}, indexed by owner, status, next status change date and root
+ * item, and recording when each user's subscriptions were last copied in
+ * {@link JpaSubscriptionOwnerSync}.
+ * <p>
+ * Copies are scoped by tenant only. Queries narrowed further, such as to an application, are not
+ * served from the copies, nor do they copy a user's subscriptions, so that subscriptions visible
+ * to the tenant are never returned to a caller narrowed to a single application.
+ */
+@Transactional(transactionManager = SUBSCRIPTION_OPS_TX_MANAGER)
+public class JpaSubscriptionReadModel<SWI extends SubscriptionWithItems>
+        implements SubscriptionReadModel<SWI> {
+
+    /**
+     * The properties that list queries may be sorted by locally, mapped to the properties of
+     * {@link JpaSubscriptionProjection} they are sorted by. This includes the audit creation time
+     * the list endpoints sort by default.
+     */
+    protected static final Map<String, String> SORTABLE_PROPERTIES = Map.of(
+            "id", "id",
+            "createdDate", "createdDate",
+            "tracking.basicAudit.creationTime", "createdDate",
+            "nextStatusChangeDate", "nextStatusChangeDate",
+            "subscriptionStatus", "subscriptionStatus");
+
+    @Getter(AccessLevel.PROTECTED)
+    private final JpaSubscriptionProjectionRepository projectionRepository;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final JpaSubscriptionOwnerSyncRepository ownerSyncRepository;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final ObjectMapper objectMapper;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final SubscriptionReadModelProperties properties;
+
+    /**
+     * The number of partitions due transitions are spread across, which the partition of each
+     * copy is determined for. Default is 16, matching the default number of partitions.
+     */
+    @Getter
+    @Setter
+    private int transitionPartitions = 16;
+
+    private final JavaType type;
+
+    private final Clock clock;
+
+    public JpaSubscriptionReadModel(JpaSubscriptionProjectionRepository projectionRepository,
+            JpaSubscriptionOwnerSyncRepository ownerSyncRepository,
+            ObjectMapper objectMapper,
+            Class<SWI> type,
+            SubscriptionReadModelProperties properties) {
+        this(projectionRepository, ownerSyncRepository, objectMapper, type, properties,
+                Clock.systemUTC());
+    }
+
+    JpaSubscriptionReadModel(JpaSubscriptionProjectionRepository projectionRepository,
+            JpaSubscriptionOwnerSyncRepository ownerSyncRepository,
+            ObjectMapper objectMapper,
+            Class<SWI> type,
+            SubscriptionReadModelProperties properties,
+            Clock clock) {
+        this.projectionRepository = projectionRepository;
+        this.ownerSyncRepository = ownerSyncRepository;
+        this.objectMapper = objectMapper;
+        this.type = objectMapper.getTypeFactory().constructType(type);
+        this.properties = properties;
+        this.clock = clock;
+    }
+
+    @Override
+    @Transactional(transactionManager = SUBSCRIPTION_OPS_TX_MANAGER, readOnly = true)
+    public boolean isSynced(String userRefType,
+            String userRef,
+            @Nullable ContextInfo contextInfo) {
+        return readSync(userRefType, userRef, contextInfo).isPresent();
+    }
+
+    @Override
+    public boolean supportsQuery(@Nullable Pageable page, @Nullable ContextInfo contextInfo) {
+        boolean narrowed = contextInfo != null && contextInfo.getContextRequest() != null
+                && contextInfo.getContextRequest().getApplicationId() != null;
+        return !narrowed && (page == null || isSortable(page));
+    }
+
+    @Override
+    @Transactional(transactionManager = SUBSCRIPTION_OPS_TX_MANAGER, readOnly = true)
+    public Optional<Page<SWI>> readSubscriptions(String userRefType,
+            String userRef,
+            @Nullable Pageable page,
+            @Nullable ContextInfo contextInfo) {
+        Pageable pageable = page == null ? Pageable.unpaged() : page;
+        if (!supportsQuery(pageable, contextInfo)
+                || !isCopied(userRefType, userRef, contextInfo)) {
+            return Optional.empty();
+        }
+
+        Page<JpaSubscriptionProjection> projections =
+                projectionRepository.findByTenantIdAndUserRefTypeAndUserRef(
+                        getTenantId(contextInfo), userRefType, userRef, toLocalPageable(pageable));
+        return Optional.of(new PageImpl<>(projections.map(this::decode).getContent(), pageable,
+                projections.getTotalElements()));
+    }
+
+    @Override
+    @Transactional(transactionManager = SUBSCRIPTION_OPS_TX_MANAGER, readOnly = true)
+    public Optional<Long> countSubscriptions(String userRefType,
+            String userRef,
+            @Nullable ContextInfo contextInfo) {
+        if (!supportsQuery(null, contextInfo) || !isCopied(userRefType, userRef, contextInfo)) {
+            return Optional.empty();
+        }
+        return Optional.of(projectionRepository.countByTenantIdAndUserRefTypeAndUserRef(
+                getTenantId(contextInfo), userRefType, userRef));
+    }
+
+    @Override
+    public void sync(String userRefType,
+            String userRef,
+            Collection<SWI> subscriptions,
+            @Nullable ContextInfo contextInfo) {
+        String tenantId = getTenantId(contextInfo);
+        projectionRepository.deleteByOwner(tenantId, userRefType, userRef);
+        subscriptions.forEach(subscription -> save(subscription, tenantId));
+        saveSync(tenantId, userRefType, userRef, false);
+    }
+
+    @Override
+    public void markTooLarge(String userRefType,
+            String userRef,
+            @Nullable ContextInfo contextInfo) {
+        String tenantId = getTenantId(contextInfo);
+        projectionRepository.deleteByOwner(tenantId, userRefType, userRef);
+        saveSync(tenantId, userRefType, userRef, true);
+    }
+
+    @Override
+    public void apply(SWI subscriptionWithItems, @Nullable ContextInfo contextInfo) {
+        Subscription subscription = subscriptionWithItems.getSubscription();
+        if (subscription == null || subscription.getId() == null) {
+            return;
+        }
+        save(subscriptionWithItems, getTenantId(contextInfo));
+    }
+
+    @Override
+    public void applySubscription(Subscription subscription, @Nullable ContextInfo contextInfo) {
+        if (subscription.getId() == null) {
+            return;
+        }
+        projectionRepository.findById(subscription.getId()).ifPresent(projection -> {
+            SWI subscriptionWithItems = decode(projection);
+            subscriptionWithItems.setSubscription(subscription);
+            save(subscriptionWithItems, projection.getTenantId());
+        });
+    }
+
+    @Override
+    public void remove(String subscriptionId, @Nullable ContextInfo contextInfo) {
+        if (projectionRepository.existsById(subscriptionId)) {
+            projectionRepository.deleteById(subscriptionId);
+        }
+    }
+
+    @Override
+    public int getMaxSubscriptionsPerOwner() {
+        return properties.getMaxSubscriptionsPerOwner();
+    }
+
+    protected Optional<JpaSubscriptionOwnerSync> readSync(String userRefType,
+            String userRef,
+            @Nullable ContextInfo contextInfo) {
+        String id = JpaSubscriptionOwnerSync.buildId(getTenantId(contextInfo), userRefType,
+                userRef);
+        Instant cutoff = clock.instant().minus(properties.getOwnerTtl());
+        return ownerSyncRepository.findById(id)
+                .filter(sync -> sync.getSyncedAt().isAfter(cutoff));
+    }
+
+    protected boolean isCopied(String userRefType,
+            String userRef,
+            @Nullable ContextInfo contextInfo) {
+        return readSync(userRefType, userRef, contextInfo)
+                .map(sync -> !sync.isTooLarge())
+                .orElse(false);
+    }
+
+    protected void saveSync(String tenantId,
+            String userRefType,
+            String userRef,
+            boolean tooLarge) {
+        JpaSubscriptionOwnerSync sync = new JpaSubscriptionOwnerSync();
+        sync.setId(JpaSubscriptionOwnerSync.buildId(tenantId, userRefType, userRef));
+        sync.setSyncedAt(clock.instant());
+        sync.setTooLarge(tooLarge);
+        ownerSyncRepository.save(sync);
+    }
+
+    /**
+     * Determines whether a page may be read locally, which requires every property it is sorted by
+     * to be one of the {@link #SORTABLE_PROPERTIES}. Unpaged reads may not be sorted.
+     *
+     * @param page the requested page
+     * @return whether the page may be read locally
+     */
+    protected boolean isSortable(Pageable page) {
+        if (page.isUnpaged()) {
+            return page.getSort().isUnsorted();
+        }
+        return page.getSort().stream()
+                .allMatch(order -> SORTABLE_PROPERTIES.containsKey(order.getProperty()));
+    }
+
+    /**
+     * Converts the requested page to one of {@link JpaSubscriptionProjection JPA projections},
+     * sorted by the properties its sort maps to in {@link #SORTABLE_PROPERTIES}.
+     *
+     * @param page the requested page, which must be {@link #isSortable(Pageable) sortable}
+     * @return the page to read the projections with
+     */
+    protected Pageable toLocalPageable(Pageable page) {
+        if (page.isUnpaged()) {
+            return page;
+        }
+        Sort sort = Sort.by(page.getSort().stream()
+                .map(order -> order.withProperty(SORTABLE_PROPERTIES.get(order.getProperty())))
+                .toList());
+        if (page.getOffset() % page.getPageSize() == 0) {
+            return PageRequest.of((int) (page.getOffset() / page.getPageSize()),
+                    page.getPageSize(), sort);
+        }
+        return new OffsetPageable(page.getOffset(), page.getPageSize(), sort);
+    }
+
+    protected void save(SWI subscriptionWithItems, String tenantId) {
+        Subscription subscription = subscriptionWithItems.getSubscription();
+        JpaSubscriptionProjection projection = new JpaSubscriptionProjection();
+        projection.setId(subscription.getId());
+        projection.setTenantId(tenantId);
+        projection.setUserRefType(subscription.getUserRefType());
+        projection.setUserRef(subscription.getUserRef());
+        projection.setSubscriptionStatus(subscription.getSubscriptionStatus());
+        projection.setSubscriptionNextStatus(subscription.getSubscriptionNextStatus());
+        projection.setNextStatusChangeDate(subscription.getNextStatusChangeDate() == null ? null
+                : subscription.getNextStatusChangeDate().toInstant());
+        projection.setRootItemRefType(subscription.getRootItemRefType());
+        projection.setRootItemRef(subscription.getRootItemRef());
+        projection.setCreatedDate(subscription.getCreatedDate() == null ? null
+                : subscription.getCreatedDate().toInstant());
+        projection.setSubscriptionVersion(subscription.getVersion());
+        projection.setPayload(encode(subscriptionWithItems));
+        projection.setProjectedAt(clock.instant());
+        projection.setPartitionKey(DueTransitionSource.getPartitionKey(subscription.getId()));
+        projection.setTransitionPartitions(transitionPartitions);
+        projection.setTransitionPartition(
+                DueTransitionSource.getPartition(subscription.getId(), transitionPartitions));
+        projectionRepository.save(projection);
+    }
+
+    protected String encode(SWI subscriptionWithItems) {
+        try {
+            return objectMapper.writeValueAsString(subscriptionWithItems);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to convert to JSON", e);
+        }
+    }
+
+    protected SWI decode(JpaSubscriptionProjection projection) {
+        try {
+            return objectMapper.readValue(projection.getPayload(), type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to read the copy of subscription "
+                    + projection.getId(), e);
+        }
+    }
+
+    protected String getTenantId(@Nullable ContextInfo contextInfo) {
+        return Optional.ofNullable(contextInfo)
+                .map(ContextInfo::getContextRequest)
+                .map(ContextRequest::getTenantId)
+                .orElse("");
+    }
+
+    /**
+     * A page starting at an offset that is not a multiple of its size, as requested with an
+     * {@link com.broadleafcommerce.data.tracking.core.filtering.UnnumberedPageable}.
+     */
+    private record OffsetPageable(long offset, int size, Sort sort) implements Pageable {
+
+        @Override
+        public int getPageNumber() {
+            return (int) (offset / size);
+        }
+
+        @Override
+        public int getPageSize() {
+            return size;
+        }
+
+        @Override
+        public long getOffset() {
+            return offset;
+        }
+
+        @Override
+        public Sort getSort() {
+            return sort;
+        }
+
+        @Override
+        public Pageable next() {
+            return new OffsetPageable(offset + size, size, sort);
+        }
+
+        @Override
+        public Pageable previousOrFirst() {
+            return hasPrevious() ? new OffsetPageable(Math.max(offset - size, 0), size, sort)
+                    : this;
+        }
+
+        @Override
+        public Pageable first() {
+            return new OffsetPageable(0, size, sort);
+        }
+
+        @Override
+        public Pageable withPage(int pageNumber) {
+            return new OffsetPageable((long) pageNumber * size, size, sort);
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return offset > 0;
+        }
+    }
+}
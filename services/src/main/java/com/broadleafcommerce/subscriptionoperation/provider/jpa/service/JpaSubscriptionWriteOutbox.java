@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.provider.jpa.service;
+
+import static com.broadleafcommerce.subscriptionoperation.provider.jpa.environment.RouteConstants.Persistence.SUBSCRIPTION_OPS_TX_MANAGER;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.domain.JpaSubscriptionWrite;
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.repository.JpaSubscriptionWriteRepository;
+import com.broadleafcommerce.subscriptionoperation.service.outbox.SubscriptionWrite;
+import com.broadleafcommerce.subscriptionoperation.service.outbox.SubscriptionWriteOutbox;
+import com.broadleafcommerce.subscriptionoperation.service.outbox.SubscriptionWriteStatus;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * A {@link SubscriptionWriteOutbox} keeping the writes in {@link JpaSubscriptionWrite}.
+ * <p>
+ * Writes are ordered by a sequence number derived from the time they were added, in
+ * microseconds, and kept strictly increasing within this instance. Writes with the same ordering
+ * key added by different instances within the clock skew between them may therefore be
+ * dispatched out of order.
+ */
+@RequiredArgsConstructor
+@Transactional(transactionManager = SUBSCRIPTION_OPS_TX_MANAGER)
+public class JpaSubscriptionWriteOutbox implements SubscriptionWriteOutbox {
+
+    private static final AtomicLong LAST_SEQUENCE_NUMBER = new AtomicLong();
+
+    @Getter(AccessLevel.PROTECTED)
+    private final JpaSubscriptionWriteRepository repository;
+
+    @Override
+    public void add(SubscriptionWrite write) {
+        JpaSubscriptionWrite entity = new JpaSubscriptionWrite();
+        entity.setId(write.getId());
+        entity.setOperation(write.getOperation());
+        entity.setOrderingKey(write.getOrderingKey());
+        entity.setSequenceNumber(nextSequenceNumber());
+        entity.setPayload(write.getPayload());
+        entity.setContextRequest(write.getContextRequest());
+        entity.setStatus(SubscriptionWriteStatus.PENDING);
+        entity.setCreatedAt(write.getCreatedAt());
+        entity.setNextAttemptAt(write.getCreatedAt());
+        repository.save(entity);
+    }
+
+    @Override
+    public List<SubscriptionWrite> claim(int batchSize, Duration lease) {
+        Instant now = Clock.systemUTC().instant();
+        List<JpaSubscriptionWrite> due = repository.findDue(now,
+                SubscriptionWriteStatus.PENDING,
+                SubscriptionWriteStatus.DISPATCHING,
+                SubscriptionWriteStatus.FAILED,
+                PageRequest.of(0, batchSize));
+
+        List<SubscriptionWrite> claimed = new ArrayList<>(due.size());
+        for (JpaSubscriptionWrite entity : due) {
+            // Another instance may have claimed the write since it was read
+            if (repository.claim(entity.getId(), entity.getVersion(),
+                    SubscriptionWriteStatus.DISPATCHING, now.plus(lease)) == 1) {
+                SubscriptionWrite write = entity.toWrite();
+                write.setStatus(SubscriptionWriteStatus.DISPATCHING);
+                write.setAttempts(entity.getAttempts() + 1);
+                claimed.add(write);
+            }
+        }
+        return claimed;
+    }
+
+    @Override
+    public void complete(String id) {
+        repository.deleteById(id);
+    }
+
+    @Override
+    public void retry(String id, Instant nextAttemptAt, String error) {
+        repository.release(id, SubscriptionWriteStatus.PENDING, nextAttemptAt, error);
+    }
+
+    @Override
+    public void fail(String id, String error) {
+        repository.release(id, SubscriptionWriteStatus.FAILED, Clock.systemUTC().instant(),
+                error);
+    }
+
+    private static long nextSequenceNumber() {
+        Instant now = Clock.systemUTC().instant();
+        long micros = ChronoUnit.MICROS.between(Instant.EPOCH, now);
+        return LAST_SEQUENCE_NUMBER.updateAndGet(last -> Math.max(last + 1, micros));
+    }
+}
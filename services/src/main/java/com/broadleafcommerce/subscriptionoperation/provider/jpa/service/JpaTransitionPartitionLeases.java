@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.provider.jpa.service;
+
+import static com.broadleafcommerce.subscriptionoperation.provider.jpa.environment.RouteConstants.Persistence.SUBSCRIPTION_OPS_TX_MANAGER;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.domain.JpaTransitionPartitionLease;
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.repository.JpaTransitionPartitionLeaseRepository;
+import com.broadleafcommerce.subscriptionoperation.service.transition.TransitionPartitionLeases;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@link TransitionPartitionLeases} kept in {@link JpaTransitionPartitionLease}, with a row per
+ * partition that is created the first time the partition is leased. Leases are changed with a
+ * version check, so that two instances cannot lease the same partition at once. Should two
+ * instances create the same partition at once, one of them fails to acquire any partitions until
+ * its next attempt.
+ */
+@RequiredArgsConstructor
+@Transactional(transactionManager = SUBSCRIPTION_OPS_TX_MANAGER)
+public class JpaTransitionPartitionLeases implements TransitionPartitionLeases {
+
+    @Getter(AccessLevel.PROTECTED)
+    private final JpaTransitionPartitionLeaseRepository repository;
+
+    @Override
+    public Set<Integer> acquire(String owner, int partitionCount, Duration lease) {
+        Instant now = Clock.systemUTC().instant();
+        Instant leaseExpiresAt = now.plus(lease);
+        Map<Integer, JpaTransitionPartitionLease> leases = readLeases(partitionCount, now);
+
+        long otherOwners = leases.values().stream()
+                .filter(partition -> partition.isHeld(now))
+                .map(JpaTransitionPartitionLease::getOwner)
+                .filter(partitionOwner -> !owner.equals(partitionOwner))
+                .distinct()
+                .count();
+        long fairShare = (partitionCount + otherOwners) / (otherOwners + 1);
+
+        Set<Integer> leased = new HashSet<>();
+        List<JpaTransitionPartitionLease> available = new ArrayList<>();
+        for (JpaTransitionPartitionLease partition : leases.values()) {
+            if (owner.equals(partition.getOwner()) && partition.isHeld(now)) {
+                if (leased.size() < fairShare) {
+                    if (lease(partition, owner, leaseExpiresAt)) {
+                        leased.add(partition.getId());
+                    }
+                } else {
+                    // Give up partitions beyond the fair share to instances that started since
+                    lease(partition, null, now);
+                }
+            } else if (!partition.isHeld(now)) {
+                available.add(partition);
+            }
+        }
+        for (JpaTransitionPartitionLease partition : available) {
+            if (leased.size() >= fairShare) {
+                break;
+            }
+            if (lease(partition, owner, leaseExpiresAt)) {
+                leased.add(partition.getId());
+            }
+        }
+        return leased;
+    }
+
+    @Override
+    public void release(String owner) {
+        repository.releaseAll(owner, Clock.systemUTC().instant());
+    }
+
+    /**
+     * Reads the leases of every partition, creating those that do not exist yet.
+     */
+    protected Map<Integer, JpaTransitionPartitionLease> readLeases(int partitionCount,
+            Instant now) {
+        Map<Integer, JpaTransitionPartitionLease> leases = repository.findAll().stream()
+                .filter(partition -> partition.getId() < partitionCount)
+                .collect(Collectors.toMap(JpaTransitionPartitionLease::getId,
+                        Function.identity()));
+        for (int id = 0; id < partitionCount; id++) {
+            if (!leases.containsKey(id)) {
+                JpaTransitionPartitionLease partition = new JpaTransitionPartitionLease();
+                partition.setId(id);
+                partition.setLeaseExpiresAt(now);
+                leases.put(id, repository.saveAndFlush(partition));
+            }
+        }
+        return leases;
+    }
+
+    private boolean lease(JpaTransitionPartitionLease partition,
+            String owner,
+            Instant leaseExpiresAt) {
+        return repository.lease(partition.getId(), partition.getVersion(), owner,
+                leaseExpiresAt) == 1;
+    }
+}
@@ -24,10 +24,17 @@ import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.MessageSource;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.context.i18n.LocaleContext;
 import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.broadleafcommerce.common.extension.TypeFactory;
 import com.broadleafcommerce.data.tracking.core.context.ContextInfo;
@@ -36,11 +43,17 @@ import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionAction;
 import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionItem;
 import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
 import com.broadleafcommerce.subscriptionoperation.domain.enums.DefaultSubscriptionActionType;
+import com.broadleafcommerce.subscriptionoperation.domain.enums.SubscriptionProjection;
 import com.broadleafcommerce.subscriptionoperation.domain.enums.SubscriptionStatuses;
+import com.broadleafcommerce.subscriptionoperation.exception.ProviderApiException;
+import com.broadleafcommerce.subscriptionoperation.service.metrics.SubscriptionOperationMetrics;
+import com.broadleafcommerce.subscriptionoperation.service.provider.ConditionalRead;
+import com.broadleafcommerce.subscriptionoperation.service.provider.PassThroughSubscriptionProvider;
 import com.broadleafcommerce.subscriptionoperation.service.provider.SubscriptionProvider;
 import com.broadleafcommerce.subscriptionoperation.web.domain.ChangeAutoRenewalRequest;
 import com.broadleafcommerce.subscriptionoperation.web.domain.SubscriptionActionRequest;
 import com.broadleafcommerce.subscriptionoperation.web.domain.SubscriptionActionResponse;
+import com.broadleafcommerce.subscriptionoperation.web.domain.SubscriptionBatchActionRequest;
 import com.broadleafcommerce.subscriptionoperation.web.domain.SubscriptionCancellationRequest;
 import com.broadleafcommerce.subscriptionoperation.web.domain.SubscriptionCreationRequest;
 import com.broadleafcommerce.subscriptionoperation.web.domain.SubscriptionDowngradeRequest;
@@ -49,8 +62,13 @@ import com.broadleafcommerce.subscriptionoperation.web.domain.SubscriptionUpgrad
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 
 import cz.jirutka.rsql.parser.ast.Node;
 import lombok.AccessLevel;
@@ -59,12 +77,18 @@ import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
 
 @Slf4j
 @RequiredArgsConstructor
 public class DefaultSubscriptionOperationService<S extends Subscription, I extends SubscriptionItem, SWI extends SubscriptionWithItems>
         implements SubscriptionOperationService<S, I, SWI> {
 
+    /**
+     * The action type under which the validation of subscription creation is recorded.
+     */
+    protected static final String CREATE_ACTION = "CREATE";
+
     @Getter(AccessLevel.PROTECTED)
     protected final SubscriptionProvider<SWI> subscriptionProvider;
 
@@ -78,6 +102,18 @@ public class DefaultSubscriptionOperationService<S extends Subscription, I exten
     @Setter(onMethod_ = {@Autowired, @Lazy})
     protected SubscriptionValidationService subscriptionValidationService;
 
+    @Getter(value = AccessLevel.PROTECTED, onMethod_ = @Nullable)
+    @Setter(onMethod_ = @Autowired(required = false))
+    private SubscriptionOperationMetrics metrics;
+
+    @Getter(value = AccessLevel.PROTECTED, onMethod_ = @Nullable)
+    @Setter(onMethod_ = @Autowired(required = false))
+    private SubscriptionActionJsonTransformer actionJsonTransformer;
+
+    @Getter(AccessLevel.PROTECTED)
+    @Setter(onMethod_ = @Autowired(required = false))
+    private List<SubscriptionChangeListener> changeListeners = List.of();
+
     @Override
     public SubscriptionActionResponse readSubscriptionActions(
             @NonNull SubscriptionActionRequest request,
@@ -86,26 +122,57 @@ public class DefaultSubscriptionOperationService<S extends Subscription, I exten
                 subscriptionProvider.readUserSubscriptionById(request.getUserRefType(),
                         request.getUserRef(), request.getSubscriptionId(), contextInfo);
 
-        populateSubscriptionActions(subscription, contextInfo);
+        return buildActionResponse(subscription, contextInfo);
+    }
 
-        SubscriptionActionResponse response = typeFactory.get(SubscriptionActionResponse.class);
-        response.setAvailableActions(subscription.getAvailableActions());
-        response.setUnavailableReasonsByActionType(
-                subscription.getUnavailableReasonsByActionType());
-        return response;
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The subscriptions are read in a single batched provider call, after which their actions
+     * are evaluated in turn.
+     */
+    @Override
+    public Map<String, SubscriptionActionResponse> readSubscriptionActions(
+            @NonNull SubscriptionBatchActionRequest request,
+            @Nullable ContextInfo contextInfo) {
+        List<SWI> subscriptions = subscriptionProvider
+                .readSubscriptionsByIds(request.getSubscriptionIds(), contextInfo)
+                .stream()
+                .filter(subscription -> isOwnedBy(subscription, request.getUserRefType(),
+                        request.getUserRef()))
+                .toList();
+
+        Map<String, SubscriptionActionResponse> responsesById =
+                new LinkedHashMap<>(subscriptions.size());
+        for (SWI subscription : subscriptions) {
+            responsesById.put(subscription.getSubscription().getId(),
+                    buildActionResponse(subscription, contextInfo));
+        }
+        return responsesById;
+    }
+
+    @Override
+    public Page<SWI> readSubscriptionsForUserRefTypeAndUserRef(@lombok.NonNull String userRefType,
+            @lombok.NonNull String userRef,
+            boolean getActions,
+            @Nullable Pageable page,
+            @Nullable Node filters,
+            @Nullable ContextInfo contextInfo) {
+        return readSubscriptionsForUserRefTypeAndUserRef(userRefType, userRef, getActions,
+                SubscriptionProjection.FULL, page, filters, contextInfo);
     }
 
     @Override
     public Page<SWI> readSubscriptionsForUserRefTypeAndUserRef(@lombok.NonNull String userRefType,
             @lombok.NonNull String userRef,
             boolean getActions,
+            @lombok.NonNull SubscriptionProjection projection,
             @Nullable Pageable page,
             @Nullable Node filters,
             @Nullable ContextInfo contextInfo) {
         Page<SWI> subscriptions =
                 subscriptionProvider.readSubscriptionsForUserRefTypeAndUserRef(userRefType, userRef,
-                        page,
-                        filters, contextInfo);
+                        projection, page, filters, contextInfo);
         if (getActions) {
             populateSubscriptionActions(subscriptions, contextInfo);
         }
@@ -113,6 +180,57 @@ public class DefaultSubscriptionOperationService<S extends Subscription, I exten
         return subscriptions;
     }
 
+    @Override
+    public long countSubscriptions(@lombok.NonNull String userRefType,
+            @lombok.NonNull String userRef,
+            @Nullable Node filters,
+            @Nullable ContextInfo contextInfo) {
+        return subscriptionProvider.countSubscriptions(userRefType, userRef, filters, contextInfo);
+    }
+
+    @Override
+    public boolean existsSubscriptions(@lombok.NonNull String userRefType,
+            @lombok.NonNull String userRef,
+            @Nullable Node filters,
+            @Nullable ContextInfo contextInfo) {
+        return subscriptionProvider.existsSubscriptions(userRefType, userRef, filters,
+                contextInfo);
+    }
+
+    @Override
+    @Nullable
+    public ResponseEntity<StreamingResponseBody> streamSubscriptionsForUserRefTypeAndUserRef(
+            @lombok.NonNull String userRefType,
+            @lombok.NonNull String userRef,
+            boolean getActions,
+            @Nullable Pageable page,
+            @Nullable Node filters,
+            @Nullable ContextInfo contextInfo) {
+        if (!(subscriptionProvider instanceof PassThroughSubscriptionProvider passThrough)
+                || (getActions && actionJsonTransformer == null)) {
+            return null;
+        }
+
+        ResponseEntity<Flux<DataBuffer>> raw =
+                passThrough.readSubscriptionsForUserRefTypeAndUserRefPassThrough(
+                        userRefType, userRef, page, filters, contextInfo);
+        Flux<DataBuffer> body = raw.getBody() == null ? Flux.empty() : raw.getBody();
+        StreamingResponseBody writer;
+        if (getActions) {
+            writer = new PassThroughResponseBody(body,
+                    withCallerContext((buffers, out) -> actionJsonTransformer.transform(buffers,
+                            out,
+                            subscription -> resolveSubscriptionActions(subscription,
+                                    contextInfo))));
+        } else {
+            writer = PassThroughResponseBody.relay(body);
+        }
+        return ResponseEntity.status(raw.getStatusCode())
+                .contentType(Optional.ofNullable(raw.getHeaders().getContentType())
+                        .orElse(MediaType.APPLICATION_JSON))
+                .body(writer);
+    }
+
     @Override
     public SWI readUserSubscriptionById(@lombok.NonNull String userRefType,
             @lombok.NonNull String userRef,
@@ -134,38 +252,96 @@ public class DefaultSubscriptionOperationService<S extends Subscription, I exten
         return subscriptionProvider.readSubscriptionById(subscriptionId, contextInfo);
     }
 
+    @Override
+    public ConditionalRead<SWI> readUserSubscriptionById(@lombok.NonNull String userRefType,
+            @lombok.NonNull String userRef,
+            @lombok.NonNull String subscriptionId,
+            boolean getActions,
+            @Nullable String ifNoneMatch,
+            @Nullable ContextInfo contextInfo) {
+        ConditionalRead<SWI> read = subscriptionProvider.readUserSubscriptionById(userRefType,
+                userRef, subscriptionId, ifNoneMatch, contextInfo);
+        if (getActions && read.getBody() != null) {
+            populateSubscriptionActions(read.getBody(), contextInfo);
+        }
+        return read;
+    }
+
+    @Override
+    public ConditionalRead<SWI> readSubscriptionById(@lombok.NonNull String subscriptionId,
+            @Nullable String ifNoneMatch,
+            @Nullable ContextInfo contextInfo) {
+        return subscriptionProvider.readSubscriptionById(subscriptionId, ifNoneMatch,
+                contextInfo);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Derived from the {@link #getAllActionTypes() action types} that are evaluated.
+     */
+    @Override
+    public String getActionEvaluationTag() {
+        return Integer.toHexString(getAllActionTypes().hashCode());
+    }
+
+    @Override
+    public List<SWI> readSubscriptionsByIds(@lombok.NonNull Collection<String> subscriptionIds,
+            @Nullable ContextInfo contextInfo) {
+        return subscriptionProvider.readSubscriptionsByIds(subscriptionIds, contextInfo);
+    }
+
+    @Override
+    @Nullable
+    public ResponseEntity<Flux<DataBuffer>> readSubscriptionByIdPassThrough(
+            @lombok.NonNull String subscriptionId,
+            @Nullable ContextInfo contextInfo) {
+        if (!(subscriptionProvider instanceof PassThroughSubscriptionProvider passThrough)) {
+            return null;
+        }
+        return passThrough.readSubscriptionByIdPassThrough(subscriptionId, contextInfo);
+    }
+
     @Override
     public SWI createSubscriptionWithItems(
             @lombok.NonNull SubscriptionCreationRequest creationRequest,
             @Nullable ContextInfo contextInfo) {
-        subscriptionValidationService.validateSubscriptionCreation(creationRequest, contextInfo);
+        recordValidation(CREATE_ACTION, () -> subscriptionValidationService
+                .validateSubscriptionCreation(creationRequest, contextInfo));
 
         SWI subscriptionWithItemsToCreate =
                 buildSubscriptionWithItems(creationRequest, contextInfo);
 
-        return subscriptionProvider.create(subscriptionWithItemsToCreate, contextInfo);
+        SWI created = subscriptionProvider.create(subscriptionWithItemsToCreate, contextInfo);
+        notifyChanged(created.getSubscription(), contextInfo);
+        return created;
     }
 
     @Override
     public S cancelSubscription(
             @lombok.NonNull SubscriptionCancellationRequest cancellationRequest,
             @Nullable ContextInfo contextInfo) {
-        subscriptionValidationService.validateSubscriptionCancellation(cancellationRequest,
-                contextInfo);
+        recordValidation(DefaultSubscriptionActionType.CANCEL.name(),
+                () -> subscriptionValidationService
+                        .validateSubscriptionCancellation(cancellationRequest, contextInfo));
         return null;
     }
 
     @Override
     public S upgradeSubscription(@lombok.NonNull SubscriptionUpgradeRequest upgradeRequest,
             @Nullable ContextInfo contextInfo) {
-        subscriptionValidationService.validateSubscriptionUpgrade(upgradeRequest, contextInfo);
+        recordValidation(DefaultSubscriptionActionType.UPGRADE.name(),
+                () -> subscriptionValidationService.validateSubscriptionUpgrade(upgradeRequest,
+                        contextInfo));
         return null;
     }
 
     @Override
     public S downgradeSubscription(@lombok.NonNull SubscriptionDowngradeRequest downgradeRequest,
             @Nullable ContextInfo contextInfo) {
-        subscriptionValidationService.validateSubscriptionDowngrade(downgradeRequest, contextInfo);
+        recordValidation(DefaultSubscriptionActionType.DOWNGRADE.name(),
+                () -> subscriptionValidationService.validateSubscriptionDowngrade(downgradeRequest,
+                        contextInfo));
         return null;
     }
 
@@ -174,9 +350,52 @@ public class DefaultSubscriptionOperationService<S extends Subscription, I exten
             @Nullable ContextInfo contextInfo) {
         SubscriptionWithItems subWithItems =
                 readSubscriptionById(changeRequest.getSubscriptionId(), contextInfo);
-        Subscription subscription = subWithItems.getSubscription();
-        subscriptionValidationService.validateSubscriptionChangeAutoRenewal(changeRequest,
-                subWithItems, contextInfo);
+        validateAutoRenewalChange(changeRequest, subWithItems, contextInfo);
+        return replaceAutoRenewal(changeRequest, subWithItems.getSubscription(), contextInfo);
+    }
+
+    @Override
+    public void validateAutoRenewalChange(ChangeAutoRenewalRequest changeRequest,
+            @Nullable ContextInfo contextInfo) {
+        validateAutoRenewalChange(changeRequest,
+                readSubscriptionById(changeRequest.getSubscriptionId(), contextInfo),
+                contextInfo);
+    }
+
+    @Override
+    public Subscription applyAutoRenewalChange(ChangeAutoRenewalRequest changeRequest,
+            @Nullable ContextInfo contextInfo) {
+        Subscription subscription =
+                readSubscriptionById(changeRequest.getSubscriptionId(), contextInfo)
+                        .getSubscription();
+        if (subscription.isAutoRenewalEnabled() == changeRequest.isAutoRenewalEnabled()) {
+            // Already made, such as by an earlier change accepted for the same state
+            return subscription;
+        }
+        return replaceAutoRenewal(changeRequest, subscription, contextInfo);
+    }
+
+    protected void validateAutoRenewalChange(ChangeAutoRenewalRequest changeRequest,
+            SubscriptionWithItems subWithItems,
+            @Nullable ContextInfo contextInfo) {
+        recordValidation(DefaultSubscriptionActionType.CHANGE_AUTO_RENEWAL.name(),
+                () -> subscriptionValidationService.validateSubscriptionChangeAutoRenewal(
+                        changeRequest, subWithItems, contextInfo));
+    }
+
+    /**
+     * Applies the new auto-renewal state to the given subscription and replaces it, notifying the
+     * {@link #getChangeListeners() change listeners}.
+     *
+     * @param changeRequest the {@link ChangeAutoRenewalRequest} containing the new auto renewal
+     *        state
+     * @param subscription the subscription as it was last read
+     * @param contextInfo context information around multi-tenant state
+     * @return the updated {@link Subscription}
+     */
+    protected Subscription replaceAutoRenewal(ChangeAutoRenewalRequest changeRequest,
+            Subscription subscription,
+            @Nullable ContextInfo contextInfo) {
         subscription.setAutoRenewalEnabled(changeRequest.isAutoRenewalEnabled());
 
         if (changeRequest.isAutoRenewalEnabled()) {
@@ -195,8 +414,48 @@ public class DefaultSubscriptionOperationService<S extends Subscription, I exten
             subscription.setNextStatusChangeReason(reason);
         }
 
-        return subscriptionProvider.replaceSubscription(changeRequest.getSubscriptionId(),
-                subscription, contextInfo);
+        Subscription replaced = subscriptionProvider.replaceSubscription(
+                changeRequest.getSubscriptionId(), subscription, contextInfo);
+        notifyChanged(replaced, contextInfo);
+        return replaced;
+    }
+
+    /**
+     * Populates the actions of the given subscription, returning them as a response.
+     *
+     * @param subscription the subscription to populate actions for
+     * @param contextInfo context information around multi-tenant state
+     * @return the available and unavailable actions of the subscription
+     */
+    protected SubscriptionActionResponse buildActionResponse(SWI subscription,
+            @Nullable ContextInfo contextInfo) {
+        populateSubscriptionActions(subscription, contextInfo);
+
+        SubscriptionActionResponse response = typeFactory.get(SubscriptionActionResponse.class);
+        response.setAvailableActions(subscription.getAvailableActions());
+        response.setUnavailableReasonsByActionType(
+                subscription.getUnavailableReasonsByActionType());
+        return response;
+    }
+
+    /**
+     * Determines whether the given subscription is owned by the given user, either directly or as
+     * its alternate user.
+     *
+     * @param subscription the subscription to check
+     * @param userRefType the type of the user
+     * @param userRef the id of the user
+     * @return whether the subscription is owned by the user
+     */
+    protected boolean isOwnedBy(SWI subscription, String userRefType, String userRef) {
+        Subscription sub = subscription.getSubscription();
+        if (sub == null) {
+            return false;
+        }
+        return (Objects.equals(userRefType, sub.getUserRefType())
+                && Objects.equals(userRef, sub.getUserRef()))
+                || (Objects.equals(userRefType, sub.getAlternateUserRefType())
+                        && Objects.equals(userRef, sub.getAlternateUserRef()));
     }
 
     protected void populateSubscriptionActions(Iterable<SWI> subscriptions,
@@ -205,9 +464,96 @@ public class DefaultSubscriptionOperationService<S extends Subscription, I exten
                 .forEach(subscription -> populateSubscriptionActions(subscription, contextInfo));
     }
 
+    /**
+     * Wraps a writer so that it runs with the locale and security context of the calling thread,
+     * since the body is written on the MVC async thread rather than the request thread.
+     */
+    protected PassThroughResponseBody.BodyWriter withCallerContext(
+            PassThroughResponseBody.BodyWriter writer) {
+        LocaleContext localeContext = LocaleContextHolder.getLocaleContext();
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+        return (buffers, out) -> {
+            LocaleContext previousLocaleContext = LocaleContextHolder.getLocaleContext();
+            SecurityContext previousSecurityContext = SecurityContextHolder.getContext();
+            LocaleContextHolder.setLocaleContext(localeContext);
+            SecurityContextHolder.setContext(securityContext);
+            try {
+                writer.write(buffers, out);
+            } finally {
+                LocaleContextHolder.setLocaleContext(previousLocaleContext);
+                SecurityContextHolder.setContext(previousSecurityContext);
+            }
+        };
+    }
+
+    /**
+     * Resolves the actions of a subscription whose items are not available, as is the case when
+     * {@link #streamSubscriptionsForUserRefTypeAndUserRef streaming} subscriptions.
+     *
+     * @param subscription the subscription to resolve actions for
+     * @param contextInfo context information around multi-tenant state
+     * @return a {@link SubscriptionWithItems} without items, with its actions populated
+     */
+    @SuppressWarnings("unchecked")
+    protected SWI resolveSubscriptionActions(Subscription subscription,
+            @Nullable ContextInfo contextInfo) {
+        SWI subscriptionWithItems = (SWI) typeFactory.get(SubscriptionWithItems.class);
+        subscriptionWithItems.setSubscription(subscription);
+        populateSubscriptionActions(subscriptionWithItems, contextInfo);
+        return subscriptionWithItems;
+    }
+
     protected void populateSubscriptionActions(SWI subscription,
             @Nullable ContextInfo contextInfo) {
+        long start = System.nanoTime();
         getAllActionTypes().forEach(action -> populateActionAvailability(subscription, action));
+        if (metrics != null) {
+            metrics.recordActionPopulation(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Notifies the {@link #getChangeListeners() change listeners} of a subscription that was
+     * created or changed.
+     *
+     * @param subscription the subscription as it was written
+     * @param contextInfo context information around multi-tenant state
+     */
+    protected void notifyChanged(@Nullable Subscription subscription,
+            @Nullable ContextInfo contextInfo) {
+        if (subscription == null) {
+            return;
+        }
+        for (SubscriptionChangeListener listener : changeListeners) {
+            listener.onSubscriptionChanged(subscription, contextInfo);
+        }
+    }
+
+    /**
+     * Runs the given validation, recording how long it took and whether it passed.
+     *
+     * @param actionType the action being validated. See {@link DefaultSubscriptionActionType}
+     * @param validation the validation to run
+     */
+    protected void recordValidation(String actionType, Runnable validation) {
+        if (metrics == null) {
+            validation.run();
+            return;
+        }
+
+        long start = System.nanoTime();
+        String outcome = SubscriptionOperationMetrics.VALID;
+        try {
+            validation.run();
+        } catch (ProviderApiException e) {
+            outcome = SubscriptionOperationMetrics.ERROR;
+            throw e;
+        } catch (RuntimeException e) {
+            outcome = SubscriptionOperationMetrics.INVALID;
+            throw e;
+        } finally {
+            metrics.recordValidation(actionType, outcome, System.nanoTime() - start);
+        }
     }
 
     protected List<String> getAllActionTypes() {
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Writes a body received from the resource-tier service, such as a page of subscriptions read
+ * with pass-through, as a {@link StreamingResponseBody}.
+ * <p>
+ * The body is only subscribed to once it is written on the MVC async thread. If that never
+ * happens, or the request times out or fails while it is being written, the body must be
+ * {@link #discard() discarded} so that its connection and buffers are released. Registering
+ * {@link #asInterceptor()} with the request's
+ * {@link org.springframework.web.context.request.async.WebAsyncManager} does this.
+ */
+@RequiredArgsConstructor
+public class PassThroughResponseBody implements StreamingResponseBody {
+
+    private final Flux<DataBuffer> body;
+
+    private final BodyWriter writer;
+
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    private final Sinks.One<Boolean> discarded = Sinks.one();
+
+    /**
+     * Relays the body as it is received.
+     *
+     * @param body the body received from the resource-tier service
+     * @return the response body
+     */
+    public static PassThroughResponseBody relay(Flux<DataBuffer> body) {
+        return new PassThroughResponseBody(body, (buffers, out) -> DataBufferUtils
+                .write(buffers, out)
+                .doOnNext(DataBufferUtils::release)
+                .then()
+                .block());
+    }
+
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        if (!subscribed.compareAndSet(false, true)) {
+            throw new IllegalStateException("The body was already written or discarded");
+        }
+        writer.write(body.takeUntilOther(discarded.asMono()), outputStream);
+    }
+
+    /**
+     * Stops writing the body if it is being written, or releases it if it was not written yet.
+     * This does nothing once the body has been written.
+     */
+    public void discard() {
+        discarded.tryEmitValue(true);
+        if (subscribed.compareAndSet(false, true)) {
+            // Cancelling the body closes its connection rather than reading it to the end
+            body.subscribe(DataBufferUtils::release, error -> {}).dispose();
+        }
+    }
+
+    /**
+     * Builds an interceptor discarding the body once the async request completes, or as soon
+     * as it times out or fails.
+     *
+     * @return the interceptor to register with the request's async manager
+     */
+    public CallableProcessingInterceptor asInterceptor() {
+        return new CallableProcessingInterceptor() {
+            @Override
+            public <T> Object handleTimeout(NativeWebRequest request, Callable<T> task) {
+                discard();
+                return RESULT_NONE;
+            }
+
+            @Override
+            public <T> Object handleError(NativeWebRequest request,
+                    Callable<T> task,
+                    Throwable t) {
+                discard();
+                return RESULT_NONE;
+            }
+
+            @Override
+            public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+                discard();
+            }
+        };
+    }
+
+    /**
+     * Writes the body to the response.
+     */
+    @FunctionalInterface
+    public interface BodyWriter {
+
+        /**
+         * Writes the given buffers to the given stream, releasing each of them.
+         *
+         * @param body the body received from the resource-tier service
+         * @param out the stream to write to. This is not closed.
+         * @throws IOException if the output could not be written
+         */
+        void write(Flux<DataBuffer> body, OutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.lang.Nullable;
+
+import com.broadleafcommerce.common.extension.TypeFactory;
+import com.broadleafcommerce.subscriptionoperation.domain.Subscription;
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.function.Function;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+
+/**
+ * Rewrites a page of {@link SubscriptionWithItems} as received from the resource-tier service,
+ * injecting {@link SubscriptionWithItems#getAvailableActions() availableActions} and
+ * {@link SubscriptionWithItems#getUnavailableReasonsByActionType() unavailableReasonsByActionType}
+ * into each entry of its {@code content} as it streams by.
+ * <p>
+ * Only the {@code subscription} of each entry is deserialized, since that is what actions are
+ * determined from. Every other token, including the subscription items, is copied to the output
+ * as-is, so the page is never materialized as a whole.
+ */
+@RequiredArgsConstructor
+public class SubscriptionActionJsonTransformer {
+
+    public static final String CONTENT = "content";
+    public static final String SUBSCRIPTION = "subscription";
+    public static final String AVAILABLE_ACTIONS = "availableActions";
+    public static final String UNAVAILABLE_REASONS_BY_ACTION_TYPE =
+            "unavailableReasonsByActionType";
+
+    @Getter(AccessLevel.PROTECTED)
+    private final ObjectMapper objectMapper;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final TypeFactory typeFactory;
+
+    /**
+     * Reads the configured {@link Subscription} type, resolved from the {@link #typeFactory} once
+     * rather than for every entry.
+     */
+    private volatile ObjectReader subscriptionReader;
+
+    /**
+     * Transforms the given page, writing the result to the given stream.
+     *
+     * @param page the raw page of subscriptions with items. This is consumed, and its buffers
+     *        released, even if the transformation fails.
+     * @param out the stream to write the transformed page to. This is not closed.
+     * @param actionResolver resolves the actions of a subscription, returning a
+     *        {@link SubscriptionWithItems} with its actions populated. Note that its
+     *        {@link SubscriptionWithItems#getSubscriptionItems() items} are not available.
+     * @throws IOException if the page could not be read or the output written
+     */
+    public void transform(Flux<DataBuffer> page,
+            OutputStream out,
+            Function<Subscription, ? extends SubscriptionWithItems> actionResolver)
+            throws IOException {
+        try (InputStream in = toInputStream(page);
+                JsonParser parser = objectMapper.createParser(in);
+                JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                generator.copyCurrentStructure(parser);
+                return;
+            }
+
+            generator.writeStartObject();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                generator.writeFieldName(name);
+                if (parser.nextToken() == JsonToken.START_ARRAY && CONTENT.equals(name)) {
+                    transformContent(parser, generator, actionResolver);
+                } else {
+                    generator.copyCurrentStructure(parser);
+                }
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Transforms each entry of the {@code content} array the parser is positioned at.
+     */
+    protected void transformContent(JsonParser parser,
+            JsonGenerator generator,
+            Function<Subscription, ? extends SubscriptionWithItems> actionResolver)
+            throws IOException {
+        generator.writeStartArray();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == JsonToken.START_OBJECT) {
+                transformEntry(parser, generator, actionResolver);
+            } else {
+                generator.copyCurrentStructure(parser);
+            }
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * Transforms the subscription with items the parser is positioned at, dropping any actions
+     * it already has in favor of the resolved ones, which are written as its last fields.
+     */
+    protected void transformEntry(JsonParser parser,
+            JsonGenerator generator,
+            Function<Subscription, ? extends SubscriptionWithItems> actionResolver)
+            throws IOException {
+        generator.writeStartObject();
+        Subscription subscription = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            if (SUBSCRIPTION.equals(name)) {
+                JsonNode node = parser.readValueAsTree();
+                generator.writeFieldName(name);
+                generator.writeTree(node);
+                subscription = readSubscription(node);
+            } else if (AVAILABLE_ACTIONS.equals(name)
+                    || UNAVAILABLE_REASONS_BY_ACTION_TYPE.equals(name)) {
+                parser.skipChildren();
+            } else {
+                generator.writeFieldName(name);
+                generator.copyCurrentStructure(parser);
+            }
+        }
+
+        if (subscription != null) {
+            SubscriptionWithItems withActions = actionResolver.apply(subscription);
+            generator.writeFieldName(AVAILABLE_ACTIONS);
+            generator.writeObject(withActions.getAvailableActions());
+            generator.writeFieldName(UNAVAILABLE_REASONS_BY_ACTION_TYPE);
+            generator.writeObject(withActions.getUnavailableReasonsByActionType());
+        }
+        generator.writeEndObject();
+    }
+
+    @Nullable
+    protected Subscription readSubscription(JsonNode node) throws IOException {
+        if (!node.isObject()) {
+            return null;
+        }
+        return getSubscriptionReader().readValue(node);
+    }
+
+    protected ObjectReader getSubscriptionReader() {
+        ObjectReader reader = subscriptionReader;
+        if (reader == null) {
+            reader = objectMapper.readerFor(typeFactory.get(Subscription.class).getClass());
+            subscriptionReader = reader;
+        }
+        return reader;
+    }
+
+    /**
+     * Exposes the given buffers as a blocking stream, releasing each buffer once it has been
+     * read. Closing the stream drains and releases any buffers that were not read.
+     */
+    protected InputStream toInputStream(Flux<DataBuffer> buffers) {
+        Iterator<DataBuffer> iterator = buffers.toIterable().iterator();
+        return new SequenceInputStream(new Enumeration<>() {
+            @Override
+            public boolean hasMoreElements() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                return iterator.next().asInputStream(true);
+            }
+        });
+    }
+}
@@ -16,25 +16,39 @@
  */
 package com.broadleafcommerce.subscriptionoperation.service;
 
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.broadleafcommerce.data.tracking.core.context.ContextInfo;
+import com.broadleafcommerce.data.tracking.core.exception.EntityMissingException;
 import com.broadleafcommerce.data.tracking.core.filtering.fetch.rsql.EmptyNode;
 import com.broadleafcommerce.subscriptionoperation.domain.Subscription;
 import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionItem;
 import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
 import com.broadleafcommerce.subscriptionoperation.domain.enums.DefaultUserRefTypes;
+import com.broadleafcommerce.subscriptionoperation.domain.enums.SubscriptionProjection;
+import com.broadleafcommerce.subscriptionoperation.service.provider.ConditionalRead;
 import com.broadleafcommerce.subscriptionoperation.web.domain.ChangeAutoRenewalRequest;
 import com.broadleafcommerce.subscriptionoperation.web.domain.SubscriptionActionRequest;
 import com.broadleafcommerce.subscriptionoperation.web.domain.SubscriptionActionResponse;
+import com.broadleafcommerce.subscriptionoperation.web.domain.SubscriptionBatchActionRequest;
 import com.broadleafcommerce.subscriptionoperation.web.domain.SubscriptionCancellationRequest;
 import com.broadleafcommerce.subscriptionoperation.web.domain.SubscriptionCreationRequest;
 import com.broadleafcommerce.subscriptionoperation.web.domain.SubscriptionDowngradeRequest;
 import com.broadleafcommerce.subscriptionoperation.web.domain.SubscriptionUpgradeRequest;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import cz.jirutka.rsql.parser.ast.Node;
+import reactor.core.publisher.Flux;
 
 /**
  * Service for operations on subscriptions and their items
@@ -52,6 +66,33 @@ public interface SubscriptionOperationService<S extends Subscription, I extends
     SubscriptionActionResponse readSubscriptionActions(SubscriptionActionRequest request,
             @Nullable ContextInfo contextInfo);
 
+    /**
+     * This method reads the available actions for several subscriptions owned by a user. Any
+     * subscriptions that are not found or not owned by the user are omitted.
+     *
+     * @param request the {@link SubscriptionBatchActionRequest}
+     * @param contextInfo context information around multi-tenant state
+     * @return the available actions keyed by subscription id, in the order requested
+     */
+    default Map<String, SubscriptionActionResponse> readSubscriptionActions(
+            SubscriptionBatchActionRequest request,
+            @Nullable ContextInfo contextInfo) {
+        Map<String, SubscriptionActionResponse> responses = new LinkedHashMap<>();
+        for (String subscriptionId : request.getSubscriptionIds()) {
+            SubscriptionActionRequest actionRequest = new SubscriptionActionRequest();
+            actionRequest.setSubscriptionId(subscriptionId);
+            actionRequest.setUserRefType(request.getUserRefType());
+            actionRequest.setUserRef(request.getUserRef());
+            actionRequest.setRequestAttributes(request.getRequestAttributes());
+            try {
+                responses.put(subscriptionId, readSubscriptionActions(actionRequest, contextInfo));
+            } catch (EntityMissingException e) {
+                // Missing subscriptions are omitted
+            }
+        }
+        return responses;
+    }
+
     /**
      * This method reads subscriptions for a given user type and user id, additionally filtered and
      * paginated by given parameters
@@ -72,6 +113,103 @@ public interface SubscriptionOperationService<S extends Subscription, I extends
             @Nullable Node filters,
             @Nullable ContextInfo contextInfo);
 
+    /**
+     * This method reads subscriptions for a given user type and user id in the given projection,
+     * additionally filtered and paginated by given parameters
+     *
+     * @param userRefType user type, see {@link DefaultUserRefTypes}
+     * @param userRef id of owning user or account
+     * @param getActions whether to get available actions for the subscriptions
+     * @param projection the view of the subscriptions to read. See {@link SubscriptionProjection}
+     * @param page information about which page of results to return from the database.
+     * @param filters additional filters to apply in the query. Should be {@link EmptyNode} if no
+     *        additional filters should be applied.
+     * @param contextInfo context information around multi-tenant state
+     * @return Subscriptions with items matching the given criteria
+     */
+    default Page<SWI> readSubscriptionsForUserRefTypeAndUserRef(String userRefType,
+            String userRef,
+            boolean getActions,
+            SubscriptionProjection projection,
+            @Nullable Pageable page,
+            @Nullable Node filters,
+            @Nullable ContextInfo contextInfo) {
+        Page<SWI> subscriptions = readSubscriptionsForUserRefTypeAndUserRef(userRefType, userRef,
+                getActions, page, filters, contextInfo);
+        if (SubscriptionProjection.isSummary(projection)) {
+            subscriptions.forEach(projection::apply);
+        }
+        return subscriptions;
+    }
+
+    /**
+     * This method counts the subscriptions for a given user type and user id, additionally
+     * filtered by given parameters
+     *
+     * @param userRefType user type, see {@link DefaultUserRefTypes}
+     * @param userRef id of owning user or account
+     * @param filters additional filters to apply in the query. Should be {@link EmptyNode} if no
+     *        additional filters should be applied.
+     * @param contextInfo context information around multi-tenant state
+     * @return the number of subscriptions matching the given criteria
+     */
+    default long countSubscriptions(String userRefType,
+            String userRef,
+            @Nullable Node filters,
+            @Nullable ContextInfo contextInfo) {
+        return readSubscriptionsForUserRefTypeAndUserRef(userRefType, userRef, false,
+                SubscriptionProjection.SUMMARY, PageRequest.of(0, 1), filters, contextInfo)
+                        .getTotalElements();
+    }
+
+    /**
+     * This method determines whether any subscriptions exist for a given user type and user id,
+     * additionally filtered by given parameters
+     *
+     * @param userRefType user type, see {@link DefaultUserRefTypes}
+     * @param userRef id of owning user or account
+     * @param filters additional filters to apply in the query. Should be {@link EmptyNode} if no
+     *        additional filters should be applied.
+     * @param contextInfo context information around multi-tenant state
+     * @return whether any subscriptions match the given criteria
+     */
+    default boolean existsSubscriptions(String userRefType,
+            String userRef,
+            @Nullable Node filters,
+            @Nullable ContextInfo contextInfo) {
+        return readSubscriptionsForUserRefTypeAndUserRef(userRefType, userRef, false,
+                SubscriptionProjection.SUMMARY, PageRequest.of(0, 1), filters, contextInfo)
+                        .hasContent();
+    }
+
+    /**
+     * This method reads subscriptions for a given user type and user id, streaming the page as
+     * received from the resource-tier service rather than deserializing it. When actions are
+     * requested, they are injected into each subscription as it streams by.
+     *
+     * @param userRefType user type, see {@link DefaultUserRefTypes}
+     * @param userRef id of owning user or account
+     * @param getActions whether to get available actions for the subscriptions
+     * @param page information about which page of results to return from the database.
+     * @param filters additional filters to apply in the query. Should be {@link EmptyNode} if no
+     *        additional filters should be applied.
+     * @param contextInfo context information around multi-tenant state
+     * @return the status and headers of the resource-tier response along with a body writing the
+     *         page, or {@code null} if streaming is not supported, in which case
+     *         {@link #readSubscriptionsForUserRefTypeAndUserRef} should be used instead. A
+     *         {@link PassThroughResponseBody} must be discarded if it may not be written.
+     */
+    @Nullable
+    default ResponseEntity<StreamingResponseBody> streamSubscriptionsForUserRefTypeAndUserRef(
+            String userRefType,
+            String userRef,
+            boolean getActions,
+            @Nullable Pageable page,
+            @Nullable Node filters,
+            @Nullable ContextInfo contextInfo) {
+        return null;
+    }
+
     /**
      * This method attempts to find a {@link SubscriptionWithItems} by id which is owned by the
      * user/account
@@ -89,6 +227,30 @@ public interface SubscriptionOperationService<S extends Subscription, I extends
             boolean getActions,
             @Nullable ContextInfo contextInfo);
 
+    /**
+     * This method attempts to find a {@link SubscriptionWithItems} by id which is owned by the
+     * user/account, unless it has not been modified since the given provider entity tag
+     *
+     * @param userRefType user type, see {@link DefaultUserRefTypes}
+     * @param userRef id of owning user or account
+     * @param subscriptionId The id of the {@link Subscription} that is intended to be gathered
+     * @param getActions whether to get available actions for the subscription
+     * @param ifNoneMatch the entity tag previously given for the subscription by the provider, if
+     *        any
+     * @param contextInfo context information around multi-tenant state
+     * @return the subscription with items along with the provider's entity tag, or a not
+     *         modified result
+     */
+    default ConditionalRead<SWI> readUserSubscriptionById(String userRefType,
+            String userRef,
+            String subscriptionId,
+            boolean getActions,
+            @Nullable String ifNoneMatch,
+            @Nullable ContextInfo contextInfo) {
+        return ConditionalRead.of(readUserSubscriptionById(userRefType, userRef, subscriptionId,
+                getActions, contextInfo), null);
+    }
+
     /**
      * This method reads a subscription for the given id
      *
@@ -98,6 +260,64 @@ public interface SubscriptionOperationService<S extends Subscription, I extends
      */
     SWI readSubscriptionById(String subscriptionId, @Nullable ContextInfo contextInfo);
 
+    /**
+     * This method reads a subscription for the given id, unless it has not been modified since
+     * the given provider entity tag
+     *
+     * @param subscriptionId The id of the {@link Subscription} that is intended to be gathered
+     * @param ifNoneMatch the entity tag previously given for the subscription by the provider, if
+     *        any
+     * @param contextInfo context information around multi-tenant state
+     * @return the subscription with items along with the provider's entity tag, or a not
+     *         modified result
+     */
+    default ConditionalRead<SWI> readSubscriptionById(String subscriptionId,
+            @Nullable String ifNoneMatch,
+            @Nullable ContextInfo contextInfo) {
+        return ConditionalRead.of(readSubscriptionById(subscriptionId, contextInfo), null);
+    }
+
+    /**
+     * Identifies how subscription actions are evaluated, other than from the subscription itself.
+     * This is part of the entity tag of reads that include actions, so that it changes when the
+     * evaluation does, e.g. when the available action types change.
+     *
+     * @return an identifier of how actions are evaluated
+     */
+    default String getActionEvaluationTag() {
+        return "0";
+    }
+
+    /**
+     * This method reads the subscriptions for the given ids
+     *
+     * @param subscriptionIds The ids of the {@link Subscription Subscriptions} that are intended to
+     *        be gathered
+     * @param contextInfo context information around multi-tenant state
+     * @return the subscriptions with items that were found, in the order of the given ids
+     */
+    List<SWI> readSubscriptionsByIds(Collection<String> subscriptionIds,
+            @Nullable ContextInfo contextInfo);
+
+    /**
+     * This method reads a subscription for the given id, relaying the response of the
+     * resource-tier service as-is rather than deserializing it. This is only applicable when no
+     * transformation of the subscription is needed.
+     *
+     * @param subscriptionId The id of the {@link Subscription} that is intended to be gathered
+     * @param contextInfo context information around multi-tenant state
+     * @return the raw response of the resource-tier service, or {@code null} if pass-through is
+     *         not supported, in which case {@link #readSubscriptionById(String, ContextInfo)}
+     *         should be used instead. The body must be consumed or cancelled to release its
+     *         connection, e.g. by writing it with {@link PassThroughResponseBody}.
+     */
+    @Nullable
+    default ResponseEntity<Flux<DataBuffer>> readSubscriptionByIdPassThrough(
+            String subscriptionId,
+            @Nullable ContextInfo contextInfo) {
+        return null;
+    }
+
     /**
      * Builds out a {@link SubscriptionWithItems} and calls a provider to persist them in the
      * resource-tier service
@@ -149,4 +369,39 @@ public interface SubscriptionOperationService<S extends Subscription, I extends
      */
     Subscription changeAutoRenewal(ChangeAutoRenewalRequest changeRequest,
             @Nullable ContextInfo contextInfo);
+
+    /**
+     * Validates that the caller may make the given auto-renewal change to the current state of
+     * the subscription, without making it. This allows the change to be accepted now and made
+     * later through {@link #applyAutoRenewalChange(ChangeAutoRenewalRequest, ContextInfo)}, such
+     * as when it is written asynchronously.
+     * <p>
+     * By default, nothing is validated up front, and the change is validated when it is applied.
+     *
+     * @param changeRequest the {@link ChangeAutoRenewalRequest} containing the new auto renewal
+     *        state
+     * @param contextInfo context information around multi-tenant state
+     */
+    default void validateAutoRenewalChange(ChangeAutoRenewalRequest changeRequest,
+            @Nullable ContextInfo contextInfo) {}
+
+    /**
+     * Makes an auto-renewal change that was already validated by
+     * {@link #validateAutoRenewalChange(ChangeAutoRenewalRequest, ContextInfo)}, possibly with
+     * less of the caller's context available than when it was validated. The subscription is read
+     * again, so that the change is made to its current state rather than to the one it was
+     * validated against.
+     * <p>
+     * By default, this makes the change as
+     * {@link #changeAutoRenewal(ChangeAutoRenewalRequest, ContextInfo)} does.
+     *
+     * @param changeRequest the {@link ChangeAutoRenewalRequest} containing the new auto renewal
+     *        state
+     * @param contextInfo context information around multi-tenant state
+     * @return the updated {@link Subscription}
+     */
+    default Subscription applyAutoRenewalChange(ChangeAutoRenewalRequest changeRequest,
+            @Nullable ContextInfo contextInfo) {
+        return changeAutoRenewal(changeRequest, contextInfo);
+    }
 }
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.autoconfigure;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import com.broadleafcommerce.subscriptionoperation.service.provider.MissingEntityCache;
+
+import java.time.Duration;
+
+import lombok.Data;
+
+/**
+ * Contains properties dictating how lookups of missing subscriptions and products are remembered
+ * by the {@link MissingEntityCache}.
+ */
+@Data
+@ConfigurationProperties("broadleaf.subscriptionoperation.missing-entity-cache")
+public class MissingEntityCacheProperties {
+
+    /**
+     * Whether lookups by id that the provider reported as missing are remembered, so that repeated
+     * lookups fail without calling the provider. Default is false, since entities created directly
+     * in the provider remain missing to this service for up to {@link #ttl}.
+     */
+    private boolean enabled = false;
+
+    /**
+     * How long a missing entity is remembered. Default is 30 seconds.
+     */
+    private Duration ttl = Duration.ofSeconds(30);
+
+    /**
+     * The maximum number of missing entities remembered across all tenants. Once reached, further
+     * misses are not remembered until entries expire. Default is 10,000.
+     */
+    private int maxEntries = 10_000;
+
+    private BloomFilter bloomFilter = new BloomFilter();
+
+    @Data
+    public static class BloomFilter {
+
+        /**
+         * Whether a Bloom filter is checked ahead of the cache, so that lookups of ids that were
+         * never missing avoid building a cache key. Default is false.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The number of ids the Bloom filter is sized for before it is rebuilt. Default is
+         * 100,000.
+         */
+        private int expectedInsertions = 100_000;
+
+        /**
+         * The desired false positive probability at the expected number of insertions. Default
+         * is 0.01.
+         */
+        private double falsePositiveProbability = 0.01;
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2009 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.autoconfigure;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * Contains properties dictating the compression of responses from the providers.
+ */
+@Data
+@ConfigurationProperties("broadleaf.subscriptionoperation.provider.compression")
+public class ProviderCompressionProperties {
+
+    /**
+     * Whether to request compressed responses from the providers, decompressing them as they are
+     * received. Default is true.
+     */
+    private boolean enabled = true;
+
+    /**
+     * The encodings to accept, in order of preference. Each must be supported by the Netty
+     * decompressor on the classpath, e.g. {@code zstd} requires {@code com.github.luben:zstd-jni}
+     * and a Netty version supporting it. Default is gzip and deflate.
+     */
+    private List<String> acceptedEncodings = new ArrayList<>(List.of("gzip", "deflate"));
+}
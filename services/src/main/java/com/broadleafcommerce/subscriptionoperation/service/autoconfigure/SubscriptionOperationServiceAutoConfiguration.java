@@ -16,8 +16,11 @@
  */
 package com.broadleafcommerce.subscriptionoperation.service.autoconfigure;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.MessageSource;
 import org.springframework.context.annotation.Bean;
@@ -31,16 +34,40 @@ import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionItem;
 import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
 import com.broadleafcommerce.subscriptionoperation.service.DefaultSubscriptionOperationService;
 import com.broadleafcommerce.subscriptionoperation.service.DefaultSubscriptionValidationService;
+import com.broadleafcommerce.subscriptionoperation.service.SubscriptionActionJsonTransformer;
 import com.broadleafcommerce.subscriptionoperation.service.SubscriptionOperationService;
 import com.broadleafcommerce.subscriptionoperation.service.SubscriptionValidationService;
+import com.broadleafcommerce.subscriptionoperation.service.metrics.MicrometerSubscriptionOperationMetrics;
+import com.broadleafcommerce.subscriptionoperation.service.metrics.SubscriptionOperationMetrics;
+import com.broadleafcommerce.subscriptionoperation.service.metrics.SubscriptionOperationMetricsProperties;
 import com.broadleafcommerce.subscriptionoperation.service.provider.CatalogProvider;
+import com.broadleafcommerce.subscriptionoperation.service.provider.MissingEntityCache;
+import com.broadleafcommerce.subscriptionoperation.service.provider.ReadModelSubscriptionProviderPostProcessor;
 import com.broadleafcommerce.subscriptionoperation.service.provider.SubscriptionProvider;
+import com.broadleafcommerce.subscriptionoperation.service.provider.SubscriptionReadModel;
 import com.broadleafcommerce.subscriptionoperation.service.provider.external.ExternalCatalogProvider;
 import com.broadleafcommerce.subscriptionoperation.service.provider.external.ExternalCatalogProviderProperties;
 import com.broadleafcommerce.subscriptionoperation.service.provider.external.ExternalSubscriptionProperties;
 import com.broadleafcommerce.subscriptionoperation.service.provider.external.ExternalSubscriptionProvider;
+import com.broadleafcommerce.subscriptionoperation.service.provider.external.ProviderCodecProperties;
+import com.broadleafcommerce.subscriptionoperation.service.provider.external.ProviderCodecRegistry;
+import com.broadleafcommerce.subscriptionoperation.service.provider.external.ProviderConcurrencyLimitProperties;
+import com.broadleafcommerce.subscriptionoperation.service.provider.external.ProviderConcurrencyLimiter;
+import com.broadleafcommerce.subscriptionoperation.service.provider.external.ProviderExchangeFilterFunction;
+import com.broadleafcommerce.subscriptionoperation.service.provider.external.ProviderMetricsExchangeFilterFunction;
+import com.broadleafcommerce.subscriptionoperation.service.provider.external.ProviderObservationExchangeFilterFunction;
+import com.broadleafcommerce.subscriptionoperation.service.provider.external.ProviderReadMemo;
+import com.broadleafcommerce.subscriptionoperation.service.provider.external.ProviderReadMemoProperties;
+import com.broadleafcommerce.subscriptionoperation.service.provider.local.LocalCatalogProvider;
+import com.broadleafcommerce.subscriptionoperation.service.provider.local.LocalCatalogSource;
+import com.broadleafcommerce.subscriptionoperation.service.provider.local.LocalSubscriptionProvider;
+import com.broadleafcommerce.subscriptionoperation.service.provider.local.LocalSubscriptionSource;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.observation.ObservationRegistry;
+
 
 @Configuration
 public class SubscriptionOperationServiceAutoConfiguration {
@@ -63,10 +90,106 @@ public class SubscriptionOperationServiceAutoConfiguration {
                 messageSource);
     }
 
+    /**
+     * Serves list and count queries from the local copy of subscriptions, if there is one, and
+     * keeps it up to date with the writes of every component using the subscription provider.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public static ReadModelSubscriptionProviderPostProcessor readModelSubscriptionProviderPostProcessor(
+            ObjectProvider<SubscriptionReadModel<SubscriptionWithItems>> readModel) {
+        return new ReadModelSubscriptionProviderPostProcessor(readModel);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public SubscriptionActionJsonTransformer subscriptionActionJsonTransformer(
+            ObjectMapper objectMapper,
+            TypeFactory typeFactory) {
+        return new SubscriptionActionJsonTransformer(objectMapper, typeFactory);
+    }
+
+    /**
+     * Selects the in-process providers when the subscription or catalog source of a service in the
+     * same JVM is present, as in a flex package. This is declared ahead of
+     * {@link SubscriptionProviderConfiguration} so that the external providers back off.
+     */
+    @Configuration
+    public static class LocalProviderConfiguration {
+
+        @Bean
+        @ConditionalOnBean(LocalSubscriptionSource.class)
+        @ConditionalOnMissingBean
+        public SubscriptionProvider<SubscriptionWithItems> localSubscriptionProvider(
+                LocalSubscriptionSource<SubscriptionWithItems> source) {
+            return new LocalSubscriptionProvider<>(source);
+        }
+
+        @Bean
+        @ConditionalOnBean(LocalCatalogSource.class)
+        @ConditionalOnMissingBean
+        public CatalogProvider<Product> localSubOpsCatalogProvider(
+                LocalCatalogSource<Product> source) {
+            return new LocalCatalogProvider<>(source);
+        }
+    }
+
     @Configuration
     @EnableConfigurationProperties({ExternalSubscriptionProperties.class,
-            ExternalCatalogProviderProperties.class})
+            ExternalCatalogProviderProperties.class,
+            ProviderCodecProperties.class,
+            ProviderReadMemoProperties.class,
+            ProviderConcurrencyLimitProperties.class,
+            MissingEntityCacheProperties.class})
     public static class SubscriptionProviderConfiguration {
+        @Bean
+        @ConditionalOnMissingBean
+        public ProviderCodecRegistry subscriptionOperationProviderCodecRegistry(
+                ObjectMapper objectMapper,
+                ProviderCodecProperties properties) {
+            return new ProviderCodecRegistry(objectMapper, properties.isSmileEnabled()
+                    ? ProviderCodecRegistry.smileMapper(objectMapper)
+                    : null);
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        @ConditionalOnProperty(
+                name = "broadleaf.subscriptionoperation.provider.read-memo.enabled",
+                matchIfMissing = true)
+        public ProviderReadMemo subscriptionOperationProviderReadMemo(
+                ProviderReadMemoProperties properties) {
+            return new ProviderReadMemo(properties.getMaxEntriesPerRequest(),
+                    properties.getMaxBodySize().toBytes());
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        @ConditionalOnProperty(
+                name = "broadleaf.subscriptionoperation.provider.concurrency-limit.enabled",
+                havingValue = "true")
+        public ProviderConcurrencyLimiter subscriptionOperationProviderConcurrencyLimiter(
+                ProviderConcurrencyLimitProperties properties) {
+            return new ProviderConcurrencyLimiter(properties);
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        @ConditionalOnProperty(
+                name = "broadleaf.subscriptionoperation.missing-entity-cache.enabled",
+                havingValue = "true")
+        public MissingEntityCache subscriptionOperationMissingEntityCache(
+                MissingEntityCacheProperties properties) {
+            MissingEntityCacheProperties.BloomFilter bloomFilter = properties.getBloomFilter();
+            if (!bloomFilter.isEnabled()) {
+                return new MissingEntityCache(properties.getTtl(), properties.getMaxEntries());
+            }
+            return new MissingEntityCache(properties.getTtl(),
+                    properties.getMaxEntries(),
+                    bloomFilter.getExpectedInsertions(),
+                    bloomFilter.getFalsePositiveProbability());
+        }
+
         @Bean
         @ConditionalOnMissingBean
         public SubscriptionProvider<SubscriptionWithItems> subscriptionProvider(
@@ -93,4 +216,42 @@ public class SubscriptionOperationServiceAutoConfiguration {
                     properties);
         }
     }
+
+    @Configuration
+    @EnableConfigurationProperties(SubscriptionOperationMetricsProperties.class)
+    @ConditionalOnProperty(name = "broadleaf.subscriptionoperation.metrics.enabled",
+            matchIfMissing = true)
+    public static class SubscriptionOperationMetricsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public SubscriptionOperationMetrics subscriptionOperationMetrics(
+                ObjectProvider<MeterRegistry> meterRegistry,
+                SubscriptionOperationMetricsProperties properties) {
+            return new MicrometerSubscriptionOperationMetrics(
+                    meterRegistry.getIfUnique(() -> Metrics.globalRegistry),
+                    properties);
+        }
+
+        @Bean
+        @ConditionalOnMissingBean(name = "subscriptionOperationProviderMetricsFilter")
+        public ProviderExchangeFilterFunction subscriptionOperationProviderMetricsFilter(
+                SubscriptionOperationMetrics metrics) {
+            return new ProviderMetricsExchangeFilterFunction(metrics);
+        }
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "broadleaf.subscriptionoperation.tracing.enabled",
+            matchIfMissing = true)
+    public static class SubscriptionOperationTracingConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean(name = "subscriptionOperationProviderObservationFilter")
+        public ProviderExchangeFilterFunction subscriptionOperationProviderObservationFilter(
+                ObjectProvider<ObservationRegistry> observationRegistry) {
+            return new ProviderObservationExchangeFilterFunction(
+                    observationRegistry.getIfUnique(() -> ObservationRegistry.NOOP));
+        }
+    }
 }
@@ -16,11 +16,13 @@
  */
 package com.broadleafcommerce.subscriptionoperation.service.autoconfigure;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.client.reactive.ClientHttpConnector;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
@@ -36,6 +38,8 @@ import org.springframework.web.util.DefaultUriBuilderFactory;
 
 import com.broadleafcommerce.subscriptionoperation.oauth2.client.endpoint.OAuth2ClientCredentialsAccessTokenResponseClient;
 import com.broadleafcommerce.subscriptionoperation.oauth2.client.web.SynchronizedDelegatingOAuth2AuthorizedClientManager;
+import com.broadleafcommerce.subscriptionoperation.service.metrics.SubscriptionOperationMetrics;
+import com.broadleafcommerce.subscriptionoperation.service.provider.external.ProviderExchangeFilterFunction;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.util.Optional;
@@ -49,7 +53,8 @@ import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
 import reactor.netty.http.client.HttpClient;
 
 @Configuration
-@EnableConfigurationProperties({SSLVerificationProperties.class})
+@EnableConfigurationProperties({SSLVerificationProperties.class,
+        ProviderCompressionProperties.class})
 public class SubscriptionOperationWebClientAutoConfiguration {
 
     @Bean
@@ -57,7 +62,8 @@ public class SubscriptionOperationWebClientAutoConfiguration {
     public WebClient subscriptionOperationWebClient(
             @Qualifier("oAuth2FilterFunctionSupplier") Supplier<ServletOAuth2AuthorizedClientExchangeFilterFunction> oauth2FilterSupplier,
             ObjectMapper objectMapper,
-            @Qualifier("subscriptionOperationClientHttpConnector") Optional<ClientHttpConnector> clientHttpConnector)
+            @Qualifier("subscriptionOperationClientHttpConnector") Optional<ClientHttpConnector> clientHttpConnector,
+            ObjectProvider<ProviderExchangeFilterFunction> providerFilters)
             throws SSLException {
         // Add our own object mapper
         ExchangeStrategies strategies = ExchangeStrategies
@@ -75,6 +81,8 @@ public class SubscriptionOperationWebClientAutoConfiguration {
 
         WebClient.Builder webClientBuilder = WebClient.builder();
         clientHttpConnector.ifPresent(webClientBuilder::clientConnector);
+        // Registered ahead of the OAuth2 filter so they wrap the whole exchange
+        providerFilters.orderedStream().forEach(webClientBuilder::filter);
 
         return webClientBuilder
                 .uriBuilderFactory(uriBuilderFactory)
@@ -88,15 +96,18 @@ public class SubscriptionOperationWebClientAutoConfiguration {
      *
      * @param clientRegistrations
      * @param clientHttpConnector
+     * @param metrics
      * @return
      */
     @Bean(name = "oAuth2FilterFunctionSupplier")
     @ConditionalOnMissingBean(name = "oAuth2FilterFunctionSupplier")
     public Supplier<ServletOAuth2AuthorizedClientExchangeFilterFunction> subscriptionOperationOauth2FilterFunctionSupplier(
             ClientRegistrationRepository clientRegistrations,
-            @Qualifier("subscriptionOperationClientHttpConnector") Optional<ClientHttpConnector> clientHttpConnector) {
+            @Qualifier("subscriptionOperationClientHttpConnector") Optional<ClientHttpConnector> clientHttpConnector,
+            ObjectProvider<SubscriptionOperationMetrics> metrics) {
         final SynchronizedDelegatingOAuth2AuthorizedClientManager manager =
                 new SynchronizedDelegatingOAuth2AuthorizedClientManager(clientRegistrations);
+        manager.setMetrics(metrics.getIfAvailable());
         manager.setAuthorizedClientProvider(
                 getClientCredentialsAuthorizedClientProvider(clientHttpConnector));
         return () -> new ServletOAuth2AuthorizedClientExchangeFilterFunction(manager);
@@ -105,19 +116,29 @@ public class SubscriptionOperationWebClientAutoConfiguration {
     @Bean
     @ConditionalOnMissingBean(name = "subscriptionOperationClientHttpConnector")
     public ClientHttpConnector subscriptionOperationClientHttpConnector(
-            SSLVerificationProperties sslVerificationProperties) throws SSLException {
+            SSLVerificationProperties sslVerificationProperties,
+            ProviderCompressionProperties compressionProperties) throws SSLException {
+        HttpClient httpClient = HttpClient.create();
         if (sslVerificationProperties.isDisabled()) {
             SslContext sslContext = SslContextBuilder
                     .forClient()
                     .trustManager(InsecureTrustManagerFactory.INSTANCE)
                     .build();
-            HttpClient httpClient = HttpClient
-                    .create()
+            httpClient = httpClient
                     .secure(sslContextSpec -> sslContextSpec.sslContext(sslContext));
-            return new ReactorClientHttpConnector(httpClient);
+        }
+        if (compressionProperties.isEnabled()
+                && !compressionProperties.getAcceptedEncodings().isEmpty()) {
+            String acceptedEncodings =
+                    String.join(", ", compressionProperties.getAcceptedEncodings());
+            // Compression adds the decompressor, but only accepts gzip by default
+            httpClient = httpClient
+                    .compress(true)
+                    .headers(headers -> headers.set(HttpHeaders.ACCEPT_ENCODING,
+                            acceptedEncodings));
         }
 
-        return null; // WebClient builder will initialize the default ClientHttpConnector
+        return new ReactorClientHttpConnector(httpClient);
     }
 
     protected static OAuth2AuthorizedClientProvider getClientCredentialsAuthorizedClientProvider(
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.idempotency;
+
+import org.springframework.lang.Nullable;
+
+import java.time.Instant;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The outcome of an operation performed under an idempotency key, as held by an
+ * {@link IdempotencyStore}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    /**
+     * Identifies the tenant, operation and idempotency key, see
+     * {@link IdempotencyService#buildRecordId(String, String, String)}.
+     */
+    private String id;
+
+    /**
+     * A hash of the request the key was first used with, so that the key cannot be reused for a
+     * different request.
+     */
+    private String requestHash;
+
+    /**
+     * The JSON of the operation's result, or null while the operation is in progress.
+     */
+    @Nullable
+    private String response;
+
+    /**
+     * When the record may be purged. For an operation in progress, this is when the operation is
+     * presumed to have been abandoned.
+     */
+    private Instant expiresAt;
+
+    public boolean isCompleted() {
+        return response != null;
+    }
+
+    public boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+}
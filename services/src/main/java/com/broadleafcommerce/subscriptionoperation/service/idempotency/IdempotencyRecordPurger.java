@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.idempotency;
+
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Periodically removes expired {@link IdempotencyRecord records} from the
+ * {@link IdempotencyStore}, a batch at a time so that no single transaction holds many rows.
+ * Every instance of the service purges; concurrent purges only compete for the same rows.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class IdempotencyRecordPurger implements SmartLifecycle {
+
+    @Getter(AccessLevel.PROTECTED)
+    private final IdempotencyStore store;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final Duration interval;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final int batchSize;
+
+    /**
+     * The largest number of batches removed in a single run, so that a large backlog does not
+     * occupy the database for long.
+     */
+    @Getter(AccessLevel.PROTECTED)
+    private final int maxBatchesPerRun;
+
+    private ScheduledExecutorService executor;
+
+    @Override
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "subscription-idempotency-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = interval.toMillis();
+        executor.scheduleWithFixedDelay(this::purge, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return executor != null;
+    }
+
+    /**
+     * Removes expired records until a batch comes back short or {@link #getMaxBatchesPerRun()}
+     * batches were removed.
+     *
+     * @return the number of records removed
+     */
+    public int purge() {
+        Instant now = Clock.systemUTC().instant();
+        int total = 0;
+        try {
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                int purged = store.purgeExpired(now, batchSize);
+                total += purged;
+                if (purged < batchSize) {
+                    break;
+                }
+            }
+        } catch (DataAccessException e) {
+            log.warn("Unable to purge expired idempotency records", e);
+        }
+        if (total > 0) {
+            log.debug("Purged {} expired idempotency records", total);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.idempotency;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.lang.Nullable;
+
+import com.broadleafcommerce.data.tracking.core.context.ContextInfo;
+import com.broadleafcommerce.data.tracking.core.context.ContextRequest;
+import com.broadleafcommerce.subscriptionoperation.service.exception.IdempotencyKeyConflictException;
+import com.broadleafcommerce.subscriptionoperation.service.exception.IdempotencyKeyMismatchException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Performs operations under a client-supplied idempotency key, so that a retried request returns
+ * the result of the first one rather than performing the operation again.
+ * <p>
+ * Results are kept in the {@link IdempotencyStore} for {@link #getTtl()}, and the most recent ones
+ * in memory in front of it. A key may only be reused with the same request. While the first
+ * request is in progress, retries are rejected with an {@link IdempotencyKeyConflictException}.
+ * If the operation fails, the key is released so that it may be retried.
+ */
+@Slf4j
+public class IdempotencyService {
+
+    /**
+     * The request header carrying the idempotency key.
+     */
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    @Getter(AccessLevel.PROTECTED)
+    private final IdempotencyStore store;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final ObjectMapper objectMapper;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final Duration ttl;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final Duration pendingTtl;
+
+    private final int maxCachedResults;
+
+    private final Map<String, IdempotencyRecord> cachedResults = new ConcurrentHashMap<>();
+
+    private final Clock clock;
+
+    /**
+     * @param store the store of the results
+     * @param objectMapper the mapper used to store the requests and results
+     * @param ttl how long results are replayed
+     * @param pendingTtl how long an operation in progress holds its key, should the instance
+     *        performing it fail to release it
+     * @param maxCachedResults the largest number of results kept in memory
+     */
+    public IdempotencyService(IdempotencyStore store,
+            ObjectMapper objectMapper,
+            Duration ttl,
+            Duration pendingTtl,
+            int maxCachedResults) {
+        this(store, objectMapper, ttl, pendingTtl, maxCachedResults, Clock.systemUTC());
+    }
+
+    IdempotencyService(IdempotencyStore store,
+            ObjectMapper objectMapper,
+            Duration ttl,
+            Duration pendingTtl,
+            int maxCachedResults,
+            Clock clock) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.pendingTtl = pendingTtl;
+        this.maxCachedResults = maxCachedResults;
+        this.clock = clock;
+    }
+
+    /**
+     * Performs the operation, unless it was already performed under the same key, in which case
+     * its result is returned instead.
+     *
+     * @param operation identifies the operation and, if applicable, the owner it is performed
+     *        for, so that keys are only shared by the same operation
+     * @param idempotencyKey the client-supplied key, or null to always perform the operation
+     * @param request the request, used to verify that a reused key is for the same request
+     * @param resultType the type of the operation's result
+     * @param contextInfo context information around multi-tenant state
+     * @param action performs the operation
+     * @return the result of the operation
+     * @throws IdempotencyKeyConflictException if the operation is in progress under the same key
+     * @throws IdempotencyKeyMismatchException if the key was used for a different request
+     */
+    public <T> T execute(String operation,
+            @Nullable String idempotencyKey,
+            Object request,
+            Class<T> resultType,
+            @Nullable ContextInfo contextInfo,
+            Supplier<T> action) {
+        if (StringUtils.isBlank(idempotencyKey)) {
+            return action.get();
+        }
+
+        String id = buildRecordId(getTenantId(contextInfo), operation, idempotencyKey);
+        String requestHash = hash(toJson(request).getBytes(StandardCharsets.UTF_8));
+        Instant now = clock.instant();
+
+        IdempotencyRecord cached = cachedResults.get(id);
+        if (cached != null && !cached.isExpired(now)) {
+            return replay(cached, requestHash, resultType);
+        }
+
+        Optional<IdempotencyRecord> existing = readLive(id, now);
+        if (existing.isPresent()) {
+            return replay(existing.get(), requestHash, resultType);
+        }
+
+        if (!begin(new IdempotencyRecord(id, requestHash, null, now.plus(pendingTtl)))) {
+            return readLive(id, now)
+                    .map(record -> replay(record, requestHash, resultType))
+                    .orElseThrow(IdempotencyService::inProgress);
+        }
+
+        T result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            release(id);
+            throw e;
+        }
+
+        IdempotencyRecord completed =
+                new IdempotencyRecord(id, requestHash, toJson(result), now.plus(ttl));
+        try {
+            store.complete(id, completed.getResponse(), completed.getExpiresAt());
+        } catch (DataAccessException e) {
+            // The operation succeeded, so its result is returned even though it will not be
+            // replayed. The key is held until the pending record expires.
+            log.warn("Unable to record the result of idempotent operation {}", operation, e);
+            return result;
+        }
+        cache(completed, now);
+        return result;
+    }
+
+    /**
+     * Performs the operation through the given service, if there is one, or simply performs it
+     * otherwise, such as when idempotent operations are not enabled.
+     *
+     * @param idempotencyService the service to perform the operation through, if any
+     * @see #execute(String, String, Object, Class, ContextInfo, Supplier)
+     */
+    public static <T> T executeIfAvailable(@Nullable IdempotencyService idempotencyService,
+            String operation,
+            @Nullable String idempotencyKey,
+            Object request,
+            Class<T> resultType,
+            @Nullable ContextInfo contextInfo,
+            Supplier<T> action) {
+        if (idempotencyService == null) {
+            return action.get();
+        }
+        return idempotencyService.execute(operation, idempotencyKey, request, resultType,
+                contextInfo, action);
+    }
+
+    /**
+     * Builds the id of the record of an operation performed under a key. The key is hashed so
+     * that its length is not constrained.
+     */
+    public static String buildRecordId(String tenantId, String operation, String idempotencyKey) {
+        return hash((tenantId + '\n' + operation + '\n' + idempotencyKey)
+                .getBytes(StandardCharsets.UTF_8));
+    }
+
+    protected <T> T replay(IdempotencyRecord record, String requestHash, Class<T> resultType) {
+        if (!record.getRequestHash().equals(requestHash)) {
+            throw new IdempotencyKeyMismatchException(
+                    "The idempotency key was already used for a different request");
+        }
+        if (!record.isCompleted()) {
+            throw inProgress();
+        }
+        cache(record, clock.instant());
+        try {
+            return objectMapper.readValue(record.getResponse(), resultType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to read the stored result of the request", e);
+        }
+    }
+
+    protected String toJson(@Nullable Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to convert to JSON", e);
+        }
+    }
+
+    protected String getTenantId(@Nullable ContextInfo contextInfo) {
+        return Optional.ofNullable(contextInfo)
+                .map(ContextInfo::getContextRequest)
+                .map(ContextRequest::getTenantId)
+                .orElse("");
+    }
+
+    private Optional<IdempotencyRecord> readLive(String id, Instant now) {
+        return store.read(id).filter(record -> !record.isExpired(now));
+    }
+
+    private boolean begin(IdempotencyRecord record) {
+        try {
+            return store.begin(record);
+        } catch (DataIntegrityViolationException e) {
+            // Another instance began the same operation concurrently
+            return false;
+        }
+    }
+
+    private void release(String id) {
+        try {
+            store.release(id);
+        } catch (DataAccessException e) {
+            log.warn("Unable to release idempotency record {}", id, e);
+        }
+    }
+
+    private void cache(IdempotencyRecord record, Instant now) {
+        if (!cachedResults.containsKey(record.getId())
+                && cachedResults.size() >= maxCachedResults) {
+            cachedResults.values().removeIf(cached -> cached.isExpired(now));
+            if (cachedResults.size() >= maxCachedResults) {
+                return;
+            }
+        }
+        cachedResults.put(record.getId(), record);
+    }
+
+    private static IdempotencyKeyConflictException inProgress() {
+        return new IdempotencyKeyConflictException(
+                "A request with the same idempotency key is in progress");
+    }
+
+    private static String hash(byte[] value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.idempotency;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Durably holds the {@link IdempotencyRecord records} of operations performed under an
+ * idempotency key, shared by every instance of the service.
+ */
+public interface IdempotencyStore {
+
+    /**
+     * Reads the record with the given id, even if it has expired.
+     *
+     * @param id the id of the record
+     * @return the record, or empty if there is none
+     */
+    Optional<IdempotencyRecord> read(String id);
+
+    /**
+     * Records that an operation has started under the record's key, unless there already is a
+     * record for it that has not expired.
+     *
+     * @param record the record of the operation in progress
+     * @return whether the record was added, false if another one holds the key
+     */
+    boolean begin(IdempotencyRecord record);
+
+    /**
+     * Records the result of an operation that was {@link #begin(IdempotencyRecord) begun}.
+     *
+     * @param id the id of the record
+     * @param response the JSON of the operation's result
+     * @param expiresAt when the result is no longer replayed
+     */
+    void complete(String id, String response, Instant expiresAt);
+
+    /**
+     * Removes the record of an operation in progress that failed, so that the key may be retried.
+     *
+     * @param id the id of the record
+     */
+    void release(String id);
+
+    /**
+     * Removes up to the given number of records that expired before the given time.
+     *
+     * @param now the current time
+     * @param batchSize the largest number of records to remove
+     * @return the number of records removed
+     */
+    int purgeExpired(Instant now, int batchSize);
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.job;
+
+import org.springframework.lang.Nullable;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.Instant;
+
+import lombok.Data;
+
+/**
+ * A bulk operation applied asynchronously to a list of subscriptions, such as cancelling every
+ * subscription of a closed account. Each subscription is an {@link SubscriptionJobItem item} of
+ * the job, and the job's counts reflect the items processed so far.
+ */
+@Data
+public class SubscriptionJob {
+
+    private String id;
+
+    private SubscriptionJobType type;
+
+    private SubscriptionJobStatus status = SubscriptionJobStatus.PENDING;
+
+    /**
+     * For {@link SubscriptionJobType#CANCEL}, whether subscriptions are cancelled immediately
+     * rather than at the end of their term.
+     */
+    private boolean immediate;
+
+    /**
+     * For {@link SubscriptionJobType#CHANGE_AUTO_RENEWAL}, whether auto-renewal is enabled.
+     */
+    @Nullable
+    private Boolean autoRenewalEnabled;
+
+    /**
+     * For {@link SubscriptionJobType#CHANGE_STATUS}, the status subscriptions are changed to.
+     */
+    @Nullable
+    private String subscriptionStatus;
+
+    /**
+     * The reason recorded on each changed subscription, if any.
+     */
+    @Nullable
+    private String reason;
+
+    /**
+     * The tenant the job was submitted in, if any.
+     */
+    @Nullable
+    private String tenantId;
+
+    /**
+     * The JSON of the
+     * {@link com.broadleafcommerce.data.tracking.core.context.ContextRequest} the job was
+     * submitted with, if any, which each item is processed with.
+     */
+    @Nullable
+    @JsonIgnore
+    private String contextRequest;
+
+    private int totalItems;
+
+    private int succeededItems;
+
+    private int skippedItems;
+
+    private int failedItems;
+
+    /**
+     * The sequence of the last item processed, from which the job is resumed if it is
+     * interrupted.
+     */
+    private int checkpoint;
+
+    private Instant createdAt;
+
+    @Nullable
+    private Instant startedAt;
+
+    @Nullable
+    private Instant completedAt;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public int getProcessedItems() {
+        return succeededItems + skippedItems + failedItems;
+    }
+}
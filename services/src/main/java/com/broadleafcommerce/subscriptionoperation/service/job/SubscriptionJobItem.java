@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.job;
+
+import org.springframework.lang.Nullable;
+
+import java.time.Instant;
+
+import lombok.Data;
+
+/**
+ * The result of applying a {@link SubscriptionJob} to one of its subscriptions.
+ */
+@Data
+public class SubscriptionJobItem {
+
+    private String jobId;
+
+    /**
+     * The position of the item in its job, from 1. Items are processed in this order.
+     */
+    private int sequence;
+
+    private String subscriptionId;
+
+    private SubscriptionJobItemStatus status = SubscriptionJobItemStatus.PENDING;
+
+    @Nullable
+    private String error;
+
+    @Nullable
+    private Instant processedAt;
+}
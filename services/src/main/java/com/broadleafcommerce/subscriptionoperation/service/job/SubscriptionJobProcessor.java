@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.job;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Periodically claims {@link SubscriptionJob jobs} from the {@link SubscriptionJobStore} and
+ * processes them through the {@link SubscriptionJobService}.
+ * <p>
+ * A job is processed in chunks of {@link #getChunkSize()} items, with up to
+ * {@link #getConcurrency()} items at a time. The results of each chunk are recorded together
+ * with the job's checkpoint, which also renews its lease. Should the instance stop mid-job, the
+ * job is resumed from its last checkpoint by whichever instance claims it next, so at most one
+ * chunk is processed again. Processing an item again is harmless, as a subscription that already
+ * matches the job is skipped.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class SubscriptionJobProcessor implements SmartLifecycle {
+
+    @Getter(AccessLevel.PROTECTED)
+    private final SubscriptionJobStore store;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final SubscriptionJobService jobService;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final Duration pollInterval;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final int chunkSize;
+
+    /**
+     * The largest number of items processed at the same time by this instance.
+     */
+    @Getter(AccessLevel.PROTECTED)
+    private final int concurrency;
+
+    /**
+     * How long a job is held by this instance without a checkpoint. A job whose lease expires
+     * may be claimed by another instance.
+     */
+    @Getter(AccessLevel.PROTECTED)
+    private final Duration lease;
+
+    /**
+     * Identifies this instance as the owner of the jobs it claims.
+     */
+    @Getter(AccessLevel.PROTECTED)
+    private final String owner = UUID.randomUUID().toString();
+
+    private ScheduledExecutorService poller;
+
+    private ExecutorService workers;
+
+    @Override
+    public synchronized void start() {
+        if (poller != null) {
+            return;
+        }
+        poller = Executors.newSingleThreadScheduledExecutor(
+                runnable -> newThread(runnable, "subscription-job-poll"));
+        AtomicInteger count = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(concurrency, runnable -> newThread(runnable,
+                "subscription-job-" + count.incrementAndGet()));
+        long millis = pollInterval.toMillis();
+        poller.scheduleWithFixedDelay(this::poll, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (poller != null) {
+            poller.shutdownNow();
+            workers.shutdownNow();
+            poller = null;
+            workers = null;
+            try {
+                store.release(owner);
+            } catch (DataAccessException e) {
+                log.warn("Unable to release the subscription jobs of this instance", e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return poller != null;
+    }
+
+    /**
+     * Claims and processes jobs, one at a time, until there are none left to process.
+     *
+     * @return the number of jobs processed
+     */
+    public int poll() {
+        ExecutorService executor = workers;
+        if (executor == null) {
+            return 0;
+        }
+        int total = 0;
+        try {
+            Optional<SubscriptionJob> job;
+            while (!Thread.currentThread().isInterrupted()
+                    && (job = store.claim(owner, lease)).isPresent()) {
+                process(job.get(), executor);
+                total++;
+            }
+        } catch (DataAccessException e) {
+            log.warn("Unable to process subscription jobs", e);
+        } catch (ExecutionException e) {
+            log.warn("Unable to process subscription jobs", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return total;
+    }
+
+    /**
+     * Processes the remaining items of a claimed job chunk by chunk, completing the job once
+     * every item was processed.
+     *
+     * @param job the claimed job
+     * @param executor the executor to process items on
+     * @throws InterruptedException if interrupted while processing a chunk, in which case the
+     *         chunk is not recorded
+     * @throws ExecutionException if an item failed unexpectedly, in which case the chunk is not
+     *         recorded
+     */
+    protected void process(SubscriptionJob job, ExecutorService executor)
+            throws InterruptedException, ExecutionException {
+        log.debug("Processing subscription job {} from item {}", job.getId(),
+                job.getCheckpoint() + 1);
+        int checkpoint = job.getCheckpoint();
+        List<SubscriptionJobItem> chunk;
+        while (!(chunk = store.readChunk(job.getId(), checkpoint, chunkSize)).isEmpty()) {
+            processChunk(job, chunk, executor);
+            if (!store.checkpoint(job.getId(), owner, chunk, lease)) {
+                log.warn("Subscription job {} was claimed by another instance, as it was not"
+                        + " checkpointed within its lease of {}", job.getId(), lease);
+                return;
+            }
+            checkpoint = chunk.get(chunk.size() - 1).getSequence();
+        }
+        store.complete(job.getId(), owner);
+    }
+
+    protected void processChunk(SubscriptionJob job,
+            List<SubscriptionJobItem> chunk,
+            ExecutorService executor) throws InterruptedException, ExecutionException {
+        CompletableFuture<?>[] futures = chunk.stream()
+                .map(item -> CompletableFuture.runAsync(() -> process(job, item), executor))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(futures).get();
+    }
+
+    /**
+     * Applies the job to a single item, recording the outcome on the item.
+     *
+     * @param job the job being processed
+     * @param item the item to process
+     */
+    protected void process(SubscriptionJob job, SubscriptionJobItem item) {
+        try {
+            item.setStatus(jobService.apply(job, item.getSubscriptionId()));
+            item.setError(null);
+        } catch (RuntimeException e) {
+            log.debug("Unable to apply subscription job {} to subscription {}", job.getId(),
+                    item.getSubscriptionId(), e);
+            item.setStatus(SubscriptionJobItemStatus.FAILED);
+            item.setError(StringUtils.abbreviate(String.valueOf(e), 1000));
+        }
+        item.setProcessedAt(Clock.systemUTC().instant());
+    }
+
+    private static Thread newThread(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
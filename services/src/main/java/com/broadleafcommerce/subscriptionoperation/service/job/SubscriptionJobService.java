@@ -0,0 +1,403 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.job;
+
+import static com.broadleafcommerce.subscriptionoperation.domain.enums.DefaultSubscriptionNextStatusChangeReason.CANCELLED;
+
+import org.apache.commons.lang3.EnumUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.MessageSource;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.lang.Nullable;
+
+import com.broadleafcommerce.data.tracking.core.context.ContextInfo;
+import com.broadleafcommerce.data.tracking.core.context.ContextRequest;
+import com.broadleafcommerce.data.tracking.core.exception.EntityMissingException;
+import com.broadleafcommerce.data.tracking.core.type.OperationType;
+import com.broadleafcommerce.subscriptionoperation.domain.Subscription;
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionItem;
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
+import com.broadleafcommerce.subscriptionoperation.domain.enums.DefaultSubscriptionNextStatusChangeReason;
+import com.broadleafcommerce.subscriptionoperation.domain.enums.SubscriptionProjection;
+import com.broadleafcommerce.subscriptionoperation.domain.enums.SubscriptionStatuses;
+import com.broadleafcommerce.subscriptionoperation.service.SubscriptionChangeListener;
+import com.broadleafcommerce.subscriptionoperation.service.SubscriptionOperationService;
+import com.broadleafcommerce.subscriptionoperation.service.SubscriptionValidationService;
+import com.broadleafcommerce.subscriptionoperation.service.exception.InvalidSubscriptionJobRequestException;
+import com.broadleafcommerce.subscriptionoperation.service.provider.SubscriptionProvider;
+import com.broadleafcommerce.subscriptionoperation.web.domain.ChangeAutoRenewalRequest;
+import com.broadleafcommerce.subscriptionoperation.web.domain.SubscriptionCancellationRequest;
+import com.broadleafcommerce.subscriptionoperation.web.domain.SubscriptionJobRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Submits {@link SubscriptionJob jobs} applying an operation to many subscriptions, and applies
+ * the operation to each subscription once the job is processed by a
+ * {@link SubscriptionJobProcessor}.
+ * <p>
+ * The caller's access to each subscription is checked through the
+ * {@link SubscriptionValidationService} when the job is submitted, as their authentication is not
+ * available to the processor. Each subscription is then changed with only the caller's
+ * {@link ContextRequest}: auto-renewal changes, including cancelling at the end of the term, are
+ * made through {@link SubscriptionOperationService#applyAutoRenewalChange}, while immediate
+ * cancellations and status changes replace the subscription through the
+ * {@link SubscriptionProvider}.
+ */
+@RequiredArgsConstructor
+public class SubscriptionJobService {
+
+    @Getter(AccessLevel.PROTECTED)
+    private final SubscriptionJobStore store;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final SubscriptionProvider<SubscriptionWithItems> subscriptionProvider;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final SubscriptionOperationService<Subscription, SubscriptionItem, SubscriptionWithItems> subscriptionOperationService;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final SubscriptionValidationService subscriptionValidationService;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final MessageSource messageSource;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final ObjectMapper objectMapper;
+
+    /**
+     * The largest number of subscriptions a single job may apply to.
+     */
+    @Getter(AccessLevel.PROTECTED)
+    private final int maxItems;
+
+    @Getter(AccessLevel.PROTECTED)
+    @Setter(onMethod_ = @Autowired(required = false))
+    private List<SubscriptionChangeListener> changeListeners = List.of();
+
+    /**
+     * Validates the given request, resolves the subscriptions it applies to, validates the
+     * operation against each of them and records it as a {@link SubscriptionJobStatus#PENDING
+     * pending} job.
+     *
+     * @param request the request to submit a job
+     * @param contextInfo context information around multi-tenant state
+     * @return the submitted job
+     * @throws InvalidSubscriptionJobRequestException if the request is invalid or applies to
+     *         more than {@link #getMaxItems()} subscriptions
+     */
+    public SubscriptionJob submit(SubscriptionJobRequest request,
+            @Nullable ContextInfo contextInfo) {
+        validate(request);
+        List<String> subscriptionIds = resolveSubscriptionIds(request, contextInfo);
+        if (subscriptionIds.isEmpty()) {
+            throw new InvalidSubscriptionJobRequestException(
+                    "The job does not apply to any subscriptions");
+        }
+        subscriptionIds.forEach(subscriptionId -> validateItem(request, subscriptionId,
+                contextInfo));
+
+        SubscriptionJob job = new SubscriptionJob();
+        job.setId(UUID.randomUUID().toString());
+        job.setType(request.getType());
+        job.setImmediate(request.isImmediate());
+        job.setAutoRenewalEnabled(request.getAutoRenewalEnabled());
+        job.setSubscriptionStatus(request.getSubscriptionStatus());
+        job.setReason(request.getReason());
+        job.setTenantId(getTenantId(contextInfo));
+        if (contextInfo != null && contextInfo.getContextRequest() != null) {
+            job.setContextRequest(toJson(contextInfo.getContextRequest()));
+        }
+        job.setTotalItems(subscriptionIds.size());
+        job.setCreatedAt(Clock.systemUTC().instant());
+        store.create(job, subscriptionIds);
+        return job;
+    }
+
+    /**
+     * Reads a job submitted in the caller's tenant.
+     *
+     * @param jobId the id of the job
+     * @param contextInfo context information around multi-tenant state
+     * @return the job
+     * @throws EntityMissingException if there is no such job in the caller's tenant
+     */
+    public SubscriptionJob readJob(String jobId, @Nullable ContextInfo contextInfo) {
+        return store.read(jobId)
+                .filter(job -> Objects.equals(job.getTenantId(), getTenantId(contextInfo)))
+                .orElseThrow(EntityMissingException::new);
+    }
+
+    /**
+     * Reads the items of a job submitted in the caller's tenant, in order.
+     *
+     * @param jobId the id of the job
+     * @param status the status of the items to read, or null to read all of them
+     * @param page the page of items to read
+     * @param contextInfo context information around multi-tenant state
+     * @return the page of items
+     * @throws EntityMissingException if there is no such job in the caller's tenant
+     */
+    public Page<SubscriptionJobItem> readJobItems(String jobId,
+            @Nullable SubscriptionJobItemStatus status,
+            Pageable page,
+            @Nullable ContextInfo contextInfo) {
+        readJob(jobId, contextInfo);
+        return store.readItems(jobId, status, page);
+    }
+
+    /**
+     * Applies the job's operation to one of its subscriptions, leaving the subscription as is if
+     * it already matches.
+     *
+     * @param job the job being processed
+     * @param subscriptionId the id of the subscription
+     * @return {@link SubscriptionJobItemStatus#SUCCEEDED} or
+     *         {@link SubscriptionJobItemStatus#SKIPPED}
+     */
+    public SubscriptionJobItemStatus apply(SubscriptionJob job, String subscriptionId) {
+        ContextInfo contextInfo = buildContextInfo(job);
+        Subscription subscription = subscriptionProvider
+                .readSubscriptionById(subscriptionId, contextInfo)
+                .getSubscription();
+        if (isAutoRenewalChange(job)) {
+            return changeAutoRenewal(job, subscription, contextInfo);
+        }
+        boolean changed = job.getType() == SubscriptionJobType.CANCEL
+                ? cancel(job, subscription)
+                : changeStatus(job, subscription);
+        if (!changed) {
+            return SubscriptionJobItemStatus.SKIPPED;
+        }
+        Subscription replaced =
+                subscriptionProvider.replaceSubscription(subscriptionId, subscription,
+                        contextInfo);
+        if (replaced != null) {
+            changeListeners.forEach(listener -> listener.onSubscriptionChanged(replaced,
+                    contextInfo));
+        }
+        return SubscriptionJobItemStatus.SUCCEEDED;
+    }
+
+    protected void validate(SubscriptionJobRequest request) {
+        if (request.getType() == null) {
+            throw new InvalidSubscriptionJobRequestException("A job type is required");
+        }
+        boolean byId = !request.getSubscriptionIds().isEmpty();
+        boolean byUser = StringUtils.isNotBlank(request.getUserRefType())
+                && !request.getUserRefs().isEmpty();
+        if (byId == byUser) {
+            throw new InvalidSubscriptionJobRequestException(
+                    "Either subscription ids or a user type and user ids are required");
+        }
+        if (request.getType() == SubscriptionJobType.CHANGE_AUTO_RENEWAL
+                && request.getAutoRenewalEnabled() == null) {
+            throw new InvalidSubscriptionJobRequestException(
+                    "The auto renewal setting to change to is required");
+        }
+        if (request.getType() == SubscriptionJobType.CHANGE_STATUS
+                && StringUtils.isBlank(request.getSubscriptionStatus())) {
+            throw new InvalidSubscriptionJobRequestException(
+                    "The status to change to is required");
+        }
+        if (request.getType() == SubscriptionJobType.CHANGE_STATUS
+                && !EnumUtils.isValidEnum(SubscriptionStatuses.class,
+                        request.getSubscriptionStatus())) {
+            throw new InvalidSubscriptionJobRequestException(
+                    "Unknown subscription status: " + request.getSubscriptionStatus());
+        }
+    }
+
+    /**
+     * Validates, with the caller's context, that the job's operation may be applied to the given
+     * subscription. Auto-renewal changes the subscription already matches are not validated, as
+     * they are skipped when the job is processed.
+     *
+     * @param request the request to submit a job
+     * @param subscriptionId the id of one of the subscriptions the job applies to
+     * @param contextInfo context information around multi-tenant state
+     */
+    protected void validateItem(SubscriptionJobRequest request,
+            String subscriptionId,
+            @Nullable ContextInfo contextInfo) {
+        if (request.getType() == SubscriptionJobType.CANCEL) {
+            SubscriptionCancellationRequest cancellationRequest =
+                    new SubscriptionCancellationRequest();
+            cancellationRequest.setSubscriptionId(subscriptionId);
+            cancellationRequest.setReason(request.getReason());
+            cancellationRequest.setImmediateCancellation(request.isImmediate());
+            subscriptionValidationService.validateSubscriptionCancellation(cancellationRequest,
+                    contextInfo);
+        }
+        if (request.getType() == SubscriptionJobType.CHANGE_AUTO_RENEWAL
+                || (request.getType() == SubscriptionJobType.CANCEL && !request.isImmediate())) {
+            boolean enabled = Boolean.TRUE.equals(request.getAutoRenewalEnabled());
+            SubscriptionWithItems subscription =
+                    subscriptionProvider.readSubscriptionById(subscriptionId, contextInfo);
+            if (subscription.getSubscription().isAutoRenewalEnabled() != enabled) {
+                subscriptionValidationService.validateSubscriptionChangeAutoRenewal(
+                        buildAutoRenewalChange(subscriptionId, enabled), subscription,
+                        contextInfo);
+            }
+        }
+    }
+
+    /**
+     * Resolves the ids of the subscriptions the request applies to, without duplicates.
+     */
+    protected List<String> resolveSubscriptionIds(SubscriptionJobRequest request,
+            @Nullable ContextInfo contextInfo) {
+        Set<String> subscriptionIds = new LinkedHashSet<>(request.getSubscriptionIds());
+        for (String userRef : request.getUserRefs()) {
+            // Read one more than may be added, to tell whether there are too many
+            int remaining = maxItems - subscriptionIds.size();
+            subscriptionProvider.readSubscriptionsForUserRefTypeAndUserRef(
+                    request.getUserRefType(), userRef, SubscriptionProjection.SUMMARY,
+                    PageRequest.of(0, remaining + 1), null, contextInfo)
+                    .forEach(subscription -> subscriptionIds
+                            .add(subscription.getSubscription().getId()));
+            if (subscriptionIds.size() > maxItems) {
+                break;
+            }
+        }
+        if (subscriptionIds.size() > maxItems) {
+            throw new InvalidSubscriptionJobRequestException(
+                    "A job may apply to at most " + maxItems + " subscriptions");
+        }
+        return new ArrayList<>(subscriptionIds);
+    }
+
+    /**
+     * Immediately cancels the subscription, recording the job's reason or the default
+     * {@link DefaultSubscriptionNextStatusChangeReason#CANCELLED} one.
+     */
+    protected boolean cancel(SubscriptionJob job, Subscription subscription) {
+        String cancelled = SubscriptionStatuses.CANCELLED.name();
+        if (cancelled.equals(subscription.getSubscriptionStatus())) {
+            return false;
+        }
+        subscription.setSubscriptionStatus(cancelled);
+        subscription.setSubscriptionNextStatus(null);
+        subscription.setNextStatusChangeDate(null);
+        subscription.setNextStatusChangeReason(getReason(job, CANCELLED));
+        return true;
+    }
+
+    /**
+     * Whether the job changes the auto-renewal of its subscriptions, including cancelling them at
+     * the end of their term by disabling it.
+     */
+    protected boolean isAutoRenewalChange(SubscriptionJob job) {
+        return job.getType() == SubscriptionJobType.CHANGE_AUTO_RENEWAL
+                || (job.getType() == SubscriptionJobType.CANCEL && !job.isImmediate());
+    }
+
+    /**
+     * Changes the auto-renewal of the subscription through the
+     * {@link SubscriptionOperationService}, the same way as changing it for a single subscription.
+     */
+    protected SubscriptionJobItemStatus changeAutoRenewal(SubscriptionJob job,
+            Subscription subscription,
+            ContextInfo contextInfo) {
+        boolean enabled = Boolean.TRUE.equals(job.getAutoRenewalEnabled());
+        if (subscription.isAutoRenewalEnabled() == enabled) {
+            return SubscriptionJobItemStatus.SKIPPED;
+        }
+        subscriptionOperationService.applyAutoRenewalChange(
+                buildAutoRenewalChange(subscription.getId(), enabled), contextInfo);
+        return SubscriptionJobItemStatus.SUCCEEDED;
+    }
+
+    protected ChangeAutoRenewalRequest buildAutoRenewalChange(String subscriptionId,
+            boolean enabled) {
+        ChangeAutoRenewalRequest changeRequest = new ChangeAutoRenewalRequest();
+        changeRequest.setSubscriptionId(subscriptionId);
+        changeRequest.setAutoRenewalEnabled(enabled);
+        return changeRequest;
+    }
+
+    protected boolean changeStatus(SubscriptionJob job, Subscription subscription) {
+        String status = job.getSubscriptionStatus();
+        if (Objects.equals(status, subscription.getSubscriptionStatus())) {
+            return false;
+        }
+        subscription.setSubscriptionStatus(status);
+        if (Objects.equals(status, subscription.getSubscriptionNextStatus())) {
+            // The scheduled change was made early
+            subscription.setSubscriptionNextStatus(null);
+            subscription.setNextStatusChangeDate(null);
+        }
+        return true;
+    }
+
+    protected String getReason(SubscriptionJob job,
+            DefaultSubscriptionNextStatusChangeReason defaultReason) {
+        if (StringUtils.isNotBlank(job.getReason())) {
+            return job.getReason();
+        }
+        return messageSource.getMessage(defaultReason.getMessagePath(), null,
+                LocaleContextHolder.getLocale());
+    }
+
+    protected ContextInfo buildContextInfo(SubscriptionJob job) {
+        ContextRequest contextRequest = job.getContextRequest() == null ? new ContextRequest()
+                : fromJson(job.getContextRequest(), ContextRequest.class);
+        return new ContextInfo(OperationType.UPDATE, contextRequest);
+    }
+
+    @Nullable
+    protected String getTenantId(@Nullable ContextInfo contextInfo) {
+        return Optional.ofNullable(contextInfo)
+                .map(ContextInfo::getContextRequest)
+                .map(ContextRequest::getTenantId)
+                .orElse(null);
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to convert to JSON", e);
+        }
+    }
+
+    private <T> T fromJson(String json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to read the recorded subscription job", e);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.job;
+
+/**
+ * The states of a {@link SubscriptionJob} in a {@link SubscriptionJobStore}.
+ */
+public enum SubscriptionJobStatus {
+
+    /**
+     * The job was submitted and is yet to be picked up.
+     */
+    PENDING,
+
+    /**
+     * The job is being processed, or was being processed by an instance that stopped, in which
+     * case it is resumed from its last checkpoint once its lease expires.
+     */
+    RUNNING,
+
+    /**
+     * Every item of the job was processed, whether successfully or not.
+     */
+    COMPLETED
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.job;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Durably records {@link SubscriptionJob jobs} and their {@link SubscriptionJobItem items}, and
+ * leases jobs to the {@link SubscriptionJobProcessor processors} of the instances of the service,
+ * so that each job is processed by a single instance at a time.
+ */
+public interface SubscriptionJobStore {
+
+    /**
+     * Records a new job as {@link SubscriptionJobStatus#PENDING pending}, with an item per
+     * subscription in the given order.
+     *
+     * @param job the job to record
+     * @param subscriptionIds the ids of the subscriptions the job applies to
+     */
+    void create(SubscriptionJob job, List<String> subscriptionIds);
+
+    Optional<SubscriptionJob> read(String jobId);
+
+    /**
+     * Reads the items of a job in order.
+     *
+     * @param jobId the id of the job
+     * @param status the status of the items to read, or null to read all of them
+     * @param page the page of items to read
+     * @return the page of items
+     */
+    Page<SubscriptionJobItem> readItems(String jobId,
+            @Nullable SubscriptionJobItemStatus status,
+            Pageable page);
+
+    /**
+     * Claims a job that is pending, or that is running but whose lease expired, such as when the
+     * instance processing it stopped, leasing it to the given owner.
+     *
+     * @param owner identifies the instance claiming the job
+     * @param lease how long the job is held by the owner without being renewed
+     * @return the claimed job, or empty if there is none to process
+     */
+    Optional<SubscriptionJob> claim(String owner, Duration lease);
+
+    /**
+     * Reads the next items of a job to process, after its {@link SubscriptionJob#getCheckpoint()
+     * checkpoint}.
+     *
+     * @param jobId the id of the job
+     * @param checkpoint the sequence of the last item processed
+     * @param chunkSize the largest number of items to read
+     * @return the items, in order
+     */
+    List<SubscriptionJobItem> readChunk(String jobId, int checkpoint, int chunkSize);
+
+    /**
+     * Records the results of a processed chunk of items, advancing the job's checkpoint past
+     * them and renewing its lease, if the job is still held by the given owner.
+     *
+     * @param jobId the id of the job
+     * @param owner identifies the instance processing the job
+     * @param results the processed items
+     * @param lease how long the job is held by the owner from now
+     * @return whether the job was still held by the owner, in which case the results were
+     *         recorded
+     */
+    boolean checkpoint(String jobId,
+            String owner,
+            List<SubscriptionJobItem> results,
+            Duration lease);
+
+    /**
+     * Marks a job held by the given owner as {@link SubscriptionJobStatus#COMPLETED completed}.
+     *
+     * @param jobId the id of the job
+     * @param owner identifies the instance processing the job
+     */
+    void complete(String jobId, String owner);
+
+    /**
+     * Releases every job held by the given owner, so that they may be resumed by another
+     * instance without waiting for their leases to expire.
+     *
+     * @param owner identifies the instance processing the jobs
+     */
+    void release(String owner);
+}
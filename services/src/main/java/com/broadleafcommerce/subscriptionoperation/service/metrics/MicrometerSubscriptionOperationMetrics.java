@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@link SubscriptionOperationMetrics} backed by a Micrometer {@link MeterRegistry}.
+ * <p>
+ * Meters are registered on first use and then kept by name and tags, so that recording does not
+ * look them up in the registry again.
+ */
+@RequiredArgsConstructor
+public class MicrometerSubscriptionOperationMetrics implements SubscriptionOperationMetrics {
+
+    public static final String PROVIDER_REQUESTS = "subscriptionoperation.provider.requests";
+    public static final String PROVIDER_RESPONSE_SIZE =
+            "subscriptionoperation.provider.response.size";
+    public static final String PROVIDER_REJECTED_REQUESTS =
+            "subscriptionoperation.provider.requests.rejected";
+    public static final String PROVIDER_SAVED_REQUESTS =
+            "subscriptionoperation.provider.requests.saved";
+    public static final String ACTION_POPULATION = "subscriptionoperation.actions.population";
+    public static final String VALIDATION = "subscriptionoperation.validation";
+    public static final String OAUTH_TOKEN_ACQUISITIONS =
+            "subscriptionoperation.oauth.token.acquisitions";
+    public static final String TRANSITIONS = "subscriptionoperation.transitions";
+    public static final String TRANSITION_LAG = "subscriptionoperation.transitions.lag";
+    public static final String RATE_LIMITED = "subscriptionoperation.requests.rate.limited";
+    public static final String REQUEST_QUEUE_LATENCY = "subscriptionoperation.requests.queue";
+    public static final String REQUESTS_SHED = "subscriptionoperation.requests.shed";
+
+    @Getter(AccessLevel.PROTECTED)
+    private final MeterRegistry meterRegistry;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final SubscriptionOperationMetricsProperties properties;
+
+    private final Map<List<String>, Timer> timers = new ConcurrentHashMap<>();
+
+    private final Map<List<String>, Counter> counters = new ConcurrentHashMap<>();
+
+    private final Map<List<String>, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    @Override
+    public void recordProviderRequest(String provider,
+            String operation,
+            String outcome,
+            String status,
+            long durationNanos) {
+        timer(PROVIDER_REQUESTS, "Requests made to the subscription and catalog providers",
+                "provider", provider,
+                "operation", operation,
+                "outcome", outcome,
+                "status", status)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordProviderResponseSize(String provider, String operation, long bytes) {
+        summaries.computeIfAbsent(
+                key(PROVIDER_RESPONSE_SIZE, "provider", provider, "operation", operation),
+                key -> DistributionSummary.builder(PROVIDER_RESPONSE_SIZE)
+                        .description("Size of the response bodies received from the providers")
+                        .baseUnit("bytes")
+                        .tag("provider", provider)
+                        .tag("operation", operation)
+                        .publishPercentileHistogram(properties.isPercentileHistogram())
+                        .register(meterRegistry))
+                .record(bytes);
+    }
+
+    @Override
+    public void recordProviderRequestRejected(String provider) {
+        counter(PROVIDER_REJECTED_REQUESTS,
+                "Requests to the providers rejected at their concurrency limit",
+                "provider", provider)
+                .increment();
+    }
+
+    @Override
+    public void recordSavedProviderRequest(String provider, String operation) {
+        counter(PROVIDER_SAVED_REQUESTS,
+                "Provider reads served from the reads of the same inbound request",
+                "provider", provider,
+                "operation", operation)
+                .increment();
+    }
+
+    @Override
+    public void recordActionPopulation(long durationNanos) {
+        timer(ACTION_POPULATION, "Time taken to populate the actions of a single subscription")
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordValidation(String actionType, String outcome, long durationNanos) {
+        timer(VALIDATION, "Time taken to validate subscription operation requests",
+                "action", actionType,
+                "outcome", outcome)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordTokenAcquisition(String clientRegistrationId, String type,
+            boolean success) {
+        counter(OAUTH_TOKEN_ACQUISITIONS,
+                "OAuth2 access tokens requested for calling the providers",
+                "client", clientRegistrationId,
+                "type", type,
+                "outcome", success ? "SUCCESS" : "FAILURE")
+                .increment();
+    }
+
+    @Override
+    public void recordTransition(String outcome, boolean catchingUp, long lagMillis) {
+        String mode = catchingUp ? "CATCH_UP" : "NORMAL";
+        counter(TRANSITIONS, "Due subscription next-status transitions processed",
+                "outcome", outcome,
+                "mode", mode)
+                .increment();
+        timer(TRANSITION_LAG, "Time between a transition becoming due and being processed",
+                "mode", mode)
+                .record(Math.max(lagMillis, 0), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void recordRateLimited(String endpointClass, String scope) {
+        counter(RATE_LIMITED, "Endpoint requests rejected for exceeding their rate limit",
+                "endpoint", endpointClass,
+                "scope", scope)
+                .increment();
+    }
+
+    @Override
+    public void recordRequestAdmitted(String priority, long queueNanos) {
+        timer(REQUEST_QUEUE_LATENCY,
+                "Time endpoint requests waited to be admitted under load shedding",
+                "priority", priority)
+                .record(queueNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordRequestShed(String priority, String reason) {
+        counter(REQUESTS_SHED, "Endpoint requests shed rather than admitted",
+                "priority", priority,
+                "reason", reason)
+                .increment();
+    }
+
+    /**
+     * Gets the timer with the given name and tags, registering it on first use.
+     *
+     * @param name the name of the timer
+     * @param description the description of the timer
+     * @param tags the tag keys and values, alternating
+     * @return the timer
+     */
+    protected Timer timer(String name, String description, String... tags) {
+        return timers.computeIfAbsent(key(name, tags), key -> Timer.builder(name)
+                .description(description)
+                .tags(tags)
+                .publishPercentileHistogram(properties.isPercentileHistogram())
+                .register(meterRegistry));
+    }
+
+    /**
+     * Gets the counter with the given name and tags, registering it on first use.
+     *
+     * @param name the name of the counter
+     * @param description the description of the counter
+     * @param tags the tag keys and values, alternating
+     * @return the counter
+     */
+    protected Counter counter(String name, String description, String... tags) {
+        return counters.computeIfAbsent(key(name, tags), key -> Counter.builder(name)
+                .description(description)
+                .tags(tags)
+                .register(meterRegistry));
+    }
+
+    private List<String> key(String name, String... tags) {
+        List<String> key = new ArrayList<>(tags.length + 1);
+        key.add(name);
+        for (String tag : tags) {
+            key.add(tag);
+        }
+        return key;
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.metrics;
+
+import com.broadleafcommerce.subscriptionoperation.domain.enums.DefaultSubscriptionActionType;
+import com.broadleafcommerce.subscriptionoperation.service.provider.CatalogProvider;
+import com.broadleafcommerce.subscriptionoperation.service.provider.SubscriptionProvider;
+
+/**
+ * Records the metrics describing where time is spent while servicing subscription operations:
+ * calls out to the {@link SubscriptionProvider} and {@link CatalogProvider}, the population of
+ * available actions, validation, and the acquisition of the OAuth2 tokens used to call the
+ * providers.
+ */
+public interface SubscriptionOperationMetrics {
+
+    /**
+     * Outcome recorded when a validation passes.
+     */
+    String VALID = "VALID";
+
+    /**
+     * Outcome recorded when a validation rejects the request.
+     */
+    String INVALID = "INVALID";
+
+    /**
+     * Outcome recorded when a validation could not be completed, e.g. a provider call failed.
+     */
+    String ERROR = "ERROR";
+
+    /**
+     * Token acquisition type recorded when no token was previously held for the client.
+     */
+    String TOKEN_FETCH = "FETCH";
+
+    /**
+     * Token acquisition type recorded when a previously held token was replaced.
+     */
+    String TOKEN_REFRESH = "REFRESH";
+
+    /**
+     * Outcome recorded when a due next-status transition was applied to a subscription.
+     */
+    String TRANSITION_APPLIED = "APPLIED";
+
+    /**
+     * Outcome recorded when a transition was no longer due once the subscription was read, e.g.
+     * because it was changed since it was copied.
+     */
+    String TRANSITION_SKIPPED = "SKIPPED";
+
+    /**
+     * Records the latency of a single request to a provider.
+     *
+     * @param provider the name of the provider, e.g. {@code subscription} or {@code catalog}
+     * @param operation the provider operation that issued the request
+     * @param outcome the outcome of the request, e.g. {@code SUCCESS} or {@code SERVER_ERROR}
+     * @param status the HTTP status code of the response, or a descriptive value if no response
+     *        was received
+     * @param durationNanos the time from sending the request until the response body was consumed
+     */
+    void recordProviderRequest(String provider,
+            String operation,
+            String outcome,
+            String status,
+            long durationNanos);
+
+    /**
+     * Records the size of the response body received from a provider.
+     *
+     * @param provider the name of the provider
+     * @param operation the provider operation that issued the request
+     * @param bytes the number of bytes in the response body
+     */
+    void recordProviderResponseSize(String provider, String operation, long bytes);
+
+    /**
+     * Records a request to a provider that was rejected without being sent, because the provider
+     * was at its concurrency limit.
+     *
+     * @param provider the name of the provider
+     */
+    void recordProviderRequestRejected(String provider);
+
+    /**
+     * Records a read that was served from the reads remembered for the current inbound request,
+     * saving a request to a provider.
+     *
+     * @param provider the name of the provider
+     * @param operation the provider operation whose request was saved
+     */
+    void recordSavedProviderRequest(String provider, String operation);
+
+    /**
+     * Records the time taken to populate the available and unavailable actions of a single
+     * subscription.
+     *
+     * @param durationNanos the time taken
+     */
+    void recordActionPopulation(long durationNanos);
+
+    /**
+     * Records the time taken to validate a request for the given action.
+     *
+     * @param actionType the action being validated. See {@link DefaultSubscriptionActionType}
+     * @param outcome {@link #VALID}, {@link #INVALID} or {@link #ERROR}
+     * @param durationNanos the time taken
+     */
+    void recordValidation(String actionType, String outcome, long durationNanos);
+
+    /**
+     * Records the acquisition of an OAuth2 access token for calling a provider.
+     *
+     * @param clientRegistrationId the client registration the token was requested for
+     * @param type {@link #TOKEN_FETCH} or {@link #TOKEN_REFRESH}
+     * @param success whether a token was obtained
+     */
+    void recordTokenAcquisition(String clientRegistrationId, String type, boolean success);
+
+    /**
+     * Records the processing of a due next-status transition of a subscription.
+     *
+     * @param outcome {@link #TRANSITION_APPLIED}, {@link #TRANSITION_SKIPPED} or {@link #ERROR}
+     * @param catchingUp whether the transition was processed while catching up on a backlog
+     * @param lagMillis how long after the transition was due it was processed
+     */
+    void recordTransition(String outcome, boolean catchingUp, long lagMillis);
+
+    /**
+     * Records a request to the subscription endpoints that was rejected for exceeding its rate
+     * limit.
+     *
+     * @param endpointClass the class of endpoint the request was made to, e.g. {@code CUSTOMER}
+     * @param scope the limit that was exceeded, e.g. {@code TENANT} or {@code USER}
+     */
+    void recordRateLimited(String endpointClass, String scope);
+
+    /**
+     * Records the admission of a request to the subscription endpoints under load shedding.
+     *
+     * @param priority the priority of the request, e.g. {@code HIGH} or {@code LOW}
+     * @param queueNanos the time the request waited to be admitted
+     */
+    void recordRequestAdmitted(String priority, long queueNanos);
+
+    /**
+     * Records a request to the subscription endpoints that was shed rather than admitted.
+     *
+     * @param priority the priority of the request, e.g. {@code HIGH} or {@code LOW}
+     * @param reason why the request was shed, e.g. {@code OVERLOADED} or {@code TIMEOUT}
+     */
+    void recordRequestShed(String priority, String reason);
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.outbox;
+
+import org.springframework.lang.Nullable;
+
+import java.time.Instant;
+
+import lombok.Data;
+
+/**
+ * A write to a subscription that was accepted but is yet to be made through the
+ * {@link com.broadleafcommerce.subscriptionoperation.service.provider.SubscriptionProvider}.
+ */
+@Data
+public class SubscriptionWrite {
+
+    private String id;
+
+    private SubscriptionWriteOperation operation;
+
+    /**
+     * Writes with the same ordering key are dispatched one at a time, in the order they were
+     * added.
+     */
+    private String orderingKey;
+
+    /**
+     * The JSON of the request or subscription to write, depending on the {@link #operation}.
+     */
+    private String payload;
+
+    /**
+     * The JSON of the
+     * {@link com.broadleafcommerce.data.tracking.core.context.ContextRequest} the write was
+     * accepted with, if any.
+     */
+    @Nullable
+    private String contextRequest;
+
+    private SubscriptionWriteStatus status = SubscriptionWriteStatus.PENDING;
+
+    /**
+     * The number of attempts made to dispatch the write, including the current one once claimed.
+     */
+    private int attempts;
+
+    @Nullable
+    private String lastError;
+
+    private Instant createdAt;
+}
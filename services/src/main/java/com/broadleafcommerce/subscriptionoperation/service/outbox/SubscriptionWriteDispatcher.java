@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.outbox;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import com.broadleafcommerce.subscriptionoperation.exception.ProviderApiException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Periodically claims due {@link SubscriptionWrite writes} from the
+ * {@link SubscriptionWriteOutbox} and dispatches them through the
+ * {@link SubscriptionWriteService}, at most {@link #getConcurrency()} at a time.
+ * <p>
+ * Since the outbox only hands out the earliest open write of each ordering key, writes to the
+ * same subscription are never dispatched concurrently and are made in order, while writes to
+ * different subscriptions proceed in parallel. Every instance of the service dispatches;
+ * instances only compete for the same writes.
+ * <p>
+ * Writes that fail with an error the provider may recover from, such as a connection failure or
+ * a {@code 5xx} response, are retried with exponential backoff up to {@link #getMaxAttempts()}
+ * times. Any other failure, such as a rejected request, fails the write immediately.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class SubscriptionWriteDispatcher implements SmartLifecycle {
+
+    @Getter(AccessLevel.PROTECTED)
+    private final SubscriptionWriteOutbox outbox;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final SubscriptionWriteService writeService;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final Duration pollInterval;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final int batchSize;
+
+    /**
+     * The largest number of writes dispatched at the same time by this instance.
+     */
+    @Getter(AccessLevel.PROTECTED)
+    private final int concurrency;
+
+    /**
+     * How long claimed writes are held by this instance. A batch that is not dispatched within
+     * the lease may be claimed again by another instance.
+     */
+    @Getter(AccessLevel.PROTECTED)
+    private final Duration lease;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final int maxAttempts;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final Duration initialBackoff;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final Duration maxBackoff;
+
+    private ScheduledExecutorService poller;
+
+    private ExecutorService workers;
+
+    @Override
+    public synchronized void start() {
+        if (poller != null) {
+            return;
+        }
+        poller = Executors.newSingleThreadScheduledExecutor(
+                runnable -> newThread(runnable, "subscription-outbox-poll"));
+        AtomicInteger count = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(concurrency, runnable -> newThread(runnable,
+                "subscription-outbox-dispatch-" + count.incrementAndGet()));
+        long millis = pollInterval.toMillis();
+        poller.scheduleWithFixedDelay(this::poll, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (poller != null) {
+            poller.shutdownNow();
+            workers.shutdownNow();
+            poller = null;
+            workers = null;
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return poller != null;
+    }
+
+    /**
+     * Claims and dispatches batches of writes until a batch comes back short, waiting for each
+     * batch to finish before claiming the next so that no more writes are leased than can be
+     * dispatched.
+     *
+     * @return the number of writes dispatched, successfully or not
+     */
+    public int poll() {
+        ExecutorService executor = workers;
+        if (executor == null) {
+            return 0;
+        }
+        int total = 0;
+        try {
+            List<SubscriptionWrite> batch;
+            do {
+                batch = outbox.claim(batchSize, lease);
+                CompletableFuture<?>[] futures = batch.stream()
+                        .map(write -> CompletableFuture.runAsync(() -> dispatch(write), executor))
+                        .toArray(CompletableFuture[]::new);
+                CompletableFuture.allOf(futures).get(lease.toMillis(), TimeUnit.MILLISECONDS);
+                total += batch.size();
+            } while (batch.size() >= batchSize);
+        } catch (DataAccessException e) {
+            log.warn("Unable to claim subscription writes from the outbox", e);
+        } catch (TimeoutException e) {
+            log.warn("Subscription writes were not dispatched within their lease of {}", lease);
+        } catch (ExecutionException e) {
+            log.warn("Unable to dispatch subscription writes", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return total;
+    }
+
+    /**
+     * Dispatches a single claimed write, removing it from the outbox if it succeeds and retrying
+     * or failing it otherwise.
+     *
+     * @param write the claimed write
+     */
+    protected void dispatch(SubscriptionWrite write) {
+        try {
+            writeService.dispatch(write);
+        } catch (RuntimeException e) {
+            String error = StringUtils.abbreviate(String.valueOf(e), 1000);
+            if (isRetryable(e) && write.getAttempts() < maxAttempts) {
+                Instant nextAttemptAt =
+                        Clock.systemUTC().instant().plus(getBackoff(write.getAttempts()));
+                log.debug("Subscription write {} failed, retrying at {}", write.getId(),
+                        nextAttemptAt, e);
+                outbox.retry(write.getId(), nextAttemptAt, error);
+            } else {
+                log.warn("Subscription write {} failed after {} attempts", write.getId(),
+                        write.getAttempts(), e);
+                outbox.fail(write.getId(), error);
+            }
+            return;
+        }
+        outbox.complete(write.getId());
+    }
+
+    /**
+     * Determines whether a failed write may succeed if it is attempted again.
+     *
+     * @param e the failure
+     * @return whether the write should be retried
+     */
+    protected boolean isRetryable(RuntimeException e) {
+        if (e instanceof WebClientRequestException) {
+            return true;
+        }
+        if (e instanceof ProviderApiException providerApiException) {
+            WebClientResponseException received = providerApiException.getReceivedException();
+            if (received == null) {
+                return true;
+            }
+            HttpStatusCode status = received.getStatusCode();
+            return status.is5xxServerError()
+                    || status.isSameCodeAs(HttpStatus.REQUEST_TIMEOUT)
+                    || status.isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS);
+        }
+        return false;
+    }
+
+    /**
+     * Determines the delay before the next attempt of a write, doubling with each attempt up to
+     * {@link #getMaxBackoff()}.
+     *
+     * @param attempts the number of attempts made so far
+     * @return the delay before the next attempt
+     */
+    protected Duration getBackoff(int attempts) {
+        int doublings = Math.min(Math.max(attempts - 1, 0), 30);
+        Duration backoff = initialBackoff.multipliedBy(1L << doublings);
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+
+    private static Thread newThread(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.outbox;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Durably records {@link SubscriptionWrite writes} accepted for asynchronous dispatch, and hands
+ * them out to a {@link SubscriptionWriteDispatcher} in order for each
+ * {@link SubscriptionWrite#getOrderingKey() ordering key}.
+ */
+public interface SubscriptionWriteOutbox {
+
+    /**
+     * Records a new write as {@link SubscriptionWriteStatus#PENDING pending}, after every write
+     * already recorded with the same ordering key.
+     *
+     * @param write the write to record
+     */
+    void add(SubscriptionWrite write);
+
+    /**
+     * Claims writes that are due for dispatch, leasing them to the caller. Only the earliest open
+     * write of each ordering key is claimed, so that at most one write per key is dispatched at a
+     * time. Writes whose lease expired, such as when an instance stopped mid-dispatch, may be
+     * claimed again.
+     *
+     * @param batchSize the largest number of writes to claim
+     * @param lease how long the claimed writes are held by the caller
+     * @return the claimed writes, with their attempts incremented
+     */
+    List<SubscriptionWrite> claim(int batchSize, Duration lease);
+
+    /**
+     * Removes a write that was dispatched successfully.
+     *
+     * @param id the id of the write
+     */
+    void complete(String id);
+
+    /**
+     * Returns a claimed write to {@link SubscriptionWriteStatus#PENDING pending}, to be attempted
+     * again no sooner than the given time.
+     *
+     * @param id the id of the write
+     * @param nextAttemptAt the earliest time of the next attempt
+     * @param error a description of the failed attempt
+     */
+    void retry(String id, Instant nextAttemptAt, String error);
+
+    /**
+     * Marks a write as {@link SubscriptionWriteStatus#FAILED failed}, so that it is not attempted
+     * again.
+     *
+     * @param id the id of the write
+     * @param error a description of the failed attempt
+     */
+    void fail(String id, String error);
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.outbox;
+
+import org.springframework.lang.Nullable;
+
+import com.broadleafcommerce.data.tracking.core.context.ContextInfo;
+import com.broadleafcommerce.data.tracking.core.context.ContextRequest;
+import com.broadleafcommerce.data.tracking.core.type.OperationType;
+import com.broadleafcommerce.subscriptionoperation.domain.Subscription;
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionItem;
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
+import com.broadleafcommerce.subscriptionoperation.service.SubscriptionOperationService;
+import com.broadleafcommerce.subscriptionoperation.service.SubscriptionValidationService;
+import com.broadleafcommerce.subscriptionoperation.web.domain.ChangeAutoRenewalRequest;
+import com.broadleafcommerce.subscriptionoperation.web.domain.SubscriptionCreationRequest;
+import com.broadleafcommerce.subscriptionoperation.web.domain.SubscriptionWriteResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.time.Clock;
+import java.util.UUID;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * Accepts subscription writes to be made asynchronously by recording them in a
+ * {@link SubscriptionWriteOutbox}, and makes them once they are dispatched.
+ * <p>
+ * Everything that depends on the caller, such as validating their access to the subscription, is
+ * done when the write is accepted, so that invalid requests are still rejected immediately. The
+ * dispatched write is then made with only the caller's {@link ContextRequest}, as their
+ * authentication is not available to the dispatcher.
+ */
+public class SubscriptionWriteService {
+
+    /**
+     * The preference, as defined by RFC 7240, of a caller requesting a write to be made
+     * asynchronously.
+     */
+    public static final String RESPOND_ASYNC = "respond-async";
+
+    /**
+     * The header condition of endpoints accepting writes to be made asynchronously.
+     */
+    public static final String PREFER_RESPOND_ASYNC = "Prefer=" + RESPOND_ASYNC;
+
+    public static final String PREFERENCE_APPLIED_HEADER = "Preference-Applied";
+
+    @Getter(AccessLevel.PROTECTED)
+    private final SubscriptionWriteOutbox outbox;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final SubscriptionOperationService<Subscription, SubscriptionItem, SubscriptionWithItems> subscriptionOperationService;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final SubscriptionValidationService subscriptionValidationService;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final ObjectMapper objectMapper;
+
+    private final Clock clock;
+
+    public SubscriptionWriteService(SubscriptionWriteOutbox outbox,
+            SubscriptionOperationService<Subscription, SubscriptionItem, SubscriptionWithItems> subscriptionOperationService,
+            SubscriptionValidationService subscriptionValidationService,
+            ObjectMapper objectMapper) {
+        this(outbox, subscriptionOperationService, subscriptionValidationService, objectMapper,
+                Clock.systemUTC());
+    }
+
+    SubscriptionWriteService(SubscriptionWriteOutbox outbox,
+            SubscriptionOperationService<Subscription, SubscriptionItem, SubscriptionWithItems> subscriptionOperationService,
+            SubscriptionValidationService subscriptionValidationService,
+            ObjectMapper objectMapper,
+            Clock clock) {
+        this.outbox = outbox;
+        this.subscriptionOperationService = subscriptionOperationService;
+        this.subscriptionValidationService = subscriptionValidationService;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+    }
+
+    /**
+     * Validates the given creation request and accepts it to be made asynchronously. Creations
+     * for the same user are made in the order they were accepted.
+     *
+     * @param creationRequest the request to create a subscription
+     * @param contextInfo context information around multi-tenant state
+     * @return the accepted write
+     */
+    public SubscriptionWriteResponse acceptCreation(SubscriptionCreationRequest creationRequest,
+            @Nullable ContextInfo contextInfo) {
+        subscriptionValidationService.validateSubscriptionCreation(creationRequest, contextInfo);
+        String orderingKey = creationRequest.getUserRefType() + ":" + creationRequest.getUserRef();
+        return accept(SubscriptionWriteOperation.CREATE, orderingKey, null, creationRequest,
+                contextInfo);
+    }
+
+    /**
+     * Validates the given change and accepts it to be made asynchronously. Changes to the same
+     * subscription are made in the order they were accepted.
+     *
+     * @param changeRequest the request to change the auto-renewal of a subscription
+     * @param contextInfo context information around multi-tenant state
+     * @return the accepted write
+     */
+    public SubscriptionWriteResponse acceptAutoRenewalChange(
+            ChangeAutoRenewalRequest changeRequest,
+            @Nullable ContextInfo contextInfo) {
+        subscriptionOperationService.validateAutoRenewalChange(changeRequest, contextInfo);
+        String subscriptionId = changeRequest.getSubscriptionId();
+        return accept(SubscriptionWriteOperation.CHANGE_AUTO_RENEWAL, subscriptionId,
+                subscriptionId, changeRequest, contextInfo);
+    }
+
+    /**
+     * Makes the given write through the {@link SubscriptionOperationService}, so that it is made
+     * to the current state of the subscription and its change listeners are notified.
+     *
+     * @param write the write to make
+     */
+    public void dispatch(SubscriptionWrite write) {
+        switch (write.getOperation()) {
+            case CREATE -> subscriptionOperationService.createSubscriptionWithItems(
+                    fromJson(write.getPayload(), SubscriptionCreationRequest.class),
+                    buildContextInfo(write, OperationType.CREATE));
+            case CHANGE_AUTO_RENEWAL -> subscriptionOperationService.applyAutoRenewalChange(
+                    fromJson(write.getPayload(), ChangeAutoRenewalRequest.class),
+                    buildContextInfo(write, OperationType.UPDATE));
+            default -> throw new IllegalStateException(
+                    "Unsupported subscription write: " + write.getOperation());
+        }
+    }
+
+    protected SubscriptionWriteResponse accept(SubscriptionWriteOperation operation,
+            String orderingKey,
+            @Nullable String subscriptionId,
+            Object payload,
+            @Nullable ContextInfo contextInfo) {
+        SubscriptionWrite write = new SubscriptionWrite();
+        write.setId(UUID.randomUUID().toString());
+        write.setOperation(operation);
+        write.setOrderingKey(orderingKey);
+        write.setPayload(toJson(payload));
+        if (contextInfo != null && contextInfo.getContextRequest() != null) {
+            write.setContextRequest(toJson(contextInfo.getContextRequest()));
+        }
+        write.setCreatedAt(clock.instant());
+        outbox.add(write);
+
+        SubscriptionWriteResponse response = new SubscriptionWriteResponse();
+        response.setId(write.getId());
+        response.setOperation(operation);
+        response.setStatus(write.getStatus());
+        response.setSubscriptionId(subscriptionId);
+        response.setAcceptedAt(write.getCreatedAt());
+        return response;
+    }
+
+    protected ContextInfo buildContextInfo(SubscriptionWrite write, OperationType operationType) {
+        ContextRequest contextRequest = write.getContextRequest() == null ? new ContextRequest()
+                : fromJson(write.getContextRequest(), ContextRequest.class);
+        return new ContextInfo(operationType, contextRequest);
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to convert to JSON", e);
+        }
+    }
+
+    private <T> T fromJson(String json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to read the recorded subscription write", e);
+        }
+    }
+}
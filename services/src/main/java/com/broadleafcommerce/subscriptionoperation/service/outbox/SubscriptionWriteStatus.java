@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.outbox;
+
+/**
+ * The states of a {@link SubscriptionWrite} in a {@link SubscriptionWriteOutbox}. Writes that
+ * were dispatched successfully are removed rather than kept in a completed state.
+ */
+public enum SubscriptionWriteStatus {
+
+    /**
+     * Waiting to be dispatched, possibly after a failed attempt.
+     */
+    PENDING,
+
+    /**
+     * Claimed by a dispatcher until its lease expires.
+     */
+    DISPATCHING,
+
+    /**
+     * Failed permanently and will not be retried. Failed writes no longer hold back later writes
+     * with the same ordering key.
+     */
+    FAILED
+}
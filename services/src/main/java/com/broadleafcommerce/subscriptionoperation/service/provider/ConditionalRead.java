@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.provider;
+
+import org.springframework.lang.Nullable;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The result of a conditional read, i.e. one made with an {@code If-None-Match} entity tag. Either
+ * the entity has not been modified, in which case there is no body, or it is returned along with
+ * its current entity tag, if known.
+ *
+ * @param <T> the type of entity read
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class ConditionalRead<T> {
+
+    /**
+     * The entity read, or {@code null} if it has not been modified.
+     */
+    @Nullable
+    private final T body;
+
+    /**
+     * The current entity tag of the entity as given by the source it was read from, if any.
+     */
+    @Nullable
+    private final String eTag;
+
+    /**
+     * Whether the entity has not been modified since the entity tag it was read with.
+     */
+    private final boolean notModified;
+
+    public static <T> ConditionalRead<T> of(T body, @Nullable String eTag) {
+        return new ConditionalRead<>(body, eTag, false);
+    }
+
+    public static <T> ConditionalRead<T> notModified(@Nullable String eTag) {
+        return new ConditionalRead<>(null, eTag, true);
+    }
+}
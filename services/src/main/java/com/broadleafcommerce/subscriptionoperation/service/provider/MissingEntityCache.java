@@ -0,0 +1,307 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.provider;
+
+import org.springframework.lang.Nullable;
+
+import com.broadleafcommerce.data.tracking.core.context.ContextInfo;
+import com.broadleafcommerce.data.tracking.core.context.ContextRequest;
+import com.broadleafcommerce.data.tracking.core.exception.EntityMissingException;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers, for a short time, the ids that a provider reported as missing, so that repeated
+ * lookups of ids that do not exist, such as those from stale links or bots, fail with an
+ * {@link EntityMissingException} without calling the provider.
+ * <p>
+ * Entries are scoped by tenant, and optionally by the owner the lookup was restricted to, since an
+ * entity that is missing for one owner may exist for another. An entry without an owner applies
+ * to every owner. Entries must be {@link #invalidate invalidated} when the entity is created.
+ * <p>
+ * An optional Bloom filter is checked ahead of the cache. It never reports an id as missing on
+ * its own, as a false positive would hide an existing entity, but lets lookups of ids that were
+ * never missing skip the cache entirely.
+ */
+public class MissingEntityCache {
+
+    public static final String SUBSCRIPTION = "subscription";
+
+    public static final String PRODUCT = "product";
+
+    /**
+     * The maximum number of owners an entity is remembered as missing for.
+     */
+    protected static final int MAX_OWNERS_PER_ENTRY = 32;
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    private final long ttlNanos;
+
+    private final int maxEntries;
+
+    private final int expectedInsertions;
+
+    private final double falsePositiveProbability;
+
+    private final LongSupplier ticker;
+
+    @Nullable
+    private volatile IdFilter filter;
+
+    public MissingEntityCache(Duration ttl, int maxEntries) {
+        this(ttl, maxEntries, 0, 0, System::nanoTime);
+    }
+
+    public MissingEntityCache(Duration ttl,
+            int maxEntries,
+            int expectedInsertions,
+            double falsePositiveProbability) {
+        this(ttl, maxEntries, expectedInsertions, falsePositiveProbability, System::nanoTime);
+    }
+
+    MissingEntityCache(Duration ttl,
+            int maxEntries,
+            int expectedInsertions,
+            double falsePositiveProbability,
+            LongSupplier ticker) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.ticker = ticker;
+        this.filter = expectedInsertions > 0 ? newFilter() : null;
+    }
+
+    /**
+     * Determines whether the entity was recently reported as missing.
+     *
+     * @param type the type of the entity, such as {@link #SUBSCRIPTION}
+     * @param id the id of the entity
+     * @param owner the owner the lookup is restricted to, if any
+     * @param contextInfo context information around multi-tenant state
+     * @return true if the entity is known to be missing for the given owner
+     */
+    public boolean isMissing(String type,
+            String id,
+            @Nullable String owner,
+            @Nullable ContextInfo contextInfo) {
+        String tenant = getTenant(contextInfo);
+        IdFilter currentFilter = filter;
+        if (currentFilter != null && !currentFilter.mightContain(type, tenant, id)) {
+            return false;
+        }
+
+        Key key = new Key(type, tenant, id);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return false;
+        }
+        if (entry.isExpired(ticker.getAsLong())) {
+            entries.remove(key, entry);
+            return false;
+        }
+        return entry.owners() == null || (owner != null && entry.owners().contains(owner));
+    }
+
+    /**
+     * Remembers that the provider reported the entity as missing.
+     *
+     * @param type the type of the entity, such as {@link #SUBSCRIPTION}
+     * @param id the id of the entity
+     * @param owner the owner the lookup was restricted to, or null if it was missing for everyone
+     * @param contextInfo context information around multi-tenant state
+     */
+    public void recordMissing(String type,
+            String id,
+            @Nullable String owner,
+            @Nullable ContextInfo contextInfo) {
+        String tenant = getTenant(contextInfo);
+        Key key = new Key(type, tenant, id);
+        long now = ticker.getAsLong();
+        if (!entries.containsKey(key) && entries.size() >= maxEntries) {
+            purgeExpired(now);
+            if (entries.size() >= maxEntries) {
+                return;
+            }
+        }
+
+        entries.compute(key, (k, existing) -> merge(existing, owner, now));
+
+        IdFilter currentFilter = filter;
+        if (currentFilter != null && currentFilter.put(type, tenant, id) > expectedInsertions) {
+            rebuildFilter(currentFilter, now);
+        }
+    }
+
+    /**
+     * Forgets that the entity was missing, for every owner. This must be called once the entity
+     * is created.
+     *
+     * @param type the type of the entity, such as {@link #SUBSCRIPTION}
+     * @param id the id of the entity
+     * @param contextInfo context information around multi-tenant state
+     */
+    public void invalidate(String type, String id, @Nullable ContextInfo contextInfo) {
+        entries.remove(new Key(type, getTenant(contextInfo), id));
+    }
+
+    /**
+     * The number of entities currently remembered, including any that have expired but have not
+     * been purged yet.
+     *
+     * @return the number of entities currently remembered
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    protected String getTenant(@Nullable ContextInfo contextInfo) {
+        return Optional.ofNullable(contextInfo)
+                .map(ContextInfo::getContextRequest)
+                .map(ContextRequest::getTenantId)
+                .orElse("");
+    }
+
+    private Entry merge(@Nullable Entry existing, @Nullable String owner, long now) {
+        long expiresAt = now + ttlNanos;
+        boolean live = existing != null && !existing.isExpired(now);
+        if (owner == null || (live && existing.owners() == null)) {
+            return new Entry(expiresAt, null);
+        }
+
+        Set<String> owners = live ? new HashSet<>(existing.owners()) : new HashSet<>();
+        if (owners.size() >= MAX_OWNERS_PER_ENTRY && !owners.contains(owner)) {
+            return existing;
+        }
+        owners.add(owner);
+        return new Entry(expiresAt, Set.copyOf(owners));
+    }
+
+    private void purgeExpired(long now) {
+        entries.values().removeIf(entry -> entry.isExpired(now));
+    }
+
+    /**
+     * Replaces a Bloom filter that has reached its expected insertions with one holding only the
+     * live entries. An id recorded while rebuilding may be left out, which only means its next
+     * lookup calls the provider.
+     */
+    private synchronized void rebuildFilter(IdFilter full, long now) {
+        if (filter != full) {
+            return;
+        }
+        purgeExpired(now);
+        IdFilter rebuilt = newFilter();
+        entries.keySet().forEach(key -> rebuilt.put(key.type(), key.tenant(), key.id()));
+        filter = rebuilt;
+    }
+
+    private IdFilter newFilter() {
+        return new IdFilter(expectedInsertions, falsePositiveProbability);
+    }
+
+    private record Key(String type, String tenant, String id) {}
+
+    /**
+     * @param expiresAt the {@link #ticker} time at which the entry expires
+     * @param owners the owners the entity is missing for, or null if it is missing for everyone
+     */
+    private record Entry(long expiresAt, @Nullable Set<String> owners) {
+
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+
+    /**
+     * A Bloom filter of entity keys, hashed without allocating a key.
+     */
+    static class IdFilter {
+
+        private final AtomicLongArray bits;
+
+        private final long bitCount;
+
+        private final int hashCount;
+
+        private final AtomicInteger insertions = new AtomicInteger();
+
+        IdFilter(int expectedInsertions, double falsePositiveProbability) {
+            double p = Math.min(Math.max(falsePositiveProbability, Double.MIN_VALUE), 0.5);
+            long optimalBits = (long) Math.ceil(
+                    -expectedInsertions * Math.log(p) / (Math.log(2) * Math.log(2)));
+            this.bits = new AtomicLongArray((int) Math.max(1, (optimalBits + 63) / 64));
+            this.bitCount = bits.length() * 64L;
+            this.hashCount = (int) Math.max(1,
+                    Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+        }
+
+        /**
+         * @return the number of insertions into this filter, including this one
+         */
+        int put(String type, String tenant, String id) {
+            long hash = hash(type, tenant, id);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long index = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+                int word = (int) (index >>> 6);
+                long mask = 1L << index;
+                long current;
+                do {
+                    current = bits.get(word);
+                } while ((current & mask) == 0
+                        && !bits.compareAndSet(word, current, current | mask));
+            }
+            return insertions.incrementAndGet();
+        }
+
+        boolean mightContain(String type, String tenant, String id) {
+            long hash = hash(type, tenant, id);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long index = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+                if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static long hash(String type, String tenant, String id) {
+            long hash = ((long) type.hashCode() << 32) ^ (id.hashCode() & 0xffffffffL);
+            hash ^= tenant.hashCode() * 0x9e3779b97f4a7c15L;
+            // The MurmurHash3 finalizer, spreading the String hashes over every bit
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb9fe1a85ec53L;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+    }
+}
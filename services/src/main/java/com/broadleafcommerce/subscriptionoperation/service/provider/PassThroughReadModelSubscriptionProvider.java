@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.provider;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import com.broadleafcommerce.data.tracking.core.context.ContextInfo;
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
+
+import cz.jirutka.rsql.parser.ast.Node;
+import reactor.core.publisher.Flux;
+
+/**
+ * A {@link ReadModelSubscriptionProvider} for a delegate that is also a
+ * {@link PassThroughSubscriptionProvider}, relaying its pass-through reads as they are.
+ */
+public class PassThroughReadModelSubscriptionProvider<SWI extends SubscriptionWithItems>
+        extends ReadModelSubscriptionProvider<SWI> implements PassThroughSubscriptionProvider {
+
+    /**
+     * @param delegate the provider to decorate, which must be a
+     *        {@link PassThroughSubscriptionProvider}
+     * @param readModel the read model to serve queries from
+     */
+    public PassThroughReadModelSubscriptionProvider(SubscriptionProvider<SWI> delegate,
+            SubscriptionReadModel<SWI> readModel) {
+        super(delegate, readModel);
+        Assert.isInstanceOf(PassThroughSubscriptionProvider.class, delegate,
+                "The delegate must support pass-through reads");
+    }
+
+    @Override
+    public ResponseEntity<Flux<DataBuffer>> readSubscriptionByIdPassThrough(
+            String subscriptionId,
+            @Nullable ContextInfo contextInfo) {
+        return getPassThroughDelegate().readSubscriptionByIdPassThrough(subscriptionId,
+                contextInfo);
+    }
+
+    @Override
+    public ResponseEntity<Flux<DataBuffer>> readSubscriptionsForUserRefTypeAndUserRefPassThrough(
+            String userRefType,
+            String userRef,
+            @Nullable Pageable page,
+            @Nullable Node filters,
+            @Nullable ContextInfo contextInfo) {
+        return getPassThroughDelegate().readSubscriptionsForUserRefTypeAndUserRefPassThrough(
+                userRefType, userRef, page, filters, contextInfo);
+    }
+
+    protected PassThroughSubscriptionProvider getPassThroughDelegate() {
+        return (PassThroughSubscriptionProvider) getDelegate();
+    }
+}
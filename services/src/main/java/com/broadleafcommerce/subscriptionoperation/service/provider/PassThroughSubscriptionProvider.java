@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.provider;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+
+import com.broadleafcommerce.data.tracking.core.context.ContextInfo;
+
+import cz.jirutka.rsql.parser.ast.Node;
+import reactor.core.publisher.Flux;
+
+/**
+ * Implemented by a {@link SubscriptionProvider} that can relay the raw representation of
+ * subscriptions, as returned by the resource-tier service, without deserializing it. Providers
+ * that do not implement this interface are read through their typed methods instead.
+ */
+public interface PassThroughSubscriptionProvider {
+
+    /**
+     * Retrieves a subscription with items for a given id in its raw, serialized form, without
+     * deserializing it. The body is streamed as it is received, so it must be consumed or the
+     * underlying connection will not be released.
+     *
+     * @param subscriptionId The id of the subscription
+     * @param contextInfo context information around multi-tenant state
+     * @return the status, headers and body of the resource-tier response
+     */
+    ResponseEntity<Flux<DataBuffer>> readSubscriptionByIdPassThrough(String subscriptionId,
+            @Nullable ContextInfo contextInfo);
+
+    /**
+     * Retrieves a page of subscriptions with items for the given user in its raw, serialized
+     * form, without deserializing it. The body is streamed as it is received, so it must be
+     * consumed or the underlying connection will not be released.
+     *
+     * @param userRefType The type of user that owns the subscriptions
+     * @param userRef The id of the user that owns the subscriptions
+     * @param page pageable
+     * @param filters Additional RSQL filters
+     * @param contextInfo context information around multi-tenant state
+     * @return the status, headers and body of the resource-tier response
+     */
+    ResponseEntity<Flux<DataBuffer>> readSubscriptionsForUserRefTypeAndUserRefPassThrough(
+            String userRefType,
+            String userRef,
+            @Nullable Pageable page,
+            @Nullable Node filters,
+            @Nullable ContextInfo contextInfo);
+}
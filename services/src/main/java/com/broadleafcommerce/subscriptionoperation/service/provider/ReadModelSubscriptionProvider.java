@@ -0,0 +1,274 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.provider;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.lang.Nullable;
+
+import com.broadleafcommerce.data.tracking.core.context.ContextInfo;
+import com.broadleafcommerce.subscriptionoperation.domain.Subscription;
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
+import com.broadleafcommerce.subscriptionoperation.domain.enums.SubscriptionProjection;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import cz.jirutka.rsql.parser.ast.Node;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Decorates a {@link SubscriptionProvider} so that unfiltered list, count and existence queries
+ * for a user's subscriptions are served from a {@link SubscriptionReadModel}. When the user's
+ * subscriptions are not in the read model, all of them are read from the delegate and copied, as
+ * long as there are at most {@link SubscriptionReadModel#getMaxSubscriptionsPerOwner()}.
+ * <p>
+ * Subscriptions created or replaced through this provider are applied to the read model. Filtered
+ * queries, queries the read model does not {@link SubscriptionReadModel#supportsQuery support}
+ * and reads by id always go to the delegate, as does every query if the read model fails. A
+ * delegate that is a {@link PassThroughSubscriptionProvider} is decorated by a
+ * {@link PassThroughReadModelSubscriptionProvider} instead, so that its pass-through reads stay
+ * available.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ReadModelSubscriptionProvider<SWI extends SubscriptionWithItems>
+        implements SubscriptionProvider<SWI> {
+
+    @Getter(AccessLevel.PROTECTED)
+    private final SubscriptionProvider<SWI> delegate;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final SubscriptionReadModel<SWI> readModel;
+
+    @Override
+    public SWI create(SWI subscriptionWithItems, @Nullable ContextInfo contextInfo) {
+        SWI created = delegate.create(subscriptionWithItems, contextInfo);
+        updateReadModel(() -> readModel.apply(created, contextInfo));
+        return created;
+    }
+
+    @Override
+    public Page<SWI> readSubscriptionsForUserRefTypeAndUserRef(String userRefType,
+            String userRef,
+            @Nullable Pageable page,
+            @Nullable Node filters,
+            @Nullable ContextInfo contextInfo) {
+        return readLocally(userRefType, userRef, page, filters, contextInfo)
+                .orElseGet(() -> delegate.readSubscriptionsForUserRefTypeAndUserRef(userRefType,
+                        userRef, page, filters, contextInfo));
+    }
+
+    @Override
+    public Page<SWI> readSubscriptionsForUserRefTypeAndUserRef(String userRefType,
+            String userRef,
+            SubscriptionProjection projection,
+            @Nullable Pageable page,
+            @Nullable Node filters,
+            @Nullable ContextInfo contextInfo) {
+        Optional<Page<SWI>> subscriptions =
+                readLocally(userRefType, userRef, page, filters, contextInfo);
+        if (subscriptions.isEmpty()) {
+            return delegate.readSubscriptionsForUserRefTypeAndUserRef(userRefType, userRef,
+                    projection, page, filters, contextInfo);
+        }
+        if (SubscriptionProjection.isSummary(projection)) {
+            subscriptions.get().forEach(projection::apply);
+        }
+        return subscriptions.get();
+    }
+
+    @Override
+    public long countSubscriptions(String userRefType,
+            String userRef,
+            @Nullable Node filters,
+            @Nullable ContextInfo contextInfo) {
+        Optional<Long> count = countLocally(userRefType, userRef, filters, contextInfo);
+        if (count.isPresent()) {
+            return count.get();
+        }
+        return delegate.countSubscriptions(userRefType, userRef, filters, contextInfo);
+    }
+
+    @Override
+    public boolean existsSubscriptions(String userRefType,
+            String userRef,
+            @Nullable Node filters,
+            @Nullable ContextInfo contextInfo) {
+        Optional<Long> count = countLocally(userRefType, userRef, filters, contextInfo);
+        if (count.isPresent()) {
+            return count.get() > 0;
+        }
+        return delegate.existsSubscriptions(userRefType, userRef, filters, contextInfo);
+    }
+
+    @Override
+    public SWI readSubscriptionById(String subscriptionId, @Nullable ContextInfo contextInfo) {
+        return delegate.readSubscriptionById(subscriptionId, contextInfo);
+    }
+
+    @Override
+    public ConditionalRead<SWI> readSubscriptionById(String subscriptionId,
+            @Nullable String ifNoneMatch,
+            @Nullable ContextInfo contextInfo) {
+        return delegate.readSubscriptionById(subscriptionId, ifNoneMatch, contextInfo);
+    }
+
+    @Override
+    public List<SWI> readSubscriptionsByIds(Collection<String> subscriptionIds,
+            @Nullable ContextInfo contextInfo) {
+        return delegate.readSubscriptionsByIds(subscriptionIds, contextInfo);
+    }
+
+    @Override
+    public SWI readUserSubscriptionById(String userRefType,
+            String userRef,
+            String subscriptionId,
+            @Nullable ContextInfo contextInfo) {
+        return delegate.readUserSubscriptionById(userRefType, userRef, subscriptionId,
+                contextInfo);
+    }
+
+    @Override
+    public ConditionalRead<SWI> readUserSubscriptionById(String userRefType,
+            String userRef,
+            String subscriptionId,
+            @Nullable String ifNoneMatch,
+            @Nullable ContextInfo contextInfo) {
+        return delegate.readUserSubscriptionById(userRefType, userRef, subscriptionId,
+                ifNoneMatch, contextInfo);
+    }
+
+    @Override
+    public Subscription replaceSubscription(String subscriptionId,
+            Subscription subscription,
+            @Nullable ContextInfo contextInfo) {
+        Subscription replaced =
+                delegate.replaceSubscription(subscriptionId, subscription, contextInfo);
+        updateReadModel(() -> readModel.applySubscription(replaced, contextInfo));
+        return replaced;
+    }
+
+    /**
+     * Reads the page from the read model, copying the user's subscriptions into it first if
+     * needed.
+     *
+     * @return the page, or empty if it must be read from the delegate
+     */
+    protected Optional<Page<SWI>> readLocally(String userRefType,
+            String userRef,
+            @Nullable Pageable page,
+            @Nullable Node filters,
+            @Nullable ContextInfo contextInfo) {
+        if (filters != null || !readModel.supportsQuery(page, contextInfo)) {
+            return Optional.empty();
+        }
+        return queryLocally(userRefType, userRef, contextInfo,
+                () -> readModel.readSubscriptions(userRefType, userRef, page, contextInfo));
+    }
+
+    /**
+     * Counts the user's subscriptions in the read model, copying them into it first if needed.
+     *
+     * @return the count, or empty if it must be read from the delegate
+     */
+    protected Optional<Long> countLocally(String userRefType,
+            String userRef,
+            @Nullable Node filters,
+            @Nullable ContextInfo contextInfo) {
+        if (filters != null || !readModel.supportsQuery(null, contextInfo)) {
+            return Optional.empty();
+        }
+        return queryLocally(userRefType, userRef, contextInfo,
+                () -> readModel.countSubscriptions(userRefType, userRef, contextInfo));
+    }
+
+    private <T> Optional<T> queryLocally(String userRefType,
+            String userRef,
+            @Nullable ContextInfo contextInfo,
+            Supplier<Optional<T>> query) {
+        Optional<T> result = queryReadModel(query);
+        if (result.isPresent() || isSynced(userRefType, userRef, contextInfo)) {
+            return result;
+        }
+        if (!sync(userRefType, userRef, contextInfo)) {
+            return Optional.empty();
+        }
+        return queryReadModel(query);
+    }
+
+    /**
+     * Copies all of the user's subscriptions into the read model or, if there are more than
+     * {@link SubscriptionReadModel#getMaxSubscriptionsPerOwner()}, records that there are too
+     * many to copy.
+     *
+     * @return whether the user's subscriptions were copied
+     */
+    protected boolean sync(String userRefType,
+            String userRef,
+            @Nullable ContextInfo contextInfo) {
+        // Read one more than the maximum to tell whether there are too many, since the page may
+        // not be totalled
+        int max = readModel.getMaxSubscriptionsPerOwner();
+        Page<SWI> subscriptions = delegate.readSubscriptionsForUserRefTypeAndUserRef(userRefType,
+                userRef, PageRequest.of(0, max + 1), null, contextInfo);
+        if (subscriptions.getNumberOfElements() > max) {
+            updateReadModel(() -> readModel.markTooLarge(userRefType, userRef, contextInfo));
+            return false;
+        }
+        return updateReadModel(() -> readModel.sync(userRefType, userRef,
+                subscriptions.getContent(), contextInfo));
+    }
+
+    private boolean isSynced(String userRefType,
+            String userRef,
+            @Nullable ContextInfo contextInfo) {
+        try {
+            return readModel.isSynced(userRefType, userRef, contextInfo);
+        } catch (DataAccessException e) {
+            log.warn("Unable to query the subscription read model, using the provider instead", e);
+            // Do not attempt to copy the subscriptions either
+            return true;
+        }
+    }
+
+    private <T> Optional<T> queryReadModel(Supplier<Optional<T>> query) {
+        try {
+            return query.get();
+        } catch (DataAccessException e) {
+            log.warn("Unable to query the subscription read model, using the provider instead", e);
+            return Optional.empty();
+        }
+    }
+
+    private boolean updateReadModel(Runnable update) {
+        try {
+            update.run();
+            return true;
+        } catch (DataAccessException e) {
+            log.warn("Unable to update the subscription read model", e);
+            return false;
+        }
+    }
+}
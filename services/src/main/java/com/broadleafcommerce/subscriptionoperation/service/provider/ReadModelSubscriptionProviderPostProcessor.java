@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.provider;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Decorates every {@link SubscriptionProvider} bean with a {@link ReadModelSubscriptionProvider}
+ * when there is a {@link SubscriptionReadModel}, so that the local copy of subscriptions is
+ * updated by every writer injecting the provider, not only by the operation service. Providers
+ * supporting pass-through reads are decorated with a
+ * {@link PassThroughReadModelSubscriptionProvider} so that they keep supporting them.
+ */
+@RequiredArgsConstructor
+public class ReadModelSubscriptionProviderPostProcessor implements BeanPostProcessor {
+
+    @Getter(AccessLevel.PROTECTED)
+    private final ObjectProvider<SubscriptionReadModel<SubscriptionWithItems>> readModel;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof SubscriptionProvider)
+                || bean instanceof ReadModelSubscriptionProvider) {
+            return bean;
+        }
+        SubscriptionReadModel<SubscriptionWithItems> subscriptionReadModel =
+                readModel.getIfAvailable();
+        if (subscriptionReadModel == null) {
+            return bean;
+        }
+        SubscriptionProvider<SubscriptionWithItems> delegate =
+                (SubscriptionProvider<SubscriptionWithItems>) bean;
+        if (bean instanceof PassThroughSubscriptionProvider) {
+            return new PassThroughReadModelSubscriptionProvider<>(delegate, subscriptionReadModel);
+        }
+        return new ReadModelSubscriptionProvider<>(delegate, subscriptionReadModel);
+    }
+}
@@ -17,12 +17,21 @@
 package com.broadleafcommerce.subscriptionoperation.service.provider;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.lang.Nullable;
 
 import com.broadleafcommerce.data.tracking.core.context.ContextInfo;
+import com.broadleafcommerce.data.tracking.core.exception.EntityMissingException;
+import com.broadleafcommerce.data.tracking.core.filtering.DefaultUntotalledPage;
 import com.broadleafcommerce.subscriptionoperation.domain.Subscription;
 import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
+import com.broadleafcommerce.subscriptionoperation.domain.enums.SubscriptionProjection;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
 
 import cz.jirutka.rsql.parser.ast.Node;
 
@@ -59,6 +68,79 @@ public interface SubscriptionProvider<SWI extends SubscriptionWithItems> {
             @Nullable Node filters,
             @Nullable ContextInfo contextInfo);
 
+    /**
+     * Retrieves a page of subscriptions with items for a given user type and user id in the given
+     * projection, taking into account the provided filters and paging. Providers that can limit
+     * what they read to the projection should override this; by default, the full subscriptions
+     * are read and then trimmed.
+     *
+     * @param userRefType type of the owning user
+     * @param userRef id of the owning user
+     * @param projection the view of the subscriptions to read
+     * @param page pageable
+     * @param filters Additional RSQL filters
+     * @param contextInfo context information around multi-tenant state
+     * @return a page of subscriptions with items for a given user type and user id
+     */
+    default Page<SWI> readSubscriptionsForUserRefTypeAndUserRef(String userRefType,
+            String userRef,
+            SubscriptionProjection projection,
+            @Nullable Pageable page,
+            @Nullable Node filters,
+            @Nullable ContextInfo contextInfo) {
+        Page<SWI> subscriptions = readSubscriptionsForUserRefTypeAndUserRef(userRefType, userRef,
+                page, filters, contextInfo);
+        if (SubscriptionProjection.isSummary(projection)) {
+            subscriptions.forEach(projection::apply);
+        }
+        return subscriptions;
+    }
+
+    /**
+     * Counts the subscriptions for a given user type and user id, taking into account the provided
+     * filters. By default, a single {@link SubscriptionProjection#SUMMARY summary} is read for
+     * its page total, unless the page is not totalled, in which case all summaries are read.
+     *
+     * @param userRefType type of the owning user
+     * @param userRef id of the owning user
+     * @param filters Additional RSQL filters
+     * @param contextInfo context information around multi-tenant state
+     * @return the number of subscriptions for the given user type and user id
+     */
+    default long countSubscriptions(String userRefType,
+            String userRef,
+            @Nullable Node filters,
+            @Nullable ContextInfo contextInfo) {
+        Page<SWI> page = readSubscriptionsForUserRefTypeAndUserRef(userRefType, userRef,
+                SubscriptionProjection.SUMMARY, PageRequest.of(0, 1), filters, contextInfo);
+        if (page instanceof DefaultUntotalledPage) {
+            return readSubscriptionsForUserRefTypeAndUserRef(userRefType, userRef,
+                    SubscriptionProjection.SUMMARY, Pageable.unpaged(), filters, contextInfo)
+                            .getNumberOfElements();
+        }
+        return page.getTotalElements();
+    }
+
+    /**
+     * Determines whether any subscriptions exist for a given user type and user id, taking into
+     * account the provided filters. By default, a single
+     * {@link SubscriptionProjection#SUMMARY summary} is read.
+     *
+     * @param userRefType type of the owning user
+     * @param userRef id of the owning user
+     * @param filters Additional RSQL filters
+     * @param contextInfo context information around multi-tenant state
+     * @return whether any subscriptions exist for the given user type and user id
+     */
+    default boolean existsSubscriptions(String userRefType,
+            String userRef,
+            @Nullable Node filters,
+            @Nullable ContextInfo contextInfo) {
+        return readSubscriptionsForUserRefTypeAndUserRef(userRefType, userRef,
+                SubscriptionProjection.SUMMARY, PageRequest.of(0, 1), filters, contextInfo)
+                        .hasContent();
+    }
+
     /**
      * Retrieves a subscription with items for a given id
      *
@@ -68,6 +150,44 @@ public interface SubscriptionProvider<SWI extends SubscriptionWithItems> {
      */
     SWI readSubscriptionById(String subscriptionId, @Nullable ContextInfo contextInfo);
 
+    /**
+     * Retrieves a subscription with items for a given id, unless it has not been modified since
+     * the given entity tag. Providers that support conditional requests should override this; by
+     * default, the subscription is always read and no entity tag is given.
+     *
+     * @param subscriptionId The id of the subscription
+     * @param ifNoneMatch the entity tag previously given for the subscription by this provider,
+     *        if any
+     * @param contextInfo context information around multi-tenant state
+     * @return the subscription with items along with its entity tag, or a not modified result
+     */
+    default ConditionalRead<SWI> readSubscriptionById(String subscriptionId,
+            @Nullable String ifNoneMatch,
+            @Nullable ContextInfo contextInfo) {
+        return ConditionalRead.of(readSubscriptionById(subscriptionId, contextInfo), null);
+    }
+
+    /**
+     * Retrieves the subscriptions with items for the given ids. Providers that can read several
+     * subscriptions at once should override this; by default, each is read individually.
+     *
+     * @param subscriptionIds The ids of the subscriptions
+     * @param contextInfo context information around multi-tenant state
+     * @return the subscriptions with items that were found, in the order of the given ids
+     */
+    default List<SWI> readSubscriptionsByIds(Collection<String> subscriptionIds,
+            @Nullable ContextInfo contextInfo) {
+        List<SWI> subscriptions = new ArrayList<>(subscriptionIds.size());
+        for (String subscriptionId : new LinkedHashSet<>(subscriptionIds)) {
+            try {
+                subscriptions.add(readSubscriptionById(subscriptionId, contextInfo));
+            } catch (EntityMissingException e) {
+                // Missing subscriptions are omitted
+            }
+        }
+        return subscriptions;
+    }
+
     /**
      * Retrieves a user-owned subscription with items for a given id
      *
@@ -82,6 +202,29 @@ public interface SubscriptionProvider<SWI extends SubscriptionWithItems> {
             String subscriptionId,
             @Nullable ContextInfo contextInfo);
 
+    /**
+     * Retrieves a user-owned subscription with items for a given id, unless it has not been
+     * modified since the given entity tag. Providers that support conditional requests should
+     * override this; by default, the subscription is always read and no entity tag is given.
+     *
+     * @param userRefType type of the owning user
+     * @param userRef id of the owning user
+     * @param subscriptionId The id of the subscription
+     * @param ifNoneMatch the entity tag previously given for the subscription by this provider,
+     *        if any
+     * @param contextInfo context information around multi-tenant state
+     * @return the subscription with items along with its entity tag, or a not modified result
+     */
+    default ConditionalRead<SWI> readUserSubscriptionById(String userRefType,
+            String userRef,
+            String subscriptionId,
+            @Nullable String ifNoneMatch,
+            @Nullable ContextInfo contextInfo) {
+        return ConditionalRead.of(
+                readUserSubscriptionById(userRefType, userRef, subscriptionId, contextInfo),
+                null);
+    }
+
     /**
      * Replaces a subscription.
      *
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.provider;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.lang.Nullable;
+
+import com.broadleafcommerce.data.tracking.core.context.ContextInfo;
+import com.broadleafcommerce.subscriptionoperation.domain.Subscription;
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * A local copy of subscriptions used by {@link ReadModelSubscriptionProvider} to serve list and
+ * count queries for a user's subscriptions without calling the billing service. A user's
+ * subscriptions are only served from the copy for a while after all of them were last copied.
+ * <p>
+ * Besides the writes made through the subscription provider, the handlers of change
+ * notifications from the billing service should keep the copy up to date through
+ * {@link #apply(SubscriptionWithItems, ContextInfo)} and {@link #remove(String, ContextInfo)}.
+ */
+public interface SubscriptionReadModel<SWI extends SubscriptionWithItems> {
+
+    /**
+     * Determines whether the user's subscriptions were recently copied, or found to be too many
+     * to copy, so that they should not be copied again yet.
+     *
+     * @param userRefType type of the owning user
+     * @param userRef id of the owning user
+     * @param contextInfo context information around multi-tenant state
+     * @return whether the user's subscriptions were recently copied or found to be too many
+     */
+    boolean isSynced(String userRefType, String userRef, @Nullable ContextInfo contextInfo);
+
+    /**
+     * Determines whether a query with the given paging may be served from the local copy at all,
+     * such as whether the copy can be sorted as requested. Queries that may not are sent to the
+     * billing service without copying the user's subscriptions first.
+     *
+     * @param page pageable, or null for a count
+     * @param contextInfo context information around multi-tenant state
+     * @return whether the query may be served from the local copy
+     */
+    default boolean supportsQuery(@Nullable Pageable page, @Nullable ContextInfo contextInfo) {
+        return true;
+    }
+
+    /**
+     * Reads a page of the user's subscriptions from the local copy.
+     *
+     * @param userRefType type of the owning user
+     * @param userRef id of the owning user
+     * @param page pageable
+     * @param contextInfo context information around multi-tenant state
+     * @return the page of subscriptions, or empty if the user's subscriptions were not copied
+     *         recently or the page's sort is not supported locally
+     */
+    Optional<Page<SWI>> readSubscriptions(String userRefType,
+            String userRef,
+            @Nullable Pageable page,
+            @Nullable ContextInfo contextInfo);
+
+    /**
+     * Counts the user's subscriptions in the local copy.
+     *
+     * @param userRefType type of the owning user
+     * @param userRef id of the owning user
+     * @param contextInfo context information around multi-tenant state
+     * @return the number of subscriptions, or empty if the user's subscriptions were not copied
+     *         recently
+     */
+    Optional<Long> countSubscriptions(String userRefType,
+            String userRef,
+            @Nullable ContextInfo contextInfo);
+
+    /**
+     * Replaces the local copy of the user's subscriptions with all of those read from the billing
+     * service, after which they are served locally for a while.
+     *
+     * @param userRefType type of the owning user
+     * @param userRef id of the owning user
+     * @param subscriptions all of the user's subscriptions
+     * @param contextInfo context information around multi-tenant state
+     */
+    void sync(String userRefType,
+            String userRef,
+            Collection<SWI> subscriptions,
+            @Nullable ContextInfo contextInfo);
+
+    /**
+     * Records that the user has more than {@link #getMaxSubscriptionsPerOwner()} subscriptions,
+     * removing any copies of them, so that they are read from the billing service for a while.
+     *
+     * @param userRefType type of the owning user
+     * @param userRef id of the owning user
+     * @param contextInfo context information around multi-tenant state
+     */
+    void markTooLarge(String userRefType, String userRef, @Nullable ContextInfo contextInfo);
+
+    /**
+     * Creates or updates the local copy of the given subscription.
+     *
+     * @param subscriptionWithItems the subscription as it is in the billing service
+     * @param contextInfo context information around multi-tenant state
+     */
+    void apply(SWI subscriptionWithItems, @Nullable ContextInfo contextInfo);
+
+    /**
+     * Updates the local copy of the given subscription, keeping its items, if there is one.
+     *
+     * @param subscription the subscription as it is in the billing service
+     * @param contextInfo context information around multi-tenant state
+     */
+    void applySubscription(Subscription subscription, @Nullable ContextInfo contextInfo);
+
+    /**
+     * Removes the local copy of the given subscription.
+     *
+     * @param subscriptionId the id of the subscription
+     * @param contextInfo context information around multi-tenant state
+     */
+    void remove(String subscriptionId, @Nullable ContextInfo contextInfo);
+
+    /**
+     * The largest number of subscriptions a user may have to be served from the local copy.
+     *
+     * @return the largest number of subscriptions copied for a user
+     */
+    int getMaxSubscriptionsPerOwner();
+}
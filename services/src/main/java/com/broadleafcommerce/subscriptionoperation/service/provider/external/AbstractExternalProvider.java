@@ -18,39 +18,55 @@ package com.broadleafcommerce.subscriptionoperation.service.provider.external;
 
 import static com.broadleafcommerce.data.tracking.core.context.ContextInfoHandlerMethodArgumentResolver.CONTEXT_REQUEST_HEADER;
 import static com.broadleafcommerce.data.tracking.core.context.ContextInfoHandlerMethodArgumentResolver.IGNORE_TRANSLATION_HEADER;
+import static org.springframework.security.oauth2.client.web.reactive.function.client.ServletOAuth2AuthorizedClientExchangeFilterFunction.clientRegistrationId;
 
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 
 import com.broadleafcommerce.common.error.ApiError;
 import com.broadleafcommerce.common.extension.TypeFactory;
 import com.broadleafcommerce.data.tracking.core.context.ContextInfo;
+import com.broadleafcommerce.data.tracking.core.context.ContextRequest;
 import com.broadleafcommerce.data.tracking.core.exception.EntityMissingException;
 import com.broadleafcommerce.data.tracking.core.filtering.NarrowedPageable;
 import com.broadleafcommerce.data.tracking.core.filtering.UnnumberedPageable;
 import com.broadleafcommerce.subscriptionoperation.exception.ProviderApiException;
+import com.broadleafcommerce.subscriptionoperation.exception.ProviderOverloadedException;
+import com.broadleafcommerce.subscriptionoperation.service.metrics.SubscriptionOperationMetrics;
+import com.broadleafcommerce.subscriptionoperation.service.provider.MissingEntityCache;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.security.InvalidParameterException;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 
 @RequiredArgsConstructor
 public abstract class AbstractExternalProvider {
@@ -60,6 +76,26 @@ public abstract class AbstractExternalProvider {
      */
     public final static String ENTITY_NOT_FOUND = "ENTITY_NOT_FOUND";
 
+    /**
+     * The request attribute holding the name of the provider issuing a request.
+     *
+     * @see #getProviderName()
+     */
+    public static final String PROVIDER_ATTRIBUTE =
+            AbstractExternalProvider.class.getName() + ".provider";
+
+    /**
+     * The request attribute holding the provider operation issuing a request.
+     */
+    public static final String OPERATION_ATTRIBUTE =
+            AbstractExternalProvider.class.getName() + ".operation";
+
+    /**
+     * The request attribute holding the tenant the request is made for, if any.
+     */
+    public static final String TENANT_ATTRIBUTE =
+            AbstractExternalProvider.class.getName() + ".tenant";
+
     protected static final String RSQL_FILTER_PARAM = "cq";
 
     @Getter(AccessLevel.PROTECTED)
@@ -71,6 +107,34 @@ public abstract class AbstractExternalProvider {
     @Getter(AccessLevel.PROTECTED)
     private final TypeFactory typeFactory;
 
+    @Setter(onMethod_ = @Autowired(required = false))
+    private ProviderCodecRegistry codecRegistry;
+
+    /**
+     * Remembers the entities recently reported as missing, if enabled.
+     */
+    @Getter(value = AccessLevel.PROTECTED, onMethod_ = @Nullable)
+    @Setter(onMethod_ = @Autowired(required = false))
+    private MissingEntityCache missingEntityCache;
+
+    /**
+     * Remembers the reads made during the current inbound request, if enabled.
+     */
+    @Getter(value = AccessLevel.PROTECTED, onMethod_ = @Nullable)
+    @Setter(onMethod_ = @Autowired(required = false))
+    private ProviderReadMemo readMemo;
+
+    @Getter(value = AccessLevel.PROTECTED, onMethod_ = @Nullable)
+    @Setter(onMethod_ = @Autowired(required = false))
+    private SubscriptionOperationMetrics metrics;
+
+    /**
+     * Limits the concurrent requests to each provider, if enabled.
+     */
+    @Getter(value = AccessLevel.PROTECTED, onMethod_ = @Nullable)
+    @Setter(onMethod_ = @Autowired(required = false))
+    private ProviderConcurrencyLimiter concurrencyLimiter;
+
     /**
      * Builds the headers to be passed along with the request to the provider.
      *
@@ -101,6 +165,54 @@ public abstract class AbstractExternalProvider {
         return headers;
     }
 
+    /**
+     * Builds the attributes to be set on a request to the provider. These identify the client
+     * registration used to authorize the request, as well as the provider, operation and tenant
+     * making it, so that {@link ProviderExchangeFilterFunction filters} can attribute the request.
+     *
+     * @param serviceClient the client registration id used to authorize the request
+     * @param operation the provider operation making the request
+     * @param contextInfo {@link ContextInfo} from the original request containing tenant and
+     *        sandbox info
+     * @return the attributes to be set on the request
+     */
+    protected Consumer<Map<String, Object>> requestAttributes(String serviceClient,
+            String operation,
+            @Nullable ContextInfo contextInfo) {
+        return attributes -> {
+            clientRegistrationId(serviceClient).accept(attributes);
+            attributes.put(PROVIDER_ATTRIBUTE, getProviderName());
+            attributes.put(OPERATION_ATTRIBUTE, operation);
+            Optional.ofNullable(contextInfo)
+                    .map(ContextInfo::getContextRequest)
+                    .map(ContextRequest::getTenantId)
+                    .ifPresent(tenantId -> attributes.put(TENANT_ATTRIBUTE, tenantId));
+        };
+    }
+
+    /**
+     * The name identifying this provider in request attributes, metrics and traces.
+     *
+     * @return the name identifying this provider
+     */
+    protected String getProviderName() {
+        return getClass().getSimpleName();
+    }
+
+    /**
+     * Joins the given values into the arguments of an RSQL list, such as for an {@code =in=}
+     * comparison. Each value is quoted, escaping any quotes and backslashes, so that values
+     * containing RSQL operators are matched literally rather than changing the query.
+     *
+     * @param values the values to join
+     * @return the quoted values, separated by commas
+     */
+    protected String toRsqlArguments(Collection<String> values) {
+        return values.stream()
+                .map(value -> '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"')
+                .collect(Collectors.joining(","));
+    }
+
     /**
      * Converts a pageable into its corresponding query parameters.
      *
@@ -166,14 +278,94 @@ public abstract class AbstractExternalProvider {
         return order.getProperty() + "," + order.getDirection().toString().toLowerCase();
     }
 
+    /**
+     * The registry of readers and writers used to (de)serialize requests and responses. If none
+     * was provided, one is built around {@link #getObjectMapper()}.
+     *
+     * @return the registry of readers and writers
+     */
+    protected ProviderCodecRegistry getCodecRegistry() {
+        if (codecRegistry == null) {
+            codecRegistry = new ProviderCodecRegistry(objectMapper);
+        }
+        return codecRegistry;
+    }
+
+    /**
+     * The media types to accept in responses, as negotiated by the
+     * {@link #getCodecRegistry() codec registry}.
+     *
+     * @return the media types to accept in responses, in order of preference
+     */
+    protected MediaType[] getAcceptedMediaTypes() {
+        return getCodecRegistry().getAcceptedMediaTypes().toArray(MediaType[]::new);
+    }
+
+    /**
+     * Builds a function reading a response body of the given type with the pre-built reader
+     * from the {@link #getCodecRegistry() codec registry}.
+     *
+     * @param type the type of the response body
+     * @param <T> the type of the response body
+     * @return a function reading the response body, releasing the buffer
+     */
+    protected <T> Function<DataBuffer, T> decode(ParameterizedTypeReference<T> type) {
+        return buffer -> getCodecRegistry().read(buffer, type.getType());
+    }
+
+    /**
+     * Writes the given request body with the pre-built writer from the
+     * {@link #getCodecRegistry() codec registry}.
+     *
+     * @param value the request body
+     * @return the serialized request body
+     */
+    protected byte[] encode(Object value) {
+        return getCodecRegistry().write(value);
+    }
+
     /**
      * Executes a request with default Web Client error handling.
+     * <p>
+     * If a {@link #getConcurrencyLimiter() concurrency limiter} is configured, the request first
+     * takes a slot from the limit of this provider, and is rejected with a
+     * {@link ProviderOverloadedException} if none becomes available in time.
      *
      * @param request the request to execute
      * @param <T> the return type of the request operation
      * @return the value generated by the supplier
      */
     protected <T> T executeRequest(Supplier<T> request) {
+        ProviderConcurrencyLimiter limiter = getConcurrencyLimiter();
+        if (limiter == null) {
+            return doExecuteRequest(request);
+        }
+
+        AdaptiveConcurrencyLimit.Permit permit;
+        try {
+            permit = limiter.acquire(getProviderName());
+        } catch (ProviderOverloadedException e) {
+            if (metrics != null) {
+                metrics.recordProviderRequestRejected(getProviderName());
+            }
+            throw e;
+        }
+
+        boolean dropped = false;
+        try {
+            return doExecuteRequest(request);
+        } catch (ProviderApiException e) {
+            dropped = isOverloaded(e);
+            throw e;
+        } catch (WebClientRequestException e) {
+            dropped = true;
+            throw e;
+        } finally {
+            permit.release(dropped);
+        }
+    }
+
+    private <T> T doExecuteRequest(Supplier<T> request) {
         try {
             return request.get();
         } catch (WebClientResponseException.NotFound nfe) {
@@ -183,6 +375,171 @@ public abstract class AbstractExternalProvider {
         }
     }
 
+    /**
+     * Determines if the given exception was caused by the provider being unable to keep up,
+     * rather than by the request itself, so that the concurrency limit should be reduced.
+     *
+     * @param exception the exception to check
+     * @return true if the provider was unavailable, timed out or rejected the request as too many
+     */
+    protected boolean isOverloaded(ProviderApiException exception) {
+        WebClientResponseException received = exception.getReceivedException();
+        if (received == null) {
+            return false;
+        }
+        int status = received.getStatusCode().value();
+        return status == HttpStatus.TOO_MANY_REQUESTS.value()
+                || status == HttpStatus.SERVICE_UNAVAILABLE.value()
+                || status == HttpStatus.GATEWAY_TIMEOUT.value();
+    }
+
+    /**
+     * Reads a response body of the given type, reusing the body of an identical read made earlier
+     * in the current inbound request, if any, rather than executing the request again. The body
+     * is deserialized for every read, so each caller receives its own instance.
+     * <p>
+     * The request is only executed, with {@link #executeRequest(Supplier)}, if no read can be
+     * reused, so that reused reads do not wait for or take a slot from the
+     * {@link #getConcurrencyLimiter() concurrency limit}.
+     *
+     * @param operation the provider operation making the request
+     * @param uri the URI of the request
+     * @param headers the headers of the request, which are part of what identifies it
+     * @param type the type of the response body
+     * @param request the request to execute, returning the response body if there is one
+     * @param <T> the type of the response body
+     * @return the deserialized response body, or empty if there was none
+     */
+    protected <T> Optional<T> readMemoized(String operation,
+            String uri,
+            HttpHeaders headers,
+            ParameterizedTypeReference<T> type,
+            Supplier<Optional<DataBuffer>> request) {
+        ProviderReadMemo memo = getReadMemo();
+        Map<String, byte[]> reads = memo == null ? null : memo.getReads(getProviderName());
+        if (reads == null) {
+            return executeRequest(request).map(decode(type));
+        }
+
+        String key = uri + '\n' + headers;
+        byte[] body = reads.get(key);
+        if (body != null) {
+            if (metrics != null) {
+                metrics.recordSavedProviderRequest(getProviderName(), operation);
+            }
+            return Optional.of(getCodecRegistry().read(body, type.getType()));
+        }
+
+        Optional<byte[]> response = executeRequest(request).map(ProviderReadMemo::toBytes);
+        response.ifPresent(bytes -> memo.remember(reads, key, bytes));
+        return response.map(bytes -> getCodecRegistry().read(bytes, type.getType()));
+    }
+
+    /**
+     * Forgets the reads made by this provider during the current inbound request. This must be
+     * called once the provider has written anything the reads may depend on.
+     */
+    protected void forgetMemoizedReads() {
+        ProviderReadMemo memo = getReadMemo();
+        if (memo != null) {
+            memo.forget(getProviderName());
+        }
+    }
+
+    /**
+     * Executes a request looking up a single entity by id. If the entity was recently reported as
+     * missing by the {@link #getMissingEntityCache() missing entity cache}, an
+     * {@link EntityMissingException} is thrown without executing the request. Otherwise, the
+     * request is executed with {@link #executeRequest(Supplier)}, and remembered if the entity is
+     * missing.
+     *
+     * @param type the type of the entity, such as {@link MissingEntityCache#SUBSCRIPTION}
+     * @param id the id of the entity
+     * @param owner the owner the lookup is restricted to, if any
+     * @param contextInfo context information around multi-tenant state
+     * @param request the request to execute
+     * @param <T> the return type of the request operation
+     * @return the value generated by the supplier
+     */
+    protected <T> T executeLookup(String type,
+            String id,
+            @Nullable String owner,
+            @Nullable ContextInfo contextInfo,
+            Supplier<T> request) {
+        return lookup(type, id, owner, contextInfo, () -> executeRequest(request));
+    }
+
+    /**
+     * Executes a request looking up a single entity by id as
+     * {@link #executeLookup(String, String, String, ContextInfo, Supplier)} does, but through
+     * {@link #readMemoized(String, String, HttpHeaders, ParameterizedTypeReference, Supplier)},
+     * so that a read reused from earlier in the inbound request does not take a slot from the
+     * {@link #getConcurrencyLimiter() concurrency limit}.
+     *
+     * @param type the type of the entity, such as {@link MissingEntityCache#SUBSCRIPTION}
+     * @param id the id of the entity
+     * @param owner the owner the lookup is restricted to, if any
+     * @param contextInfo context information around multi-tenant state
+     * @param operation the provider operation making the request
+     * @param uri the URI of the request
+     * @param headers the headers of the request
+     * @param bodyType the type of the response body
+     * @param request the request to execute, returning the response body if there is one
+     * @param <T> the type of the entity
+     * @return the entity
+     */
+    protected <T> T executeMemoizedLookup(String type,
+            String id,
+            @Nullable String owner,
+            @Nullable ContextInfo contextInfo,
+            String operation,
+            String uri,
+            HttpHeaders headers,
+            ParameterizedTypeReference<T> bodyType,
+            Supplier<Optional<DataBuffer>> request) {
+        return lookup(type, id, owner, contextInfo,
+                () -> readMemoized(operation, uri, headers, bodyType, request)
+                        .orElseThrow(EntityMissingException::new));
+    }
+
+    private <T> T lookup(String type,
+            String id,
+            @Nullable String owner,
+            @Nullable ContextInfo contextInfo,
+            Supplier<T> lookup) {
+        MissingEntityCache cache = getMissingEntityCache();
+        if (cache == null) {
+            return lookup.get();
+        }
+        if (cache.isMissing(type, id, owner, contextInfo)) {
+            throw new EntityMissingException();
+        }
+
+        try {
+            return lookup.get();
+        } catch (EntityMissingException e) {
+            cache.recordMissing(type, id, owner, contextInfo);
+            throw e;
+        } catch (ProviderApiException e) {
+            if (isEntityMissing(e)) {
+                cache.recordMissing(type, id, owner, contextInfo);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Determines if the given exception was caused by the provider reporting the entity as not
+     * found, as opposed to the endpoint not being found or any other error.
+     *
+     * @param exception the exception to check
+     * @return true if the provider reported the entity as not found
+     */
+    protected boolean isEntityMissing(ProviderApiException exception) {
+        return exception.getReceivedException() instanceof WebClientResponseException.NotFound nfe
+                && buildNotFoundException(nfe) instanceof EntityMissingException;
+    }
+
     /**
      * Builds a not found exception that correlates to the given
      * {@link WebClientResponseException.NotFound} exception.
@@ -197,8 +554,8 @@ public abstract class AbstractExternalProvider {
      */
     protected RuntimeException buildNotFoundException(WebClientResponseException.NotFound nfe) {
         try {
-            ResponseEntity<ApiError> response = objectMapper
-                    .readValue(nfe.getResponseBodyAsString(), ApiError.class)
+            ResponseEntity<ApiError> response = getCodecRegistry()
+                    .<ApiError>read(nfe.getResponseBodyAsByteArray(), ApiError.class)
                     .toResponseEntity();
 
             if (isEntityNotFound(response)) {
@@ -206,7 +563,7 @@ public abstract class AbstractExternalProvider {
             } else {
                 return new ProviderApiException(nfe);
             }
-        } catch (JsonProcessingException ignored) {
+        } catch (DecodingException ignored) {
             return new ProviderApiException(nfe);
         }
     }
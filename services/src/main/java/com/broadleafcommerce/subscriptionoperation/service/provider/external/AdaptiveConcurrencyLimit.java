@@ -0,0 +1,288 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.provider.external;
+
+import org.springframework.util.Assert;
+
+import com.broadleafcommerce.subscriptionoperation.exception.ProviderOverloadedException;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import lombok.Getter;
+
+/**
+ * Limits the number of concurrent requests to a single provider, adapting the limit to the
+ * round-trip times observed.
+ * <p>
+ * The limit follows a gradient: the ratio of the long-term average RTT to the latest RTT. While
+ * the provider keeps up, the ratio is 1 and the target limit is the limit plus its square root,
+ * as long as the limit is actually being used. Once requests start to queue at the provider, its
+ * RTT rises above the long-term average and the target shrinks in proportion, to at least half
+ * the limit. The limit moves towards the target by the {@code smoothing} once per round trip of
+ * the requests it allows. Requests that fail because the provider is unavailable or timed out
+ * reduce the limit by the {@code backoffRatio}. The long-term average follows the RTT slowly, so
+ * that it tracks changes in the provider's capacity, but is reset towards the latest RTT once the
+ * provider recovers from a slowdown.
+ * <p>
+ * Requests over the limit wait up to {@code maxWait} for another request to complete, with at
+ * most {@code maxQueued} waiting at once. Requests that cannot wait are rejected with a
+ * {@link ProviderOverloadedException}.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    /**
+     * The smallest gradient applied, so that the target is at least half the limit however slow
+     * the provider becomes.
+     */
+    private static final double MIN_GRADIENT = 0.5;
+
+    /**
+     * How far the latest RTT must fall below the long-term average for the average to be reset.
+     */
+    private static final double RECOVERY_RATIO = 2;
+
+    @Getter
+    private final String provider;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final int maxQueued;
+
+    private final long maxWaitNanos;
+
+    private final double smoothing;
+
+    private final double backoffRatio;
+
+    private final int longWindow;
+
+    private final LongSupplier nanoClock;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition available = lock.newCondition();
+
+    private double limit;
+
+    private double longRtt;
+
+    private int samples;
+
+    private int inFlight;
+
+    private int waiting;
+
+    public AdaptiveConcurrencyLimit(String provider,
+            int initialLimit,
+            int minLimit,
+            int maxLimit,
+            int maxQueued,
+            Duration maxWait,
+            double smoothing,
+            double backoffRatio,
+            int longWindow) {
+        this(provider, initialLimit, minLimit, maxLimit, maxQueued, maxWait, smoothing,
+                backoffRatio, longWindow, System::nanoTime);
+    }
+
+    protected AdaptiveConcurrencyLimit(String provider,
+            int initialLimit,
+            int minLimit,
+            int maxLimit,
+            int maxQueued,
+            Duration maxWait,
+            double smoothing,
+            double backoffRatio,
+            int longWindow,
+            LongSupplier nanoClock) {
+        Assert.isTrue(minLimit > 0 && minLimit <= maxLimit,
+                "minLimit must be positive and no more than maxLimit");
+        Assert.isTrue(smoothing > 0 && smoothing <= 1, "smoothing must be in (0, 1]");
+        Assert.isTrue(backoffRatio > 0 && backoffRatio < 1, "backoffRatio must be in (0, 1)");
+        Assert.isTrue(longWindow > 0, "longWindow must be positive");
+        this.provider = provider;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueued = Math.max(maxQueued, 0);
+        this.maxWaitNanos = Math.max(maxWait.toNanos(), 0);
+        this.smoothing = smoothing;
+        this.backoffRatio = backoffRatio;
+        this.longWindow = longWindow;
+        this.nanoClock = nanoClock;
+        this.limit = Math.max(minLimit, Math.min(initialLimit, maxLimit));
+    }
+
+    /**
+     * Takes a slot for a request, waiting up to {@code maxWait} if the limit has been reached.
+     *
+     * @return the slot, which must be {@link Permit#release(boolean) released} once the request
+     *         completes
+     * @throws ProviderOverloadedException if no slot became available in time
+     */
+    public Permit acquire() {
+        lock.lock();
+        try {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return new Permit(nanoClock.getAsLong());
+            }
+            if (maxWaitNanos == 0 || waiting >= maxQueued) {
+                throw new ProviderOverloadedException(provider, String.format(
+                        "The %s provider is handling its limit of %d requests", provider,
+                        (int) limit));
+            }
+
+            waiting++;
+            try {
+                long remaining = maxWaitNanos;
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        throw new ProviderOverloadedException(provider, String.format(
+                                "Timed out waiting for the %s provider", provider));
+                    }
+                    remaining = available.awaitNanos(remaining);
+                }
+                inFlight++;
+                return new Permit(nanoClock.getAsLong());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ProviderOverloadedException(provider, String.format(
+                        "Interrupted waiting for the %s provider", provider));
+            } finally {
+                waiting--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The current limit of concurrent requests.
+     *
+     * @return the current limit of concurrent requests
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The number of requests currently in flight.
+     *
+     * @return the number of requests currently in flight
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(long rttNanos, boolean dropped, boolean sample) {
+        lock.lock();
+        try {
+            int previous = (int) limit;
+            boolean utilized = inFlight * 2 >= limit;
+            inFlight--;
+            if (dropped) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else if (sample && rttNanos > 0) {
+                update(rttNanos, utilized);
+            }
+
+            if ((int) limit > previous) {
+                available.signalAll();
+            } else {
+                available.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void update(long rttNanos, boolean utilized) {
+        if (samples < longWindow) {
+            samples++;
+        }
+        longRtt = longRtt == 0 ? rttNanos : longRtt + (rttNanos - longRtt) / samples;
+        if (longRtt / rttNanos > RECOVERY_RATIO) {
+            // The provider has recovered from a slowdown, so the average is no longer a baseline
+            longRtt = rttNanos * RECOVERY_RATIO;
+        }
+
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1, longRtt / rttNanos));
+        // Only grow the limit when it is being used, so that a quiet provider is not trusted with
+        // a limit it has never been shown to handle
+        double queueSize = utilized ? Math.sqrt(limit) : 0;
+        double target = limit * gradient + queueSize;
+        // Each sample is weighted as a share of the limit, so that the limit moves towards the
+        // target by the smoothing once per round trip of all the requests it allows
+        double weight = smoothing / limit;
+        double smoothed = limit * (1 - weight) + target * weight;
+        limit = Math.max(minLimit, Math.min(maxLimit, smoothed));
+    }
+
+    /**
+     * A slot taken for a single request.
+     */
+    public final class Permit {
+
+        private final long start;
+
+        private boolean sample = true;
+
+        private boolean released;
+
+        private Permit(long start) {
+            this.start = start;
+        }
+
+        /**
+         * Excludes the request from the RTT samples, e.g. because it was answered without
+         * calling the provider.
+         */
+        public void ignoreSample() {
+            sample = false;
+        }
+
+        /**
+         * Returns the slot, adjusting the limit by the RTT of the request.
+         *
+         * @param dropped whether the request failed because the provider is unavailable or timed
+         *        out
+         */
+        public void release(boolean dropped) {
+            if (released) {
+                return;
+            }
+            released = true;
+            AdaptiveConcurrencyLimit.this.release(nanoClock.getAsLong() - start, dropped, sample);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.provider.external;
+
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.instrument.binder.http.Outcome;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationConvention;
+
+/**
+ * The default naming and tagging of {@link ProviderRequestObservationContext provider request}
+ * observations.
+ * <p>
+ * The provider, operation, method, status and outcome are low cardinality and suitable for
+ * metrics, while the tenant, URI and response size are only attached to traces. The URI is
+ * attached without its query, which may identify users or carry filters on their data.
+ */
+public class DefaultProviderRequestObservationConvention
+        implements ObservationConvention<ProviderRequestObservationContext> {
+
+    public static final String NAME = "subscriptionoperation.provider.request";
+
+    protected static final String NONE = "none";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String getContextualName(ProviderRequestObservationContext context) {
+        return context.getProvider() + " " + context.getOperation();
+    }
+
+    @Override
+    public KeyValues getLowCardinalityKeyValues(ProviderRequestObservationContext context) {
+        String status = NONE;
+        String outcome = Outcome.UNKNOWN.name();
+        if (context.getResponse() != null) {
+            int statusCode = context.getResponse().statusCode().value();
+            status = String.valueOf(statusCode);
+            outcome = Outcome.forStatus(statusCode).name();
+        } else if (context.getError() != null) {
+            status = ProviderMetricsExchangeFilterFunction.IO_ERROR;
+        }
+
+        return KeyValues.of(
+                KeyValue.of("provider", context.getProvider()),
+                KeyValue.of("operation", context.getOperation()),
+                KeyValue.of("method", context.getRequest() == null ? NONE
+                        : context.getRequest().method().name()),
+                KeyValue.of("status", status),
+                KeyValue.of("outcome", outcome));
+    }
+
+    @Override
+    public KeyValues getHighCardinalityKeyValues(ProviderRequestObservationContext context) {
+        KeyValues keyValues = KeyValues.of(
+                KeyValue.of("tenant", context.getTenant() == null ? NONE : context.getTenant()),
+                KeyValue.of("response.size", String.valueOf(context.getResponseSize())));
+        if (context.getRequest() != null) {
+            keyValues = keyValues.and("http.url", getUrl(context.getRequest().url()));
+        }
+        return keyValues;
+    }
+
+    /**
+     * The URL of a request as attached to traces, without its user info, query or fragment.
+     *
+     * @param url the URL of the request
+     * @return the URL to attach to traces
+     */
+    protected String getUrl(URI url) {
+        return UriComponentsBuilder.fromUri(url)
+                .userInfo(null)
+                .replaceQuery(null)
+                .fragment(null)
+                .build()
+                .toUriString();
+    }
+
+    @Override
+    public boolean supportsContext(Observation.Context context) {
+        return context instanceof ProviderRequestObservationContext;
+    }
+}
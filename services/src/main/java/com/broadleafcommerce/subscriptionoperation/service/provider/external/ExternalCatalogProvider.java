@@ -16,11 +16,11 @@
  */
 package com.broadleafcommerce.subscriptionoperation.service.provider.external;
 
-import static org.springframework.security.oauth2.client.web.reactive.function.client.ServletOAuth2AuthorizedClientExchangeFilterFunction.clientRegistrationId;
-
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
 import org.springframework.lang.Nullable;
@@ -33,6 +33,7 @@ import com.broadleafcommerce.data.tracking.core.exception.EntityMissingException
 import com.broadleafcommerce.subscriptionoperation.domain.Product;
 import com.broadleafcommerce.subscriptionoperation.exception.ProviderApiException;
 import com.broadleafcommerce.subscriptionoperation.service.provider.CatalogProvider;
+import com.broadleafcommerce.subscriptionoperation.service.provider.MissingEntityCache;
 import com.broadleafcommerce.subscriptionoperation.service.provider.page.ResponsePageGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -47,6 +48,11 @@ public class ExternalCatalogProvider<P extends Product> extends AbstractExternal
 
     protected static final String ID_IN_QUERY_PARAM = "contextId=in=(%s)";
 
+    private final ParameterizedTypeReference<P> type = new ParameterizedTypeReference<>() {};
+
+    private final ParameterizedTypeReference<ResponsePageGenerator<P>> pageType =
+            new ParameterizedTypeReference<>() {};
+
     @Getter(AccessLevel.PROTECTED)
     private final ExternalCatalogProviderProperties properties;
 
@@ -64,19 +70,23 @@ public class ExternalCatalogProvider<P extends Product> extends AbstractExternal
                 .uriVariables(uriVars("productId", productId))
                 .toUriString();
 
-        return executeRequest(() -> getWebClient()
-                .get()
-                .uri(uri)
-                .headers(headers -> headers.putAll(getHeaders(contextInfo)))
-                .attributes(clientRegistrationId(getServiceClient()))
-                .accept(MediaType.APPLICATION_JSON)
-                .retrieve()
-                .onStatus(HttpStatusCode::isError,
-                        response -> response.createException().flatMap(
-                                exception -> Mono.just(new ProviderApiException(exception))))
-                .bodyToMono(new ParameterizedTypeReference<P>() {})
-                .blockOptional()
-                .orElseThrow(EntityMissingException::new));
+        HttpHeaders requestHeaders = getHeaders(contextInfo);
+
+        return executeMemoizedLookup(MissingEntityCache.PRODUCT, productId, null, contextInfo,
+                "readProductById", uri, requestHeaders, getType(), () -> getWebClient()
+                        .get()
+                        .uri(uri)
+                        .headers(headers -> headers.putAll(requestHeaders))
+                        .attributes(requestAttributes(getServiceClient(),
+                                "readProductById", contextInfo))
+                        .accept(getAcceptedMediaTypes())
+                        .retrieve()
+                        .onStatus(HttpStatusCode::isError,
+                                response -> response.createException().flatMap(
+                                        exception -> Mono.just(
+                                                new ProviderApiException(exception))))
+                        .bodyToMono(DataBuffer.class)
+                        .blockOptional());
     }
 
     @Override
@@ -94,13 +104,15 @@ public class ExternalCatalogProvider<P extends Product> extends AbstractExternal
                 .get()
                 .uri(uri)
                 .headers(headers -> headers.putAll(getHeaders(contextInfo)))
-                .attributes(clientRegistrationId(getServiceClient()))
-                .accept(MediaType.APPLICATION_JSON)
+                .attributes(requestAttributes(getServiceClient(), "readProductsByIds",
+                        contextInfo))
+                .accept(getAcceptedMediaTypes())
                 .retrieve()
                 .onStatus(HttpStatusCode::isError,
                         response -> response.createException().flatMap(
                                 exception -> Mono.just(new ProviderApiException(exception))))
-                .bodyToMono(getPageType())
+                .bodyToMono(DataBuffer.class)
+                .map(decode(getPageType()))
                 .blockOptional()
                 .map(ResponsePageGenerator::getPage)
                 .orElseThrow(EntityMissingException::new));
@@ -113,7 +125,7 @@ public class ExternalCatalogProvider<P extends Product> extends AbstractExternal
      * @return the RSQL filters in a String form used for reading the products by IDs
      */
     protected String buildReadProductsByIdsFilters(@lombok.NonNull List<String> productIds) {
-        return String.format(ID_IN_QUERY_PARAM, String.join(",", productIds));
+        return String.format(ID_IN_QUERY_PARAM, toRsqlArguments(productIds));
     }
 
     /**
@@ -122,7 +134,11 @@ public class ExternalCatalogProvider<P extends Product> extends AbstractExternal
      * @return type reference for a page generator of item list items
      */
     protected ParameterizedTypeReference<ResponsePageGenerator<P>> getPageType() {
-        return new ParameterizedTypeReference<>() {};
+        return pageType;
+    }
+
+    protected ParameterizedTypeReference<P> getType() {
+        return type;
     }
 
     /**
@@ -138,4 +154,9 @@ public class ExternalCatalogProvider<P extends Product> extends AbstractExternal
     protected String getServiceClient() {
         return properties.getServiceClient();
     }
+
+    @Override
+    protected String getProviderName() {
+        return "catalog";
+    }
 }
@@ -48,4 +48,32 @@ public class ExternalSubscriptionProperties {
      * The service client to use when calling billing services. Default is "subscriptionopsclient".
      */
     private String serviceClient = "subscriptionopsclient";
+
+    /**
+     * The query parameter used to ask the external service for a
+     * {@link com.broadleafcommerce.subscriptionoperation.domain.enums.SubscriptionProjection
+     * projection} of the subscriptions it lists. Default is "projection".
+     */
+    private String projectionParameter = "projection";
+
+    /**
+     * The uri, relative to {@link #getSubscriptionsPath()}, to count the subscriptions of a user,
+     * if the external service has one. If not set, subscriptions are counted by requesting a
+     * single-entry page and reading its total.
+     */
+    private String countPath;
+
+    /**
+     * The maximum number of ids to request in a single call when reading subscriptions by ids.
+     * Larger requests are split into several calls to keep the query string within URL length
+     * limits. Default is 50.
+     */
+    private int readByIdsChunkSize = 50;
+
+    /**
+     * The maximum number of ids that may be requested at once when reading subscriptions by ids.
+     * Larger requests are rejected rather than being split into an unbounded number of calls.
+     * Default is 500.
+     */
+    private int maxReadByIds = 500;
 }
@@ -16,14 +16,18 @@
  */
 package com.broadleafcommerce.subscriptionoperation.service.provider.external;
 
-import static org.springframework.security.oauth2.client.web.reactive.function.client.ServletOAuth2AuthorizedClientExchangeFilterFunction.clientRegistrationId;
-
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.UriComponentsBuilder;
 
@@ -32,21 +36,46 @@ import com.broadleafcommerce.data.tracking.core.context.ContextInfo;
 import com.broadleafcommerce.data.tracking.core.exception.EntityMissingException;
 import com.broadleafcommerce.subscriptionoperation.domain.Subscription;
 import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
+import com.broadleafcommerce.subscriptionoperation.domain.enums.SubscriptionProjection;
 import com.broadleafcommerce.subscriptionoperation.exception.ProviderApiException;
+import com.broadleafcommerce.subscriptionoperation.service.provider.ConditionalRead;
+import com.broadleafcommerce.subscriptionoperation.service.provider.MissingEntityCache;
+import com.broadleafcommerce.subscriptionoperation.service.provider.PassThroughSubscriptionProvider;
 import com.broadleafcommerce.subscriptionoperation.service.provider.SubscriptionProvider;
 import com.broadleafcommerce.subscriptionoperation.service.provider.page.ResponsePageGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 import cz.jirutka.rsql.parser.ast.Node;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NonNull;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 public class ExternalSubscriptionProvider<SWI extends SubscriptionWithItems>
-        extends AbstractExternalProvider implements SubscriptionProvider<SWI> {
+        extends AbstractExternalProvider
+        implements SubscriptionProvider<SWI>, PassThroughSubscriptionProvider {
+
+    protected static final String ID_IN_QUERY_PARAM = "id=in=(%s)";
+
+    protected static final ParameterizedTypeReference<Subscription> SUBSCRIPTION_TYPE =
+            new ParameterizedTypeReference<>() {};
+
+    protected static final ParameterizedTypeReference<Long> COUNT_TYPE =
+            new ParameterizedTypeReference<>() {};
+
+    private final ParameterizedTypeReference<SWI> type = new ParameterizedTypeReference<>() {};
+
+    private final ParameterizedTypeReference<ResponsePageGenerator<SWI>> pageType =
+            new ParameterizedTypeReference<>() {};
 
     @Getter(AccessLevel.PROTECTED)
     private final ExternalSubscriptionProperties properties;
@@ -60,18 +89,24 @@ public class ExternalSubscriptionProvider<SWI extends SubscriptionWithItems>
     @Override
     public SWI create(@lombok.NonNull SWI subscriptionWithItems,
             @Nullable ContextInfo contextInfo) {
-        return executeRequest(() -> getWebClient()
+        SWI created = executeRequest(() -> getWebClient()
                 .post()
                 .uri(getBaseUri().toUriString())
                 .headers(headers -> headers.putAll(getHeaders(contextInfo)))
-                .attributes(clientRegistrationId(getServiceClient()))
+                .attributes(requestAttributes(getServiceClient(), "create", contextInfo))
                 .contentType(MediaType.APPLICATION_JSON)
-                .bodyValue(subscriptionWithItems)
-                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(encode(subscriptionWithItems))
+                .accept(getAcceptedMediaTypes())
                 .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<SWI>() {})
+                .bodyToMono(DataBuffer.class)
+                .map(decode(getType()))
                 .blockOptional()
                 .orElseThrow(EntityMissingException::new));
+
+        forgetMemoizedReads();
+        invalidateMissing(subscriptionWithItems, contextInfo);
+        invalidateMissing(created, contextInfo);
+        return created;
     }
 
     @Override
@@ -80,6 +115,100 @@ public class ExternalSubscriptionProvider<SWI extends SubscriptionWithItems>
             @Nullable Pageable page,
             @Nullable Node filters,
             @Nullable ContextInfo contextInfo) {
+        return readSubscriptionsForUserRefTypeAndUserRef(userRefType, userRef,
+                SubscriptionProjection.FULL, page, filters, contextInfo);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * A {@link SubscriptionProjection#SUMMARY summary} is requested from the external service
+     * through {@link ExternalSubscriptionProperties#getProjectionParameter()}. The subscriptions
+     * are trimmed regardless, in case the service does not support projections.
+     */
+    @Override
+    public Page<SWI> readSubscriptionsForUserRefTypeAndUserRef(@lombok.NonNull String userRefType,
+            @lombok.NonNull String userRef,
+            @lombok.NonNull SubscriptionProjection projection,
+            @Nullable Pageable page,
+            @Nullable Node filters,
+            @Nullable ContextInfo contextInfo) {
+        UriComponentsBuilder uriBuilder = getBaseUri()
+                .queryParam("userRefType", userRefType)
+                .queryParam("userRef", userRef)
+                .queryParam("cq", filters)
+                .queryParams(pageableToParams(page));
+        if (SubscriptionProjection.isSummary(projection)) {
+            uriBuilder.queryParam(properties.getProjectionParameter(), projection.name());
+        }
+        String uri = uriBuilder.toUriString();
+
+        return executeRequest(() -> getWebClient()
+                .get()
+                .uri(uri)
+                .headers(headers -> headers.putAll(getHeaders(contextInfo)))
+                .attributes(requestAttributes(getServiceClient(),
+                        "readSubscriptionsForUserRefTypeAndUserRef", contextInfo))
+                .accept(getAcceptedMediaTypes())
+                .retrieve()
+                .onStatus(HttpStatusCode::isError,
+                        response -> response.createException().flatMap(
+                                exception -> Mono.just(new ProviderApiException(exception))))
+                .bodyToMono(DataBuffer.class)
+                .map(decode(getPageType()))
+                .blockOptional()
+                .map(ResponsePageGenerator::getPage)
+                .map(subscriptions -> subscriptions.map(projection::apply))
+                .orElseThrow(EntityMissingException::new));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Uses {@link ExternalSubscriptionProperties#getCountPath()} if configured, and otherwise a
+     * single-entry page of {@link SubscriptionProjection#SUMMARY summaries}.
+     */
+    @Override
+    public long countSubscriptions(@lombok.NonNull String userRefType,
+            @lombok.NonNull String userRef,
+            @Nullable Node filters,
+            @Nullable ContextInfo contextInfo) {
+        if (!StringUtils.hasText(properties.getCountPath())) {
+            return SubscriptionProvider.super.countSubscriptions(userRefType, userRef, filters,
+                    contextInfo);
+        }
+
+        String uri = getBaseUri()
+                .path(properties.getCountPath())
+                .queryParam("userRefType", userRefType)
+                .queryParam("userRef", userRef)
+                .queryParam("cq", filters)
+                .toUriString();
+
+        return executeRequest(() -> getWebClient()
+                .get()
+                .uri(uri)
+                .headers(headers -> headers.putAll(getHeaders(contextInfo)))
+                .attributes(requestAttributes(getServiceClient(), "countSubscriptions",
+                        contextInfo))
+                .accept(getAcceptedMediaTypes())
+                .retrieve()
+                .onStatus(HttpStatusCode::isError,
+                        response -> response.createException().flatMap(
+                                exception -> Mono.just(new ProviderApiException(exception))))
+                .bodyToMono(DataBuffer.class)
+                .map(decode(COUNT_TYPE))
+                .blockOptional()
+                .orElse(0L));
+    }
+
+    @Override
+    public ResponseEntity<Flux<DataBuffer>> readSubscriptionsForUserRefTypeAndUserRefPassThrough(
+            @lombok.NonNull String userRefType,
+            @lombok.NonNull String userRef,
+            @Nullable Pageable page,
+            @Nullable Node filters,
+            @Nullable ContextInfo contextInfo) {
         String uri = getBaseUri()
                 .queryParam("userRefType", userRefType)
                 .queryParam("userRef", userRef)
@@ -91,15 +220,15 @@ public class ExternalSubscriptionProvider<SWI extends SubscriptionWithItems>
                 .get()
                 .uri(uri)
                 .headers(headers -> headers.putAll(getHeaders(contextInfo)))
-                .attributes(clientRegistrationId(getServiceClient()))
+                .attributes(requestAttributes(getServiceClient(),
+                        "readSubscriptionsForUserRefTypeAndUserRefPassThrough", contextInfo))
                 .accept(MediaType.APPLICATION_JSON)
                 .retrieve()
                 .onStatus(HttpStatusCode::isError,
                         response -> response.createException().flatMap(
                                 exception -> Mono.just(new ProviderApiException(exception))))
-                .bodyToMono(getPageType())
+                .toEntityFlux(DataBuffer.class)
                 .blockOptional()
-                .map(ResponsePageGenerator::getPage)
                 .orElseThrow(EntityMissingException::new));
     }
 
@@ -111,46 +240,199 @@ public class ExternalSubscriptionProvider<SWI extends SubscriptionWithItems>
                 .uriVariables(Map.of("subscriptionId", subscriptionId))
                 .toUriString();
 
+        HttpHeaders requestHeaders = getHeaders(contextInfo);
+
+        return executeMemoizedLookup(MissingEntityCache.SUBSCRIPTION, subscriptionId, null,
+                contextInfo, "readSubscriptionById", uri, requestHeaders, getType(),
+                () -> getWebClient()
+                        .get()
+                        .uri(uri)
+                        .headers(headers -> headers.putAll(requestHeaders))
+                        .attributes(requestAttributes(getServiceClient(),
+                                "readSubscriptionById", contextInfo))
+                        .accept(getAcceptedMediaTypes())
+                        .retrieve()
+                        .onStatus(HttpStatusCode::isError,
+                                response -> response.createException().flatMap(
+                                        exception -> Mono.just(
+                                                new ProviderApiException(exception))))
+                        .bodyToMono(DataBuffer.class)
+                        .blockOptional());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The entity tag is sent to the external service as {@code If-None-Match}, so an unmodified
+     * subscription is neither transferred nor deserialized.
+     */
+    @Override
+    public ConditionalRead<SWI> readSubscriptionById(@lombok.NonNull String subscriptionId,
+            @Nullable String ifNoneMatch,
+            @Nullable ContextInfo contextInfo) {
+        String uri = getBaseUri()
+                .path(properties.getSubscriptionWithItemsPath())
+                .uriVariables(Map.of("subscriptionId", subscriptionId))
+                .toUriString();
+
+        return readConditionally(uri, subscriptionId, null, ifNoneMatch, "readSubscriptionById",
+                contextInfo);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The subscriptions are read with an RSQL {@code id=in=(...)} query, split into chunks of
+     * {@link ExternalSubscriptionProperties#getReadByIdsChunkSize()} ids.
+     */
+    @Override
+    public List<SWI> readSubscriptionsByIds(@lombok.NonNull Collection<String> subscriptionIds,
+            @Nullable ContextInfo contextInfo) {
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(subscriptionIds));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        int chunkSize = Math.max(1, properties.getReadByIdsChunkSize());
+        Map<String, SWI> subscriptionsById = new HashMap<>(ids.size());
+        for (int i = 0; i < ids.size(); i += chunkSize) {
+            List<String> chunk = ids.subList(i, Math.min(i + chunkSize, ids.size()));
+            readSubscriptionsByIdsChunk(chunk, contextInfo).stream()
+                    .filter(subscription -> subscription.getSubscription() != null)
+                    .forEach(subscription -> subscriptionsById
+                            .put(subscription.getSubscription().getId(), subscription));
+        }
+
+        return ids.stream()
+                .map(subscriptionsById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Reads a single chunk of subscriptions by ids in one request.
+     *
+     * @param subscriptionIds The ids of the subscriptions, no more than
+     *        {@link ExternalSubscriptionProperties#getReadByIdsChunkSize()}
+     * @param contextInfo context information around multi-tenant state
+     * @return the subscriptions with items that were found
+     */
+    protected List<SWI> readSubscriptionsByIdsChunk(List<String> subscriptionIds,
+            @Nullable ContextInfo contextInfo) {
+        String uri = getBaseUri()
+                .queryParam(RSQL_FILTER_PARAM, buildReadSubscriptionsByIdsFilters(subscriptionIds))
+                .queryParams(pageableToParams(PageRequest.of(0, subscriptionIds.size())))
+                .toUriString();
+
         return executeRequest(() -> getWebClient()
                 .get()
                 .uri(uri)
                 .headers(headers -> headers.putAll(getHeaders(contextInfo)))
-                .attributes(clientRegistrationId(getServiceClient()))
+                .attributes(requestAttributes(getServiceClient(), "readSubscriptionsByIds",
+                        contextInfo))
+                .accept(getAcceptedMediaTypes())
                 .retrieve()
                 .onStatus(HttpStatusCode::isError,
                         response -> response.createException().flatMap(
                                 exception -> Mono.just(new ProviderApiException(exception))))
-                .bodyToMono(getType())
+                .bodyToMono(DataBuffer.class)
+                .map(decode(getPageType()))
                 .blockOptional()
-                .orElseThrow(EntityMissingException::new));
+                .map(generator -> generator.getPage().getContent())
+                .orElseGet(List::of));
+    }
+
+    /**
+     * Build the RSQL filters in a String form used for reading the subscriptions by IDs.
+     *
+     * @param subscriptionIds the list of subscription ids.
+     * @return the RSQL filters in a String form used for reading the subscriptions by IDs
+     */
+    protected String buildReadSubscriptionsByIdsFilters(
+            @lombok.NonNull List<String> subscriptionIds) {
+        return String.format(ID_IN_QUERY_PARAM, toRsqlArguments(subscriptionIds));
     }
 
     @Override
-    public SWI readUserSubscriptionById(@lombok.NonNull String userRefType,
-            @lombok.NonNull String userRef,
+    public ResponseEntity<Flux<DataBuffer>> readSubscriptionByIdPassThrough(
             @lombok.NonNull String subscriptionId,
             @Nullable ContextInfo contextInfo) {
         String uri = getBaseUri()
                 .path(properties.getSubscriptionWithItemsPath())
                 .uriVariables(Map.of("subscriptionId", subscriptionId))
-                .queryParam("userRefType", userRefType)
-                .queryParam("userRef", userRef)
                 .toUriString();
 
         return executeRequest(() -> getWebClient()
                 .get()
                 .uri(uri)
                 .headers(headers -> headers.putAll(getHeaders(contextInfo)))
-                .attributes(clientRegistrationId(getServiceClient()))
+                .attributes(requestAttributes(getServiceClient(),
+                        "readSubscriptionByIdPassThrough", contextInfo))
+                .accept(MediaType.APPLICATION_JSON)
                 .retrieve()
                 .onStatus(HttpStatusCode::isError,
                         response -> response.createException().flatMap(
                                 exception -> Mono.just(new ProviderApiException(exception))))
-                .bodyToMono(getType())
+                .toEntityFlux(DataBuffer.class)
                 .blockOptional()
                 .orElseThrow(EntityMissingException::new));
     }
 
+    @Override
+    public SWI readUserSubscriptionById(@lombok.NonNull String userRefType,
+            @lombok.NonNull String userRef,
+            @lombok.NonNull String subscriptionId,
+            @Nullable ContextInfo contextInfo) {
+        String uri = getBaseUri()
+                .path(properties.getSubscriptionWithItemsPath())
+                .uriVariables(Map.of("subscriptionId", subscriptionId))
+                .queryParam("userRefType", userRefType)
+                .queryParam("userRef", userRef)
+                .toUriString();
+
+        HttpHeaders requestHeaders = getHeaders(contextInfo);
+
+        return executeMemoizedLookup(MissingEntityCache.SUBSCRIPTION, subscriptionId,
+                getOwner(userRefType, userRef), contextInfo, "readUserSubscriptionById", uri,
+                requestHeaders, getType(), () -> getWebClient()
+                        .get()
+                        .uri(uri)
+                        .headers(headers -> headers.putAll(requestHeaders))
+                        .attributes(requestAttributes(getServiceClient(),
+                                "readUserSubscriptionById", contextInfo))
+                        .accept(getAcceptedMediaTypes())
+                        .retrieve()
+                        .onStatus(HttpStatusCode::isError,
+                                response -> response.createException().flatMap(
+                                        exception -> Mono.just(
+                                                new ProviderApiException(exception))))
+                        .bodyToMono(DataBuffer.class)
+                        .blockOptional());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The entity tag is sent to the external service as {@code If-None-Match}, so an unmodified
+     * subscription is neither transferred nor deserialized.
+     */
+    @Override
+    public ConditionalRead<SWI> readUserSubscriptionById(@lombok.NonNull String userRefType,
+            @lombok.NonNull String userRef,
+            @lombok.NonNull String subscriptionId,
+            @Nullable String ifNoneMatch,
+            @Nullable ContextInfo contextInfo) {
+        String uri = getBaseUri()
+                .path(properties.getSubscriptionWithItemsPath())
+                .uriVariables(Map.of("subscriptionId", subscriptionId))
+                .queryParam("userRefType", userRefType)
+                .queryParam("userRef", userRef)
+                .toUriString();
+
+        return readConditionally(uri, subscriptionId, getOwner(userRefType, userRef), ifNoneMatch,
+                "readUserSubscriptionById", contextInfo);
+    }
+
     @Override
     public Subscription replaceSubscription(@NonNull String subscriptionId,
             Subscription subscription,
@@ -160,30 +442,112 @@ public class ExternalSubscriptionProvider<SWI extends SubscriptionWithItems>
                 .uriVariables(Map.of("subscriptionId", subscriptionId))
                 .toUriString();
 
+        forgetMemoizedReads();
+
         return executeRequest(() -> getWebClient()
                 .put()
                 .uri(uri)
                 .headers(headers -> headers.putAll(getHeaders(contextInfo)))
-                .attributes(clientRegistrationId(getServiceClient()))
+                .attributes(requestAttributes(getServiceClient(), "replaceSubscription",
+                        contextInfo))
                 .contentType(MediaType.APPLICATION_JSON)
-                .bodyValue(subscription)
-                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(encode(subscription))
+                .accept(getAcceptedMediaTypes())
                 .retrieve()
                 .onStatus(HttpStatusCode::isError,
                         response -> response.createException().flatMap(
                                 exception -> Mono.just(new ProviderApiException(exception))))
-                .bodyToMono(new ParameterizedTypeReference<Subscription>() {})
+                .bodyToMono(DataBuffer.class)
+                .map(decode(SUBSCRIPTION_TYPE))
                 .blockOptional()
                 .orElseThrow(EntityMissingException::new));
     }
 
+    /**
+     * Reads a subscription with items from the given URI, sending the given entity tag as
+     * {@code If-None-Match} if there is one.
+     *
+     * @param uri the URI of the subscription with items
+     * @param subscriptionId the id of the subscription
+     * @param owner the owner the read is restricted to, if any, see {@link #getOwner}
+     * @param ifNoneMatch the entity tag previously given for the subscription, if any
+     * @param operation the name of the provider operation, see {@link #requestAttributes}
+     * @param contextInfo context information around multi-tenant state
+     * @return the subscription with items along with its entity tag, or a not modified result
+     */
+    protected ConditionalRead<SWI> readConditionally(String uri,
+            String subscriptionId,
+            @Nullable String owner,
+            @Nullable String ifNoneMatch,
+            String operation,
+            @Nullable ContextInfo contextInfo) {
+        ResponseEntity<DataBuffer> response = executeLookup(MissingEntityCache.SUBSCRIPTION,
+                subscriptionId, owner, contextInfo, () -> getWebClient()
+                .get()
+                .uri(uri)
+                .headers(headers -> {
+                    headers.putAll(getHeaders(contextInfo));
+                    if (StringUtils.hasText(ifNoneMatch)) {
+                        headers.setIfNoneMatch(ifNoneMatch);
+                    }
+                })
+                .attributes(requestAttributes(getServiceClient(), operation, contextInfo))
+                .accept(getAcceptedMediaTypes())
+                .retrieve()
+                .onStatus(HttpStatusCode::isError,
+                        r -> r.createException().flatMap(
+                                exception -> Mono.just(new ProviderApiException(exception))))
+                .toEntity(DataBuffer.class)
+                .blockOptional()
+                .orElseThrow(EntityMissingException::new));
+
+        String eTag = response.getHeaders().getETag();
+        if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+            return ConditionalRead.notModified(eTag);
+        }
+        if (response.getBody() == null) {
+            throw new EntityMissingException();
+        }
+        return ConditionalRead.of(decode(getType()).apply(response.getBody()), eTag);
+    }
+
+    /**
+     * Builds the owner a subscription read is restricted to, so that a subscription missing for
+     * one user is not remembered as missing for another.
+     *
+     * @param userRefType the type of user the subscription is read for
+     * @param userRef the id of the user the subscription is read for
+     * @return the owner a subscription read is restricted to
+     */
+    protected String getOwner(String userRefType, String userRef) {
+        return userRefType + ':' + userRef;
+    }
+
+    /**
+     * Forgets that the given subscription was missing, if it was remembered as such.
+     *
+     * @param subscriptionWithItems the subscription that was created
+     * @param contextInfo context information around multi-tenant state
+     */
+    protected void invalidateMissing(@Nullable SWI subscriptionWithItems,
+            @Nullable ContextInfo contextInfo) {
+        MissingEntityCache cache = getMissingEntityCache();
+        if (cache == null || subscriptionWithItems == null
+                || subscriptionWithItems.getSubscription() == null
+                || subscriptionWithItems.getSubscription().getId() == null) {
+            return;
+        }
+        cache.invalidate(MissingEntityCache.SUBSCRIPTION,
+                subscriptionWithItems.getSubscription().getId(), contextInfo);
+    }
+
     /**
      * Gets the type reference for a page generator of item list items.
      *
      * @return type reference for a page generator of item list items
      */
     protected ParameterizedTypeReference<ResponsePageGenerator<SWI>> getPageType() {
-        return new ParameterizedTypeReference<>() {};
+        return pageType;
     }
 
     /**
@@ -197,10 +561,15 @@ public class ExternalSubscriptionProvider<SWI extends SubscriptionWithItems>
     }
 
     protected ParameterizedTypeReference<SWI> getType() {
-        return new ParameterizedTypeReference<>() {};
+        return type;
     }
 
     protected String getServiceClient() {
         return properties.getServiceClient();
     }
+
+    @Override
+    protected String getProviderName() {
+        return "subscription";
+    }
 }
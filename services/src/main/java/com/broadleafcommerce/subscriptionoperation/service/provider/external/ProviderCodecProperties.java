@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2020 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.provider.external;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Configuration of the {@link ProviderCodecRegistry} used by the external providers.
+ */
+@Data
+@ConfigurationProperties("broadleaf.subscriptionoperation.provider.codec")
+public class ProviderCodecProperties {
+
+    /**
+     * Whether to request responses from the providers in the binary Smile format, falling back
+     * to JSON for providers that do not support it. Request bodies are always sent as JSON.
+     * Requires {@code com.fasterxml.jackson.dataformat:jackson-dataformat-smile} on the
+     * classpath. Default is false.
+     */
+    private boolean smileEnabled = false;
+}
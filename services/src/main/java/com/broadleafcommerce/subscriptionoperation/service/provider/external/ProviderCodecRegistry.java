@@ -0,0 +1,297 @@
+/*
+ * Copyright (C) 2020 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.provider.external;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.codec.EncodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+
+import com.broadleafcommerce.subscriptionoperation.domain.Product;
+import com.broadleafcommerce.subscriptionoperation.domain.Subscription;
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
+import com.broadleafcommerce.subscriptionoperation.service.provider.page.ResponsePageGenerator;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Holds the Jackson readers and writers used by the {@link AbstractExternalProvider external
+ * providers} to (de)serialize requests and responses. Each {@link JavaType} is resolved, and its
+ * reader or writer built, once rather than on every request.
+ * <p>
+ * The types exchanged by the default providers are registered eagerly, so that their
+ * (de)serializers are built at startup rather than on the first request.
+ * <p>
+ * If a Smile mapper is given, responses may also be negotiated in the binary Smile format. The
+ * format of a response is detected from its content, so providers that only produce JSON keep
+ * working unchanged.
+ */
+@Slf4j
+public class ProviderCodecRegistry {
+
+    /**
+     * The Jackson factory for the binary Smile format.
+     */
+    public static final String SMILE_FACTORY =
+            "com.fasterxml.jackson.dataformat.smile.SmileFactory";
+
+    public static final MediaType SMILE_MEDIA_TYPE =
+            new MediaType("application", "x-jackson-smile");
+
+    /**
+     * The header Smile content starts with, {@code :)\n}.
+     */
+    private static final byte[] SMILE_HEADER = {0x3A, 0x29, 0x0A};
+
+    private static final List<MediaType> JSON_ONLY = List.of(MediaType.APPLICATION_JSON);
+
+    private static final List<MediaType> SMILE_OR_JSON = List.of(SMILE_MEDIA_TYPE,
+            new MediaType(MediaType.APPLICATION_JSON, Map.of("q", "0.9")));
+
+    @Getter(AccessLevel.PROTECTED)
+    private final ObjectMapper objectMapper;
+
+    @Getter(value = AccessLevel.PROTECTED, onMethod_ = @Nullable)
+    private final ObjectMapper smileMapper;
+
+    private final Map<Type, JavaType> javaTypes = new ConcurrentHashMap<>();
+
+    private final Map<JavaType, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    private final Map<JavaType, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    private final Map<JavaType, ObjectReader> smileReaders = new ConcurrentHashMap<>();
+
+    public ProviderCodecRegistry(ObjectMapper objectMapper) {
+        this(objectMapper, null);
+    }
+
+    /**
+     * @param objectMapper the mapper for JSON, which is always used for request bodies
+     * @param smileMapper the mapper for Smile, if responses may be negotiated in Smile
+     */
+    public ProviderCodecRegistry(ObjectMapper objectMapper, @Nullable ObjectMapper smileMapper) {
+        this.objectMapper = objectMapper;
+        this.smileMapper = smileMapper;
+        register(SubscriptionWithItems.class);
+        register(Subscription.class);
+        register(Product.class);
+        register(getPageType(SubscriptionWithItems.class));
+        register(getPageType(Product.class));
+    }
+
+    /**
+     * Copies the given mapper to one for the Smile format, keeping its configuration and modules.
+     *
+     * @param objectMapper the mapper to copy
+     * @return a mapper for the Smile format, or {@code null} if
+     *         {@code com.fasterxml.jackson.dataformat:jackson-dataformat-smile} is not on the
+     *         classpath
+     */
+    @Nullable
+    public static ObjectMapper smileMapper(ObjectMapper objectMapper) {
+        ClassLoader classLoader = ProviderCodecRegistry.class.getClassLoader();
+        if (!ClassUtils.isPresent(SMILE_FACTORY, classLoader)) {
+            log.warn("Smile was enabled for the provider codecs, but {} is not on the classpath",
+                    SMILE_FACTORY);
+            return null;
+        }
+
+        JsonFactory smileFactory = BeanUtils.instantiateClass(
+                ClassUtils.resolveClassName(SMILE_FACTORY, classLoader), JsonFactory.class);
+        return objectMapper.copyWith(smileFactory);
+    }
+
+    /**
+     * The media types to accept in responses, in order of preference.
+     *
+     * @return Smile, falling back to JSON, if Smile is enabled, otherwise JSON
+     */
+    public List<MediaType> getAcceptedMediaTypes() {
+        return smileMapper == null ? JSON_ONLY : SMILE_OR_JSON;
+    }
+
+    /**
+     * Resolves the {@link JavaType} of the given type.
+     *
+     * @param type the type to resolve
+     * @return the resolved type
+     */
+    public JavaType getJavaType(Type type) {
+        if (type instanceof JavaType javaType) {
+            return javaType;
+        }
+        return javaTypes.computeIfAbsent(type, objectMapper::constructType);
+    }
+
+    /**
+     * Resolves the type of a {@link ResponsePageGenerator} of the given content type.
+     *
+     * @param contentType the type of the page content
+     * @return the type of the page generator
+     */
+    public JavaType getPageType(Type contentType) {
+        return objectMapper.getTypeFactory()
+                .constructParametricType(ResponsePageGenerator.class, getJavaType(contentType));
+    }
+
+    /**
+     * Gets the reader for the given type.
+     *
+     * @param type the type to read
+     * @return the reader for the type
+     */
+    public ObjectReader getReader(Type type) {
+        return readers.computeIfAbsent(getJavaType(type), objectMapper::readerFor);
+    }
+
+    /**
+     * Gets the writer for the given type.
+     *
+     * @param type the type to write
+     * @return the writer for the type
+     */
+    public ObjectWriter getWriter(Type type) {
+        return writers.computeIfAbsent(getJavaType(type), objectMapper::writerFor);
+    }
+
+    /**
+     * Gets the reader for the given type in the Smile format.
+     *
+     * @param type the type to read
+     * @return the reader for the type
+     * @throws IllegalStateException if Smile is not enabled
+     */
+    public ObjectReader getSmileReader(Type type) {
+        if (smileMapper == null) {
+            throw new IllegalStateException("Smile is not enabled for the provider codecs");
+        }
+        return smileReaders.computeIfAbsent(getJavaType(type), smileMapper::readerFor);
+    }
+
+    /**
+     * Reads a value of the given type from the buffer, releasing the buffer. The value may be
+     * either JSON or, if enabled, Smile.
+     *
+     * @param buffer the serialized value
+     * @param type the type of the value
+     * @param <T> the type of the value
+     * @return the deserialized value
+     * @throws DecodingException if the value could not be read
+     */
+    public <T> T read(DataBuffer buffer, Type type) {
+        ObjectReader reader = isSmile(buffer) ? getSmileReader(type) : getReader(type);
+        try (InputStream in = buffer.asInputStream(true)) {
+            return reader.readValue(in);
+        } catch (JsonProcessingException e) {
+            throw new DecodingException("JSON decoding error: " + e.getOriginalMessage(), e);
+        } catch (IOException e) {
+            throw new DecodingException("I/O error while parsing input stream", e);
+        }
+    }
+
+    /**
+     * Reads a value of the given type from the bytes. The value may be either JSON or, if
+     * enabled, Smile.
+     *
+     * @param bytes the serialized value
+     * @param type the type of the value
+     * @param <T> the type of the value
+     * @return the deserialized value
+     * @throws DecodingException if the value could not be read
+     */
+    public <T> T read(byte[] bytes, Type type) {
+        ObjectReader reader = startsWithSmileHeader(bytes) ? getSmileReader(type)
+                : getReader(type);
+        try {
+            return reader.readValue(bytes);
+        } catch (JsonProcessingException e) {
+            throw new DecodingException("JSON decoding error: " + e.getOriginalMessage(), e);
+        } catch (IOException e) {
+            throw new DecodingException("I/O error while parsing input", e);
+        }
+    }
+
+    /**
+     * Writes the given value as JSON, using the writer for its runtime type.
+     *
+     * @param value the value to write
+     * @return the serialized value
+     * @throws EncodingException if the value could not be written
+     */
+    public byte[] write(Object value) {
+        try {
+            return getWriter(value.getClass()).writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new EncodingException("JSON encoding error: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    protected boolean isSmile(DataBuffer buffer) {
+        if (smileMapper == null || buffer.readableByteCount() < SMILE_HEADER.length) {
+            return false;
+        }
+        int start = buffer.readPosition();
+        for (int i = 0; i < SMILE_HEADER.length; i++) {
+            if (buffer.getByte(start + i) != SMILE_HEADER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    protected boolean startsWithSmileHeader(byte[] bytes) {
+        if (smileMapper == null || bytes.length < SMILE_HEADER.length) {
+            return false;
+        }
+        for (int i = 0; i < SMILE_HEADER.length; i++) {
+            if (bytes[i] != SMILE_HEADER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void register(Type type) {
+        JavaType javaType = getJavaType(type);
+        getReader(javaType);
+        if (smileMapper != null) {
+            getSmileReader(javaType);
+        }
+        if (!javaType.hasRawClass(ResponsePageGenerator.class)) {
+            getWriter(javaType);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.provider.external;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+import lombok.Data;
+
+/**
+ * Configuration of the {@link ProviderConcurrencyLimiter} used by the external providers.
+ */
+@Data
+@ConfigurationProperties("broadleaf.subscriptionoperation.provider.concurrency-limit")
+public class ProviderConcurrencyLimitProperties {
+
+    /**
+     * Whether the number of concurrent requests to each provider is limited, adapting to the
+     * provider's response times. Default is false.
+     */
+    private boolean enabled = false;
+
+    /**
+     * The limit each provider starts with. Default is 20.
+     */
+    private int initialLimit = 20;
+
+    /**
+     * The lowest the limit of a provider may fall to. Default is 4.
+     */
+    private int minLimit = 4;
+
+    /**
+     * The highest the limit of a provider may grow to. This should not exceed the connections
+     * available to the provider. Default is 200.
+     */
+    private int maxLimit = 200;
+
+    /**
+     * The number of requests that may wait for a provider at its limit. Further requests are
+     * rejected immediately. Default is 50.
+     */
+    private int maxQueued = 50;
+
+    /**
+     * How long a request may wait for a provider at its limit before being rejected, or 0 to
+     * reject immediately. Default is 100ms.
+     */
+    private Duration maxWait = Duration.ofMillis(100);
+
+    /**
+     * The weight given to each new limit over the current one, from 0 (exclusive) to 1. Default
+     * is 0.2.
+     */
+    private double smoothing = 0.2;
+
+    /**
+     * The ratio the limit is multiplied by when a request fails because the provider is
+     * unavailable or timed out. Default is 0.9.
+     */
+    private double backoffRatio = 0.9;
+
+    /**
+     * The number of samples the long-term average RTT is taken over. Default is 600.
+     */
+    private int longWindow = 600;
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.provider.external;
+
+import com.broadleafcommerce.subscriptionoperation.exception.ProviderOverloadedException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Holds an {@link AdaptiveConcurrencyLimit} for each provider, so that a slowdown of one provider
+ * does not limit requests to the others.
+ */
+@RequiredArgsConstructor
+public class ProviderConcurrencyLimiter {
+
+    @Getter(AccessLevel.PROTECTED)
+    private final ProviderConcurrencyLimitProperties properties;
+
+    private final Map<String, AdaptiveConcurrencyLimit> limits = new ConcurrentHashMap<>();
+
+    /**
+     * Takes a slot for a request to the given provider.
+     *
+     * @param provider the name of the provider
+     * @return the slot, which must be released once the request completes
+     * @throws ProviderOverloadedException if no slot became available in time
+     */
+    public AdaptiveConcurrencyLimit.Permit acquire(String provider) {
+        return getLimit(provider).acquire();
+    }
+
+    /**
+     * The limit of the given provider, created on first use.
+     *
+     * @param provider the name of the provider
+     * @return the limit of the provider
+     */
+    public AdaptiveConcurrencyLimit getLimit(String provider) {
+        return limits.computeIfAbsent(provider, this::createLimit);
+    }
+
+    protected AdaptiveConcurrencyLimit createLimit(String provider) {
+        return new AdaptiveConcurrencyLimit(provider, properties.getInitialLimit(),
+                properties.getMinLimit(), properties.getMaxLimit(), properties.getMaxQueued(),
+                properties.getMaxWait(), properties.getSmoothing(), properties.getBackoffRatio(),
+                properties.getLongWindow());
+    }
+}
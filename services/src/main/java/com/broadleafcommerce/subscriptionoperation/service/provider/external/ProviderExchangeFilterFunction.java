@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.provider.external;
+
+import org.springframework.core.Ordered;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+
+import java.util.Optional;
+
+/**
+ * An {@link ExchangeFilterFunction} that is applied to the {@code subscriptionOperationWebClient}
+ * used by the {@link AbstractExternalProvider external providers}. Beans of this type are added to
+ * the client in {@link Ordered order}, ahead of the OAuth2 filter, so lower orders wrap the
+ * exchange more closely to the caller.
+ * <p>
+ * Requests made by the external providers carry
+ * {@link AbstractExternalProvider#PROVIDER_ATTRIBUTE},
+ * {@link AbstractExternalProvider#OPERATION_ATTRIBUTE} and, when known,
+ * {@link AbstractExternalProvider#TENANT_ATTRIBUTE} to identify the call.
+ */
+public interface ProviderExchangeFilterFunction extends ExchangeFilterFunction, Ordered {
+
+    /**
+     * Resolves the name of the provider that issued the request.
+     *
+     * @param request the request being exchanged
+     * @return the name of the provider, or empty if the request was not made by a provider
+     */
+    static Optional<String> getProvider(ClientRequest request) {
+        return request.attribute(AbstractExternalProvider.PROVIDER_ATTRIBUTE)
+                .map(String::valueOf);
+    }
+
+    /**
+     * Resolves the provider operation that issued the request.
+     *
+     * @param request the request being exchanged
+     * @return the provider operation, or {@code unknown} if it was not given
+     */
+    static String getOperation(ClientRequest request) {
+        return request.attribute(AbstractExternalProvider.OPERATION_ATTRIBUTE)
+                .map(String::valueOf)
+                .orElse("unknown");
+    }
+
+    /**
+     * Resolves the tenant the request was made for.
+     *
+     * @param request the request being exchanged
+     * @return the tenant the request was made for, or empty if there was none
+     */
+    static Optional<String> getTenant(ClientRequest request) {
+        return request.attribute(AbstractExternalProvider.TENANT_ATTRIBUTE)
+                .map(String::valueOf);
+    }
+}
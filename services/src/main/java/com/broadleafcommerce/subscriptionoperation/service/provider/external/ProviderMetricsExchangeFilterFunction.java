@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.provider.external;
+
+import org.springframework.core.Ordered;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+
+import com.broadleafcommerce.subscriptionoperation.service.metrics.SubscriptionOperationMetrics;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.micrometer.core.instrument.binder.http.Outcome;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+/**
+ * Records the latency and response size of every request made by an external provider.
+ * <p>
+ * The latency covers the full exchange, from sending the request until the response body has been
+ * consumed, so slow or large responses are attributed to the provider operation that requested
+ * them rather than to the caller decoding them.
+ */
+@RequiredArgsConstructor
+public class ProviderMetricsExchangeFilterFunction implements ProviderExchangeFilterFunction {
+
+    public static final int ORDER = Ordered.HIGHEST_PRECEDENCE + 100;
+
+    /**
+     * The status recorded when no response was received, e.g. the connection failed.
+     */
+    public static final String IO_ERROR = "IO_ERROR";
+
+    @Getter(AccessLevel.PROTECTED)
+    private final SubscriptionOperationMetrics metrics;
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        Optional<String> provider = ProviderExchangeFilterFunction.getProvider(request);
+        if (provider.isEmpty()) {
+            return next.exchange(request);
+        }
+        String operation = ProviderExchangeFilterFunction.getOperation(request);
+
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return next.exchange(request)
+                    .doOnError(e -> metrics.recordProviderRequest(provider.get(), operation,
+                            Outcome.UNKNOWN.name(), IO_ERROR, System.nanoTime() - start))
+                    .map(response -> instrument(response, provider.get(), operation, start));
+        });
+    }
+
+    /**
+     * Wraps the response body so that the request is recorded once the body has been consumed,
+     * cancelled or has failed.
+     */
+    protected ClientResponse instrument(ClientResponse response,
+            String provider,
+            String operation,
+            long start) {
+        int status = response.statusCode().value();
+        AtomicLong bytes = new AtomicLong();
+        AtomicBoolean recorded = new AtomicBoolean();
+
+        return response.mutate()
+                .body(body -> body
+                        .doOnNext(buffer -> bytes.addAndGet(buffer.readableByteCount()))
+                        .doFinally(signal -> {
+                            if (recorded.compareAndSet(false, true)) {
+                                metrics.recordProviderRequest(provider, operation,
+                                        Outcome.forStatus(status).name(),
+                                        String.valueOf(status),
+                                        System.nanoTime() - start);
+                                metrics.recordProviderResponseSize(provider, operation,
+                                        bytes.get());
+                            }
+                        }))
+                .build();
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
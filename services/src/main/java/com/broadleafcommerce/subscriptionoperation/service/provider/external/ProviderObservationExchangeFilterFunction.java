@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.provider.external;
+
+import org.springframework.core.Ordered;
+import org.springframework.lang.Nullable;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationConvention;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import reactor.core.publisher.Mono;
+
+/**
+ * Observes every request made by an external provider, producing a span that is a child of the
+ * observation current on the calling thread, typically the inbound endpoint request. Trace context
+ * is propagated to the provider through the request headers.
+ * <p>
+ * This is the outermost provider filter so that the span covers the time spent in the other
+ * filters, including obtaining an OAuth2 token. The observation is stopped once the response body
+ * has been consumed, at which point its size is known.
+ */
+@RequiredArgsConstructor
+public class ProviderObservationExchangeFilterFunction implements ProviderExchangeFilterFunction {
+
+    public static final int ORDER = Ordered.HIGHEST_PRECEDENCE;
+
+    private static final ObservationConvention<ProviderRequestObservationContext> DEFAULT_CONVENTION =
+            new DefaultProviderRequestObservationConvention();
+
+    @Getter(AccessLevel.PROTECTED)
+    private final ObservationRegistry observationRegistry;
+
+    /**
+     * A convention overriding {@link DefaultProviderRequestObservationConvention}, if any.
+     */
+    @Getter(value = AccessLevel.PROTECTED, onMethod_ = @Nullable)
+    @Setter
+    private ObservationConvention<ProviderRequestObservationContext> observationConvention;
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        Optional<String> provider = ProviderExchangeFilterFunction.getProvider(request);
+        if (provider.isEmpty() || observationRegistry.isNoop()) {
+            return next.exchange(request);
+        }
+
+        return Mono.defer(() -> {
+            ClientRequest.Builder carrier = ClientRequest.from(request);
+            ProviderRequestObservationContext context =
+                    new ProviderRequestObservationContext(carrier);
+            context.setProvider(provider.get());
+            context.setOperation(ProviderExchangeFilterFunction.getOperation(request));
+            context.setTenant(ProviderExchangeFilterFunction.getTenant(request).orElse(null));
+            context.setRequest(request);
+
+            // The exchange is subscribed to on the calling thread, so the current observation is
+            // that of the inbound request
+            Observation observation = Observation.createNotStarted(observationConvention,
+                    DEFAULT_CONVENTION, () -> context, observationRegistry)
+                    .parentObservation(observationRegistry.getCurrentObservation())
+                    .start();
+
+            // Starting the observation injects the trace headers into the carrier
+            ClientRequest tracedRequest = carrier.build();
+            context.setRequest(tracedRequest);
+
+            AtomicBoolean stopped = new AtomicBoolean();
+            return next.exchange(tracedRequest)
+                    .doOnError(e -> {
+                        observation.error(e);
+                        stop(observation, stopped);
+                    })
+                    .doOnCancel(() -> stop(observation, stopped))
+                    .map(response -> {
+                        context.setResponse(response);
+                        return observeBody(response, context, observation, stopped);
+                    });
+        });
+    }
+
+    /**
+     * Wraps the response body so that the observation is stopped, with the response size
+     * recorded, once the body has been consumed, cancelled or has failed.
+     */
+    protected ClientResponse observeBody(ClientResponse response,
+            ProviderRequestObservationContext context,
+            Observation observation,
+            AtomicBoolean stopped) {
+        AtomicLong bytes = new AtomicLong();
+        return response.mutate()
+                .body(body -> body
+                        .doOnNext(buffer -> bytes.addAndGet(buffer.readableByteCount()))
+                        .doOnError(observation::error)
+                        .doFinally(signal -> {
+                            context.setResponseSize(bytes.get());
+                            stop(observation, stopped);
+                        }))
+                .build();
+    }
+
+    private void stop(Observation observation, AtomicBoolean stopped) {
+        if (stopped.compareAndSet(false, true)) {
+            observation.stop();
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
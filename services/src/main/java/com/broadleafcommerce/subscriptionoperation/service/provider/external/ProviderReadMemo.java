@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.provider.external;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Remembers the raw response bodies of provider reads for the duration of the current inbound
+ * request, so that reading the same entity more than once while servicing a request, for example
+ * once to validate it and once to update it, only calls the provider once.
+ * <p>
+ * The raw bytes are remembered rather than the deserialized entity so that each read returns its
+ * own instance, which callers are free to modify. Reads are only remembered on a thread bound to
+ * a request, see {@link RequestContextHolder}, and are forgotten once a provider writes.
+ */
+@RequiredArgsConstructor
+public class ProviderReadMemo {
+
+    public static final String READS_ATTRIBUTE = ProviderReadMemo.class.getName() + ".reads";
+
+    private final int maxEntriesPerRequest;
+
+    private final long maxBodySize;
+
+    /**
+     * Gets the reads remembered for the given provider during the current request.
+     *
+     * @param provider the name of the provider
+     * @return the remembered response bodies by request key, or null if the current thread is not
+     *         bound to a request
+     */
+    @Nullable
+    public Map<String, byte[]> getReads(String provider) {
+        Map<String, Map<String, byte[]>> reads = getRequestReads(true);
+        return reads == null ? null
+                : reads.computeIfAbsent(provider, key -> new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Remembers the response body of a read, unless it is too large or the request has already
+     * remembered as many reads as allowed.
+     *
+     * @param reads the reads of the provider, see {@link #getReads(String)}
+     * @param key the key identifying the request to the provider
+     * @param body the response body
+     */
+    public void remember(Map<String, byte[]> reads, String key, byte[] body) {
+        if (body.length <= maxBodySize && reads.size() < maxEntriesPerRequest) {
+            reads.put(key, body);
+        }
+    }
+
+    /**
+     * Forgets every read of the given provider during the current request, typically because the
+     * provider was written to.
+     *
+     * @param provider the name of the provider
+     */
+    public void forget(String provider) {
+        Map<String, Map<String, byte[]>> reads = getRequestReads(false);
+        if (reads != null) {
+            reads.remove(provider);
+        }
+    }
+
+    /**
+     * Copies the readable bytes of the given buffer, releasing it.
+     *
+     * @param buffer the buffer to copy
+     * @return the readable bytes of the buffer
+     */
+    public static byte[] toBytes(DataBuffer buffer) {
+        try {
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            return bytes;
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    private Map<String, Map<String, byte[]>> getRequestReads(boolean create) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+
+        Map<String, Map<String, byte[]>> reads = (Map<String, Map<String, byte[]>>) attributes
+                .getAttribute(READS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (reads == null && create) {
+            reads = new ConcurrentHashMap<>();
+            attributes.setAttribute(READS_ATTRIBUTE, reads, RequestAttributes.SCOPE_REQUEST);
+        }
+        return reads;
+    }
+}
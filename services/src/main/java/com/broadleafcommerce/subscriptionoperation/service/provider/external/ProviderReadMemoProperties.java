@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.provider.external;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import lombok.Data;
+
+/**
+ * Configuration of the {@link ProviderReadMemo} used by the external providers.
+ */
+@Data
+@ConfigurationProperties("broadleaf.subscriptionoperation.provider.read-memo")
+public class ProviderReadMemoProperties {
+
+    /**
+     * Whether reads of a single subscription or product by id are remembered for the rest of the
+     * inbound request, so that reading the same entity again does not call the provider. Default
+     * is true.
+     */
+    private boolean enabled = true;
+
+    /**
+     * The maximum number of reads remembered per provider for a single inbound request. Default
+     * is 32.
+     */
+    private int maxEntriesPerRequest = 32;
+
+    /**
+     * The largest response body that is remembered. Default is 256KB.
+     */
+    private DataSize maxBodySize = DataSize.ofKilobytes(256);
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.provider.external;
+
+import org.springframework.lang.Nullable;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+
+import io.micrometer.observation.transport.RequestReplySenderContext;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * The observation context for a request made by an external provider. The carrier is the builder
+ * of the outgoing request, so that trace context is propagated to the provider through the request
+ * headers.
+ */
+@Getter
+@Setter
+public class ProviderRequestObservationContext
+        extends RequestReplySenderContext<ClientRequest.Builder, ClientResponse> {
+
+    /**
+     * The name of the provider making the request.
+     */
+    private String provider;
+
+    /**
+     * The provider operation making the request.
+     */
+    private String operation;
+
+    /**
+     * The tenant the request was made for, if any.
+     */
+    @Nullable
+    private String tenant;
+
+    /**
+     * The request sent to the provider, including any propagated trace headers once built.
+     */
+    @Nullable
+    private ClientRequest request;
+
+    /**
+     * The number of bytes in the response body, or {@code -1} if the body was not read.
+     */
+    private long responseSize = -1;
+
+    public ProviderRequestObservationContext(ClientRequest.Builder carrier) {
+        super((builder, name, value) -> {
+            if (builder != null) {
+                builder.headers(headers -> headers.set(name, value));
+            }
+        });
+        setCarrier(carrier);
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.provider.local;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.lang.Nullable;
+
+import com.broadleafcommerce.data.tracking.core.context.ContextInfo;
+import com.broadleafcommerce.data.tracking.core.exception.EntityMissingException;
+import com.broadleafcommerce.subscriptionoperation.domain.Product;
+import com.broadleafcommerce.subscriptionoperation.service.provider.CatalogProvider;
+
+import java.util.List;
+import java.util.Optional;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * A {@link CatalogProvider} calling a catalog service running in the same JVM through its
+ * {@link LocalCatalogSource}, avoiding the serialization, authorization and network round trip
+ * of the external provider.
+ */
+@RequiredArgsConstructor
+public class LocalCatalogProvider<P extends Product> implements CatalogProvider<P> {
+
+    @Getter(AccessLevel.PROTECTED)
+    private final LocalCatalogSource<P> source;
+
+    @Override
+    public P readProductById(String productId, @Nullable ContextInfo contextInfo) {
+        return Optional.ofNullable(source.readProductById(productId, contextInfo))
+                .orElseThrow(EntityMissingException::new);
+    }
+
+    @Override
+    public Page<P> readProductsByIds(@lombok.NonNull List<String> productIds,
+            @Nullable Pageable pageable,
+            @Nullable ContextInfo contextInfo) {
+        return source.readProductsByIds(productIds, pageable, contextInfo);
+    }
+}
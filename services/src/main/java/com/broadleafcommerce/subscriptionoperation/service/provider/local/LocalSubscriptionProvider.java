@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.provider.local;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.lang.Nullable;
+
+import com.broadleafcommerce.data.tracking.core.context.ContextInfo;
+import com.broadleafcommerce.data.tracking.core.exception.EntityMissingException;
+import com.broadleafcommerce.subscriptionoperation.domain.Subscription;
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
+import com.broadleafcommerce.subscriptionoperation.service.provider.SubscriptionProvider;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import cz.jirutka.rsql.parser.ast.Node;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * A {@link SubscriptionProvider} calling a billing service running in the same JVM through its
+ * {@link LocalSubscriptionSource}, avoiding the serialization, authorization and network
+ * round trip of the external provider.
+ * <p>
+ * Missing subscriptions are reported with an {@link EntityMissingException}, as they are by the
+ * external provider. Pass-through reads are not supported, since there is no serialized
+ * representation to relay.
+ */
+@RequiredArgsConstructor
+public class LocalSubscriptionProvider<SWI extends SubscriptionWithItems>
+        implements SubscriptionProvider<SWI> {
+
+    @Getter(AccessLevel.PROTECTED)
+    private final LocalSubscriptionSource<SWI> source;
+
+    @Override
+    public SWI create(@lombok.NonNull SWI subscriptionWithItems,
+            @Nullable ContextInfo contextInfo) {
+        return Optional.ofNullable(source.create(subscriptionWithItems, contextInfo))
+                .orElseThrow(EntityMissingException::new);
+    }
+
+    @Override
+    public Page<SWI> readSubscriptionsForUserRefTypeAndUserRef(@lombok.NonNull String userRefType,
+            @lombok.NonNull String userRef,
+            @Nullable Pageable page,
+            @Nullable Node filters,
+            @Nullable ContextInfo contextInfo) {
+        return source.readSubscriptionsForUserRefTypeAndUserRef(userRefType, userRef, page,
+                filters, contextInfo);
+    }
+
+    @Override
+    public SWI readSubscriptionById(@lombok.NonNull String subscriptionId,
+            @Nullable ContextInfo contextInfo) {
+        return Optional.ofNullable(source.readSubscriptionById(subscriptionId, contextInfo))
+                .orElseThrow(EntityMissingException::new);
+    }
+
+    @Override
+    public List<SWI> readSubscriptionsByIds(@lombok.NonNull Collection<String> subscriptionIds,
+            @Nullable ContextInfo contextInfo) {
+        return source.readSubscriptionsByIds(subscriptionIds, contextInfo);
+    }
+
+    @Override
+    public SWI readUserSubscriptionById(@lombok.NonNull String userRefType,
+            @lombok.NonNull String userRef,
+            @lombok.NonNull String subscriptionId,
+            @Nullable ContextInfo contextInfo) {
+        return Optional.ofNullable(source.readUserSubscriptionById(userRefType, userRef,
+                subscriptionId, contextInfo))
+                .orElseThrow(EntityMissingException::new);
+    }
+
+    @Override
+    public Subscription replaceSubscription(@lombok.NonNull String subscriptionId,
+            Subscription subscription,
+            @Nullable ContextInfo contextInfo) {
+        return Optional.ofNullable(
+                source.replaceSubscription(subscriptionId, subscription, contextInfo))
+                .orElseThrow(EntityMissingException::new);
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.provider.local;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.lang.Nullable;
+
+import com.broadleafcommerce.data.tracking.core.context.ContextInfo;
+import com.broadleafcommerce.subscriptionoperation.domain.Subscription;
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import cz.jirutka.rsql.parser.ast.Node;
+
+/**
+ * The subscriptions of a billing service running in the same JVM, as in a flex package
+ * deployment. When a bean of this type is present, it is used by a
+ * {@link LocalSubscriptionProvider} in place of calling the billing service over HTTP.
+ * <p>
+ * Implementations adapt the billing service's own services and must keep the semantics of its
+ * endpoints: the same tenant and sandbox filtering based on the {@link ContextInfo}, the same
+ * ownership checks, and returning instances that the caller is free to modify.
+ */
+public interface LocalSubscriptionSource<SWI extends SubscriptionWithItems> {
+
+    /**
+     * Persists a subscription alongside its items
+     *
+     * @param subscriptionWithItems subscription with items to persist
+     * @param contextInfo context information around multi-tenant state
+     * @return the created subscription and items
+     */
+    SWI create(SWI subscriptionWithItems, @Nullable ContextInfo contextInfo);
+
+    /**
+     * Retrieves a page of subscriptions with items for a given user type and user id, taking into
+     * account the provided filters and paging
+     *
+     * @param userRefType type of the owning user
+     * @param userRef id of the owning user
+     * @param page pageable
+     * @param filters Additional RSQL filters
+     * @param contextInfo context information around multi-tenant state
+     * @return a page of subscriptions with items for a given user type and user id
+     */
+    Page<SWI> readSubscriptionsForUserRefTypeAndUserRef(String userRefType,
+            String userRef,
+            @Nullable Pageable page,
+            @Nullable Node filters,
+            @Nullable ContextInfo contextInfo);
+
+    /**
+     * Retrieves a subscription with items for a given id
+     *
+     * @param subscriptionId The id of the subscription
+     * @param contextInfo context information around multi-tenant state
+     * @return the subscription with items, or null if there is none
+     */
+    @Nullable
+    SWI readSubscriptionById(String subscriptionId, @Nullable ContextInfo contextInfo);
+
+    /**
+     * Retrieves the subscriptions with items for the given ids. By default, each is read
+     * individually.
+     *
+     * @param subscriptionIds The ids of the subscriptions
+     * @param contextInfo context information around multi-tenant state
+     * @return the subscriptions with items that were found, in the order of the given ids
+     */
+    default List<SWI> readSubscriptionsByIds(Collection<String> subscriptionIds,
+            @Nullable ContextInfo contextInfo) {
+        List<SWI> subscriptions = new ArrayList<>(subscriptionIds.size());
+        for (String subscriptionId : new LinkedHashSet<>(subscriptionIds)) {
+            SWI subscription = readSubscriptionById(subscriptionId, contextInfo);
+            if (subscription != null) {
+                subscriptions.add(subscription);
+            }
+        }
+        return subscriptions;
+    }
+
+    /**
+     * Retrieves a user-owned subscription with items for a given id
+     *
+     * @param userRefType type of the owning user
+     * @param userRef id of the owning user
+     * @param subscriptionId The id of the subscription
+     * @param contextInfo context information around multi-tenant state
+     * @return the subscription with items, or null if there is none owned by the user
+     */
+    @Nullable
+    SWI readUserSubscriptionById(String userRefType,
+            String userRef,
+            String subscriptionId,
+            @Nullable ContextInfo contextInfo);
+
+    /**
+     * Replaces a subscription.
+     *
+     * @param subscriptionId The id of the subscription
+     * @param subscription the {@link Subscription} to replace it with
+     * @param contextInfo context information around multi-tenant state
+     * @return the updated subscription, or null if there is none to replace
+     */
+    @Nullable
+    Subscription replaceSubscription(String subscriptionId,
+            Subscription subscription,
+            @Nullable ContextInfo contextInfo);
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.transition;
+
+import org.springframework.lang.Nullable;
+
+import java.time.Instant;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A change of a {@link com.broadleafcommerce.subscriptionoperation.domain.Subscription} to its
+ * next status whose {@link #getNextStatusChangeDate() date} has passed.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DueTransition {
+
+    private String subscriptionId;
+
+    /**
+     * The tenant the subscription belongs to, if any.
+     */
+    @Nullable
+    private String tenantId;
+
+    private String subscriptionNextStatus;
+
+    private Instant nextStatusChangeDate;
+
+    /**
+     * When the transition may be attempted again after failing to be applied, if it did.
+     */
+    @Nullable
+    private Instant retryAt;
+
+    /**
+     * The time the transition should be applied at, which is its
+     * {@link #getNextStatusChangeDate() date} unless it is waiting to be
+     * {@link #getRetryAt() retried}.
+     *
+     * @return the time the transition should be applied at
+     */
+    public Instant getDueAt() {
+        return retryAt != null && retryAt.isAfter(nextStatusChangeDate) ? retryAt
+                : nextStatusChangeDate;
+    }
+}
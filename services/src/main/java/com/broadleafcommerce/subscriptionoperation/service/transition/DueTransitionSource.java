@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.transition;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Finds the {@link DueTransition due transitions} of subscriptions. Subscriptions are spread
+ * across a number of partitions by their id, so that instances of the service can process
+ * distinct partitions.
+ */
+public interface DueTransitionSource {
+
+    /**
+     * The number of keys subscriptions are spread across. A subscription's partition is its key
+     * modulo the number of partitions, so any number of partitions up to this may be used.
+     */
+    int PARTITION_KEYS = 1024;
+
+    /**
+     * Determines the partition key of a subscription.
+     *
+     * @param subscriptionId the id of the subscription
+     * @return the partition key, from 0 to {@link #PARTITION_KEYS} exclusive
+     */
+    static int getPartitionKey(String subscriptionId) {
+        return Math.floorMod(subscriptionId.hashCode(), PARTITION_KEYS);
+    }
+
+    /**
+     * Determines the partition of a subscription.
+     *
+     * @param subscriptionId the id of the subscription
+     * @param partitionCount the number of partitions subscriptions are spread across
+     * @return the partition of the subscription
+     */
+    static int getPartition(String subscriptionId, int partitionCount) {
+        return getPartitionKey(subscriptionId) % partitionCount;
+    }
+
+    /**
+     * Finds transitions that are due in the given partitions, earliest first, skipping those
+     * {@link #postpone(String, Instant) postponed} past the given time. Upcoming transitions may
+     * be found by passing a time in the future.
+     *
+     * @param now the time transitions must be due by
+     * @param partitionCount the number of partitions subscriptions are spread across
+     * @param partitions the partitions to find transitions in
+     * @param batchSize the largest number of transitions to find
+     * @return the due transitions
+     */
+    List<DueTransition> findDue(Instant now,
+            int partitionCount,
+            Collection<Integer> partitions,
+            int batchSize);
+
+    /**
+     * Excludes the transition of the given subscription from {@link #findDue} until the given
+     * time, such as after a failed attempt to apply it.
+     *
+     * @param subscriptionId the id of the subscription
+     * @param until when the transition may be found again
+     */
+    void postpone(String subscriptionId, Instant until);
+}
@@ -0,0 +1,480 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.transition;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.lang.Nullable;
+
+import com.broadleafcommerce.data.tracking.core.context.ContextInfo;
+import com.broadleafcommerce.data.tracking.core.context.ContextRequest;
+import com.broadleafcommerce.data.tracking.core.exception.EntityMissingException;
+import com.broadleafcommerce.data.tracking.core.type.OperationType;
+import com.broadleafcommerce.subscriptionoperation.domain.Subscription;
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
+import com.broadleafcommerce.subscriptionoperation.service.SubscriptionChangeListener;
+import com.broadleafcommerce.subscriptionoperation.service.metrics.SubscriptionOperationMetrics;
+import com.broadleafcommerce.subscriptionoperation.service.provider.SubscriptionProvider;
+import com.broadleafcommerce.subscriptionoperation.service.provider.SubscriptionReadModel;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Periodically applies the {@link DueTransition due next-status transitions} of subscriptions,
+ * such as the cancellation scheduled at the end of term when auto-renewal is disabled.
+ * <p>
+ * Each instance leases a share of the partitions of the {@link DueTransitionSource} and only
+ * processes transitions in those partitions, so that a transition is not applied by two
+ * instances at once. Each transition is checked against the subscription as read from the
+ * {@link SubscriptionProvider} before it is applied, so a transition that was changed or already
+ * applied since it was found is skipped rather than applied twice.
+ * <p>
+ * Normally a single batch is processed per poll. When a batch comes back full, such as after
+ * downtime, the processor catches up: batches are processed back to back, up to
+ * {@link #getCatchUpMaxBatches()}, with up to {@link #getCatchUpConcurrency()} writes at a time.
+ * Transitions that fail to apply are postponed by {@link #getRetryDelay()}.
+ * <p>
+ * When given a {@link #getTimingWheel() timing wheel}, the processor instead loads the upcoming
+ * transitions of its partitions into the wheel and applies each as soon as its tick passes,
+ * rather than up to a poll interval late. Subscriptions changed through the
+ * {@link com.broadleafcommerce.subscriptionoperation.service.SubscriptionOperationService} are
+ * rescheduled in the wheel as they change, while changes made elsewhere are picked up when the
+ * wheel is reloaded every {@link #getReloadInterval()} or when its partitions change.
+ * <p>
+ * Only transitions to a {@link Subscription#getSubscriptionNextStatus() next status} are applied.
+ * A paused subscription is resumed only if its resumption is scheduled as a next status change,
+ * since its {@link Subscription#getResumeDate() resume date} alone is not kept in the local copy
+ * the transitions are found in. The resume date is left as it is when a transition is applied.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class SubscriptionTransitionProcessor
+        implements SmartLifecycle, SubscriptionChangeListener {
+
+    @Getter(AccessLevel.PROTECTED)
+    private final DueTransitionSource source;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final TransitionPartitionLeases leases;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final SubscriptionProvider<SubscriptionWithItems> subscriptionProvider;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final SubscriptionReadModel<SubscriptionWithItems> readModel;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final int partitionCount;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final Duration pollInterval;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final Duration lease;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final int batchSize;
+
+    /**
+     * The largest number of transitions applied at the same time by this instance.
+     */
+    @Getter(AccessLevel.PROTECTED)
+    private final int concurrency;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final Duration retryDelay;
+
+    /**
+     * The largest number of batches processed back to back in a single poll while catching up.
+     */
+    @Getter(AccessLevel.PROTECTED)
+    private final int catchUpMaxBatches;
+
+    /**
+     * The largest number of transitions applied at the same time while catching up.
+     */
+    @Getter(AccessLevel.PROTECTED)
+    private final int catchUpConcurrency;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final Clock clock;
+
+    /**
+     * Identifies this instance as the owner of its partition leases.
+     */
+    @Getter(AccessLevel.PROTECTED)
+    private final String owner = UUID.randomUUID().toString();
+
+    @Getter(value = AccessLevel.PROTECTED, onMethod_ = @Nullable)
+    @Setter(onMethod_ = @Autowired(required = false))
+    private SubscriptionOperationMetrics metrics;
+
+    /**
+     * Notified of the subscriptions whose transitions were applied.
+     */
+    @Getter(AccessLevel.PROTECTED)
+    @Setter(onMethod_ = @Autowired(required = false))
+    private List<SubscriptionChangeListener> changeListeners = List.of();
+
+    /**
+     * Holds the upcoming transitions in memory, if enabled.
+     */
+    @Getter(value = AccessLevel.PROTECTED, onMethod_ = @Nullable)
+    @Setter
+    private TransitionTimingWheel timingWheel;
+
+    /**
+     * How often the {@link #getTimingWheel() timing wheel} is reloaded from the source, to pick
+     * up changes that were not made through this instance.
+     */
+    @Getter(AccessLevel.PROTECTED)
+    @Setter
+    private Duration reloadInterval = Duration.ofMinutes(5);
+
+    /**
+     * The partitions whose transitions are held in the {@link #getTimingWheel() timing wheel}.
+     */
+    private volatile Set<Integer> wheelPartitions = Set.of();
+
+    /**
+     * When the {@link #getTimingWheel() timing wheel} must next be reloaded.
+     */
+    private volatile Instant nextReload = Instant.MIN;
+
+    private ScheduledExecutorService poller;
+
+    private ExecutorService workers;
+
+    @Override
+    public synchronized void start() {
+        if (poller != null) {
+            return;
+        }
+        AtomicInteger count = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(Math.max(concurrency, catchUpConcurrency),
+                runnable -> newThread(runnable,
+                        "subscription-transition-" + count.incrementAndGet()));
+        long millis = pollInterval.toMillis();
+        if (timingWheel == null) {
+            poller = Executors.newSingleThreadScheduledExecutor(
+                    runnable -> newThread(runnable, "subscription-transition-poll"));
+            poller.scheduleWithFixedDelay(this::process, millis, millis, TimeUnit.MILLISECONDS);
+            return;
+        }
+        // Refreshing the wheel must not hold up its ticks
+        poller = Executors.newScheduledThreadPool(2,
+                runnable -> newThread(runnable, "subscription-transition-poll"));
+        poller.scheduleWithFixedDelay(this::refresh, 0, millis, TimeUnit.MILLISECONDS);
+        long tickMillis = timingWheel.getTick().toMillis();
+        poller.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (poller != null) {
+            poller.shutdownNow();
+            workers.shutdownNow();
+            poller = null;
+            workers = null;
+            wheelPartitions = Set.of();
+            nextReload = Instant.MIN;
+            try {
+                leases.release(owner);
+            } catch (DataAccessException e) {
+                log.warn("Unable to release the subscription transition partitions", e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return poller != null;
+    }
+
+    /**
+     * Leases partitions and applies the transitions due in them, catching up if a batch comes
+     * back full.
+     *
+     * @return the number of transitions processed, whether applied, skipped or failed
+     */
+    public int process() {
+        ExecutorService executor = workers;
+        if (executor == null) {
+            return 0;
+        }
+        int total = 0;
+        boolean catchingUp = false;
+        try {
+            for (int batch = 0; batch < (catchingUp ? catchUpMaxBatches : 1); batch++) {
+                // Renew the leases before every batch, so that they do not lapse while catching up
+                Set<Integer> partitions = leases.acquire(owner, partitionCount, lease);
+                if (partitions.isEmpty()) {
+                    break;
+                }
+                List<DueTransition> due = source.findDue(clock.instant(),
+                        partitionCount, partitions, batchSize);
+                applyAll(due, executor, catchingUp);
+                total += due.size();
+                if (due.size() < batchSize) {
+                    break;
+                }
+                if (!catchingUp) {
+                    catchingUp = true;
+                    log.info("Catching up on a backlog of due subscription transitions in"
+                            + " partitions {}", partitions);
+                }
+            }
+        } catch (DataAccessException e) {
+            log.warn("Unable to find due subscription transitions", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return total;
+    }
+
+    /**
+     * Renews the partition leases and reloads the {@link #getTimingWheel() timing wheel} if its
+     * partitions changed or it is due to be reloaded.
+     */
+    public void refresh() {
+        TransitionTimingWheel wheel = timingWheel;
+        if (wheel == null || workers == null) {
+            return;
+        }
+        try {
+            Set<Integer> partitions = leases.acquire(owner, partitionCount, lease);
+            Instant now = clock.instant();
+            if (!partitions.equals(wheelPartitions) || !now.isBefore(nextReload)) {
+                reload(wheel, partitions, now);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Unable to reload the upcoming subscription transitions", e);
+        }
+    }
+
+    /**
+     * Replaces the transitions held in the wheel with those upcoming in the given partitions.
+     * When there are more than the wheel can hold, only the earliest are held and the wheel is
+     * reloaded again once they have passed.
+     *
+     * @param wheel the timing wheel
+     * @param partitions the partitions leased by this instance
+     * @param now the current time
+     */
+    protected void reload(TransitionTimingWheel wheel, Set<Integer> partitions, Instant now) {
+        List<DueTransition> upcoming = partitions.isEmpty() ? List.of()
+                : source.findDue(now.plus(wheel.getSpan()), partitionCount, partitions,
+                        wheel.getCapacity());
+        Instant reloadBy = now.plus(reloadInterval);
+        Instant limit = null;
+        if (upcoming.size() >= wheel.getCapacity()) {
+            limit = upcoming.get(upcoming.size() - 1).getNextStatusChangeDate();
+            reloadBy = limit.isBefore(reloadBy) ? limit : reloadBy;
+            log.info("Holding only the earliest {} upcoming subscription transitions, until {}",
+                    upcoming.size(), limit);
+        }
+        wheel.reset(now, upcoming, limit);
+        wheelPartitions = partitions;
+        nextReload = reloadBy;
+    }
+
+    /**
+     * Advances the {@link #getTimingWheel() timing wheel} and applies the transitions that are
+     * now due, catching up if there are more than a batch of them.
+     *
+     * @return the number of transitions processed, whether applied, skipped or failed
+     */
+    public int tick() {
+        TransitionTimingWheel wheel = timingWheel;
+        ExecutorService executor = workers;
+        if (wheel == null || executor == null) {
+            return 0;
+        }
+        List<DueTransition> due = wheel.advance(clock.instant());
+        if (due.isEmpty()) {
+            return 0;
+        }
+        try {
+            applyAll(due, executor, due.size() > batchSize);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return due.size();
+    }
+
+    /**
+     * Reschedules the transition of a subscription changed through this instance in the
+     * {@link #getTimingWheel() timing wheel}, if it is in one of the wheel's partitions.
+     */
+    @Override
+    public void onSubscriptionChanged(Subscription subscription,
+            @Nullable ContextInfo contextInfo) {
+        TransitionTimingWheel wheel = timingWheel;
+        String subscriptionId = subscription.getId();
+        if (wheel == null || subscriptionId == null || !wheelPartitions
+                .contains(DueTransitionSource.getPartition(subscriptionId, partitionCount))) {
+            return;
+        }
+        wheel.cancel(subscriptionId);
+        if (StringUtils.isNotBlank(subscription.getSubscriptionNextStatus())
+                && subscription.getNextStatusChangeDate() != null) {
+            wheel.schedule(new DueTransition(subscriptionId, getTenantId(contextInfo),
+                    subscription.getSubscriptionNextStatus(),
+                    subscription.getNextStatusChangeDate().toInstant(), null));
+        }
+    }
+
+    protected void applyAll(List<DueTransition> due, ExecutorService executor,
+            boolean catchingUp) throws InterruptedException {
+        Semaphore permits = new Semaphore(catchingUp ? catchUpConcurrency : concurrency);
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[due.size()];
+        for (int i = 0; i < due.size(); i++) {
+            DueTransition transition = due.get(i);
+            permits.acquire();
+            futures[i] = CompletableFuture
+                    .runAsync(() -> process(transition, catchingUp), executor)
+                    .whenComplete((result, e) -> permits.release());
+        }
+        CompletableFuture.allOf(futures).exceptionally(e -> null).join();
+    }
+
+    /**
+     * Applies a single transition, recording its outcome and postponing it if it fails.
+     *
+     * @param transition the due transition
+     * @param catchingUp whether the transition is processed while catching up
+     */
+    protected void process(DueTransition transition, boolean catchingUp) {
+        Instant now = clock.instant();
+        String outcome;
+        try {
+            outcome = apply(transition, now);
+        } catch (RuntimeException e) {
+            outcome = SubscriptionOperationMetrics.ERROR;
+            log.warn("Unable to apply the transition of subscription {} to {}",
+                    transition.getSubscriptionId(), transition.getSubscriptionNextStatus(), e);
+            Instant retryAt = now.plus(retryDelay);
+            try {
+                source.postpone(transition.getSubscriptionId(), retryAt);
+            } catch (DataAccessException postponeException) {
+                log.warn("Unable to postpone the transition of subscription {}",
+                        transition.getSubscriptionId(), postponeException);
+            }
+            if (timingWheel != null) {
+                transition.setRetryAt(retryAt);
+                timingWheel.schedule(transition);
+            }
+        }
+        if (metrics != null) {
+            metrics.recordTransition(outcome, catchingUp,
+                    Duration.between(transition.getNextStatusChangeDate(), now).toMillis());
+        }
+    }
+
+    /**
+     * Reads the subscription and, if its transition is still due, changes it to its next status
+     * and replaces it, notifying the {@link #getChangeListeners() change listeners}. The local
+     * copy of the subscription is updated either way, so that the transition is not found again.
+     *
+     * @param transition the due transition
+     * @param now the current time
+     * @return {@link SubscriptionOperationMetrics#TRANSITION_APPLIED} or
+     *         {@link SubscriptionOperationMetrics#TRANSITION_SKIPPED}
+     */
+    protected String apply(DueTransition transition, Instant now) {
+        String subscriptionId = transition.getSubscriptionId();
+        ContextInfo contextInfo = buildContextInfo(transition);
+        SubscriptionWithItems current;
+        try {
+            current = subscriptionProvider.readSubscriptionById(subscriptionId, contextInfo);
+        } catch (EntityMissingException e) {
+            readModel.remove(subscriptionId, contextInfo);
+            return SubscriptionOperationMetrics.TRANSITION_SKIPPED;
+        }
+
+        Subscription subscription = current.getSubscription();
+        if (!isDue(subscription, now)) {
+            readModel.apply(current, contextInfo);
+            return SubscriptionOperationMetrics.TRANSITION_SKIPPED;
+        }
+
+        subscription.setSubscriptionStatus(subscription.getSubscriptionNextStatus());
+        subscription.setSubscriptionNextStatus(null);
+        subscription.setNextStatusChangeDate(null);
+        subscription.setNextStatusChangeReason(null);
+        Subscription replaced =
+                subscriptionProvider.replaceSubscription(subscriptionId, subscription,
+                        contextInfo);
+        readModel.applySubscription(replaced, contextInfo);
+        if (replaced != null) {
+            for (SubscriptionChangeListener listener : changeListeners) {
+                listener.onSubscriptionChanged(replaced, contextInfo);
+            }
+        }
+        return SubscriptionOperationMetrics.TRANSITION_APPLIED;
+    }
+
+    protected boolean isDue(Subscription subscription, Instant now) {
+        return StringUtils.isNotBlank(subscription.getSubscriptionNextStatus())
+                && subscription.getNextStatusChangeDate() != null
+                && !subscription.getNextStatusChangeDate().toInstant().isAfter(now);
+    }
+
+    protected ContextInfo buildContextInfo(DueTransition transition) {
+        ContextRequest contextRequest = new ContextRequest();
+        if (StringUtils.isNotEmpty(transition.getTenantId())) {
+            contextRequest.setTenantId(transition.getTenantId());
+        }
+        return new ContextInfo(OperationType.UPDATE, contextRequest);
+    }
+
+    @Nullable
+    protected String getTenantId(@Nullable ContextInfo contextInfo) {
+        return Optional.ofNullable(contextInfo)
+                .map(ContextInfo::getContextRequest)
+                .map(ContextRequest::getTenantId)
+                .orElse(null);
+    }
+
+    private static Thread newThread(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
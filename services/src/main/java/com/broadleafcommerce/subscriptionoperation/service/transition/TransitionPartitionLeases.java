@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.transition;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Leases the partitions of a {@link DueTransitionSource} to instances of the service, so that
+ * each partition is processed by a single instance at a time.
+ */
+public interface TransitionPartitionLeases {
+
+    /**
+     * Renews the partitions leased by the given owner and leases unowned or expired partitions,
+     * up to a fair share of the partitions between the instances currently holding leases.
+     * Partitions beyond the fair share are released, so that partitions are rebalanced as
+     * instances start and stop.
+     *
+     * @param owner identifies the calling instance
+     * @param partitionCount the number of partitions
+     * @param lease how long the partitions are held without being renewed
+     * @return the partitions leased by the owner
+     */
+    Set<Integer> acquire(String owner, int partitionCount, Duration lease);
+
+    /**
+     * Releases every partition leased by the given owner.
+     *
+     * @param owner identifies the calling instance
+     */
+    void release(String owner);
+}
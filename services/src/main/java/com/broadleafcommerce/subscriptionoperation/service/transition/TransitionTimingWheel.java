@@ -0,0 +1,240 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.transition;
+
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A hashed timing wheel holding the upcoming {@link DueTransition transitions} of the partitions
+ * leased by this instance, so that they can be applied close to when they are due without
+ * querying for them every few seconds.
+ * <p>
+ * The wheel has {@link #getTicksPerWheel()} buckets, each covering one tick. Transitions are only
+ * held up to a {@link #reset limit} less than one rotation ahead, so that every transition in a
+ * bucket is due in the same tick and a bucket is drained whole. Transitions further ahead are
+ * left in persistent storage and loaded when the wheel is next reset. Scheduling and cancelling
+ * a transition take constant time, as each is linked into its bucket and indexed by subscription.
+ * <p>
+ * This class is thread-safe.
+ */
+public class TransitionTimingWheel {
+
+    private final long tickMillis;
+
+    private final int ticksPerWheel;
+
+    private final int capacity;
+
+    private final Entry[] buckets;
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * The last tick that was drained.
+     */
+    private long currentTick;
+
+    /**
+     * The last tick transitions are held for, if the wheel was reset with a limit. Otherwise,
+     * transitions are held up to one rotation ahead of the current tick.
+     */
+    private long limitTick;
+
+    /**
+     * @param tick the time covered by each bucket
+     * @param ticksPerWheel the number of buckets
+     * @param capacity the largest number of transitions held
+     */
+    public TransitionTimingWheel(Duration tick, int ticksPerWheel, int capacity) {
+        if (tick.toMillis() < 1 || ticksPerWheel < 2 || capacity < 1) {
+            throw new IllegalArgumentException(
+                    "The tick must be at least 1ms, with at least 2 ticks and a capacity of 1");
+        }
+        this.tickMillis = tick.toMillis();
+        this.ticksPerWheel = ticksPerWheel;
+        this.capacity = capacity;
+        this.buckets = new Entry[ticksPerWheel];
+        for (int i = 0; i < ticksPerWheel; i++) {
+            buckets[i] = Entry.sentinel();
+        }
+        reset(Instant.now(), List.of(), null);
+    }
+
+    /**
+     * Replaces the held transitions with the given ones, such as when reloading them from
+     * persistent storage.
+     *
+     * @param now the current time, from which the wheel is advanced
+     * @param transitions the upcoming transitions
+     * @param limit the time before which every upcoming transition was given, if that is earlier
+     *        than one rotation ahead, such as when there were more than fit
+     */
+    public synchronized void reset(Instant now,
+            Collection<DueTransition> transitions,
+            @Nullable Instant limit) {
+        for (Entry bucket : buckets) {
+            bucket.next = bucket;
+            bucket.previous = bucket;
+        }
+        entries.clear();
+        currentTick = tickOf(now);
+        // Transitions that are already due are always held for the next tick
+        limitTick = limit == null ? Long.MAX_VALUE : Math.max(currentTick + 1, tickOf(limit) - 1);
+        transitions.forEach(this::schedule);
+    }
+
+    /**
+     * Holds the given transition until it is due, replacing any transition already held for the
+     * same subscription. Transitions that are already due are returned by the next
+     * {@link #advance}.
+     *
+     * @param transition the transition
+     * @return whether the transition is held, which it is not if it is beyond the wheel's limit
+     *         or the wheel is full
+     */
+    public synchronized boolean schedule(DueTransition transition) {
+        cancel(transition.getSubscriptionId());
+        long tick = Math.max(tickOf(transition.getDueAt()), currentTick + 1);
+        if (tick > Math.min(limitTick, currentTick + ticksPerWheel - 1)
+                || entries.size() >= capacity) {
+            return false;
+        }
+        Entry entry = new Entry(transition);
+        entry.link(buckets[bucketOf(tick)]);
+        entries.put(transition.getSubscriptionId(), entry);
+        return true;
+    }
+
+    /**
+     * Stops holding the transition of the given subscription, if there is one.
+     *
+     * @param subscriptionId the id of the subscription
+     * @return whether a transition was held for the subscription
+     */
+    public synchronized boolean cancel(String subscriptionId) {
+        Entry entry = entries.remove(subscriptionId);
+        if (entry == null) {
+            return false;
+        }
+        entry.unlink();
+        return true;
+    }
+
+    /**
+     * Drains the buckets of every tick up to the given time, returning the transitions that are
+     * due.
+     *
+     * @param now the current time
+     * @return the due transitions, which are no longer held
+     */
+    public synchronized List<DueTransition> advance(Instant now) {
+        long targetTick = tickOf(now);
+        List<DueTransition> due = new ArrayList<>();
+        // Once every bucket was drained, there is nothing more to drain however far behind
+        long lastTick = Math.min(targetTick, currentTick + ticksPerWheel);
+        for (long tick = currentTick + 1; tick <= lastTick; tick++) {
+            Entry bucket = buckets[bucketOf(tick)];
+            while (bucket.next != bucket) {
+                Entry entry = bucket.next;
+                entry.unlink();
+                entries.remove(entry.transition.getSubscriptionId());
+                due.add(entry.transition);
+            }
+        }
+        currentTick = Math.max(currentTick, targetTick);
+        return due;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * The time covered by a full rotation of the wheel, which is the furthest ahead that
+     * transitions are held.
+     *
+     * @return the time covered by the wheel
+     */
+    public Duration getSpan() {
+        return Duration.ofMillis(tickMillis * ticksPerWheel);
+    }
+
+    public Duration getTick() {
+        return Duration.ofMillis(tickMillis);
+    }
+
+    public int getTicksPerWheel() {
+        return ticksPerWheel;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private long tickOf(Instant instant) {
+        return Math.floorDiv(instant.toEpochMilli(), tickMillis);
+    }
+
+    private int bucketOf(long tick) {
+        return (int) Math.floorMod(tick, (long) ticksPerWheel);
+    }
+
+    /**
+     * A transition linked into the circular list of its bucket, whose head is a sentinel.
+     */
+    private static class Entry {
+
+        private final DueTransition transition;
+
+        private Entry previous;
+
+        private Entry next;
+
+        private Entry(DueTransition transition) {
+            this.transition = transition;
+        }
+
+        static Entry sentinel() {
+            Entry sentinel = new Entry(null);
+            sentinel.previous = sentinel;
+            sentinel.next = sentinel;
+            return sentinel;
+        }
+
+        void link(Entry head) {
+            previous = head.previous;
+            next = head;
+            head.previous.next = this;
+            head.previous = this;
+        }
+
+        void unlink() {
+            previous.next = next;
+            next.previous = previous;
+            previous = null;
+            next = null;
+        }
+    }
+}
@@ -16,15 +16,54 @@
  */
 package com.broadleafcommerce.subscriptionoperation.web.autoconfigure;
 
+import org.apache.ignite.Ignite;
 import org.broadleafcommerce.frameworkmapping.annotation.FrameworkControllerScan;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.lang.Nullable;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import com.broadleafcommerce.subscriptionoperation.service.metrics.SubscriptionOperationMetrics;
+import com.broadleafcommerce.subscriptionoperation.web.compression.DeflaterPool;
+import com.broadleafcommerce.subscriptionoperation.web.compression.ResponseCompressionFilter;
+import com.broadleafcommerce.subscriptionoperation.web.endpoint.EndpointClass;
 import com.broadleafcommerce.subscriptionoperation.web.endpoint.SubscriptionOperationEndpoint;
 import com.broadleafcommerce.subscriptionoperation.web.endpoint.exception.SubscriptionOperationExceptionAdvisor;
+import com.broadleafcommerce.subscriptionoperation.web.ratelimit.IgniteRateLimiter;
+import com.broadleafcommerce.subscriptionoperation.web.ratelimit.PrincipalRateLimitKeyResolver;
+import com.broadleafcommerce.subscriptionoperation.web.ratelimit.RateLimit;
+import com.broadleafcommerce.subscriptionoperation.web.ratelimit.RateLimitInterceptor;
+import com.broadleafcommerce.subscriptionoperation.web.ratelimit.RateLimitKeyResolver;
+import com.broadleafcommerce.subscriptionoperation.web.ratelimit.RateLimiter;
+import com.broadleafcommerce.subscriptionoperation.web.ratelimit.StripedRateLimiter;
+import com.broadleafcommerce.subscriptionoperation.web.shedding.DefaultRequestClassifier;
+import com.broadleafcommerce.subscriptionoperation.web.shedding.LoadSheddingFilter;
+import com.broadleafcommerce.subscriptionoperation.web.shedding.PriorityAdmissionController;
+import com.broadleafcommerce.subscriptionoperation.web.shedding.RequestClassifier;
+import com.broadleafcommerce.subscriptionoperation.web.shedding.RequestPriority;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import jakarta.servlet.DispatcherType;
 
 @Configuration
+@EnableConfigurationProperties(SubscriptionOperationWebProperties.class)
 public class SubscriptionOperationWebAutoConfiguration {
 
     @Configuration
@@ -36,4 +75,195 @@ public class SubscriptionOperationWebAutoConfiguration {
     SubscriptionOperationExceptionAdvisor subscriptionOperationExceptionAdvisor() {
         return new SubscriptionOperationExceptionAdvisor();
     }
+
+    @Configuration
+    @ConditionalOnClass(name = "com.fasterxml.jackson.dataformat.smile.SmileFactory")
+    @ConditionalOnProperty(name = "broadleaf.subscriptionoperation.web.smile-enabled",
+            havingValue = "true")
+    static class SmileConfiguration {
+
+        /**
+         * Adds a Smile converter after the default ones, so that JSON remains the default and
+         * Smile is only produced for callers that ask for it. The converter uses a copy of the
+         * application's mapper so that both formats are (de)serialized alike.
+         */
+        @Bean
+        WebMvcConfigurer subscriptionOperationSmileConfigurer(ObjectMapper objectMapper) {
+            return new WebMvcConfigurer() {
+                @Override
+                public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+                    converters.add(new MappingJackson2SmileHttpMessageConverter(
+                            objectMapper.copyWith(new SmileFactory())));
+                }
+            };
+        }
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(name = "subscriptionOperationCompressionFilter")
+    @ConditionalOnProperty(name = "broadleaf.subscriptionoperation.web.compression.enabled",
+            havingValue = "true")
+    FilterRegistrationBean<ResponseCompressionFilter> subscriptionOperationCompressionFilter(
+            SubscriptionOperationWebProperties properties) {
+        SubscriptionOperationWebProperties.Compression compression = properties.getCompression();
+        DeflaterPool pool = new DeflaterPool(compression.getLevel(),
+                (int) compression.getBufferSize().toBytes(),
+                compression.getMaxPooledDeflaters());
+        ResponseCompressionFilter filter = new ResponseCompressionFilter(pool,
+                (int) compression.getMinResponseSize().toBytes(),
+                MediaType.parseMediaTypes(compression.getMimeTypes()));
+
+        FilterRegistrationBean<ResponseCompressionFilter> registration =
+                new FilterRegistrationBean<>(filter);
+        registration.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ASYNC);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 100);
+        return registration;
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "broadleaf.subscriptionoperation.web.load-shedding.enabled",
+            havingValue = "true")
+    static class LoadSheddingConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        RequestClassifier subscriptionOperationRequestClassifier() {
+            return new DefaultRequestClassifier();
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        PriorityAdmissionController subscriptionOperationAdmissionController(
+                SubscriptionOperationWebProperties properties) {
+            SubscriptionOperationWebProperties.LoadShedding loadShedding =
+                    properties.getLoadShedding();
+            Map<RequestPriority, Double> shares = new EnumMap<>(RequestPriority.class);
+            shares.put(RequestPriority.NORMAL, loadShedding.getNormalShare());
+            shares.put(RequestPriority.LOW, loadShedding.getLowShare());
+            return new PriorityAdmissionController(loadShedding.getMaxInFlight(), shares,
+                    loadShedding.getMaxQueued(), loadShedding.getMaxWait(),
+                    loadShedding.getTargetQueueDelay(), loadShedding.getInterval());
+        }
+
+        @Bean
+        @ConditionalOnMissingBean(name = "subscriptionOperationLoadSheddingFilter")
+        FilterRegistrationBean<LoadSheddingFilter> subscriptionOperationLoadSheddingFilter(
+                PriorityAdmissionController admissionController,
+                RequestClassifier classifier,
+                ObjectMapper objectMapper,
+                ObjectProvider<SubscriptionOperationMetrics> metrics) {
+            LoadSheddingFilter filter =
+                    new LoadSheddingFilter(admissionController, classifier, objectMapper);
+            filter.setMetrics(metrics.getIfAvailable());
+
+            FilterRegistrationBean<LoadSheddingFilter> registration =
+                    new FilterRegistrationBean<>(filter);
+            registration.setDispatcherTypes(DispatcherType.REQUEST);
+            registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 75);
+            return registration;
+        }
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "broadleaf.subscriptionoperation.web.rate-limiting.enabled",
+            havingValue = "true")
+    static class RateLimitingConfiguration {
+
+        @Configuration
+        @ConditionalOnClass(name = "org.apache.ignite.Ignite")
+        @ConditionalOnProperty(
+                name = "broadleaf.subscriptionoperation.web.rate-limiting.cluster.enabled",
+                havingValue = "true")
+        static class ClusterRateLimitingConfiguration {
+
+            /**
+             * Holds the buckets in Ignite when an {@link Ignite} instance is available, falling
+             * back to the in-memory buckets otherwise.
+             */
+            @Bean
+            @ConditionalOnMissingBean
+            RateLimiter subscriptionOperationRateLimiter(ObjectProvider<Ignite> ignite,
+                    SubscriptionOperationWebProperties properties) {
+                SubscriptionOperationWebProperties.RateLimiting rateLimiting =
+                        properties.getRateLimiting();
+                RateLimiter local = localRateLimiter(rateLimiting);
+                Ignite instance = ignite.getIfUnique();
+                if (instance == null) {
+                    return local;
+                }
+                return new IgniteRateLimiter(instance, rateLimiting.getCluster().getCacheName(),
+                        rateLimiting.getCluster().getExpiry(), local);
+            }
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        RateLimiter subscriptionOperationRateLimiter(
+                SubscriptionOperationWebProperties properties) {
+            return localRateLimiter(properties.getRateLimiting());
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        RateLimitKeyResolver subscriptionOperationRateLimitKeyResolver(
+                SubscriptionOperationWebProperties properties) {
+            return new PrincipalRateLimitKeyResolver(
+                    properties.getRateLimiting().getTenantClaim());
+        }
+
+        /**
+         * Applies the limits as an interceptor rather than a filter, so that the caller has been
+         * authenticated by the security filter chain by the time its keys are resolved.
+         */
+        @Bean
+        @ConditionalOnMissingBean(name = "subscriptionOperationRateLimitConfigurer")
+        WebMvcConfigurer subscriptionOperationRateLimitConfigurer(RateLimiter rateLimiter,
+                RateLimitKeyResolver keyResolver,
+                ObjectMapper objectMapper,
+                ObjectProvider<SubscriptionOperationMetrics> metrics,
+                SubscriptionOperationWebProperties properties) {
+            SubscriptionOperationWebProperties.RateLimiting rateLimiting =
+                    properties.getRateLimiting();
+            Map<EndpointClass, RateLimit> tenantLimits = new EnumMap<>(EndpointClass.class);
+            Map<EndpointClass, RateLimit> userLimits = new EnumMap<>(EndpointClass.class);
+            putLimits(EndpointClass.CUSTOMER, rateLimiting.getCustomer(), tenantLimits,
+                    userLimits);
+            putLimits(EndpointClass.ACCOUNT, rateLimiting.getAccount(), tenantLimits, userLimits);
+            putLimits(EndpointClass.ADMIN, rateLimiting.getAdmin(), tenantLimits, userLimits);
+
+            RateLimitInterceptor interceptor = new RateLimitInterceptor(rateLimiter, keyResolver,
+                    objectMapper, tenantLimits, userLimits);
+            interceptor.setMetrics(metrics.getIfAvailable());
+            return new WebMvcConfigurer() {
+                @Override
+                public void addInterceptors(InterceptorRegistry registry) {
+                    registry.addInterceptor(interceptor);
+                }
+            };
+        }
+
+        private static RateLimiter localRateLimiter(
+                SubscriptionOperationWebProperties.RateLimiting rateLimiting) {
+            return new StripedRateLimiter(rateLimiting.getStripes(),
+                    rateLimiting.getMaxKeysPerStripe(), rateLimiting.getSweepInterval());
+        }
+
+        private static void putLimits(EndpointClass endpointClass,
+                SubscriptionOperationWebProperties.EndpointLimits limits,
+                Map<EndpointClass, RateLimit> tenantLimits,
+                Map<EndpointClass, RateLimit> userLimits) {
+            toRateLimit(limits.getTenant()).ifPresent(limit -> tenantLimits.put(endpointClass,
+                    limit));
+            toRateLimit(limits.getUser()).ifPresent(limit -> userLimits.put(endpointClass, limit));
+        }
+
+        private static Optional<RateLimit> toRateLimit(
+                @Nullable SubscriptionOperationWebProperties.Limit limit) {
+            if (limit == null || limit.getPermits() <= 0) {
+                return Optional.empty();
+            }
+            return Optional.of(RateLimit.of(limit.getPermits(), limit.getPeriod(),
+                    limit.getBurst()));
+        }
+    }
 }
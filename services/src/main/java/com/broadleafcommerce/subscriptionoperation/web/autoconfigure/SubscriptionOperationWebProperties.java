@@ -0,0 +1,274 @@
+/*
+ * Copyright (C) 2020 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.web.autoconfigure;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import lombok.Data;
+
+/**
+ * Configuration of how the subscription operation endpoints exchange requests and responses.
+ */
+@Data
+@ConfigurationProperties("broadleaf.subscriptionoperation.web")
+public class SubscriptionOperationWebProperties {
+
+    /**
+     * Whether the endpoints accept and produce the binary Smile format,
+     * {@code application/x-jackson-smile}, for callers that ask for it. JSON remains the default.
+     * Requires {@code com.fasterxml.jackson.dataformat:jackson-dataformat-smile} on the
+     * classpath. Default is false.
+     */
+    private boolean smileEnabled = false;
+
+    /**
+     * Compression of the endpoint responses.
+     */
+    private Compression compression = new Compression();
+
+    /**
+     * Rate limiting of the endpoints per tenant and per customer or account.
+     */
+    private RateLimiting rateLimiting = new RateLimiting();
+
+    /**
+     * Shedding of lower priority requests when the endpoints are overloaded.
+     */
+    private LoadShedding loadShedding = new LoadShedding();
+
+    @Data
+    public static class Compression {
+
+        /**
+         * Whether responses are compressed with {@code gzip} or {@code deflate} for callers that
+         * accept it. This is typically left to a gateway or the servlet container, so is disabled
+         * by default.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The minimum size of a response for it to be compressed. Default is 2KB.
+         */
+        private DataSize minResponseSize = DataSize.ofKilobytes(2);
+
+        /**
+         * The content types of the responses that are compressed.
+         */
+        private List<String> mimeTypes = new ArrayList<>(List.of("application/json",
+                "application/*+json", "application/x-ndjson", "application/xml", "text/*"));
+
+        /**
+         * The compression level, from 0 to 9, or -1 for the default level.
+         */
+        private int level = Deflater.DEFAULT_COMPRESSION;
+
+        /**
+         * The size of the buffer compressed output is written to before being sent. Default is
+         * 8KB.
+         */
+        private DataSize bufferSize = DataSize.ofKilobytes(8);
+
+        /**
+         * The maximum number of deflaters pooled for each encoding. Default is 32.
+         */
+        private int maxPooledDeflaters = 32;
+    }
+
+    @Data
+    public static class LoadShedding {
+
+        /**
+         * Whether the number of requests processed at once is limited, shedding admin and bulk
+         * requests before customer ones under overload. Default is false.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The maximum number of requests processed at once. This should be below the number of
+         * request threads. Default is 150.
+         */
+        private int maxInFlight = 150;
+
+        /**
+         * The share of {@code max-in-flight} that customer writes may take. Default is 0.85.
+         */
+        private double normalShare = 0.85;
+
+        /**
+         * The share of {@code max-in-flight} that account and admin requests may take. Default
+         * is 0.6.
+         */
+        private double lowShare = 0.6;
+
+        /**
+         * The maximum number of requests of each priority waiting to be admitted. Default is 100.
+         */
+        private int maxQueued = 100;
+
+        /**
+         * The longest a request waits to be admitted before being shed. Default is 500ms.
+         */
+        private Duration maxWait = Duration.ofMillis(500);
+
+        /**
+         * The time spent waiting above which requests are considered to be queuing rather than
+         * absorbing a burst. Default is 20ms.
+         */
+        private Duration targetQueueDelay = Duration.ofMillis(20);
+
+        /**
+         * How long requests must keep waiting above the target for the endpoints to be considered
+         * overloaded, at which point account and admin requests and customer writes are shed
+         * rather than queued. Default is 100ms.
+         */
+        private Duration interval = Duration.ofMillis(100);
+    }
+
+    @Data
+    public static class RateLimiting {
+
+        /**
+         * Whether requests exceeding their rate limits are rejected with a {@code 429}. Default is
+         * false.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The number of stripes the in-memory buckets are spread over. Rounded up to a power of
+         * two. Default is 64.
+         */
+        private int stripes = 64;
+
+        /**
+         * The number of buckets a stripe holds before refilled buckets are evicted from it.
+         * Default is 4096.
+         */
+        private int maxKeysPerStripe = 4096;
+
+        /**
+         * The minimum time between evictions from a stripe. Default is 1s.
+         */
+        private Duration sweepInterval = Duration.ofSeconds(1);
+
+        /**
+         * The claim of the caller's token holding its tenant, which keys the tenant limits.
+         * Callers without the claim are only limited per user.
+         */
+        private String tenantClaim = "tenantId";
+
+        /**
+         * Enforcement of the limits across the cluster.
+         */
+        private Cluster cluster = new Cluster();
+
+        /**
+         * The limits of the customer endpoints.
+         */
+        private EndpointLimits customer = new EndpointLimits(new Limit(500), new Limit(20, 40));
+
+        /**
+         * The limits of the account endpoints.
+         */
+        private EndpointLimits account = new EndpointLimits(new Limit(500), new Limit(50, 100));
+
+        /**
+         * The limits of the admin endpoints.
+         */
+        private EndpointLimits admin = new EndpointLimits(new Limit(200), new Limit(0));
+    }
+
+    @Data
+    public static class Cluster {
+
+        /**
+         * Whether the buckets are held in an Ignite cache, so that the limits are enforced across
+         * the cluster rather than per instance. Requires an {@code Ignite} bean. Default is false.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The name of the Ignite cache holding the buckets.
+         */
+        private String cacheName = "subscriptionOperationRateLimits";
+
+        /**
+         * How long a bucket is kept after it was last taken from. This must be longer than the
+         * largest period of the limits. Default is 10m.
+         */
+        private Duration expiry = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class EndpointLimits {
+
+        /**
+         * The limit of each tenant.
+         */
+        private Limit tenant;
+
+        /**
+         * The limit of each authenticated caller, such as a customer or account user.
+         */
+        private Limit user;
+
+        public EndpointLimits() {
+            this(new Limit(0), new Limit(0));
+        }
+
+        public EndpointLimits(Limit tenant, Limit user) {
+            this.tenant = tenant;
+            this.user = user;
+        }
+    }
+
+    @Data
+    public static class Limit {
+
+        /**
+         * The number of requests allowed per period, or 0 for no limit.
+         */
+        private int permits;
+
+        /**
+         * The period over which the permits are replenished. Default is 1s.
+         */
+        private Duration period = Duration.ofSeconds(1);
+
+        /**
+         * The number of requests allowed at once, after the limit has not been used for a
+         * while, or 0 for {@code permits}.
+         */
+        private int burst;
+
+        public Limit() {}
+
+        public Limit(int permits) {
+            this(permits, 0);
+        }
+
+        public Limit(int permits, int burst) {
+            this.permits = permits;
+            this.burst = burst;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2020 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.web.compression;
+
+import com.broadleafcommerce.subscriptionoperation.web.compression.DeflaterPool.Encoding;
+import com.broadleafcommerce.subscriptionoperation.web.compression.DeflaterPool.PooledDeflater;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses everything written to it using a {@link DeflaterPool pooled} {@link Deflater},
+ * which is returned to the pool once the stream is {@link #finish() finished}.
+ * <p>
+ * For {@link Encoding#GZIP}, the GZIP header and trailer are written around the raw deflate data.
+ */
+class CompressingOutputStream extends OutputStream {
+
+    /**
+     * A GZIP header without a file name, comment or modification time.
+     */
+    private static final byte[] GZIP_HEADER =
+            {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final OutputStream out;
+
+    private final DeflaterPool pool;
+
+    private final CRC32 crc;
+
+    private PooledDeflater pooled;
+
+    CompressingOutputStream(OutputStream out, Encoding encoding, DeflaterPool pool)
+            throws IOException {
+        this.out = out;
+        this.pool = pool;
+        this.pooled = pool.borrow(encoding);
+        if (encoding == Encoding.GZIP) {
+            crc = new CRC32();
+            out.write(GZIP_HEADER);
+        } else {
+            crc = null;
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        if (len == 0) {
+            return;
+        }
+        if (crc != null) {
+            crc.update(b, off, len);
+        }
+        Deflater deflater = pooled.getDeflater();
+        deflater.setInput(b, off, len);
+        while (!deflater.needsInput()) {
+            deflate(Deflater.NO_FLUSH);
+        }
+    }
+
+    /**
+     * Flushes everything compressed so far, so that it can be decompressed by the client, at the
+     * cost of compression ratio.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (pooled != null) {
+            // A full buffer means the deflater may have more to flush
+            int length;
+            do {
+                length = deflate(Deflater.SYNC_FLUSH);
+            } while (length == pooled.getBuffer().length);
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes the remaining compressed data, and the GZIP trailer if applicable, and returns the
+     * deflater to the pool. Does not close the underlying stream.
+     */
+    public void finish() throws IOException {
+        if (pooled == null) {
+            return;
+        }
+        try {
+            Deflater deflater = pooled.getDeflater();
+            deflater.finish();
+            while (!deflater.finished()) {
+                deflate(Deflater.NO_FLUSH);
+            }
+            if (crc != null) {
+                writeInt((int) crc.getValue());
+                writeInt((int) deflater.getBytesRead());
+            }
+        } finally {
+            pool.release(pooled);
+            pooled = null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+        out.close();
+    }
+
+    private int deflate(int flush) throws IOException {
+        byte[] buffer = pooled.getBuffer();
+        int length = pooled.getDeflater().deflate(buffer, 0, buffer.length, flush);
+        if (length > 0) {
+            out.write(buffer, 0, length);
+        }
+        return length;
+    }
+
+    private void writeInt(int value) throws IOException {
+        // The GZIP trailer is little-endian
+        out.write(value & 0xff);
+        out.write((value >> 8) & 0xff);
+        out.write((value >> 16) & 0xff);
+        out.write((value >> 24) & 0xff);
+    }
+
+    private void ensureOpen() throws IOException {
+        if (pooled == null) {
+            throw new IOException("Stream already finished");
+        }
+    }
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright (C) 2020 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.web.compression;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.FastByteArrayOutputStream;
+
+import com.broadleafcommerce.subscriptionoperation.web.compression.DeflaterPool.Encoding;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.function.Predicate;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Buffers the start of a response until it reaches the minimum size to be compressed. Larger
+ * responses of a compressible content type are then compressed as they are written, while smaller
+ * ones are written as-is once the response is {@link #finish() finished}.
+ * <p>
+ * Flushing before the minimum size has been reached does not write the buffered content, as it is
+ * not yet known whether it will be compressed.
+ */
+class CompressingResponseWrapper extends HttpServletResponseWrapper {
+
+    private final Encoding encoding;
+
+    private final DeflaterPool pool;
+
+    private final int minResponseSize;
+
+    private final Predicate<String> compressibleContentType;
+
+    private ThresholdOutputStream outputStream;
+
+    private PrintWriter writer;
+
+    private long contentLength = -1;
+
+    CompressingResponseWrapper(HttpServletResponse response,
+            Encoding encoding,
+            DeflaterPool pool,
+            int minResponseSize,
+            Predicate<String> compressibleContentType) {
+        super(response);
+        this.encoding = encoding;
+        this.pool = pool;
+        this.minResponseSize = minResponseSize;
+        this.compressibleContentType = compressibleContentType;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (writer != null) {
+            throw new IllegalStateException("getWriter() has already been called");
+        }
+        return getThresholdOutputStream();
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            if (outputStream != null) {
+                throw new IllegalStateException("getOutputStream() has already been called");
+            }
+            writer = new PrintWriter(
+                    new OutputStreamWriter(getThresholdOutputStream(), getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        setContentLengthLong(len);
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+        // Only known to be correct once it is decided that the response is not compressed
+        contentLength = len;
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(Long.parseLong(value));
+        } else {
+            super.setHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(Long.parseLong(value));
+        } else {
+            super.addHeader(name, value);
+        }
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(value);
+        } else {
+            super.setIntHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(value);
+        } else {
+            super.addIntHeader(name, value);
+        }
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        if (outputStream != null) {
+            outputStream.flush();
+        }
+        if (outputStream == null || outputStream.isDecided()) {
+            super.flushBuffer();
+        }
+    }
+
+    @Override
+    public void resetBuffer() {
+        if (outputStream != null && outputStream.isDecided()) {
+            throw new IllegalStateException("The response has already been written");
+        }
+        if (outputStream != null) {
+            outputStream.reset();
+        }
+        super.resetBuffer();
+    }
+
+    @Override
+    public void reset() {
+        resetBuffer();
+        contentLength = -1;
+        super.reset();
+    }
+
+    /**
+     * Completes the response, writing any buffered content and finishing the compression.
+     */
+    void finish() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        if (outputStream != null) {
+            outputStream.finish();
+        }
+    }
+
+    private ThresholdOutputStream getThresholdOutputStream() {
+        if (outputStream == null) {
+            outputStream = new ThresholdOutputStream();
+        }
+        return outputStream;
+    }
+
+    protected boolean shouldCompress() {
+        int status = getStatus();
+        return status >= 200
+                && status != HttpServletResponse.SC_NO_CONTENT
+                && status != HttpServletResponse.SC_NOT_MODIFIED
+                && getHeader(HttpHeaders.CONTENT_ENCODING) == null
+                && getHeader(HttpHeaders.CONTENT_RANGE) == null
+                && compressibleContentType.test(getContentType());
+    }
+
+    /**
+     * Buffers content until it is decided whether to compress it, after which it is written to
+     * either the compressing or the underlying stream.
+     */
+    private class ThresholdOutputStream extends ServletOutputStream {
+
+        private FastByteArrayOutputStream buffer = new FastByteArrayOutputStream(256);
+
+        private OutputStream target;
+
+        private CompressingOutputStream compressor;
+
+        boolean isDecided() {
+            return target != null;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (target != null) {
+                target.write(b);
+                return;
+            }
+            buffer.write(b);
+            decideIfLarge();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (target != null) {
+                target.write(b, off, len);
+                return;
+            }
+            buffer.write(b, off, len);
+            decideIfLarge();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (target != null) {
+                target.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+        }
+
+        void reset() {
+            buffer.reset();
+        }
+
+        void finish() throws IOException {
+            if (target == null) {
+                if (buffer.size() == 0 && contentLength < 0) {
+                    return;
+                }
+                decide(false);
+            }
+            if (compressor != null) {
+                compressor.finish();
+                compressor = null;
+            }
+            target.flush();
+        }
+
+        private void decideIfLarge() throws IOException {
+            if (buffer.size() >= minResponseSize) {
+                decide(true);
+            }
+        }
+
+        private void decide(boolean large) throws IOException {
+            HttpServletResponse response = (HttpServletResponse) getResponse();
+            if (large && shouldCompress()) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, encoding.getValue());
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                compressor = new CompressingOutputStream(response.getOutputStream(), encoding,
+                        pool);
+                target = compressor;
+            } else {
+                if (contentLength >= 0) {
+                    response.setContentLengthLong(contentLength);
+                } else if (!large) {
+                    response.setContentLengthLong(buffer.size());
+                }
+                target = response.getOutputStream();
+            }
+            buffer.writeTo(target);
+            buffer = null;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            throw new UnsupportedOperationException(
+                    "Non-blocking writes are not supported with compression");
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2020 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.web.compression;
+
+import org.springframework.lang.Nullable;
+
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * A bounded pool of {@link Deflater Deflaters} and their output buffers, so that compressing a
+ * response neither allocates a new buffer nor the native memory of a new {@link Deflater}.
+ * <p>
+ * Borrowing never blocks: if the pool is empty, new resources are created, and resources released
+ * to a full pool are discarded.
+ */
+public class DeflaterPool {
+
+    /**
+     * The content codings a response may be compressed with.
+     */
+    @RequiredArgsConstructor
+    public enum Encoding {
+        GZIP("gzip"), DEFLATE("deflate");
+
+        @Getter
+        private final String value;
+
+        /**
+         * Resolves the encoding for the given content coding.
+         *
+         * @param coding the content coding, e.g. from {@code Accept-Encoding}
+         * @return the encoding, or {@code null} if the coding is not supported
+         */
+        @Nullable
+        public static Encoding forCoding(String coding) {
+            return switch (coding.toLowerCase(Locale.ROOT)) {
+                case "gzip", "x-gzip" -> GZIP;
+                case "deflate" -> DEFLATE;
+                default -> null;
+            };
+        }
+    }
+
+    /**
+     * A {@link Deflater} along with the buffer its output is written to.
+     */
+    @Getter
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    public static class PooledDeflater {
+        private final Encoding encoding;
+        private final Deflater deflater;
+        private final byte[] buffer;
+    }
+
+    @Getter
+    private final int level;
+
+    @Getter
+    private final int bufferSize;
+
+    private final BlockingQueue<PooledDeflater> gzip;
+
+    private final BlockingQueue<PooledDeflater> deflate;
+
+    /**
+     * @param level the compression level, see {@link Deflater#setLevel(int)}
+     * @param bufferSize the size of the buffer compressed output is written to
+     * @param maxPooled the maximum number of resources to pool for each encoding
+     */
+    public DeflaterPool(int level, int bufferSize, int maxPooled) {
+        this.level = level;
+        this.bufferSize = bufferSize;
+        this.gzip = new ArrayBlockingQueue<>(maxPooled);
+        this.deflate = new ArrayBlockingQueue<>(maxPooled);
+    }
+
+    /**
+     * Borrows a deflater for the given encoding, creating one if none is pooled. It must be
+     * {@link #release(PooledDeflater) released} once the compression is finished.
+     *
+     * @param encoding the encoding to compress with
+     * @return a deflater for the encoding
+     */
+    public PooledDeflater borrow(Encoding encoding) {
+        PooledDeflater pooled = queue(encoding).poll();
+        if (pooled != null) {
+            return pooled;
+        }
+        // GZIP wraps raw deflate data in its own header and trailer, while deflate is ZLIB
+        Deflater deflater = new Deflater(level, encoding == Encoding.GZIP);
+        return new PooledDeflater(encoding, deflater, new byte[bufferSize]);
+    }
+
+    /**
+     * Returns a deflater to the pool, resetting it, or frees it if the pool is full.
+     *
+     * @param pooled the deflater to return
+     */
+    public void release(PooledDeflater pooled) {
+        pooled.getDeflater().reset();
+        if (!queue(pooled.getEncoding()).offer(pooled)) {
+            pooled.getDeflater().end();
+        }
+    }
+
+    /**
+     * The number of deflaters currently pooled for the given encoding.
+     *
+     * @param encoding the encoding
+     * @return the number of pooled deflaters
+     */
+    public int getPooled(Encoding encoding) {
+        return queue(encoding).size();
+    }
+
+    private BlockingQueue<PooledDeflater> queue(Encoding encoding) {
+        return encoding == Encoding.GZIP ? gzip : deflate;
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2020 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.web.compression;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import com.broadleafcommerce.subscriptionoperation.web.compression.DeflaterPool.Encoding;
+
+import java.io.IOException;
+import java.util.Enumeration;
+import java.util.List;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * Compresses responses with {@code gzip} or {@code deflate} when the caller accepts it, the
+ * response is at least {@code minResponseSize} bytes and its content type is one of the
+ * compressible types. Smaller responses are sent as-is, since compressing them costs more CPU
+ * than it saves on the wire.
+ * <p>
+ * Deflaters and their buffers are taken from a {@link DeflaterPool} rather than allocated per
+ * response. Async requests, such as streamed responses, are compressed once the async dispatch
+ * completes.
+ */
+public class ResponseCompressionFilter extends OncePerRequestFilter {
+
+    @Getter(AccessLevel.PROTECTED)
+    private final DeflaterPool pool;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final int minResponseSize;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final List<MediaType> mimeTypes;
+
+    public ResponseCompressionFilter(DeflaterPool pool,
+            int minResponseSize,
+            List<MediaType> mimeTypes) {
+        this.pool = pool;
+        this.minResponseSize = minResponseSize;
+        this.mimeTypes = List.copyOf(mimeTypes);
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+        CompressingResponseWrapper wrapper =
+                WebUtils.getNativeResponse(response, CompressingResponseWrapper.class);
+        if (wrapper == null && !isAsyncDispatch(request)) {
+            Encoding encoding = negotiateEncoding(request);
+            if (encoding != null && !HttpMethod.HEAD.matches(request.getMethod())) {
+                wrapper = new CompressingResponseWrapper(response, encoding, pool,
+                        minResponseSize, this::isCompressible);
+            }
+        }
+
+        if (wrapper == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        try {
+            filterChain.doFilter(request, wrapper);
+        } finally {
+            if (!isAsyncStarted(request)) {
+                wrapper.finish();
+            }
+        }
+    }
+
+    /**
+     * Chooses the most preferred encoding that is supported from the {@code Accept-Encoding}
+     * header. Ties are broken in favor of {@code gzip}.
+     *
+     * @param request the request
+     * @return the encoding to compress with, or {@code null} if none is acceptable
+     */
+    @Nullable
+    protected Encoding negotiateEncoding(HttpServletRequest request) {
+        Encoding best = null;
+        double bestQuality = 0;
+        double wildcardQuality = -1;
+        boolean gzipListed = false;
+        boolean deflateListed = false;
+
+        Enumeration<String> headers = request.getHeaders(HttpHeaders.ACCEPT_ENCODING);
+        while (headers != null && headers.hasMoreElements()) {
+            for (String token : StringUtils.tokenizeToStringArray(headers.nextElement(), ",")) {
+                String[] parts = StringUtils.tokenizeToStringArray(token, ";");
+                if (parts.length == 0) {
+                    continue;
+                }
+                double quality = parseQuality(parts);
+                if ("*".equals(parts[0])) {
+                    wildcardQuality = quality;
+                    continue;
+                }
+                Encoding encoding = Encoding.forCoding(parts[0]);
+                if (encoding == null) {
+                    continue;
+                }
+                gzipListed |= encoding == Encoding.GZIP;
+                deflateListed |= encoding == Encoding.DEFLATE;
+                if (isPreferred(encoding, quality, best, bestQuality)) {
+                    best = encoding;
+                    bestQuality = quality;
+                }
+            }
+        }
+
+        // A wildcard applies to any encoding not listed explicitly
+        if (wildcardQuality > 0) {
+            if (!gzipListed && isPreferred(Encoding.GZIP, wildcardQuality, best, bestQuality)) {
+                best = Encoding.GZIP;
+                bestQuality = wildcardQuality;
+            }
+            if (!deflateListed
+                    && isPreferred(Encoding.DEFLATE, wildcardQuality, best, bestQuality)) {
+                best = Encoding.DEFLATE;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Whether a response of the given content type should be compressed.
+     *
+     * @param contentType the content type of the response, if set
+     * @return whether the response should be compressed
+     */
+    protected boolean isCompressible(@Nullable String contentType) {
+        if (!StringUtils.hasText(contentType)) {
+            return false;
+        }
+        try {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            return mimeTypes.stream().anyMatch(type -> type.includes(mediaType));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private boolean isPreferred(Encoding encoding,
+            double quality,
+            @Nullable Encoding best,
+            double bestQuality) {
+        return quality > 0 && (best == null || quality > bestQuality
+                || (quality == bestQuality && encoding == Encoding.GZIP));
+    }
+
+    private double parseQuality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String param = parts[i];
+            if (param.startsWith("q=") || param.startsWith("Q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
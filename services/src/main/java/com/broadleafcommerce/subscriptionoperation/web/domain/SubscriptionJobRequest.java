@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.web.domain;
+
+import com.broadleafcommerce.subscriptionoperation.service.job.SubscriptionJobType;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+/**
+ * A request DTO used to submit a job applying the same operation to many subscriptions. The
+ * subscriptions are given either by id or as every subscription of the given users, such as the
+ * accounts of an account tree.
+ */
+@Data
+public class SubscriptionJobRequest implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The operation to apply to each subscription
+     */
+    @NotNull
+    private SubscriptionJobType type;
+
+    /**
+     * The ids of the subscriptions to apply the operation to
+     */
+    private List<String> subscriptionIds = new ArrayList<>();
+
+    /**
+     * The type of the users whose subscriptions to apply the operation to, along with
+     * {@link #userRefs}
+     */
+    private String userRefType;
+
+    /**
+     * The ids of the users whose subscriptions to apply the operation to
+     */
+    private List<String> userRefs = new ArrayList<>();
+
+    /**
+     * For {@link SubscriptionJobType#CANCEL}, whether subscriptions are cancelled immediately
+     * rather than at the end of their term
+     */
+    private boolean immediate;
+
+    /**
+     * For {@link SubscriptionJobType#CHANGE_AUTO_RENEWAL}, the state of the auto renewal setting
+     * to change to
+     */
+    private Boolean autoRenewalEnabled;
+
+    /**
+     * For {@link SubscriptionJobType#CHANGE_STATUS}, the status to change to
+     */
+    private String subscriptionStatus;
+
+    /**
+     * For an immediate {@link SubscriptionJobType#CANCEL}, the reason recorded on each cancelled
+     * subscription. Auto-renewal changes record the same reasons as when made for a single
+     * subscription.
+     */
+    private String reason;
+}
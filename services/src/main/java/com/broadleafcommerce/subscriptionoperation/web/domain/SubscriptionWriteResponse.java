@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.web.domain;
+
+import com.broadleafcommerce.subscriptionoperation.service.outbox.SubscriptionWriteOperation;
+import com.broadleafcommerce.subscriptionoperation.service.outbox.SubscriptionWriteStatus;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.Instant;
+
+import lombok.Data;
+
+/**
+ * A response DTO acknowledging a subscription write that was accepted to be made asynchronously.
+ */
+@Data
+public class SubscriptionWriteResponse implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The id of the accepted write.
+     */
+    private String id;
+
+    private SubscriptionWriteOperation operation;
+
+    private SubscriptionWriteStatus status;
+
+    /**
+     * The id of the subscription being written, if it already exists.
+     */
+    private String subscriptionId;
+
+    private Instant acceptedAt;
+}
@@ -22,14 +22,21 @@ import org.broadleafcommerce.frameworkmapping.annotation.FrameworkMapping;
 import org.broadleafcommerce.frameworkmapping.annotation.FrameworkPatchMapping;
 import org.broadleafcommerce.frameworkmapping.annotation.FrameworkPostMapping;
 import org.broadleafcommerce.frameworkmapping.annotation.FrameworkRestController;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.broadleafcommerce.data.tracking.core.context.ContextInfo;
 import com.broadleafcommerce.data.tracking.core.context.ContextOperation;
@@ -40,15 +47,24 @@ import com.broadleafcommerce.subscriptionoperation.domain.Subscription;
 import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionItem;
 import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
 import com.broadleafcommerce.subscriptionoperation.domain.enums.DefaultUserRefTypes;
+import com.broadleafcommerce.subscriptionoperation.domain.enums.SubscriptionProjection;
 import com.broadleafcommerce.subscriptionoperation.service.SubscriptionOperationService;
+import com.broadleafcommerce.subscriptionoperation.service.idempotency.IdempotencyService;
+import com.broadleafcommerce.subscriptionoperation.service.outbox.SubscriptionWriteService;
+import com.broadleafcommerce.subscriptionoperation.service.provider.ConditionalRead;
 import com.broadleafcommerce.subscriptionoperation.web.domain.ChangeAutoRenewalRequest;
 import com.broadleafcommerce.subscriptionoperation.web.domain.SubscriptionActionRequest;
 import com.broadleafcommerce.subscriptionoperation.web.domain.SubscriptionActionResponse;
+import com.broadleafcommerce.subscriptionoperation.web.domain.SubscriptionBatchActionRequest;
+import com.broadleafcommerce.subscriptionoperation.web.domain.SubscriptionWriteResponse;
+
+import java.util.Map;
 
 import cz.jirutka.rsql.parser.ast.Node;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -62,6 +78,14 @@ public class AccountSubscriptionOperationEndpoint {
     @Getter(AccessLevel.PROTECTED)
     protected final SubscriptionOperationService<Subscription, SubscriptionItem, SubscriptionWithItems> subscriptionOperationService;
 
+    @Getter(value = AccessLevel.PROTECTED, onMethod_ = @Nullable)
+    @Setter(onMethod_ = @Autowired(required = false))
+    private IdempotencyService idempotencyService;
+
+    @Getter(value = AccessLevel.PROTECTED, onMethod_ = @Nullable)
+    @Setter(onMethod_ = @Autowired(required = false))
+    private SubscriptionWriteService subscriptionWriteService;
+
     @FrameworkGetMapping
     @Policy(permissionRoots = "ACCOUNT_SUBSCRIPTION",
             identityTypes = {IdentityType.ADMIN, IdentityType.OWNER},
@@ -70,13 +94,74 @@ public class AccountSubscriptionOperationEndpoint {
             @PathVariable("accountId") String accountId,
             @RequestParam(value = "getActions", required = false,
                     defaultValue = "false") boolean getActions,
+            @RequestParam(value = "projection", required = false,
+                    defaultValue = "FULL") SubscriptionProjection projection,
             @PageableDefault(sort = "tracking.basicAudit.creationTime",
                     direction = Sort.Direction.DESC) Pageable page,
             Node filters,
             @ContextOperation(OperationType.READ) final ContextInfo contextInfo) {
         return subscriptionOperationService.readSubscriptionsForUserRefTypeAndUserRef(
-                DefaultUserRefTypes.BLC_ACCOUNT.name(), accountId, getActions, page, filters,
-                contextInfo);
+                DefaultUserRefTypes.BLC_ACCOUNT.name(), accountId, getActions, projection, page,
+                filters, contextInfo);
+    }
+
+    /**
+     * Reads all subscriptions owned by the account, streaming the page as received from the
+     * resource-tier service rather than deserializing it. Falls back to
+     * {@link #readAllAccountSubscriptions} if streaming is not supported.
+     */
+    @FrameworkGetMapping(params = "passThrough=true")
+    @Policy(permissionRoots = "ACCOUNT_SUBSCRIPTION",
+            identityTypes = {IdentityType.ADMIN, IdentityType.OWNER},
+            ownerIdentifierParam = 0, ownerIdentifier = "acct_id,parent_accts")
+    public ResponseEntity<?> readAllAccountSubscriptionsPassThrough(
+            @PathVariable("accountId") String accountId,
+            @RequestParam(value = "getActions", required = false,
+                    defaultValue = "false") boolean getActions,
+            @PageableDefault(sort = "tracking.basicAudit.creationTime",
+                    direction = Sort.Direction.DESC) Pageable page,
+            Node filters,
+            WebRequest webRequest,
+            @ContextOperation(OperationType.READ) final ContextInfo contextInfo) {
+        ResponseEntity<StreamingResponseBody> stream =
+                subscriptionOperationService.streamSubscriptionsForUserRefTypeAndUserRef(
+                        DefaultUserRefTypes.BLC_ACCOUNT.name(), accountId, getActions, page,
+                        filters, contextInfo);
+        if (stream == null) {
+            return ResponseEntity.ok(readAllAccountSubscriptions(accountId, getActions,
+                    SubscriptionProjection.FULL, page, filters, contextInfo));
+        }
+        return PassThroughResponses.discardOnCompletion(stream, webRequest);
+    }
+
+    /**
+     * Counts the subscriptions owned by the account without reading them.
+     */
+    @FrameworkGetMapping(value = "/count")
+    @Policy(permissionRoots = "ACCOUNT_SUBSCRIPTION",
+            identityTypes = {IdentityType.ADMIN, IdentityType.OWNER},
+            ownerIdentifierParam = 0, ownerIdentifier = "acct_id,parent_accts")
+    public long countAccountSubscriptions(
+            @PathVariable("accountId") String accountId,
+            Node filters,
+            @ContextOperation(OperationType.READ) final ContextInfo contextInfo) {
+        return subscriptionOperationService.countSubscriptions(
+                DefaultUserRefTypes.BLC_ACCOUNT.name(), accountId, filters, contextInfo);
+    }
+
+    /**
+     * Determines whether the account owns any subscriptions without reading them.
+     */
+    @FrameworkGetMapping(value = "/exists")
+    @Policy(permissionRoots = "ACCOUNT_SUBSCRIPTION",
+            identityTypes = {IdentityType.ADMIN, IdentityType.OWNER},
+            ownerIdentifierParam = 0, ownerIdentifier = "acct_id,parent_accts")
+    public boolean hasAccountSubscriptions(
+            @PathVariable("accountId") String accountId,
+            Node filters,
+            @ContextOperation(OperationType.READ) final ContextInfo contextInfo) {
+        return subscriptionOperationService.existsSubscriptions(
+                DefaultUserRefTypes.BLC_ACCOUNT.name(), accountId, filters, contextInfo);
     }
 
     @FrameworkGetMapping(value = "/{subscriptionId}")
@@ -88,10 +173,38 @@ public class AccountSubscriptionOperationEndpoint {
             @PathVariable("subscriptionId") String subscriptionId,
             @RequestParam(value = "getActions", required = false,
                     defaultValue = "true") boolean getActions,
+            WebRequest webRequest,
             @ContextOperation(OperationType.READ) final ContextInfo contextInfo) {
-        return subscriptionOperationService.readUserSubscriptionById(
-                DefaultUserRefTypes.BLC_ACCOUNT.name(), accountId, subscriptionId, getActions,
-                contextInfo);
+        String actionsTag =
+                getActions ? subscriptionOperationService.getActionEvaluationTag() : null;
+        String providerETag = SubscriptionETags.resolveProviderETag(
+                webRequest.getHeader(HttpHeaders.IF_NONE_MATCH), actionsTag);
+        ConditionalRead<SubscriptionWithItems> read =
+                subscriptionOperationService.readUserSubscriptionById(
+                        DefaultUserRefTypes.BLC_ACCOUNT.name(), accountId, subscriptionId,
+                        getActions, providerETag, contextInfo);
+        return SubscriptionETags.checkNotModified(read, providerETag, actionsTag, webRequest,
+                () -> subscriptionOperationService.readUserSubscriptionById(
+                        DefaultUserRefTypes.BLC_ACCOUNT.name(), accountId, subscriptionId,
+                        getActions, null, contextInfo));
+    }
+
+    /**
+     * Reads the available actions of several subscriptions owned by the account at once, keyed
+     * by subscription id.
+     */
+    @FrameworkPostMapping(value = "/actions")
+    @Policy(permissionRoots = "ACCOUNT_SUBSCRIPTION",
+            identityTypes = {IdentityType.ADMIN, IdentityType.OWNER},
+            ownerIdentifierParam = 0, ownerIdentifier = "acct_id,parent_accts")
+    public Map<String, SubscriptionActionResponse> readAccountSubscriptionsActions(
+            @PathVariable("accountId") String accountId,
+            @RequestBody SubscriptionBatchActionRequest request,
+            @ContextOperation(OperationType.READ) final ContextInfo contextInfo) {
+        request.setUserRefType(DefaultUserRefTypes.BLC_ACCOUNT.name());
+        request.setUserRef(accountId);
+
+        return subscriptionOperationService.readSubscriptionActions(request, contextInfo);
     }
 
     @FrameworkPostMapping(value = "/{subscriptionId}/actions")
@@ -119,8 +232,45 @@ public class AccountSubscriptionOperationEndpoint {
             @PathVariable("accountId") String accountId,
             @PathVariable(value = "subscriptionId") String subscriptionId,
             @RequestBody ChangeAutoRenewalRequest autoRenewalRequest,
+            @RequestHeader(name = IdempotencyService.IDEMPOTENCY_KEY_HEADER,
+                    required = false) String idempotencyKey,
+            @ContextOperation(OperationType.READ) final ContextInfo context) {
+        autoRenewalRequest.setSubscriptionId(subscriptionId);
+        return IdempotencyService.executeIfAvailable(idempotencyService,
+                "accounts/" + accountId + "/changeAutoRenewal",
+                idempotencyKey, autoRenewalRequest, Subscription.class, context,
+                () -> subscriptionOperationService.changeAutoRenewal(autoRenewalRequest,
+                        context));
+    }
+
+    /**
+     * Accepts a change to the auto-renewal of a subscription to be made asynchronously, when
+     * requested with {@code Prefer: respond-async}. Falls back to changing it immediately if
+     * asynchronous writes are not enabled.
+     */
+    @FrameworkPatchMapping(value = "/{subscriptionId}/auto-renewal",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            headers = SubscriptionWriteService.PREFER_RESPOND_ASYNC)
+    @Policy(permissionRoots = "ACCOUNT_SUBSCRIPTION",
+            identityTypes = {IdentityType.ADMIN, IdentityType.OWNER},
+            ownerIdentifierParam = 0, ownerIdentifier = "acct_id,parent_accts")
+    public ResponseEntity<?> changeAutoRenewalAsync(
+            @PathVariable("accountId") String accountId,
+            @PathVariable(value = "subscriptionId") String subscriptionId,
+            @RequestBody ChangeAutoRenewalRequest autoRenewalRequest,
+            @RequestHeader(name = IdempotencyService.IDEMPOTENCY_KEY_HEADER,
+                    required = false) String idempotencyKey,
             @ContextOperation(OperationType.READ) final ContextInfo context) {
+        if (subscriptionWriteService == null) {
+            return ResponseEntity.ok(changeAutoRenewal(accountId, subscriptionId,
+                    autoRenewalRequest, idempotencyKey, context));
+        }
         autoRenewalRequest.setSubscriptionId(subscriptionId);
-        return subscriptionOperationService.changeAutoRenewal(autoRenewalRequest, context);
+        SubscriptionWriteResponse accepted = IdempotencyService.executeIfAvailable(
+                idempotencyService, "accounts/" + accountId + "/changeAutoRenewalAsync",
+                idempotencyKey, autoRenewalRequest, SubscriptionWriteResponse.class, context,
+                () -> subscriptionWriteService.acceptAutoRenewalChange(autoRenewalRequest,
+                        context));
+        return SubscriptionWriteResponses.accepted(accepted);
     }
 }
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.web.endpoint;
+
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+
+import java.util.Optional;
+
+import lombok.Getter;
+
+/**
+ * The classes of subscription endpoints, which differ in who calls them and so in how much
+ * traffic they are expected to receive.
+ */
+public enum EndpointClass {
+
+    /**
+     * The endpoints for a customer's own subscriptions.
+     */
+    CUSTOMER(CustomerSubscriptionOperationEndpoint.BASE_URI),
+
+    /**
+     * The endpoints for an account's subscriptions.
+     */
+    ACCOUNT(AccountSubscriptionOperationEndpoint.BASE_URI),
+
+    /**
+     * The admin endpoints for any subscription, including bulk jobs.
+     */
+    ADMIN(SubscriptionOperationEndpoint.BASE_URI);
+
+    private static final PathMatcher MATCHER = new AntPathMatcher();
+
+    @Getter
+    private final String pattern;
+
+    EndpointClass(String baseUri) {
+        this.pattern = baseUri + "/**";
+    }
+
+    /**
+     * Resolves the class of the endpoint a request was made to.
+     *
+     * @param path the path of the request within the application
+     * @return the class of the endpoint, or empty if the path is not a subscription endpoint
+     */
+    public static Optional<EndpointClass> classify(String path) {
+        for (EndpointClass endpointClass : values()) {
+            if (MATCHER.match(endpointClass.pattern, path)) {
+                return Optional.of(endpointClass);
+            }
+        }
+        return Optional.empty();
+    }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.web.endpoint;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+import com.broadleafcommerce.subscriptionoperation.service.PassThroughResponseBody;
+
+/**
+ * Ties the bodies of pass-through responses to the async request writing them.
+ */
+public final class PassThroughResponses {
+
+    private PassThroughResponses() {}
+
+    /**
+     * Registers the body of the response, if it is a {@link PassThroughResponseBody}, to be
+     * discarded once the request times out, fails or completes, so that its connection and
+     * buffers are released even if it is never written.
+     *
+     * @param response the response to return
+     * @param webRequest the current request
+     * @return the response
+     */
+    public static <T> ResponseEntity<T> discardOnCompletion(ResponseEntity<T> response,
+            WebRequest webRequest) {
+        if (response.getBody() instanceof PassThroughResponseBody body) {
+            WebAsyncUtils.getAsyncManager(webRequest)
+                    .registerCallableInterceptor(body, body.asInterceptor());
+        }
+        return response;
+    }
+}
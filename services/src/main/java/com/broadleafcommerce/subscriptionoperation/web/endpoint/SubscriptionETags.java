@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.web.endpoint;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.WebRequest;
+
+import com.broadleafcommerce.subscriptionoperation.domain.Subscription;
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
+import com.broadleafcommerce.subscriptionoperation.service.provider.ConditionalRead;
+
+import java.util.function.Supplier;
+
+/**
+ * Builds and parses the entity tags of subscription reads.
+ * <p>
+ * A tag is made of the tag given by the provider the subscription was read from, or the
+ * subscription's {@link Subscription#getVersion() version} if the provider gave none, and the
+ * inputs of action evaluation, i.e. whether actions were requested and how they are evaluated.
+ * The provider's tag is kept intact so that it can be sent back to the provider on a conditional
+ * request, which then avoids reading the subscription at all if it has not been modified.
+ * <p>
+ * Tags are weak since the representation of a subscription may change without its version, e.g.
+ * when it is read in a different format.
+ */
+public final class SubscriptionETags {
+
+    private static final String PROVIDER_WEAK = "pw:";
+    private static final String PROVIDER_STRONG = "ps:";
+    private static final String VERSION = "v:";
+    private static final char SEPARATOR = ';';
+
+    private SubscriptionETags() {}
+
+    /**
+     * Builds the entity tag of a subscription read.
+     *
+     * @param subscription the subscription that was read
+     * @param providerETag the tag given by the provider, if any
+     * @param actionsTag the inputs of action evaluation, or {@code null} if actions were not
+     *        requested
+     * @return the entity tag, or {@code null} if the subscription has neither a provider tag nor a
+     *         version
+     */
+    @Nullable
+    public static String build(SubscriptionWithItems subscription,
+            @Nullable String providerETag,
+            @Nullable String actionsTag) {
+        Integer version = subscription.getSubscription() == null ? null
+                : subscription.getSubscription().getVersion();
+        return build(providerETag, version, actionsTag);
+    }
+
+    /**
+     * Builds the entity tag of a subscription read.
+     *
+     * @param providerETag the tag given by the provider, if any
+     * @param version the version of the subscription, if known
+     * @param actionsTag the inputs of action evaluation, or {@code null} if actions were not
+     *        requested
+     * @return the entity tag, or {@code null} if there is neither a provider tag nor a version
+     */
+    @Nullable
+    public static String build(@Nullable String providerETag,
+            @Nullable Integer version,
+            @Nullable String actionsTag) {
+        String base;
+        if (StringUtils.hasText(providerETag)) {
+            boolean weak = providerETag.trim().startsWith("W/");
+            base = (weak ? PROVIDER_WEAK : PROVIDER_STRONG) + unquote(providerETag);
+        } else if (version != null) {
+            base = VERSION + version;
+        } else {
+            return null;
+        }
+        return "W/\"" + base + SEPARATOR + suffix(actionsTag) + "\"";
+    }
+
+    /**
+     * Resolves the provider's tag to send on a conditional request from the {@code If-None-Match}
+     * header of a subscription read.
+     *
+     * @param ifNoneMatch the {@code If-None-Match} header, if any
+     * @param actionsTag the inputs of action evaluation for the current read, or {@code null} if
+     *        actions are not requested
+     * @return the provider's tag, or {@code null} if none of the given tags was built from a
+     *         provider's tag for the same action evaluation inputs
+     */
+    @Nullable
+    public static String resolveProviderETag(@Nullable String ifNoneMatch,
+            @Nullable String actionsTag) {
+        if (!StringUtils.hasText(ifNoneMatch)) {
+            return null;
+        }
+        String suffix = SEPARATOR + suffix(actionsTag);
+        for (String candidate : StringUtils.tokenizeToStringArray(ifNoneMatch, ",")) {
+            String value = unquote(candidate);
+            if (!value.endsWith(suffix)) {
+                continue;
+            }
+            String base = value.substring(0, value.length() - suffix.length());
+            if (base.startsWith(PROVIDER_WEAK)) {
+                return "W/\"" + base.substring(PROVIDER_WEAK.length()) + "\"";
+            } else if (base.startsWith(PROVIDER_STRONG)) {
+                return "\"" + base.substring(PROVIDER_STRONG.length()) + "\"";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Sets the entity tag of a conditional subscription read on the response, checking it against
+     * the request's {@code If-None-Match} header.
+     * <p>
+     * If the provider found the subscription not modified since the tag it was sent, but that tag
+     * no longer leads back to one the client has, e.g. since the provider answered with a
+     * different tag, the subscription is read again unconditionally so that the client is given
+     * its body.
+     *
+     * @param read the result of the read
+     * @param sentProviderETag the provider's tag the read was made with, if any
+     * @param actionsTag the inputs of action evaluation, or {@code null} if actions were not
+     *        requested
+     * @param request the current request
+     * @param unconditionalRead reads the subscription again without an entity tag
+     * @return the subscription read, or {@code null} if it has not been modified, in which case
+     *         the response is already a {@code 304 Not Modified}
+     * @param <T> the type of subscription
+     * @throws IllegalStateException if the unconditional read is not modified either
+     */
+    @Nullable
+    public static <T extends SubscriptionWithItems> T checkNotModified(ConditionalRead<T> read,
+            @Nullable String sentProviderETag,
+            @Nullable String actionsTag,
+            WebRequest request,
+            Supplier<ConditionalRead<T>> unconditionalRead) {
+        String eTag = null;
+        if (read.isNotModified()) {
+            eTag = build(StringUtils.hasText(read.getETag()) ? read.getETag() : sentProviderETag,
+                    null, actionsTag);
+            if (eTag == null || !matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), eTag)) {
+                read = unconditionalRead.get();
+                if (read.isNotModified()) {
+                    throw new IllegalStateException(
+                            "The subscription was not modified despite being read unconditionally");
+                }
+            }
+        }
+        if (!read.isNotModified()) {
+            eTag = build(read.getBody(), read.getETag(), actionsTag);
+        }
+        if (eTag != null && request.checkNotModified(eTag)) {
+            return null;
+        }
+        return read.getBody();
+    }
+
+    /**
+     * Whether any of the tags of an {@code If-None-Match} header matches the given tag, using the
+     * weak comparison the header calls for, i.e. ignoring whether either tag is weak.
+     *
+     * @param ifNoneMatch the {@code If-None-Match} header, if any
+     * @param eTag the tag to match
+     * @return whether the header matches the tag
+     */
+    static boolean matches(@Nullable String ifNoneMatch, String eTag) {
+        if (!StringUtils.hasText(ifNoneMatch)) {
+            return false;
+        }
+        String value = unquote(eTag);
+        for (String candidate : StringUtils.tokenizeToStringArray(ifNoneMatch, ",")) {
+            if ("*".equals(candidate) || unquote(candidate).equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String suffix(@Nullable String actionsTag) {
+        return actionsTag == null ? "n" : "a" + actionsTag;
+    }
+
+    private static String unquote(String eTag) {
+        String value = eTag.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.web.endpoint;
+
+import org.broadleafcommerce.frameworkmapping.annotation.FrameworkGetMapping;
+import org.broadleafcommerce.frameworkmapping.annotation.FrameworkMapping;
+import org.broadleafcommerce.frameworkmapping.annotation.FrameworkPostMapping;
+import org.broadleafcommerce.frameworkmapping.annotation.FrameworkRestController;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import com.broadleafcommerce.data.tracking.core.context.ContextInfo;
+import com.broadleafcommerce.data.tracking.core.context.ContextOperation;
+import com.broadleafcommerce.data.tracking.core.exception.EntityMissingException;
+import com.broadleafcommerce.data.tracking.core.policy.Policy;
+import com.broadleafcommerce.data.tracking.core.type.OperationType;
+import com.broadleafcommerce.subscriptionoperation.service.idempotency.IdempotencyService;
+import com.broadleafcommerce.subscriptionoperation.service.job.SubscriptionJob;
+import com.broadleafcommerce.subscriptionoperation.service.job.SubscriptionJobItem;
+import com.broadleafcommerce.subscriptionoperation.service.job.SubscriptionJobItemStatus;
+import com.broadleafcommerce.subscriptionoperation.service.job.SubscriptionJobService;
+import com.broadleafcommerce.subscriptionoperation.web.domain.SubscriptionJobRequest;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Submits and tracks {@link SubscriptionJob jobs} applying an operation to many subscriptions,
+ * when jobs are enabled.
+ */
+@FrameworkRestController
+@FrameworkMapping(SubscriptionJobEndpoint.BASE_URI)
+public class SubscriptionJobEndpoint {
+    public static final String BASE_URI = SubscriptionOperationEndpoint.BASE_URI + "/jobs";
+
+    @Getter(value = AccessLevel.PROTECTED, onMethod_ = @Nullable)
+    @Setter(onMethod_ = @Autowired(required = false))
+    private SubscriptionJobService subscriptionJobService;
+
+    @Getter(value = AccessLevel.PROTECTED, onMethod_ = @Nullable)
+    @Setter(onMethod_ = @Autowired(required = false))
+    private IdempotencyService idempotencyService;
+
+    /**
+     * Accepts a job to be processed asynchronously, responding with {@code 202 Accepted} and the
+     * submitted job, whose progress can then be followed with {@link #readJob}.
+     */
+    @FrameworkPostMapping
+    @Policy(permissionRoots = "SYSTEM_SUBSCRIPTION", operationTypes = OperationType.UPDATE)
+    public ResponseEntity<SubscriptionJob> submitJob(
+            @RequestBody SubscriptionJobRequest jobRequest,
+            @RequestHeader(name = IdempotencyService.IDEMPOTENCY_KEY_HEADER,
+                    required = false) String idempotencyKey,
+            @ContextOperation(OperationType.UPDATE) final ContextInfo contextInfo) {
+        SubscriptionJobService jobService = getRequiredJobService();
+        SubscriptionJob job = IdempotencyService.executeIfAvailable(idempotencyService,
+                "submitSubscriptionJob", idempotencyKey, jobRequest, SubscriptionJob.class,
+                contextInfo, () -> jobService.submit(jobRequest, contextInfo));
+        return ResponseEntity.accepted().body(job);
+    }
+
+    @FrameworkGetMapping(value = "/{jobId}")
+    @Policy(permissionRoots = "SYSTEM_SUBSCRIPTION")
+    public SubscriptionJob readJob(@PathVariable("jobId") String jobId,
+            @ContextOperation(OperationType.READ) final ContextInfo contextInfo) {
+        return getRequiredJobService().readJob(jobId, contextInfo);
+    }
+
+    /**
+     * Reads the per-subscription results of a job in order, optionally only those with the
+     * given status, such as the items that failed.
+     */
+    @FrameworkGetMapping(value = "/{jobId}/items")
+    @Policy(permissionRoots = "SYSTEM_SUBSCRIPTION")
+    public Page<SubscriptionJobItem> readJobItems(@PathVariable("jobId") String jobId,
+            @RequestParam(value = "status", required = false) SubscriptionJobItemStatus status,
+            Pageable page,
+            @ContextOperation(OperationType.READ) final ContextInfo contextInfo) {
+        return getRequiredJobService().readJobItems(jobId, status, page, contextInfo);
+    }
+
+    /**
+     * Resolves the {@link SubscriptionJobService}, treating jobs as missing if they are not
+     * enabled.
+     */
+    protected SubscriptionJobService getRequiredJobService() {
+        if (subscriptionJobService == null) {
+            throw new EntityMissingException();
+        }
+        return subscriptionJobService;
+    }
+}
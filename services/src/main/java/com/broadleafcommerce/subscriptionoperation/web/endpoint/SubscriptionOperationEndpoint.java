@@ -22,13 +22,22 @@ import org.broadleafcommerce.frameworkmapping.annotation.FrameworkMapping;
 import org.broadleafcommerce.frameworkmapping.annotation.FrameworkPostMapping;
 import org.broadleafcommerce.frameworkmapping.annotation.FrameworkPutMapping;
 import org.broadleafcommerce.frameworkmapping.annotation.FrameworkRestController;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.broadleafcommerce.data.tracking.core.context.ContextInfo;
 import com.broadleafcommerce.data.tracking.core.context.ContextOperation;
@@ -37,15 +46,28 @@ import com.broadleafcommerce.data.tracking.core.type.OperationType;
 import com.broadleafcommerce.subscriptionoperation.domain.Subscription;
 import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionItem;
 import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
+import com.broadleafcommerce.subscriptionoperation.domain.enums.SubscriptionProjection;
+import com.broadleafcommerce.subscriptionoperation.service.PassThroughResponseBody;
 import com.broadleafcommerce.subscriptionoperation.service.SubscriptionOperationService;
+import com.broadleafcommerce.subscriptionoperation.service.exception.InvalidSubscriptionReadRequestException;
+import com.broadleafcommerce.subscriptionoperation.service.idempotency.IdempotencyService;
+import com.broadleafcommerce.subscriptionoperation.service.outbox.SubscriptionWriteService;
+import com.broadleafcommerce.subscriptionoperation.service.provider.ConditionalRead;
+import com.broadleafcommerce.subscriptionoperation.service.provider.external.ExternalSubscriptionProperties;
 import com.broadleafcommerce.subscriptionoperation.web.domain.SubscriptionCancellationRequest;
 import com.broadleafcommerce.subscriptionoperation.web.domain.SubscriptionCreationRequest;
 import com.broadleafcommerce.subscriptionoperation.web.domain.SubscriptionUpgradeRequest;
+import com.broadleafcommerce.subscriptionoperation.web.domain.SubscriptionWriteResponse;
+
+import java.util.List;
+import java.util.Optional;
 
 import cz.jirutka.rsql.parser.ast.Node;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import reactor.core.publisher.Flux;
 
 @RequiredArgsConstructor
 @FrameworkRestController
@@ -56,6 +78,19 @@ public class SubscriptionOperationEndpoint {
     @Getter(AccessLevel.PROTECTED)
     protected final SubscriptionOperationService<Subscription, SubscriptionItem, SubscriptionWithItems> subscriptionOperationService;
 
+    @Getter(value = AccessLevel.PROTECTED, onMethod_ = @Nullable)
+    @Setter(onMethod_ = @Autowired(required = false))
+    private IdempotencyService idempotencyService;
+
+    @Getter(value = AccessLevel.PROTECTED, onMethod_ = @Nullable)
+    @Setter(onMethod_ = @Autowired(required = false))
+    private SubscriptionWriteService subscriptionWriteService;
+
+    @Getter(AccessLevel.PROTECTED)
+    @Setter(onMethod_ = @Autowired(required = false))
+    private ExternalSubscriptionProperties subscriptionProviderProperties =
+            new ExternalSubscriptionProperties();
+
     @FrameworkGetMapping(params = {"userRefType", "userRef"})
     @Policy(permissionRoots = "SYSTEM_SUBSCRIPTION")
     public Page<SubscriptionWithItems> readAllUserOwnedSubscriptions(
@@ -63,29 +98,133 @@ public class SubscriptionOperationEndpoint {
             @RequestParam("userRef") String userRef,
             @RequestParam(value = "getActions", required = false,
                     defaultValue = "false") boolean getActions,
+            @RequestParam(value = "projection", required = false,
+                    defaultValue = "FULL") SubscriptionProjection projection,
             @PageableDefault(sort = "tracking.basicAudit.creationTime",
                     direction = Sort.Direction.DESC) Pageable page,
             Node filters,
             @ContextOperation(OperationType.READ) final ContextInfo contextInfo) {
         return subscriptionOperationService.readSubscriptionsForUserRefTypeAndUserRef(userRefType,
-                userRef, getActions, page, filters, contextInfo);
+                userRef, getActions, projection, page, filters, contextInfo);
+    }
+
+    /**
+     * Reads all subscriptions owned by the given user, streaming the page as received from the
+     * resource-tier service rather than deserializing it. Falls back to
+     * {@link #readAllUserOwnedSubscriptions} if streaming is not supported.
+     */
+    @FrameworkGetMapping(params = {"userRefType", "userRef", "passThrough=true"})
+    @Policy(permissionRoots = "SYSTEM_SUBSCRIPTION")
+    public ResponseEntity<?> readAllUserOwnedSubscriptionsPassThrough(
+            @RequestParam("userRefType") String userRefType,
+            @RequestParam("userRef") String userRef,
+            @RequestParam(value = "getActions", required = false,
+                    defaultValue = "false") boolean getActions,
+            @PageableDefault(sort = "tracking.basicAudit.creationTime",
+                    direction = Sort.Direction.DESC) Pageable page,
+            Node filters,
+            WebRequest webRequest,
+            @ContextOperation(OperationType.READ) final ContextInfo contextInfo) {
+        ResponseEntity<StreamingResponseBody> stream =
+                subscriptionOperationService.streamSubscriptionsForUserRefTypeAndUserRef(
+                        userRefType, userRef, getActions, page, filters, contextInfo);
+        if (stream == null) {
+            return ResponseEntity.ok(readAllUserOwnedSubscriptions(userRefType, userRef,
+                    getActions, SubscriptionProjection.FULL, page, filters, contextInfo));
+        }
+        return PassThroughResponses.discardOnCompletion(stream, webRequest);
     }
 
     @FrameworkGetMapping(value = "/{subscriptionId}")
     @Policy(permissionRoots = "SYSTEM_SUBSCRIPTION")
     public SubscriptionWithItems readSubscriptionById(
             @PathVariable("subscriptionId") String subscriptionId,
+            WebRequest webRequest,
             @ContextOperation(OperationType.READ) final ContextInfo contextInfo) {
-        return subscriptionOperationService.readSubscriptionById(subscriptionId, contextInfo);
+        String providerETag = SubscriptionETags.resolveProviderETag(
+                webRequest.getHeader(HttpHeaders.IF_NONE_MATCH), null);
+        ConditionalRead<SubscriptionWithItems> read = subscriptionOperationService
+                .readSubscriptionById(subscriptionId, providerETag, contextInfo);
+        return SubscriptionETags.checkNotModified(read, providerETag, null, webRequest,
+                () -> subscriptionOperationService.readSubscriptionById(subscriptionId, null,
+                        contextInfo));
+    }
+
+    @FrameworkGetMapping(params = "ids")
+    @Policy(permissionRoots = "SYSTEM_SUBSCRIPTION")
+    public List<SubscriptionWithItems> readSubscriptionsByIds(
+            @RequestParam("ids") List<String> subscriptionIds,
+            @ContextOperation(OperationType.READ) final ContextInfo contextInfo) {
+        int maxIds = subscriptionProviderProperties.getMaxReadByIds();
+        if (subscriptionIds.size() > maxIds) {
+            throw new InvalidSubscriptionReadRequestException(
+                    "At most " + maxIds + " subscriptions may be read by ids at once");
+        }
+        return subscriptionOperationService.readSubscriptionsByIds(subscriptionIds, contextInfo);
+    }
+
+    /**
+     * Reads a subscription by id, relaying the response of the resource-tier service as it is
+     * received rather than deserializing and re-serializing it. Falls back to
+     * {@link #readSubscriptionById(String, WebRequest, ContextInfo)} if the provider does not
+     * support pass-through reads.
+     */
+    @FrameworkGetMapping(value = "/{subscriptionId}", params = "passThrough=true")
+    @Policy(permissionRoots = "SYSTEM_SUBSCRIPTION")
+    public ResponseEntity<?> readSubscriptionByIdPassThrough(
+            @PathVariable("subscriptionId") String subscriptionId,
+            WebRequest webRequest,
+            @ContextOperation(OperationType.READ) final ContextInfo contextInfo) {
+        ResponseEntity<Flux<DataBuffer>> raw = subscriptionOperationService
+                .readSubscriptionByIdPassThrough(subscriptionId, contextInfo);
+        if (raw == null || raw.getBody() == null) {
+            return ResponseEntity.ok(
+                    subscriptionOperationService.readSubscriptionById(subscriptionId, contextInfo));
+        }
+
+        ResponseEntity<StreamingResponseBody> relay = ResponseEntity.status(raw.getStatusCode())
+                .contentType(Optional.ofNullable(raw.getHeaders().getContentType())
+                        .orElse(MediaType.APPLICATION_JSON))
+                .body(PassThroughResponseBody.relay(raw.getBody()));
+        return PassThroughResponses.discardOnCompletion(relay, webRequest);
     }
 
     @FrameworkPostMapping
     @Policy(permissionRoots = "SYSTEM_SUBSCRIPTION", operationTypes = OperationType.CREATE)
     public SubscriptionWithItems createSubscription(
             @RequestBody SubscriptionCreationRequest subscriptionCreationRequest,
+            @RequestHeader(name = IdempotencyService.IDEMPOTENCY_KEY_HEADER,
+                    required = false) String idempotencyKey,
+            @ContextOperation(OperationType.CREATE) final ContextInfo contextInfo) {
+        return IdempotencyService.executeIfAvailable(idempotencyService,
+                "createSubscription", idempotencyKey, subscriptionCreationRequest,
+                SubscriptionWithItems.class, contextInfo,
+                () -> subscriptionOperationService
+                        .createSubscriptionWithItems(subscriptionCreationRequest, contextInfo));
+    }
+
+    /**
+     * Accepts the creation of a subscription to be made asynchronously, when requested with
+     * {@code Prefer: respond-async}. Falls back to creating it immediately if asynchronous writes
+     * are not enabled.
+     */
+    @FrameworkPostMapping(headers = SubscriptionWriteService.PREFER_RESPOND_ASYNC)
+    @Policy(permissionRoots = "SYSTEM_SUBSCRIPTION", operationTypes = OperationType.CREATE)
+    public ResponseEntity<?> createSubscriptionAsync(
+            @RequestBody SubscriptionCreationRequest subscriptionCreationRequest,
+            @RequestHeader(name = IdempotencyService.IDEMPOTENCY_KEY_HEADER,
+                    required = false) String idempotencyKey,
             @ContextOperation(OperationType.CREATE) final ContextInfo contextInfo) {
-        return subscriptionOperationService.createSubscriptionWithItems(subscriptionCreationRequest,
-                contextInfo);
+        if (subscriptionWriteService == null) {
+            return ResponseEntity.ok(createSubscription(subscriptionCreationRequest,
+                    idempotencyKey, contextInfo));
+        }
+        SubscriptionWriteResponse accepted = IdempotencyService.executeIfAvailable(
+                idempotencyService, "createSubscriptionAsync", idempotencyKey,
+                subscriptionCreationRequest, SubscriptionWriteResponse.class, contextInfo,
+                () -> subscriptionWriteService.acceptCreation(subscriptionCreationRequest,
+                        contextInfo));
+        return SubscriptionWriteResponses.accepted(accepted);
     }
 
     @FrameworkPostMapping(value = "/{subscriptionId}/upgrade")
@@ -93,9 +232,15 @@ public class SubscriptionOperationEndpoint {
     public Subscription upgradeSubscription(
             @RequestParam String subscriptionId,
             @RequestBody SubscriptionUpgradeRequest upgradeRequest,
+            @RequestHeader(name = IdempotencyService.IDEMPOTENCY_KEY_HEADER,
+                    required = false) String idempotencyKey,
             @ContextOperation(OperationType.UPDATE) final ContextInfo contextInfo) {
         upgradeRequest.setPriorSubscriptionId(subscriptionId);
-        return subscriptionOperationService.upgradeSubscription(upgradeRequest, contextInfo);
+        return IdempotencyService.executeIfAvailable(idempotencyService,
+                "upgradeSubscription", idempotencyKey, upgradeRequest, Subscription.class,
+                contextInfo,
+                () -> subscriptionOperationService.upgradeSubscription(upgradeRequest,
+                        contextInfo));
     }
 
     @FrameworkPutMapping(value = "/{subscriptionId}/cancel")
@@ -103,9 +248,14 @@ public class SubscriptionOperationEndpoint {
     public Subscription cancelSubscription(
             @RequestParam String subscriptionId,
             @RequestBody SubscriptionCancellationRequest subscriptionCancellationRequest,
+            @RequestHeader(name = IdempotencyService.IDEMPOTENCY_KEY_HEADER,
+                    required = false) String idempotencyKey,
             @ContextOperation(OperationType.UPDATE) final ContextInfo contextInfo) {
         subscriptionCancellationRequest.setSubscriptionId(subscriptionId);
-        return subscriptionOperationService.cancelSubscription(subscriptionCancellationRequest,
-                contextInfo);
+        return IdempotencyService.executeIfAvailable(idempotencyService,
+                "cancelSubscription", idempotencyKey, subscriptionCancellationRequest,
+                Subscription.class, contextInfo,
+                () -> subscriptionOperationService
+                        .cancelSubscription(subscriptionCancellationRequest, contextInfo));
     }
 }
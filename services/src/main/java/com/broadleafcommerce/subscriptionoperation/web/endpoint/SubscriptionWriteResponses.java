@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.web.endpoint;
+
+import org.springframework.http.ResponseEntity;
+
+import com.broadleafcommerce.subscriptionoperation.service.outbox.SubscriptionWriteService;
+import com.broadleafcommerce.subscriptionoperation.web.domain.SubscriptionWriteResponse;
+
+/**
+ * Builds the responses of subscription writes accepted to be made asynchronously.
+ */
+public final class SubscriptionWriteResponses {
+
+    private SubscriptionWriteResponses() {}
+
+    /**
+     * Responds with {@code 202 Accepted} and the accepted write, noting that the caller's
+     * {@link SubscriptionWriteService#RESPOND_ASYNC} preference was applied.
+     *
+     * @param accepted the accepted write
+     * @return the response
+     */
+    public static ResponseEntity<SubscriptionWriteResponse> accepted(
+            SubscriptionWriteResponse accepted) {
+        return ResponseEntity.accepted()
+                .header(SubscriptionWriteService.PREFERENCE_APPLIED_HEADER,
+                        SubscriptionWriteService.RESPOND_ASYNC)
+                .body(accepted);
+    }
+}
@@ -29,10 +29,15 @@ import org.springframework.web.reactive.function.client.WebClientResponseExcepti
 import com.broadleafcommerce.common.error.ApiError;
 import com.broadleafcommerce.common.error.validation.web.FrameworkExceptionAdvisor;
 import com.broadleafcommerce.subscriptionoperation.exception.ProviderApiException;
+import com.broadleafcommerce.subscriptionoperation.exception.ProviderOverloadedException;
+import com.broadleafcommerce.subscriptionoperation.service.exception.IdempotencyKeyConflictException;
+import com.broadleafcommerce.subscriptionoperation.service.exception.IdempotencyKeyMismatchException;
 import com.broadleafcommerce.subscriptionoperation.service.exception.InsufficientSubscriptionAccessException;
 import com.broadleafcommerce.subscriptionoperation.service.exception.InvalidChangeAutoRenewalRequestException;
 import com.broadleafcommerce.subscriptionoperation.service.exception.InvalidSubscriptionCreationRequestException;
 import com.broadleafcommerce.subscriptionoperation.service.exception.InvalidSubscriptionDowngradeRequestException;
+import com.broadleafcommerce.subscriptionoperation.service.exception.InvalidSubscriptionJobRequestException;
+import com.broadleafcommerce.subscriptionoperation.service.exception.InvalidSubscriptionReadRequestException;
 import com.broadleafcommerce.subscriptionoperation.service.exception.InvalidSubscriptionUpgradeRequestException;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -100,6 +105,28 @@ public class SubscriptionOperationExceptionAdvisor {
                         .toResponseEntity();
     }
 
+    @ExceptionHandler
+    public ResponseEntity<ApiError> handleInvalidSubscriptionJobRequestException(
+            InvalidSubscriptionJobRequestException ex,
+            WebRequest request) {
+        logDebug(ex, request);
+        return new ApiError("INVALID_SUBSCRIPTION_JOB_REQUEST",
+                ex.getMessage(),
+                HttpStatus.BAD_REQUEST)
+                        .toResponseEntity();
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<ApiError> handleInvalidSubscriptionReadRequestException(
+            InvalidSubscriptionReadRequestException ex,
+            WebRequest request) {
+        logDebug(ex, request);
+        return new ApiError("INVALID_SUBSCRIPTION_READ_REQUEST",
+                ex.getMessage(),
+                HttpStatus.BAD_REQUEST)
+                        .toResponseEntity();
+    }
+
     @ExceptionHandler
     public ResponseEntity<ApiError> handleInvalidSubscriptionAccessException(
             InsufficientSubscriptionAccessException ex,
@@ -111,6 +138,39 @@ public class SubscriptionOperationExceptionAdvisor {
                         .toResponseEntity();
     }
 
+    @ExceptionHandler
+    public ResponseEntity<ApiError> handleIdempotencyKeyConflictException(
+            IdempotencyKeyConflictException ex,
+            WebRequest request) {
+        logDebug(ex, request);
+        return new ApiError("IDEMPOTENCY_KEY_CONFLICT",
+                ex.getMessage(),
+                HttpStatus.CONFLICT)
+                        .toResponseEntity();
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<ApiError> handleIdempotencyKeyMismatchException(
+            IdempotencyKeyMismatchException ex,
+            WebRequest request) {
+        logDebug(ex, request);
+        return new ApiError("IDEMPOTENCY_KEY_MISMATCH",
+                ex.getMessage(),
+                HttpStatus.UNPROCESSABLE_ENTITY)
+                        .toResponseEntity();
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<ApiError> handleProviderOverloadedException(
+            ProviderOverloadedException ex,
+            WebRequest request) {
+        logDebug(ex, request);
+        return new ApiError("PROVIDER_OVERLOADED",
+                ex.getMessage(),
+                HttpStatus.SERVICE_UNAVAILABLE)
+                        .toResponseEntity();
+    }
+
     @ExceptionHandler({ProviderApiException.class})
     public ResponseEntity<ApiError> handleProviderApiError(ProviderApiException ex,
             WebRequest request) {
@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.web.ratelimit;
+
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.cache.CacheAtomicityMode;
+import org.apache.ignite.cache.CacheEntryProcessor;
+import org.apache.ignite.cache.CacheMode;
+import org.apache.ignite.configuration.CacheConfiguration;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import javax.cache.expiry.ModifiedExpiryPolicy;
+import javax.cache.processor.MutableEntry;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A {@link RateLimiter} holding its buckets in an Ignite cache, so that limits are enforced
+ * across the cluster rather than per instance.
+ * <p>
+ * Permits are taken with an entry processor on the node owning the bucket, so each request costs
+ * a single round trip. Buckets are expired once they have not been taken from for
+ * {@code expiry}, which must be longer than it takes the largest bucket to refill. If the cache
+ * cannot be reached, permits are taken from the {@code fallback} instead, so that the endpoints
+ * remain available.
+ */
+@Slf4j
+public class IgniteRateLimiter implements RateLimiter {
+
+    @Getter(AccessLevel.PROTECTED)
+    private final IgniteCache<String, Long> cache;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final RateLimiter fallback;
+
+    private final Clock clock;
+
+    public IgniteRateLimiter(Ignite ignite,
+            String cacheName,
+            Duration expiry,
+            RateLimiter fallback) {
+        CacheConfiguration<String, Long> configuration = new CacheConfiguration<>(cacheName);
+        configuration.setCacheMode(CacheMode.PARTITIONED);
+        configuration.setAtomicityMode(CacheAtomicityMode.ATOMIC);
+        configuration.setExpiryPolicyFactory(ModifiedExpiryPolicy.factoryOf(
+                new javax.cache.expiry.Duration(TimeUnit.MILLISECONDS, expiry.toMillis())));
+        this.cache = ignite.getOrCreateCache(configuration);
+        this.fallback = fallback;
+        this.clock = Clock.systemUTC();
+    }
+
+    @Override
+    public long tryAcquire(String key, RateLimit limit) {
+        // Wall clock time, since the buckets are shared between nodes
+        long now = TimeUnit.MILLISECONDS.toNanos(clock.millis());
+        try {
+            Long wait = cache.invoke(key, new AcquireProcessor(), now, limit.getIntervalNanos(),
+                    limit.getCapacityNanos());
+            return wait == null ? 0 : wait;
+        } catch (RuntimeException e) {
+            log.debug("Unable to take a permit from the cluster, using the local limit", e);
+            return fallback.tryAcquire(key, limit);
+        }
+    }
+
+    /**
+     * Takes a permit from a bucket, given the current time, the interval and the capacity of the
+     * limit in nanoseconds.
+     */
+    static class AcquireProcessor implements CacheEntryProcessor<String, Long, Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Long process(MutableEntry<String, Long> entry, Object... arguments) {
+            long now = (Long) arguments[0];
+            long interval = (Long) arguments[1];
+            long capacity = (Long) arguments[2];
+
+            long arrival = entry.exists() ? entry.getValue() : now;
+            long next = Math.max(arrival, now) + interval;
+            long wait = next - now - capacity;
+            if (wait > 0) {
+                return wait;
+            }
+            entry.setValue(next);
+            return 0L;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.web.ratelimit;
+
+import org.springframework.lang.Nullable;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.core.ClaimAccessor;
+import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
+
+import java.util.Map;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Resolves the rate limit keys from the authenticated principal of the current
+ * {@link SecurityContextHolder security context}. The user is the name of the principal, and the
+ * tenant is read from the {@code tenantClaim} of the principal's token, if it has one.
+ * Unauthenticated callers are keyed by their remote address.
+ */
+@RequiredArgsConstructor
+public class PrincipalRateLimitKeyResolver implements RateLimitKeyResolver {
+
+    @Getter(AccessLevel.PROTECTED)
+    private final String tenantClaim;
+
+    @Nullable
+    @Override
+    public String resolveTenant(HttpServletRequest request) {
+        Authentication authentication = getAuthentication();
+        if (authentication == null) {
+            return null;
+        }
+        Object principal = authentication.getPrincipal();
+        Object tenant = null;
+        if (principal instanceof ClaimAccessor claims) {
+            tenant = claims.getClaims().get(tenantClaim);
+        } else if (principal instanceof OAuth2AuthenticatedPrincipal oauth2Principal) {
+            tenant = oauth2Principal.getAttribute(tenantClaim);
+        } else if (authentication.getDetails() instanceof Map<?, ?> details) {
+            tenant = details.get(tenantClaim);
+        }
+        return tenant == null ? null : String.valueOf(tenant);
+    }
+
+    @Nullable
+    @Override
+    public String resolveUser(HttpServletRequest request) {
+        Authentication authentication = getAuthentication();
+        if (authentication == null) {
+            return "anonymous:" + request.getRemoteAddr();
+        }
+        return "principal:" + authentication.getName();
+    }
+
+    @Nullable
+    private Authentication getAuthentication() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication;
+    }
+}
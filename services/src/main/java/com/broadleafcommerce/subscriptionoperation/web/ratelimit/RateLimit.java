@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.web.ratelimit;
+
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A rate of {@code permits} per {@code period}, allowing bursts of up to {@code burst} permits
+ * when the rate has not been used for a while.
+ * <p>
+ * The limit is enforced as a token bucket, expressed as the interval each permit adds to the
+ * bucket's theoretical arrival time and the capacity of the bucket in the same terms, so that a
+ * bucket is a single {@code long}.
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+public final class RateLimit {
+
+    /**
+     * The nanoseconds each permit consumes of the rate.
+     */
+    private final long intervalNanos;
+
+    /**
+     * The nanoseconds of permits that may be taken at once, i.e. the burst in terms of
+     * {@link #intervalNanos}.
+     */
+    private final long capacityNanos;
+
+    private RateLimit(long intervalNanos, long capacityNanos) {
+        this.intervalNanos = intervalNanos;
+        this.capacityNanos = capacityNanos;
+    }
+
+    /**
+     * Creates a limit of {@code permits} per {@code period}.
+     *
+     * @param permits the number of permits per period
+     * @param period the period permits are replenished over
+     * @param burst the number of permits that may be taken at once, or {@code 0} for
+     *        {@code permits}
+     * @return the limit
+     */
+    public static RateLimit of(int permits, Duration period, int burst) {
+        Assert.isTrue(permits > 0, "permits must be positive");
+        Assert.isTrue(!period.isNegative() && !period.isZero(), "period must be positive");
+        long interval = Math.max(period.toNanos() / permits, 1);
+        return new RateLimit(interval, interval * (burst > 0 ? burst : permits));
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.web.ratelimit;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.util.UrlPathHelper;
+
+import com.broadleafcommerce.common.error.ApiError;
+import com.broadleafcommerce.subscriptionoperation.service.metrics.SubscriptionOperationMetrics;
+import com.broadleafcommerce.subscriptionoperation.web.endpoint.EndpointClass;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Rejects requests to the subscription endpoints that exceed the rate limits of their
+ * {@link EndpointClass}, so that a single tenant or user cannot saturate the connections to the
+ * providers. Each request takes a permit from the bucket of the caller, and from the bucket of
+ * the caller's tenant, as resolved by the {@link RateLimitKeyResolver}.
+ * <p>
+ * As an interceptor, this runs once the security filter chain has authenticated the caller, so
+ * that the keys come from the caller's credentials rather than from anything it can choose.
+ * Rejected requests receive a {@code 429} with a {@code Retry-After} of when a permit will next
+ * be available.
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    public static final String TENANT_SCOPE = "TENANT";
+
+    public static final String USER_SCOPE = "USER";
+
+    private static final UrlPathHelper PATH_HELPER = new UrlPathHelper();
+
+    @Getter(AccessLevel.PROTECTED)
+    private final RateLimiter rateLimiter;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final RateLimitKeyResolver keyResolver;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final ObjectMapper objectMapper;
+
+    private final Map<EndpointClass, RateLimit> tenantLimits;
+
+    private final Map<EndpointClass, RateLimit> userLimits;
+
+    @Getter(value = AccessLevel.PROTECTED, onMethod_ = @Nullable)
+    @Setter
+    private SubscriptionOperationMetrics metrics;
+
+    /**
+     * @param rateLimiter the buckets to take permits from
+     * @param keyResolver resolves the tenant and user of the caller
+     * @param objectMapper the mapper used to write rejections
+     * @param tenantLimits the limits of each tenant for each endpoint class. Endpoint classes
+     *        without a limit are not limited per tenant.
+     * @param userLimits the limits of each caller for each endpoint class. Endpoint classes
+     *        without a limit are not limited per user.
+     */
+    public RateLimitInterceptor(RateLimiter rateLimiter,
+            RateLimitKeyResolver keyResolver,
+            ObjectMapper objectMapper,
+            Map<EndpointClass, RateLimit> tenantLimits,
+            Map<EndpointClass, RateLimit> userLimits) {
+        this.rateLimiter = rateLimiter;
+        this.keyResolver = keyResolver;
+        this.objectMapper = objectMapper;
+        this.tenantLimits = copy(tenantLimits);
+        this.userLimits = copy(userLimits);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request,
+            HttpServletResponse response,
+            Object handler) throws IOException {
+        Optional<EndpointClass> endpointClass =
+                EndpointClass.classify(PATH_HELPER.getPathWithinApplication(request));
+        if (endpointClass.isEmpty()) {
+            return true;
+        }
+
+        EndpointClass resolved = endpointClass.get();
+        String tenant = keyResolver.resolveTenant(request);
+
+        // The narrower limit is checked first so a noisy user does not spend its tenant's permits
+        long wait = 0;
+        String scope = null;
+        RateLimit userLimit = userLimits.get(resolved);
+        if (userLimit != null) {
+            String user = keyResolver.resolveUser(request);
+            if (user != null) {
+                wait = rateLimiter.tryAcquire(key(resolved, USER_SCOPE, user), userLimit);
+                scope = USER_SCOPE;
+            }
+        }
+        RateLimit tenantLimit = tenantLimits.get(resolved);
+        if (wait == 0 && tenantLimit != null && tenant != null) {
+            wait = rateLimiter.tryAcquire(key(resolved, TENANT_SCOPE, tenant), tenantLimit);
+            scope = TENANT_SCOPE;
+        }
+
+        if (wait > 0) {
+            if (metrics != null) {
+                metrics.recordRateLimited(resolved.name(), scope);
+            }
+            reject(response, wait);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Writes the rejection of a request that exceeded its limit.
+     *
+     * @param response the response
+     * @param waitNanos the nanoseconds until a permit will be available
+     */
+    protected void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfter = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1)
+                / TimeUnit.SECONDS.toNanos(1));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ApiError("RATE_LIMITED",
+                "Too many requests, retry after " + retryAfter + " seconds",
+                HttpStatus.TOO_MANY_REQUESTS));
+    }
+
+    private String key(EndpointClass endpointClass, String scope, String id) {
+        return endpointClass.name() + ':' + scope + ':' + id;
+    }
+
+    private static Map<EndpointClass, RateLimit> copy(Map<EndpointClass, RateLimit> limits) {
+        return limits.isEmpty() ? new EnumMap<>(EndpointClass.class) : new EnumMap<>(limits);
+    }
+}
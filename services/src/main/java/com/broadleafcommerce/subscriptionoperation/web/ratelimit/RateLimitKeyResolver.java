@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.web.ratelimit;
+
+import org.springframework.lang.Nullable;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Resolves the keys a request is rate limited by. These must come from the authenticated caller
+ * rather than from anything the caller chooses, such as request headers or path variables, so
+ * that a caller can neither spend another's limit nor escape its own.
+ */
+public interface RateLimitKeyResolver {
+
+    /**
+     * Resolves the tenant of the authenticated caller.
+     *
+     * @param request the request
+     * @return the tenant, or {@code null} if the caller has none, in which case no tenant limit
+     *         applies
+     */
+    @Nullable
+    String resolveTenant(HttpServletRequest request);
+
+    /**
+     * Resolves the authenticated caller.
+     *
+     * @param request the request
+     * @return the key identifying the caller, or {@code null} if the caller cannot be identified,
+     *         in which case no user limit applies
+     */
+    @Nullable
+    String resolveUser(HttpServletRequest request);
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.web.ratelimit;
+
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * A {@link RateLimiter} holding its buckets in memory, so that limits are enforced per instance.
+ * <p>
+ * Each bucket is the theoretical arrival time of its next permit, updated with a
+ * compare-and-set, so taking a permit never blocks. The buckets are spread over a power-of-two
+ * number of stripes. Once a stripe holds {@code maxKeysPerStripe} buckets, the buckets that have
+ * refilled are evicted from it, at most once per {@code sweepInterval}. Evicting a full bucket is
+ * the same as keeping it, so only the memory of idle keys is lost.
+ */
+public class StripedRateLimiter implements RateLimiter {
+
+    private final Stripe[] stripes;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final int maxKeysPerStripe;
+
+    private final long sweepIntervalNanos;
+
+    private final LongSupplier nanoClock;
+
+    public StripedRateLimiter(int stripes, int maxKeysPerStripe, Duration sweepInterval) {
+        this(stripes, maxKeysPerStripe, sweepInterval, System::nanoTime);
+    }
+
+    protected StripedRateLimiter(int stripes,
+            int maxKeysPerStripe,
+            Duration sweepInterval,
+            LongSupplier nanoClock) {
+        Assert.isTrue(stripes > 0, "stripes must be positive");
+        Assert.isTrue(maxKeysPerStripe > 0, "maxKeysPerStripe must be positive");
+        int size = Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new Stripe[Math.max(size, 1)];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.maxKeysPerStripe = maxKeysPerStripe;
+        this.sweepIntervalNanos = sweepInterval.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    @Override
+    public long tryAcquire(String key, RateLimit limit) {
+        long now = nanoClock.getAsLong();
+        AtomicLong bucket = getBucket(key, now);
+        while (true) {
+            long arrival = bucket.get();
+            long next = Math.max(arrival, now) + limit.getIntervalNanos();
+            long wait = next - now - limit.getCapacityNanos();
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * The number of buckets currently held.
+     *
+     * @return the number of buckets currently held
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.buckets.size();
+        }
+        return size;
+    }
+
+    private AtomicLong getBucket(String key, long now) {
+        int hash = key.hashCode();
+        Stripe stripe = stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+        AtomicLong bucket = stripe.buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (stripe.buckets.size() >= maxKeysPerStripe) {
+            stripe.sweep(now, sweepIntervalNanos);
+        }
+        // A new bucket is full
+        return stripe.buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+    }
+
+    private static final class Stripe {
+
+        private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+        private final AtomicLong nextSweep = new AtomicLong(Long.MIN_VALUE);
+
+        void sweep(long now, long intervalNanos) {
+            long scheduled = nextSweep.get();
+            if ((scheduled != Long.MIN_VALUE && now - scheduled < 0)
+                    || !nextSweep.compareAndSet(scheduled, now + intervalNanos)) {
+                return;
+            }
+            buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.web.shedding;
+
+import org.springframework.http.HttpMethod;
+
+import com.broadleafcommerce.subscriptionoperation.web.endpoint.EndpointClass;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Gives customer reads the {@link RequestPriority#HIGH highest} priority and other customer
+ * requests a {@link RequestPriority#NORMAL normal} one. Requests to the account and admin
+ * endpoints, which include bulk and system traffic, have the {@link RequestPriority#LOW lowest}
+ * priority.
+ */
+public class DefaultRequestClassifier implements RequestClassifier {
+
+    @Override
+    public RequestPriority classify(HttpServletRequest request, EndpointClass endpointClass) {
+        if (endpointClass != EndpointClass.CUSTOMER) {
+            return RequestPriority.LOW;
+        }
+        return HttpMethod.GET.matches(request.getMethod())
+                || HttpMethod.HEAD.matches(request.getMethod()) ? RequestPriority.HIGH
+                        : RequestPriority.NORMAL;
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.web.shedding;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import com.broadleafcommerce.common.error.ApiError;
+import com.broadleafcommerce.subscriptionoperation.service.metrics.SubscriptionOperationMetrics;
+import com.broadleafcommerce.subscriptionoperation.web.endpoint.EndpointClass;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Admits requests to the subscription endpoints through a {@link PriorityAdmissionController},
+ * once the {@link RequestClassifier} has resolved their priority, so that under overload admin
+ * and bulk requests are shed before customer-facing ones.
+ * <p>
+ * Shed requests receive a {@code 503} with a {@code Retry-After}. Async requests, such as
+ * streamed responses, remain admitted until the async processing completes.
+ */
+public class LoadSheddingFilter extends OncePerRequestFilter {
+
+    private static final UrlPathHelper PATH_HELPER = new UrlPathHelper();
+
+    @Getter(AccessLevel.PROTECTED)
+    private final PriorityAdmissionController admissionController;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final RequestClassifier classifier;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final ObjectMapper objectMapper;
+
+    @Getter(value = AccessLevel.PROTECTED, onMethod_ = @Nullable)
+    @Setter
+    private SubscriptionOperationMetrics metrics;
+
+    public LoadSheddingFilter(PriorityAdmissionController admissionController,
+            RequestClassifier classifier,
+            ObjectMapper objectMapper) {
+        this.admissionController = admissionController;
+        this.classifier = classifier;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+        Optional<EndpointClass> endpointClass =
+                EndpointClass.classify(PATH_HELPER.getPathWithinApplication(request));
+        if (endpointClass.isEmpty()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        RequestPriority priority = classifier.classify(request, endpointClass.get());
+        long queueNanos;
+        try {
+            queueNanos = admissionController.acquire(priority);
+        } catch (RequestShedException e) {
+            if (metrics != null) {
+                metrics.recordRequestShed(priority.name(), e.getReason());
+            }
+            reject(response, e);
+            return;
+        }
+        if (metrics != null) {
+            metrics.recordRequestAdmitted(priority.name(), queueNanos);
+        }
+
+        AtomicBoolean released = new AtomicBoolean();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (isAsyncStarted(request)) {
+                request.getAsyncContext().addListener(new ReleasingListener(released));
+            } else {
+                release(released);
+            }
+        }
+    }
+
+    /**
+     * Writes the response to a request that was shed.
+     *
+     * @param response the response
+     * @param exception the reason the request was shed
+     */
+    protected void reject(HttpServletResponse response, RequestShedException exception)
+            throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ApiError("REQUEST_SHED",
+                exception.getMessage(), HttpStatus.SERVICE_UNAVAILABLE));
+    }
+
+    private void release(AtomicBoolean released) {
+        if (released.compareAndSet(false, true)) {
+            admissionController.release();
+        }
+    }
+
+    private class ReleasingListener implements AsyncListener {
+
+        private final AtomicBoolean released;
+
+        ReleasingListener(AtomicBoolean released) {
+            this.released = released;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release(released);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {}
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release(released);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // The listener must be added again for a further async cycle
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.web.shedding;
+
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import lombok.Getter;
+
+/**
+ * Admits requests to the subscription endpoints by {@link RequestPriority}, so that lower
+ * priority requests are shed first when the endpoints are overloaded.
+ * <p>
+ * At most {@code maxInFlight} requests are processed at once, of which each priority may only
+ * take its share. Lower priorities are given smaller shares, so that capacity is held back for
+ * higher ones. Requests that cannot be admitted wait in a queue per priority, and are admitted
+ * highest priority first, for up to {@code maxWait}.
+ * <p>
+ * The time requests spend queued is the overload signal, tracked per priority. Once every request
+ * of a priority over {@code interval} has waited longer than {@code targetQueueDelay}, its queue
+ * is standing rather than absorbing a burst. Requests below {@link RequestPriority#HIGH} are then
+ * shed rather than queued if the queue of their own or a higher priority is standing, until a
+ * request of that priority is admitted within the target again. A request admitted without
+ * queueing only shows that the queues of its own and higher priorities have cleared, since lower
+ * priorities may still be held back by their smaller shares.
+ */
+public class PriorityAdmissionController {
+
+    @Getter
+    private final int maxInFlight;
+
+    private final int maxQueued;
+
+    private final long maxWaitNanos;
+
+    private final long targetQueueDelayNanos;
+
+    private final long intervalNanos;
+
+    private final LongSupplier nanoClock;
+
+    private final Map<RequestPriority, Integer> limits = new EnumMap<>(RequestPriority.class);
+
+    private final Map<RequestPriority, Condition> conditions =
+            new EnumMap<>(RequestPriority.class);
+
+    private final int[] waiting = new int[RequestPriority.values().length];
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private int inFlight;
+
+    /**
+     * Per priority, when the queue delay must still be above the target for the queue to be
+     * standing, or {@code 0} if the last request was admitted within the target.
+     */
+    private final long[] aboveTargetUntil = new long[RequestPriority.values().length];
+
+    /**
+     * Per priority, whether its queue is standing.
+     */
+    private final boolean[] overloaded = new boolean[RequestPriority.values().length];
+
+    /**
+     * @param maxInFlight the maximum number of requests processed at once
+     * @param shares the share of {@code maxInFlight} each priority may take, from 0 to 1, which
+     *        should not increase as the priority falls. Priorities without a share may take all
+     *        of it.
+     * @param maxQueued the maximum number of requests of each priority waiting at once
+     * @param maxWait the longest a request waits to be admitted
+     * @param targetQueueDelay the queue delay above which the queue is considered standing
+     * @param interval how long the queue delay must stay above the target for the endpoints to be
+     *        considered overloaded
+     */
+    public PriorityAdmissionController(int maxInFlight,
+            Map<RequestPriority, Double> shares,
+            int maxQueued,
+            Duration maxWait,
+            Duration targetQueueDelay,
+            Duration interval) {
+        this(maxInFlight, shares, maxQueued, maxWait, targetQueueDelay, interval,
+                System::nanoTime);
+    }
+
+    protected PriorityAdmissionController(int maxInFlight,
+            Map<RequestPriority, Double> shares,
+            int maxQueued,
+            Duration maxWait,
+            Duration targetQueueDelay,
+            Duration interval,
+            LongSupplier nanoClock) {
+        Assert.isTrue(maxInFlight > 0, "maxInFlight must be positive");
+        this.maxInFlight = maxInFlight;
+        this.maxQueued = Math.max(maxQueued, 0);
+        this.maxWaitNanos = Math.max(maxWait.toNanos(), 0);
+        this.targetQueueDelayNanos = targetQueueDelay.toNanos();
+        this.intervalNanos = interval.toNanos();
+        this.nanoClock = nanoClock;
+        for (RequestPriority priority : RequestPriority.values()) {
+            double share = shares.getOrDefault(priority, 1.0);
+            limits.put(priority, Math.max(1, (int) Math.ceil(maxInFlight * Math.min(share, 1))));
+            conditions.put(priority, lock.newCondition());
+        }
+    }
+
+    /**
+     * Admits a request of the given priority, waiting if it cannot be admitted yet.
+     *
+     * @param priority the priority of the request
+     * @return the nanoseconds the request waited to be admitted. The request must be
+     *         {@link #release() released} once it completes.
+     * @throws RequestShedException if the request was shed rather than admitted
+     */
+    public long acquire(RequestPriority priority) {
+        long start = nanoClock.getAsLong();
+        lock.lock();
+        try {
+            if (canAdmit(priority)) {
+                inFlight++;
+                // Requests of a higher priority would have been admitted without queueing too
+                for (int i = 0; i <= priority.ordinal(); i++) {
+                    onQueueDelay(i, 0, start);
+                }
+                return 0;
+            }
+            if (priority != RequestPriority.HIGH && isOverloaded(priority)) {
+                throw new RequestShedException(priority, RequestShedException.OVERLOADED);
+            }
+            if (maxWaitNanos == 0 || waiting[priority.ordinal()] >= maxQueued) {
+                throw new RequestShedException(priority, RequestShedException.QUEUE_FULL);
+            }
+
+            waiting[priority.ordinal()]++;
+            try {
+                Condition condition = conditions.get(priority);
+                long remaining = maxWaitNanos;
+                while (!canAdmitWaiting(priority)) {
+                    if (remaining <= 0) {
+                        long now = nanoClock.getAsLong();
+                        onQueueDelay(priority.ordinal(), now - start, now);
+                        throw new RequestShedException(priority, RequestShedException.TIMEOUT);
+                    }
+                    remaining = condition.awaitNanos(remaining);
+                }
+                inFlight++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RequestShedException(priority, RequestShedException.TIMEOUT);
+            } finally {
+                waiting[priority.ordinal()]--;
+                // Pass on a signal this request may have consumed, or admit the next in line if
+                // more than one slot is free
+                signalNext();
+            }
+
+            long now = nanoClock.getAsLong();
+            onQueueDelay(priority.ordinal(), now - start, now);
+            return now - start;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases a request that was admitted, admitting the highest priority request waiting, if
+     * any.
+     */
+    public void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            signalNext();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The number of requests currently admitted.
+     *
+     * @return the number of requests currently admitted
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Whether the queue delay currently shows the endpoints to be overloaded, i.e. whether the
+     * queue of any priority is standing.
+     *
+     * @return whether the endpoints are overloaded
+     */
+    public boolean isOverloaded() {
+        return isOverloaded(RequestPriority.LOW);
+    }
+
+    /**
+     * Whether the queue of the given or a higher priority is standing, so that requests of the
+     * given priority are shed rather than queued unless it is {@link RequestPriority#HIGH}.
+     *
+     * @param priority the priority of the requests
+     * @return whether the endpoints are overloaded for requests of the priority
+     */
+    public boolean isOverloaded(RequestPriority priority) {
+        lock.lock();
+        try {
+            for (int i = 0; i <= priority.ordinal(); i++) {
+                if (overloaded[i]) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Whether a request arriving now can be admitted, which requires that no request of the same
+     * or a higher priority is already waiting.
+     */
+    private boolean canAdmit(RequestPriority priority) {
+        for (int i = 0; i <= priority.ordinal(); i++) {
+            if (waiting[i] > 0) {
+                return false;
+            }
+        }
+        return inFlight < limits.get(priority);
+    }
+
+    /**
+     * Whether a waiting request can be admitted, which requires that no request of a higher
+     * priority is waiting.
+     */
+    private boolean canAdmitWaiting(RequestPriority priority) {
+        for (int i = 0; i < priority.ordinal(); i++) {
+            if (waiting[i] > 0) {
+                return false;
+            }
+        }
+        return inFlight < limits.get(priority);
+    }
+
+    private void signalNext() {
+        for (RequestPriority priority : RequestPriority.values()) {
+            if (waiting[priority.ordinal()] > 0) {
+                if (inFlight < limits.get(priority)) {
+                    conditions.get(priority).signal();
+                }
+                // Lower priorities wait behind this one
+                return;
+            }
+        }
+    }
+
+    /**
+     * Updates the overload signal of a priority with the time a request of that priority spent
+     * queued, whether it was then admitted or timed out.
+     */
+    private void onQueueDelay(int priority, long delayNanos, long now) {
+        if (delayNanos <= targetQueueDelayNanos) {
+            aboveTargetUntil[priority] = 0;
+            overloaded[priority] = false;
+        } else if (aboveTargetUntil[priority] == 0) {
+            aboveTargetUntil[priority] = now + intervalNanos;
+        } else if (now - aboveTargetUntil[priority] >= 0) {
+            overloaded[priority] = true;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.web.shedding;
+
+import com.broadleafcommerce.subscriptionoperation.web.endpoint.EndpointClass;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Resolves the {@link RequestPriority} of a request to the subscription endpoints.
+ */
+public interface RequestClassifier {
+
+    /**
+     * Resolves the priority of a request.
+     *
+     * @param request the request
+     * @param endpointClass the class of the endpoint the request was made to
+     * @return the priority of the request
+     */
+    RequestPriority classify(HttpServletRequest request, EndpointClass endpointClass);
+}
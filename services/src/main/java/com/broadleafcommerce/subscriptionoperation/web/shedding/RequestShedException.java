@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.web.shedding;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a request is shed by the {@link PriorityAdmissionController} rather than admitted.
+ */
+public class RequestShedException extends RuntimeException {
+
+    /**
+     * Reason given when the queue latency shows the endpoints are overloaded, so requests below
+     * {@link RequestPriority#HIGH} are not queued.
+     */
+    public static final String OVERLOADED = "OVERLOADED";
+
+    /**
+     * Reason given when too many requests of the same priority are already waiting.
+     */
+    public static final String QUEUE_FULL = "QUEUE_FULL";
+
+    /**
+     * Reason given when the request waited too long to be admitted.
+     */
+    public static final String TIMEOUT = "TIMEOUT";
+
+    @Getter
+    private final RequestPriority priority;
+
+    @Getter
+    private final String reason;
+
+    public RequestShedException(RequestPriority priority, String reason) {
+        super(String.format("Shed %s priority request: %s", priority, reason));
+        this.priority = priority;
+        this.reason = reason;
+    }
+}
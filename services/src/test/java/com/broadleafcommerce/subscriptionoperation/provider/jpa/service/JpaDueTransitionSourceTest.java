@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.provider.jpa.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.repository.JpaSubscriptionProjectionRepository;
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.repository.JpaSubscriptionProjectionRepository.DueTransitionRow;
+import com.broadleafcommerce.subscriptionoperation.service.transition.DueTransition;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+@ExtendWith(MockitoExtension.class)
+public class JpaDueTransitionSourceTest {
+
+    private static final Instant NOW = Instant.parse("2024-06-01T00:00:00Z");
+
+    private static final Set<Integer> PARTITIONS = Set.of(0, 1);
+
+    @Mock
+    private JpaSubscriptionProjectionRepository projectionRepository;
+
+    private JpaDueTransitionSource source;
+
+    @BeforeEach
+    void setup() {
+        source = new JpaDueTransitionSource(projectionRepository);
+        source.setPageSize(2);
+    }
+
+    @Test
+    public void testPagesThroughDueTransitionsAfterTheLastOneRead() {
+        List<DueTransitionRow> first = rows(0, 2);
+        when(projectionRepository.findDueTransitions(NOW, 4, PARTITIONS, PageRequest.of(0, 2)))
+                .thenReturn(first);
+        when(projectionRepository.findDueTransitionsAfter(NOW, 4, PARTITIONS,
+                first.get(1).getNextStatusChangeDate(), "subscription1", PageRequest.of(0, 2)))
+                .thenReturn(rows(2, 1));
+
+        List<DueTransition> due = source.findDue(NOW, 4, PARTITIONS, 5);
+
+        assertThat(due).extracting(DueTransition::getSubscriptionId)
+                .containsExactly("subscription0", "subscription1", "subscription2");
+        assertThat(due.get(0).getTenantId()).isNull();
+    }
+
+    @Test
+    public void testStopsPagingAtTheBatchSize() {
+        List<DueTransitionRow> first = rows(0, 2);
+        when(projectionRepository.findDueTransitions(NOW, 4, PARTITIONS, PageRequest.of(0, 2)))
+                .thenReturn(first);
+        when(projectionRepository.findDueTransitionsAfter(NOW, 4, PARTITIONS,
+                first.get(1).getNextStatusChangeDate(), "subscription1", PageRequest.of(0, 1)))
+                .thenReturn(rows(2, 1));
+
+        assertThat(source.findDue(NOW, 4, PARTITIONS, 3)).hasSize(3);
+    }
+
+    @Test
+    public void testRepartitionsOncePerPartitionCount() {
+        when(projectionRepository.findDueTransitions(NOW, 4, PARTITIONS, PageRequest.of(0, 2)))
+                .thenReturn(List.of());
+
+        source.findDue(NOW, 4, PARTITIONS, 2);
+        source.findDue(NOW, 4, PARTITIONS, 2);
+
+        verify(projectionRepository).repartitionTransitions(4);
+    }
+
+    @Test
+    public void testNoPartitionsFindNothing() {
+        assertThat(source.findDue(NOW, 4, Set.of(), 2)).isEmpty();
+        verify(projectionRepository, never()).repartitionTransitions(anyInt());
+    }
+
+    private List<DueTransitionRow> rows(int from, int count) {
+        return IntStream.range(from, from + count)
+                .mapToObj(i -> (DueTransitionRow) new Row("subscription" + i,
+                        NOW.minusSeconds(60 - i)))
+                .toList();
+    }
+
+    private record Row(String id, Instant nextStatusChangeDate) implements DueTransitionRow {
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public String getTenantId() {
+            return "";
+        }
+
+        @Override
+        public String getSubscriptionNextStatus() {
+            return "CANCELLED";
+        }
+
+        @Override
+        public Instant getNextStatusChangeDate() {
+            return nextStatusChangeDate;
+        }
+
+        @Override
+        public Instant getTransitionRetryAt() {
+            return null;
+        }
+    }
+}
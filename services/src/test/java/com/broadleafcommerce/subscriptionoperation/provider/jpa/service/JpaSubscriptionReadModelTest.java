@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.provider.jpa.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import com.broadleafcommerce.data.tracking.core.context.ContextInfo;
+import com.broadleafcommerce.data.tracking.core.context.ContextRequest;
+import com.broadleafcommerce.data.tracking.core.type.OperationType;
+import com.broadleafcommerce.subscriptionoperation.domain.Subscription;
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.domain.JpaSubscriptionOwnerSync;
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.domain.JpaSubscriptionProjection;
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.environment.SubscriptionReadModelProperties;
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.repository.JpaSubscriptionOwnerSyncRepository;
+import com.broadleafcommerce.subscriptionoperation.provider.jpa.repository.JpaSubscriptionProjectionRepository;
+import com.broadleafcommerce.subscriptionoperation.service.transition.DueTransitionSource;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+@ExtendWith(MockitoExtension.class)
+public class JpaSubscriptionReadModelTest {
+
+    private static final String TENANT = "tenant";
+
+    private static final String USER_TYPE = "CUSTOMER";
+
+    private static final String USER = "customerId";
+
+    private static final Instant NOW = Instant.parse("2024-06-01T00:00:00Z");
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private final SubscriptionReadModelProperties properties =
+            new SubscriptionReadModelProperties();
+
+    @Mock
+    private JpaSubscriptionProjectionRepository projectionRepository;
+
+    @Mock
+    private JpaSubscriptionOwnerSyncRepository ownerSyncRepository;
+
+    private JpaSubscriptionReadModel<SubscriptionWithItems> readModel;
+
+    @BeforeEach
+    void setup() {
+        readModel = new JpaSubscriptionReadModel<>(projectionRepository, ownerSyncRepository,
+                objectMapper, SubscriptionWithItems.class, properties,
+                Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    public void testEndpointDefaultSortIsServedByCreatedDate() throws Exception {
+        Pageable page = PageRequest.of(1, 10,
+                Sort.by(Sort.Direction.DESC, "tracking.basicAudit.creationTime"));
+        givenSynced(NOW.minusSeconds(1), false);
+        when(projectionRepository.findByTenantIdAndUserRefTypeAndUserRef(eq(TENANT),
+                eq(USER_TYPE), eq(USER), any()))
+                        .thenReturn(new PageImpl<>(List.of(projection("subscription"))));
+
+        Optional<Page<SubscriptionWithItems>> subscriptions =
+                readModel.readSubscriptions(USER_TYPE, USER, page, contextInfo(null));
+
+        assertThat(readModel.supportsQuery(page, contextInfo(null))).isTrue();
+        assertThat(subscriptions).hasValueSatisfying(result -> assertThat(result.getContent())
+                .extracting(subscription -> subscription.getSubscription().getId())
+                .containsExactly("subscription"));
+        ArgumentCaptor<Pageable> localPage = ArgumentCaptor.forClass(Pageable.class);
+        verify(projectionRepository).findByTenantIdAndUserRefTypeAndUserRef(eq(TENANT),
+                eq(USER_TYPE), eq(USER), localPage.capture());
+        assertThat(localPage.getValue())
+                .isEqualTo(PageRequest.of(1, 10, Sort.by(Sort.Direction.DESC, "createdDate")));
+    }
+
+    @Test
+    public void testUnsortablePagesAreNotServed() {
+        Pageable page = PageRequest.of(0, 10, Sort.by("name"));
+
+        assertThat(readModel.supportsQuery(page, contextInfo(null))).isFalse();
+        assertThat(readModel.readSubscriptions(USER_TYPE, USER, page, contextInfo(null)))
+                .isEmpty();
+        verifyNoInteractions(projectionRepository, ownerSyncRepository);
+    }
+
+    @Test
+    public void testApplicationNarrowedQueriesAreNotServed() {
+        assertThat(readModel.supportsQuery(null, contextInfo("application"))).isFalse();
+        assertThat(readModel.countSubscriptions(USER_TYPE, USER, contextInfo("application")))
+                .isEmpty();
+        verifyNoInteractions(projectionRepository, ownerSyncRepository);
+    }
+
+    @Test
+    public void testStaleOrTooLargeOwnersAreNotServed() {
+        givenSynced(NOW.minus(properties.getOwnerTtl()).minus(Duration.ofSeconds(1)), false);
+        assertThat(readModel.countSubscriptions(USER_TYPE, USER, contextInfo(null))).isEmpty();
+
+        givenSynced(NOW, true);
+        assertThat(readModel.countSubscriptions(USER_TYPE, USER, contextInfo(null))).isEmpty();
+        assertThat(readModel.isSynced(USER_TYPE, USER, contextInfo(null))).isTrue();
+    }
+
+    @Test
+    public void testSyncReplacesTheCopiesOfTheOwner() {
+        readModel.setTransitionPartitions(4);
+        readModel.sync(USER_TYPE, USER, List.of(subscription("subscription")), contextInfo(null));
+
+        verify(projectionRepository).deleteByOwner(TENANT, USER_TYPE, USER);
+        ArgumentCaptor<JpaSubscriptionProjection> projection =
+                ArgumentCaptor.forClass(JpaSubscriptionProjection.class);
+        verify(projectionRepository).save(projection.capture());
+        assertThat(projection.getValue().getId()).isEqualTo("subscription");
+        assertThat(projection.getValue().getTenantId()).isEqualTo(TENANT);
+        assertThat(projection.getValue().getTransitionPartitions()).isEqualTo(4);
+        assertThat(projection.getValue().getTransitionPartition())
+                .isEqualTo(DueTransitionSource.getPartition("subscription", 4));
+        ArgumentCaptor<JpaSubscriptionOwnerSync> sync =
+                ArgumentCaptor.forClass(JpaSubscriptionOwnerSync.class);
+        verify(ownerSyncRepository).save(sync.capture());
+        assertThat(sync.getValue().getId())
+                .isEqualTo(JpaSubscriptionOwnerSync.buildId(TENANT, USER_TYPE, USER));
+        assertThat(sync.getValue().getSyncedAt()).isEqualTo(NOW);
+        assertThat(sync.getValue().isTooLarge()).isFalse();
+    }
+
+    private void givenSynced(Instant syncedAt, boolean tooLarge) {
+        JpaSubscriptionOwnerSync sync = new JpaSubscriptionOwnerSync();
+        sync.setId(JpaSubscriptionOwnerSync.buildId(TENANT, USER_TYPE, USER));
+        sync.setSyncedAt(syncedAt);
+        sync.setTooLarge(tooLarge);
+        when(ownerSyncRepository.findById(sync.getId())).thenReturn(Optional.of(sync));
+    }
+
+    private JpaSubscriptionProjection projection(String id) throws Exception {
+        JpaSubscriptionProjection projection = new JpaSubscriptionProjection();
+        projection.setId(id);
+        projection.setTenantId(TENANT);
+        projection.setPayload(objectMapper.writeValueAsString(subscription(id)));
+        return projection;
+    }
+
+    private SubscriptionWithItems subscription(String id) {
+        Subscription subscription = new Subscription();
+        subscription.setId(id);
+        subscription.setUserRefType(USER_TYPE);
+        subscription.setUserRef(USER);
+        SubscriptionWithItems subscriptionWithItems = new SubscriptionWithItems();
+        subscriptionWithItems.setSubscription(subscription);
+        return subscriptionWithItems;
+    }
+
+    private ContextInfo contextInfo(String applicationId) {
+        ContextRequest contextRequest = new ContextRequest();
+        contextRequest.setTenantId(TENANT);
+        contextRequest.setApplicationId(applicationId);
+        return new ContextInfo(OperationType.READ, contextRequest);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import reactor.core.publisher.Flux;
+
+public class PassThroughResponseBodyTest {
+
+    @Test
+    public void testRelaysBody() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        PassThroughResponseBody.relay(Flux.just(buffer("{\"id\":"), buffer("\"1\"}")))
+                .writeTo(out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("{\"id\":\"1\"}");
+    }
+
+    @Test
+    public void testCancelsBodyThatIsNeverWritten() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        PassThroughResponseBody body = PassThroughResponseBody
+                .relay(Flux.<DataBuffer>never().doOnCancel(() -> cancelled.set(true)));
+
+        body.asInterceptor().afterCompletion(mock(NativeWebRequest.class), () -> null);
+
+        assertThat(cancelled).isTrue();
+        assertThatThrownBy(() -> body.writeTo(new ByteArrayOutputStream()))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void testStopsWritingWhenRequestTimesOut() throws Exception {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Flux<DataBuffer> stalled = Flux.concat(Flux.just(buffer("{")), Flux.<DataBuffer>never())
+                .doOnCancel(() -> cancelled.set(true));
+        PassThroughResponseBody body = PassThroughResponseBody.relay(stalled);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        CompletableFuture<Void> write = CompletableFuture.runAsync(() -> {
+            try {
+                body.writeTo(out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (out.size() == 0 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        body.asInterceptor().handleTimeout(mock(NativeWebRequest.class), () -> null);
+
+        write.get(5, TimeUnit.SECONDS);
+        assertThat(cancelled).isTrue();
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("{");
+    }
+
+    @Test
+    public void testLeavesWrittenBodyOnCompletion() throws IOException {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        PassThroughResponseBody body = PassThroughResponseBody
+                .relay(Flux.just(buffer("{}")).doOnCancel(() -> cancelled.set(true)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        body.writeTo(out);
+        body.asInterceptor().afterCompletion(mock(NativeWebRequest.class), () -> null);
+
+        assertThat(cancelled).isFalse();
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("{}");
+    }
+
+    private DataBuffer buffer(String value) {
+        return DefaultDataBufferFactory.sharedInstance
+                .wrap(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
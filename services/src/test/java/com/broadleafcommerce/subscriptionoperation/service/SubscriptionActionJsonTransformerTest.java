@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import com.broadleafcommerce.common.extension.TypeFactory;
+import com.broadleafcommerce.subscriptionoperation.domain.Subscription;
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionAction;
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import reactor.core.publisher.Flux;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class SubscriptionActionJsonTransformerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final List<String> resolved = new ArrayList<>();
+
+    @Mock
+    private TypeFactory typeFactory;
+
+    private SubscriptionActionJsonTransformer transformer;
+
+    @BeforeEach
+    void setup() {
+        when(typeFactory.get(Subscription.class)).thenReturn(new Subscription());
+        transformer = new SubscriptionActionJsonTransformer(objectMapper, typeFactory);
+    }
+
+    @Test
+    public void testInjectsActionsIntoEachEntry() throws IOException {
+        JsonNode page = transform("{\"content\":["
+                + "{\"subscription\":{\"id\":\"1\"},\"subscriptionItems\":[{\"id\":\"item1\"}]},"
+                + "{\"subscription\":{\"id\":\"2\"},\"subscriptionItems\":[]}"
+                + "],\"totalElements\":2}");
+
+        assertThat(resolved).containsExactly("1", "2");
+        // The subscription type is resolved once rather than for every entry
+        verify(typeFactory).get(Subscription.class);
+        assertThat(page.path("totalElements").asInt()).isEqualTo(2);
+        JsonNode first = page.path("content").path(0);
+        assertThat(first.path("subscriptionItems").path(0).path("id").asText())
+                .isEqualTo("item1");
+        assertThat(first.path("availableActions").path(0).path("actionType").asText())
+                .isEqualTo("CANCEL_1");
+        assertThat(first.path("unavailableReasonsByActionType").path("UPGRADE").path(0)
+                .asText()).isEqualTo("reason");
+        assertThat(page.path("content").path(1).path("availableActions").path(0)
+                .path("actionType").asText()).isEqualTo("CANCEL_2");
+    }
+
+    @Test
+    public void testReplacesExistingActions() throws IOException {
+        JsonNode page = transform("{\"content\":[{\"subscription\":{\"id\":\"1\"},"
+                + "\"availableActions\":[{\"actionType\":\"STALE\"}],"
+                + "\"unavailableReasonsByActionType\":{\"STALE\":[\"stale\"]},"
+                + "\"subscriptionItems\":[]}]}");
+
+        JsonNode entry = page.path("content").path(0);
+        assertThat(entry.path("availableActions")).hasSize(1);
+        assertThat(entry.path("availableActions").path(0).path("actionType").asText())
+                .isEqualTo("CANCEL_1");
+        assertThat(entry.path("unavailableReasonsByActionType").has("STALE")).isFalse();
+        assertThat(entry.has("subscriptionItems")).isTrue();
+    }
+
+    @Test
+    public void testCopiesEmptyPage() throws IOException {
+        JsonNode page = transform("{\"content\":[],\"totalElements\":0}");
+
+        assertThat(resolved).isEmpty();
+        assertThat(page.path("content")).isEmpty();
+        assertThat(page.path("totalElements").asInt()).isZero();
+    }
+
+    @Test
+    public void testFailsOnMalformedBody() {
+        assertThatThrownBy(() -> transform("{\"content\":[{\"subscription\":{\"id\":"))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void testReadsBodySplitAcrossBuffers() throws IOException {
+        String body = "{\"content\":[{\"subscription\":{\"id\":\"1\"},"
+                + "\"subscriptionItems\":[{\"id\":\"item1\"}]}],\"totalElements\":1}";
+        JsonNode whole = transform(body);
+        resolved.clear();
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        List<DataBuffer> buffers = new ArrayList<>();
+        for (int offset = 0; offset < bytes.length; offset += 3) {
+            int length = Math.min(3, bytes.length - offset);
+            buffers.add(DefaultDataBufferFactory.sharedInstance.allocateBuffer(length)
+                    .write(bytes, offset, length));
+        }
+        JsonNode split = transform(Flux.fromIterable(buffers));
+
+        assertThat(split).isEqualTo(whole);
+        assertThat(resolved).containsExactly("1");
+    }
+
+    private JsonNode transform(String body) throws IOException {
+        return transform(Flux.just(DefaultDataBufferFactory.sharedInstance
+                .wrap(body.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    private JsonNode transform(Flux<DataBuffer> body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        transformer.transform(body, out, resolver());
+        return objectMapper.readTree(out.toByteArray());
+    }
+
+    private Function<Subscription, SubscriptionWithItems> resolver() {
+        return subscription -> {
+            resolved.add(subscription.getId());
+            SubscriptionAction action = new SubscriptionAction();
+            action.setActionType("CANCEL_" + subscription.getId());
+            SubscriptionWithItems withActions = new SubscriptionWithItems();
+            withActions.setSubscription(subscription);
+            withActions.getAvailableActions().add(action);
+            withActions.getUnavailableReasonsByActionType().put("UPGRADE", List.of("reason"));
+            return withActions;
+        };
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.autoconfigure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.MessageSource;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.support.StaticMessageSource;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.broadleafcommerce.common.extension.TypeFactory;
+import com.broadleafcommerce.subscriptionoperation.domain.Product;
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
+import com.broadleafcommerce.subscriptionoperation.service.provider.CatalogProvider;
+import com.broadleafcommerce.subscriptionoperation.service.provider.SubscriptionProvider;
+import com.broadleafcommerce.subscriptionoperation.service.provider.external.ExternalCatalogProvider;
+import com.broadleafcommerce.subscriptionoperation.service.provider.external.ExternalSubscriptionProvider;
+import com.broadleafcommerce.subscriptionoperation.service.provider.local.LocalCatalogProvider;
+import com.broadleafcommerce.subscriptionoperation.service.provider.local.LocalCatalogSource;
+import com.broadleafcommerce.subscriptionoperation.service.provider.local.LocalSubscriptionProvider;
+import com.broadleafcommerce.subscriptionoperation.service.provider.local.LocalSubscriptionSource;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class SubscriptionOperationServiceAutoConfigurationTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(
+                    AutoConfigurations.of(SubscriptionOperationServiceAutoConfiguration.class))
+            .withUserConfiguration(InfrastructureConfiguration.class);
+
+    @Test
+    public void testExternalProvidersWithoutLocalSources() {
+        contextRunner.run(context -> {
+            assertThat(context.getBean(SubscriptionProvider.class))
+                    .isInstanceOf(ExternalSubscriptionProvider.class);
+            assertThat(context.getBean(CatalogProvider.class))
+                    .isInstanceOf(ExternalCatalogProvider.class);
+        });
+    }
+
+    @Test
+    public void testLocalProvidersWithLocalSources() {
+        contextRunner
+                .withUserConfiguration(LocalSubscriptionSourceConfiguration.class,
+                        LocalCatalogSourceConfiguration.class)
+                .run(context -> {
+                    assertThat(context.getBean(SubscriptionProvider.class))
+                            .isInstanceOf(LocalSubscriptionProvider.class);
+                    assertThat(context.getBean(CatalogProvider.class))
+                            .isInstanceOf(LocalCatalogProvider.class);
+                });
+    }
+
+    @Test
+    public void testEachProviderIsSelectedByItsOwnSource() {
+        contextRunner
+                .withUserConfiguration(LocalSubscriptionSourceConfiguration.class)
+                .run(context -> {
+                    assertThat(context.getBean(SubscriptionProvider.class))
+                            .isInstanceOf(LocalSubscriptionProvider.class);
+                    assertThat(context.getBean(CatalogProvider.class))
+                            .isInstanceOf(ExternalCatalogProvider.class);
+                });
+        contextRunner
+                .withUserConfiguration(LocalCatalogSourceConfiguration.class)
+                .run(context -> {
+                    assertThat(context.getBean(SubscriptionProvider.class))
+                            .isInstanceOf(ExternalSubscriptionProvider.class);
+                    assertThat(context.getBean(CatalogProvider.class))
+                            .isInstanceOf(LocalCatalogProvider.class);
+                });
+    }
+
+    @Configuration
+    static class InfrastructureConfiguration {
+
+        @Bean
+        public ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+
+        @Bean
+        public TypeFactory typeFactory() {
+            return mock(TypeFactory.class);
+        }
+
+        @Bean
+        public MessageSource messageSource() {
+            return new StaticMessageSource();
+        }
+
+        @Bean
+        public WebClient subscriptionOperationWebClient() {
+            return WebClient.create();
+        }
+    }
+
+    @Configuration
+    static class LocalSubscriptionSourceConfiguration {
+
+        @Bean
+        @SuppressWarnings("unchecked")
+        public LocalSubscriptionSource<SubscriptionWithItems> localSubscriptionSource() {
+            return mock(LocalSubscriptionSource.class);
+        }
+    }
+
+    @Configuration
+    static class LocalCatalogSourceConfiguration {
+
+        @Bean
+        @SuppressWarnings("unchecked")
+        public LocalCatalogSource<Product> localCatalogSource() {
+            return mock(LocalCatalogSource.class);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.idempotency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.broadleafcommerce.subscriptionoperation.service.exception.IdempotencyKeyConflictException;
+import com.broadleafcommerce.subscriptionoperation.service.exception.IdempotencyKeyMismatchException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class IdempotencyServiceTest {
+
+    private static final Duration TTL = Duration.ofHours(1);
+
+    private static final Duration PENDING_TTL = Duration.ofMinutes(1);
+
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final InMemoryStore store = new InMemoryStore();
+
+    private final AtomicInteger performed = new AtomicInteger();
+
+    private IdempotencyService service;
+
+    @BeforeEach
+    void setup() {
+        service = newService(NOW);
+    }
+
+    @Test
+    public void testRepeatedKeyReturnsFirstResult() {
+        assertThat(execute("key", "request")).isEqualTo("result1");
+        assertThat(execute("key", "request")).isEqualTo("result1");
+
+        assertThat(performed).hasValue(1);
+    }
+
+    @Test
+    public void testRepeatedKeyIsReplayedFromStoreByOtherInstances() {
+        execute("key", "request");
+
+        service = newService(NOW.plusSeconds(60));
+
+        assertThat(execute("key", "request")).isEqualTo("result1");
+        assertThat(performed).hasValue(1);
+    }
+
+    @Test
+    public void testOperationWithoutKeyIsAlwaysPerformed() {
+        assertThat(execute(null, "request")).isEqualTo("result1");
+        assertThat(execute(null, "request")).isEqualTo("result2");
+    }
+
+    @Test
+    public void testOperationIsPerformedDirectlyWithoutService() {
+        String first = IdempotencyService.executeIfAvailable(null, "create", "key", "request",
+                String.class, null, () -> "result" + performed.incrementAndGet());
+        String second = IdempotencyService.executeIfAvailable(null, "create", "key", "request",
+                String.class, null, () -> "result" + performed.incrementAndGet());
+
+        assertThat(first).isEqualTo("result1");
+        assertThat(second).isEqualTo("result2");
+    }
+
+    @Test
+    public void testOperationIsPerformedThroughServiceIfAvailable() {
+        String first = IdempotencyService.executeIfAvailable(service, "create", "key", "request",
+                String.class, null, () -> "result" + performed.incrementAndGet());
+        String second = IdempotencyService.executeIfAvailable(service, "create", "key",
+                "request", String.class, null, () -> "result" + performed.incrementAndGet());
+
+        assertThat(first).isEqualTo("result1");
+        assertThat(second).isEqualTo("result1");
+    }
+
+    @Test
+    public void testKeyCannotBeReusedForDifferentRequest() {
+        execute("key", "request");
+
+        assertThatThrownBy(() -> execute("key", "other request"))
+                .isInstanceOf(IdempotencyKeyMismatchException.class);
+        assertThat(performed).hasValue(1);
+    }
+
+    @Test
+    public void testKeyInProgressIsRejected() {
+        String id = IdempotencyService.buildRecordId("", "create", "key");
+        store.records.put(id, new IdempotencyRecord(id, hashOf("request"), null,
+                NOW.plus(PENDING_TTL)));
+
+        assertThatThrownBy(() -> execute("key", "request"))
+                .isInstanceOf(IdempotencyKeyConflictException.class);
+        assertThat(performed).hasValue(0);
+    }
+
+    @Test
+    public void testAbandonedKeyMayBeReused() {
+        String id = IdempotencyService.buildRecordId("", "create", "key");
+        store.records.put(id, new IdempotencyRecord(id, hashOf("request"), null,
+                NOW.minusSeconds(1)));
+
+        assertThat(execute("key", "request")).isEqualTo("result1");
+    }
+
+    @Test
+    public void testFailedOperationReleasesKey() {
+        assertThatThrownBy(() -> service.execute("create", "key", "request", String.class, null,
+                () -> {
+                    throw new IllegalStateException("failed");
+                })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(execute("key", "request")).isEqualTo("result1");
+    }
+
+    @Test
+    public void testKeysAreScopedByOperation() {
+        execute("key", "request");
+
+        assertThat(service.execute("cancel", "key", "request", String.class, null,
+                () -> "cancelled")).isEqualTo("cancelled");
+    }
+
+    private String execute(String key, String request) {
+        return service.execute("create", key, request, String.class, null,
+                () -> "result" + performed.incrementAndGet());
+    }
+
+    private IdempotencyService newService(Instant now) {
+        return new IdempotencyService(store, objectMapper, TTL, PENDING_TTL, 10,
+                Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    /**
+     * Captures the request hash computed by the service for the given request.
+     */
+    private String hashOf(String request) {
+        InMemoryStore capture = new InMemoryStore();
+        new IdempotencyService(capture, objectMapper, TTL, PENDING_TTL, 10,
+                Clock.fixed(NOW, ZoneOffset.UTC))
+                        .execute("create", "key", request, String.class, null, () -> "");
+        return capture.records.values().iterator().next().getRequestHash();
+    }
+
+    private static class InMemoryStore implements IdempotencyStore {
+
+        private final Map<String, IdempotencyRecord> records = new HashMap<>();
+
+        @Override
+        public Optional<IdempotencyRecord> read(String id) {
+            return Optional.ofNullable(records.get(id));
+        }
+
+        @Override
+        public boolean begin(IdempotencyRecord record) {
+            IdempotencyRecord existing = records.get(record.getId());
+            if (existing != null && !existing.isExpired(NOW)) {
+                return false;
+            }
+            records.put(record.getId(), record);
+            return true;
+        }
+
+        @Override
+        public void complete(String id, String response, Instant expiresAt) {
+            IdempotencyRecord record = records.get(id);
+            record.setResponse(response);
+            record.setExpiresAt(expiresAt);
+        }
+
+        @Override
+        public void release(String id) {
+            records.remove(id);
+        }
+
+        @Override
+        public int purgeExpired(Instant now, int batchSize) {
+            return 0;
+        }
+    }
+}
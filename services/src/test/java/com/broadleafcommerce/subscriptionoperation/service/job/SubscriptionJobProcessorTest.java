@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.job;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.broadleafcommerce.data.tracking.core.exception.EntityMissingException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@ExtendWith(MockitoExtension.class)
+public class SubscriptionJobProcessorTest {
+
+    private static final String JOB_ID = "jobId";
+
+    private static final Duration LEASE = Duration.ofMinutes(5);
+
+    @Mock
+    private SubscriptionJobStore store;
+
+    @Mock
+    private SubscriptionJobService jobService;
+
+    private SubscriptionJobProcessor processor;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setup() {
+        processor = new SubscriptionJobProcessor(store, jobService, Duration.ofSeconds(5), 2, 2,
+                LEASE);
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testResumesFromCheckpointAndRecordsEachItem() throws Exception {
+        SubscriptionJob job = job(2);
+        when(store.readChunk(JOB_ID, 2, 2)).thenReturn(List.of(item(3, "a"), item(4, "b")));
+        when(store.readChunk(JOB_ID, 4, 2)).thenReturn(List.of());
+        when(store.checkpoint(eq(JOB_ID), anyString(), any(), eq(LEASE))).thenReturn(true);
+        when(jobService.apply(job, "a")).thenReturn(SubscriptionJobItemStatus.SUCCEEDED);
+        when(jobService.apply(job, "b")).thenThrow(new EntityMissingException());
+
+        processor.process(job, executor);
+
+        ArgumentCaptor<List<SubscriptionJobItem>> results = ArgumentCaptor.forClass(List.class);
+        verify(store).checkpoint(eq(JOB_ID), eq(processor.getOwner()), results.capture(),
+                eq(LEASE));
+        assertThat(results.getValue())
+                .extracting(SubscriptionJobItem::getStatus)
+                .containsExactly(SubscriptionJobItemStatus.SUCCEEDED,
+                        SubscriptionJobItemStatus.FAILED);
+        assertThat(results.getValue().get(1).getError()).isNotBlank();
+        assertThat(results.getValue()).allSatisfy(
+                result -> assertThat(result.getProcessedAt()).isNotNull());
+        verify(store).complete(JOB_ID, processor.getOwner());
+    }
+
+    @Test
+    public void testStopsWhenJobWasClaimedByAnotherInstance() throws Exception {
+        SubscriptionJob job = job(0);
+        when(store.readChunk(JOB_ID, 0, 2)).thenReturn(List.of(item(1, "a")));
+        when(store.checkpoint(eq(JOB_ID), anyString(), any(), eq(LEASE))).thenReturn(false);
+        when(jobService.apply(job, "a")).thenReturn(SubscriptionJobItemStatus.SKIPPED);
+
+        processor.process(job, executor);
+
+        verify(store, never()).readChunk(eq(JOB_ID), eq(1), anyInt());
+        verify(store, never()).complete(anyString(), anyString());
+    }
+
+    private SubscriptionJob job(int checkpoint) {
+        SubscriptionJob job = new SubscriptionJob();
+        job.setId(JOB_ID);
+        job.setType(SubscriptionJobType.CANCEL);
+        job.setStatus(SubscriptionJobStatus.RUNNING);
+        job.setCheckpoint(checkpoint);
+        return job;
+    }
+
+    private SubscriptionJobItem item(int sequence, String subscriptionId) {
+        SubscriptionJobItem item = new SubscriptionJobItem();
+        item.setJobId(JOB_ID);
+        item.setSequence(sequence);
+        item.setSubscriptionId(subscriptionId);
+        return item;
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.job;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.MessageSource;
+
+import com.broadleafcommerce.data.tracking.core.context.ContextInfo;
+import com.broadleafcommerce.subscriptionoperation.domain.Subscription;
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionItem;
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
+import com.broadleafcommerce.subscriptionoperation.domain.enums.DefaultSubscriptionNextStatusChangeReason;
+import com.broadleafcommerce.subscriptionoperation.domain.enums.SubscriptionStatuses;
+import com.broadleafcommerce.subscriptionoperation.service.SubscriptionChangeListener;
+import com.broadleafcommerce.subscriptionoperation.service.SubscriptionOperationService;
+import com.broadleafcommerce.subscriptionoperation.service.SubscriptionValidationService;
+import com.broadleafcommerce.subscriptionoperation.service.exception.InsufficientSubscriptionAccessException;
+import com.broadleafcommerce.subscriptionoperation.service.exception.InvalidSubscriptionJobRequestException;
+import com.broadleafcommerce.subscriptionoperation.service.provider.SubscriptionProvider;
+import com.broadleafcommerce.subscriptionoperation.web.domain.ChangeAutoRenewalRequest;
+import com.broadleafcommerce.subscriptionoperation.web.domain.SubscriptionCancellationRequest;
+import com.broadleafcommerce.subscriptionoperation.web.domain.SubscriptionJobRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.List;
+import java.util.Locale;
+
+@ExtendWith(MockitoExtension.class)
+public class SubscriptionJobServiceTest {
+
+    private static final String CANCELLED_REASON = "Cancel the subscription.";
+
+    @Mock
+    private SubscriptionJobStore store;
+
+    @Mock
+    private SubscriptionProvider<SubscriptionWithItems> subscriptionProvider;
+
+    @Mock
+    private SubscriptionOperationService<Subscription, SubscriptionItem, SubscriptionWithItems> operationService;
+
+    @Mock
+    private SubscriptionValidationService validationService;
+
+    @Mock
+    private MessageSource messageSource;
+
+    @Mock
+    private SubscriptionChangeListener changeListener;
+
+    private SubscriptionJobService jobService;
+
+    @BeforeEach
+    void setup() {
+        jobService = new SubscriptionJobService(store, subscriptionProvider, operationService,
+                validationService, messageSource, new ObjectMapper(), 10);
+        jobService.setChangeListeners(List.of(changeListener));
+    }
+
+    @Test
+    public void testRejectsUnknownStatusOnSubmit() {
+        SubscriptionJobRequest request = request(SubscriptionJobType.CHANGE_STATUS, "a");
+        request.setSubscriptionStatus("UNKNOWN");
+
+        assertThatThrownBy(() -> jobService.submit(request, null))
+                .isInstanceOf(InvalidSubscriptionJobRequestException.class);
+        verifyNoInteractions(store, subscriptionProvider);
+    }
+
+    @Test
+    public void testValidatesEachCancellationOnSubmit() {
+        SubscriptionJobRequest request = request(SubscriptionJobType.CANCEL, "a", "b");
+        request.setImmediate(true);
+
+        SubscriptionJob job = jobService.submit(request, null);
+
+        ArgumentCaptor<SubscriptionCancellationRequest> cancellation =
+                ArgumentCaptor.forClass(SubscriptionCancellationRequest.class);
+        verify(validationService, times(2)).validateSubscriptionCancellation(
+                cancellation.capture(), isNull());
+        assertThat(cancellation.getAllValues())
+                .extracting(SubscriptionCancellationRequest::getSubscriptionId)
+                .containsExactly("a", "b");
+        assertThat(cancellation.getAllValues())
+                .allMatch(SubscriptionCancellationRequest::isImmediateCancellation);
+        verify(store).create(job, List.of("a", "b"));
+    }
+
+    @Test
+    public void testRejectsJobsWithAnInvalidSubscription() {
+        SubscriptionJobRequest request = request(SubscriptionJobType.CANCEL, "a");
+        request.setImmediate(true);
+        doThrow(new InsufficientSubscriptionAccessException("denied")).when(validationService)
+                .validateSubscriptionCancellation(any(), isNull());
+
+        assertThatThrownBy(() -> jobService.submit(request, null))
+                .isInstanceOf(InsufficientSubscriptionAccessException.class);
+        verifyNoInteractions(store);
+    }
+
+    @Test
+    public void testValidatesOnlyAutoRenewalChangesNotYetMade() {
+        SubscriptionJobRequest request =
+                request(SubscriptionJobType.CHANGE_AUTO_RENEWAL, "a", "b");
+        request.setAutoRenewalEnabled(false);
+        SubscriptionWithItems enabled = subscription("a", true, null);
+        when(subscriptionProvider.readSubscriptionById("a", null)).thenReturn(enabled);
+        when(subscriptionProvider.readSubscriptionById("b", null))
+                .thenReturn(subscription("b", false, null));
+
+        jobService.submit(request, null);
+
+        ArgumentCaptor<ChangeAutoRenewalRequest> change =
+                ArgumentCaptor.forClass(ChangeAutoRenewalRequest.class);
+        verify(validationService).validateSubscriptionChangeAutoRenewal(change.capture(),
+                eq(enabled), isNull());
+        assertThat(change.getValue().getSubscriptionId()).isEqualTo("a");
+        assertThat(change.getValue().isAutoRenewalEnabled()).isFalse();
+    }
+
+    @Test
+    public void testImmediateCancelRecordsTheDefaultReason() {
+        SubscriptionJob job = job(SubscriptionJobType.CANCEL);
+        job.setImmediate(true);
+        SubscriptionWithItems subscription = subscription("a", true, "ACTIVE");
+        when(subscriptionProvider.readSubscriptionById(eq("a"), any()))
+                .thenReturn(subscription);
+        when(messageSource.getMessage(
+                eq(DefaultSubscriptionNextStatusChangeReason.CANCELLED.getMessagePath()),
+                isNull(), any(Locale.class))).thenReturn(CANCELLED_REASON);
+        when(subscriptionProvider.replaceSubscription(eq("a"), any(), any()))
+                .thenAnswer(invocation -> invocation.getArgument(1));
+
+        assertThat(jobService.apply(job, "a")).isEqualTo(SubscriptionJobItemStatus.SUCCEEDED);
+
+        Subscription cancelled = subscription.getSubscription();
+        assertThat(cancelled.getSubscriptionStatus())
+                .isEqualTo(SubscriptionStatuses.CANCELLED.name());
+        assertThat(cancelled.getNextStatusChangeReason()).isEqualTo(CANCELLED_REASON);
+        verify(changeListener).onSubscriptionChanged(eq(cancelled), any(ContextInfo.class));
+        verifyNoInteractions(operationService);
+    }
+
+    @Test
+    public void testCancelAtEndOfTermDisablesAutoRenewalThroughOperationService() {
+        SubscriptionJob job = job(SubscriptionJobType.CANCEL);
+        when(subscriptionProvider.readSubscriptionById(eq("a"), any()))
+                .thenReturn(subscription("a", true, "ACTIVE"));
+        when(subscriptionProvider.readSubscriptionById(eq("b"), any()))
+                .thenReturn(subscription("b", false, "ACTIVE"));
+
+        assertThat(jobService.apply(job, "a")).isEqualTo(SubscriptionJobItemStatus.SUCCEEDED);
+        assertThat(jobService.apply(job, "b")).isEqualTo(SubscriptionJobItemStatus.SKIPPED);
+
+        ArgumentCaptor<ChangeAutoRenewalRequest> change =
+                ArgumentCaptor.forClass(ChangeAutoRenewalRequest.class);
+        verify(operationService).applyAutoRenewalChange(change.capture(),
+                any(ContextInfo.class));
+        assertThat(change.getValue().getSubscriptionId()).isEqualTo("a");
+        assertThat(change.getValue().isAutoRenewalEnabled()).isFalse();
+        verify(subscriptionProvider, never()).replaceSubscription(any(), any(), any());
+        verifyNoInteractions(changeListener);
+    }
+
+    private SubscriptionJobRequest request(SubscriptionJobType type, String... subscriptionIds) {
+        SubscriptionJobRequest request = new SubscriptionJobRequest();
+        request.setType(type);
+        request.setSubscriptionIds(List.of(subscriptionIds));
+        return request;
+    }
+
+    private SubscriptionJob job(SubscriptionJobType type) {
+        SubscriptionJob job = new SubscriptionJob();
+        job.setId("jobId");
+        job.setType(type);
+        return job;
+    }
+
+    private SubscriptionWithItems subscription(String id,
+            boolean autoRenewalEnabled,
+            String status) {
+        Subscription subscription = new Subscription();
+        subscription.setId(id);
+        subscription.setAutoRenewalEnabled(autoRenewalEnabled);
+        subscription.setSubscriptionStatus(status);
+        SubscriptionWithItems subscriptionWithItems = new SubscriptionWithItems();
+        subscriptionWithItems.setSubscription(subscription);
+        return subscriptionWithItems;
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class MicrometerSubscriptionOperationMetricsTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final MicrometerSubscriptionOperationMetrics metrics =
+            new MicrometerSubscriptionOperationMetrics(meterRegistry,
+                    new SubscriptionOperationMetricsProperties());
+
+    @Test
+    public void testMetersAreReusedPerTagSet() {
+        assertThat(metrics.counter("counter", "description", "key", "a"))
+                .isSameAs(metrics.counter("counter", "description", "key", "a"))
+                .isNotSameAs(metrics.counter("counter", "description", "key", "b"));
+        assertThat(metrics.timer("timer", "description"))
+                .isSameAs(metrics.timer("timer", "description"));
+    }
+
+    @Test
+    public void testRecordingsAccumulateOnTheRegisteredMeters() {
+        for (int i = 0; i < 3; i++) {
+            metrics.recordRequestShed("LOW", "OVERLOADED");
+        }
+        metrics.recordRequestShed("NORMAL", "OVERLOADED");
+        metrics.recordProviderResponseSize("provider", "read", 10);
+        metrics.recordProviderResponseSize("provider", "read", 20);
+
+        assertThat(meterRegistry.get(MicrometerSubscriptionOperationMetrics.REQUESTS_SHED)
+                .tag("priority", "LOW").counter().count()).isEqualTo(3);
+        assertThat(meterRegistry.get(MicrometerSubscriptionOperationMetrics.REQUESTS_SHED)
+                .tag("priority", "NORMAL").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(MicrometerSubscriptionOperationMetrics.PROVIDER_RESPONSE_SIZE)
+                .summary().totalAmount()).isEqualTo(30);
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.outbox;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import com.broadleafcommerce.subscriptionoperation.exception.ProviderApiException;
+import com.broadleafcommerce.subscriptionoperation.service.exception.InvalidChangeAutoRenewalRequestException;
+
+import java.time.Duration;
+import java.time.Instant;
+
+@ExtendWith(MockitoExtension.class)
+public class SubscriptionWriteDispatcherTest {
+
+    @Mock
+    private SubscriptionWriteOutbox outbox;
+
+    @Mock
+    private SubscriptionWriteService writeService;
+
+    private SubscriptionWriteDispatcher dispatcher;
+
+    @BeforeEach
+    void setup() {
+        dispatcher = new SubscriptionWriteDispatcher(outbox, writeService, Duration.ofSeconds(1),
+                10, 2, Duration.ofMinutes(1), 3, Duration.ofSeconds(5), Duration.ofSeconds(30));
+    }
+
+    @Test
+    public void testCompletesDispatchedWrite() {
+        SubscriptionWrite write = write(1);
+
+        dispatcher.dispatch(write);
+
+        verify(writeService).dispatch(write);
+        verify(outbox).complete(write.getId());
+    }
+
+    @Test
+    public void testRetriesProviderUnavailable() {
+        SubscriptionWrite write = write(1);
+        doThrow(providerError(503)).when(writeService).dispatch(write);
+
+        Instant before = Instant.now();
+        dispatcher.dispatch(write);
+
+        ArgumentCaptor<Instant> nextAttemptAt = ArgumentCaptor.forClass(Instant.class);
+        verify(outbox).retry(eq(write.getId()), nextAttemptAt.capture(), anyString());
+        verify(outbox, never()).complete(anyString());
+        assertThat(nextAttemptAt.getValue()).isAfterOrEqualTo(before.plusSeconds(5));
+    }
+
+    @Test
+    public void testFailsRejectedWrite() {
+        SubscriptionWrite write = write(1);
+        doThrow(providerError(400)).when(writeService).dispatch(write);
+
+        dispatcher.dispatch(write);
+
+        verify(outbox).fail(eq(write.getId()), anyString());
+    }
+
+    @Test
+    public void testFailsInvalidWrite() {
+        SubscriptionWrite write = write(1);
+        doThrow(new InvalidChangeAutoRenewalRequestException("invalid"))
+                .when(writeService).dispatch(write);
+
+        dispatcher.dispatch(write);
+
+        verify(outbox).fail(eq(write.getId()), anyString());
+    }
+
+    @Test
+    public void testFailsAfterMaxAttempts() {
+        SubscriptionWrite write = write(3);
+        doThrow(providerError(503)).when(writeService).dispatch(write);
+
+        dispatcher.dispatch(write);
+
+        verify(outbox).fail(eq(write.getId()), anyString());
+        verify(outbox, never()).retry(anyString(), any(Instant.class), anyString());
+    }
+
+    @Test
+    public void testBackoffDoublesUpToMax() {
+        assertThat(dispatcher.getBackoff(1)).isEqualTo(Duration.ofSeconds(5));
+        assertThat(dispatcher.getBackoff(2)).isEqualTo(Duration.ofSeconds(10));
+        assertThat(dispatcher.getBackoff(3)).isEqualTo(Duration.ofSeconds(20));
+        assertThat(dispatcher.getBackoff(4)).isEqualTo(Duration.ofSeconds(30));
+        assertThat(dispatcher.getBackoff(100)).isEqualTo(Duration.ofSeconds(30));
+    }
+
+    private SubscriptionWrite write(int attempts) {
+        SubscriptionWrite write = new SubscriptionWrite();
+        write.setId("write-" + attempts);
+        write.setOperation(SubscriptionWriteOperation.CHANGE_AUTO_RENEWAL);
+        write.setOrderingKey("subscriptionId");
+        write.setPayload("{}");
+        write.setStatus(SubscriptionWriteStatus.DISPATCHING);
+        write.setAttempts(attempts);
+        return write;
+    }
+
+    private ProviderApiException providerError(int status) {
+        return new ProviderApiException(
+                WebClientResponseException.create(status, "error", null, null, null));
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.outbox;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.broadleafcommerce.data.tracking.core.context.ContextInfo;
+import com.broadleafcommerce.data.tracking.core.type.OperationType;
+import com.broadleafcommerce.subscriptionoperation.domain.Subscription;
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionItem;
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
+import com.broadleafcommerce.subscriptionoperation.service.SubscriptionOperationService;
+import com.broadleafcommerce.subscriptionoperation.service.SubscriptionValidationService;
+import com.broadleafcommerce.subscriptionoperation.web.domain.ChangeAutoRenewalRequest;
+import com.broadleafcommerce.subscriptionoperation.web.domain.SubscriptionWriteResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+@ExtendWith(MockitoExtension.class)
+public class SubscriptionWriteServiceTest {
+
+    private static final Instant NOW = Instant.parse("2024-06-01T00:00:00Z");
+
+    @Mock
+    private SubscriptionWriteOutbox outbox;
+
+    @Mock
+    private SubscriptionOperationService<Subscription, SubscriptionItem, SubscriptionWithItems> subscriptionOperationService;
+
+    @Mock
+    private SubscriptionValidationService subscriptionValidationService;
+
+    private SubscriptionWriteService writeService;
+
+    @BeforeEach
+    void setup() {
+        writeService = new SubscriptionWriteService(outbox, subscriptionOperationService,
+                subscriptionValidationService, new ObjectMapper(),
+                Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    public void testAutoRenewalChangeIsValidatedWhenAccepted() {
+        ChangeAutoRenewalRequest changeRequest = changeRequest();
+
+        SubscriptionWriteResponse response =
+                writeService.acceptAutoRenewalChange(changeRequest, null);
+
+        InOrder inOrder = inOrder(subscriptionOperationService, outbox);
+        inOrder.verify(subscriptionOperationService).validateAutoRenewalChange(changeRequest,
+                null);
+        ArgumentCaptor<SubscriptionWrite> write = ArgumentCaptor.forClass(SubscriptionWrite.class);
+        inOrder.verify(outbox).add(write.capture());
+        assertThat(write.getValue().getOperation())
+                .isEqualTo(SubscriptionWriteOperation.CHANGE_AUTO_RENEWAL);
+        assertThat(write.getValue().getOrderingKey()).isEqualTo("subscriptionId");
+        assertThat(response.getSubscriptionId()).isEqualTo("subscriptionId");
+        assertThat(write.getValue().getCreatedAt()).isEqualTo(NOW);
+        assertThat(response.getAcceptedAt()).isEqualTo(NOW);
+    }
+
+    @Test
+    public void testAutoRenewalChangeIsAppliedToCurrentSubscriptionWhenDispatched() {
+        ChangeAutoRenewalRequest changeRequest = changeRequest();
+        writeService.acceptAutoRenewalChange(changeRequest, null);
+        ArgumentCaptor<SubscriptionWrite> write = ArgumentCaptor.forClass(SubscriptionWrite.class);
+        verify(outbox).add(write.capture());
+
+        writeService.dispatch(write.getValue());
+
+        // The recorded request is applied, rather than a snapshot of the subscription replaced
+        ArgumentCaptor<ContextInfo> contextInfo = ArgumentCaptor.forClass(ContextInfo.class);
+        verify(subscriptionOperationService).applyAutoRenewalChange(eq(changeRequest),
+                contextInfo.capture());
+        assertThat(contextInfo.getValue().getOperationType()).isEqualTo(OperationType.UPDATE);
+        verify(subscriptionOperationService, never())
+                .changeAutoRenewal(any(), any());
+    }
+
+    private ChangeAutoRenewalRequest changeRequest() {
+        ChangeAutoRenewalRequest changeRequest = new ChangeAutoRenewalRequest();
+        changeRequest.setSubscriptionId("subscriptionId");
+        changeRequest.setAutoRenewalEnabled(false);
+        return changeRequest;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.provider;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.broadleafcommerce.data.tracking.core.context.ContextInfo;
+import com.broadleafcommerce.data.tracking.core.context.ContextRequest;
+import com.broadleafcommerce.data.tracking.core.type.OperationType;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class MissingEntityCacheTest {
+
+    private static final Duration TTL = Duration.ofSeconds(30);
+
+    private final AtomicLong now = new AtomicLong();
+
+    private final ContextInfo tenant1 = contextInfo("tenant1");
+
+    private final ContextInfo tenant2 = contextInfo("tenant2");
+
+    private MissingEntityCache cache;
+
+    @BeforeEach
+    void setup() {
+        cache = new MissingEntityCache(TTL, 3, 4, 0.01, now::get);
+    }
+
+    @Test
+    public void testMissingIsScopedByTenantAndType() {
+        cache.recordMissing(MissingEntityCache.SUBSCRIPTION, "1", null, tenant1);
+
+        assertThat(cache.isMissing(MissingEntityCache.SUBSCRIPTION, "1", null, tenant1)).isTrue();
+        assertThat(cache.isMissing(MissingEntityCache.SUBSCRIPTION, "1", "owner", tenant1))
+                .isTrue();
+        assertThat(cache.isMissing(MissingEntityCache.SUBSCRIPTION, "1", null, tenant2)).isFalse();
+        assertThat(cache.isMissing(MissingEntityCache.PRODUCT, "1", null, tenant1)).isFalse();
+        assertThat(cache.isMissing(MissingEntityCache.SUBSCRIPTION, "2", null, tenant1)).isFalse();
+    }
+
+    @Test
+    public void testMissingForOwnerDoesNotApplyToOtherOwners() {
+        cache.recordMissing(MissingEntityCache.SUBSCRIPTION, "1", "owner1", tenant1);
+
+        assertThat(cache.isMissing(MissingEntityCache.SUBSCRIPTION, "1", "owner1", tenant1))
+                .isTrue();
+        assertThat(cache.isMissing(MissingEntityCache.SUBSCRIPTION, "1", "owner2", tenant1))
+                .isFalse();
+        assertThat(cache.isMissing(MissingEntityCache.SUBSCRIPTION, "1", null, tenant1)).isFalse();
+    }
+
+    @Test
+    public void testMissingExpires() {
+        cache.recordMissing(MissingEntityCache.SUBSCRIPTION, "1", null, tenant1);
+
+        now.addAndGet(TTL.toNanos() - 1);
+        assertThat(cache.isMissing(MissingEntityCache.SUBSCRIPTION, "1", null, tenant1)).isTrue();
+
+        now.incrementAndGet();
+        assertThat(cache.isMissing(MissingEntityCache.SUBSCRIPTION, "1", null, tenant1)).isFalse();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    public void testInvalidateForgetsEveryOwner() {
+        cache.recordMissing(MissingEntityCache.SUBSCRIPTION, "1", "owner1", tenant1);
+        cache.recordMissing(MissingEntityCache.SUBSCRIPTION, "1", "owner2", tenant1);
+
+        cache.invalidate(MissingEntityCache.SUBSCRIPTION, "1", tenant1);
+
+        assertThat(cache.isMissing(MissingEntityCache.SUBSCRIPTION, "1", "owner1", tenant1))
+                .isFalse();
+        assertThat(cache.isMissing(MissingEntityCache.SUBSCRIPTION, "1", "owner2", tenant1))
+                .isFalse();
+    }
+
+    @Test
+    public void testFullCacheOnlyRemembersOnceEntriesExpire() {
+        cache.recordMissing(MissingEntityCache.SUBSCRIPTION, "1", null, tenant1);
+        now.addAndGet(TTL.toNanos() / 2);
+        cache.recordMissing(MissingEntityCache.SUBSCRIPTION, "2", null, tenant1);
+        cache.recordMissing(MissingEntityCache.SUBSCRIPTION, "3", null, tenant1);
+
+        cache.recordMissing(MissingEntityCache.SUBSCRIPTION, "4", null, tenant1);
+        assertThat(cache.isMissing(MissingEntityCache.SUBSCRIPTION, "4", null, tenant1)).isFalse();
+
+        now.addAndGet(TTL.toNanos() / 2);
+        cache.recordMissing(MissingEntityCache.SUBSCRIPTION, "4", null, tenant1);
+        assertThat(cache.isMissing(MissingEntityCache.SUBSCRIPTION, "1", null, tenant1)).isFalse();
+        assertThat(cache.isMissing(MissingEntityCache.SUBSCRIPTION, "3", null, tenant1)).isTrue();
+        assertThat(cache.isMissing(MissingEntityCache.SUBSCRIPTION, "4", null, tenant1)).isTrue();
+    }
+
+    @Test
+    public void testBloomFilterIsRebuiltWithLiveEntries() {
+        cache = new MissingEntityCache(TTL, 100, 4, 0.01, now::get);
+        for (int i = 0; i < 10; i++) {
+            cache.recordMissing(MissingEntityCache.SUBSCRIPTION, String.valueOf(i), null, tenant1);
+            if (i == 4) {
+                now.addAndGet(TTL.toNanos());
+            }
+        }
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(cache.isMissing(MissingEntityCache.SUBSCRIPTION, String.valueOf(i), null,
+                    tenant1)).isEqualTo(i > 4);
+        }
+    }
+
+    @Test
+    public void testBloomFilterHasNoFalseNegatives() {
+        MissingEntityCache.IdFilter filter = new MissingEntityCache.IdFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.put(MissingEntityCache.PRODUCT, "tenant", "product" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 1000; i++) {
+            assertThat(filter.mightContain(MissingEntityCache.PRODUCT, "tenant", "product" + i))
+                    .isTrue();
+            if (filter.mightContain(MissingEntityCache.PRODUCT, "tenant", "other" + i)) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(50);
+    }
+
+    private static ContextInfo contextInfo(String tenantId) {
+        return new ContextInfo(OperationType.READ, new ContextRequest().withTenantId(tenantId));
+    }
+}
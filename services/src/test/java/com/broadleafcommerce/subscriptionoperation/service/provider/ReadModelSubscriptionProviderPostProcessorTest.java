@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.provider;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.MessageSource;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.broadleafcommerce.subscriptionoperation.domain.Subscription;
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
+import com.broadleafcommerce.subscriptionoperation.service.SubscriptionOperationService;
+import com.broadleafcommerce.subscriptionoperation.service.SubscriptionValidationService;
+import com.broadleafcommerce.subscriptionoperation.service.job.SubscriptionJob;
+import com.broadleafcommerce.subscriptionoperation.service.job.SubscriptionJobService;
+import com.broadleafcommerce.subscriptionoperation.service.job.SubscriptionJobStore;
+import com.broadleafcommerce.subscriptionoperation.service.job.SubscriptionJobType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.Getter;
+
+public class ReadModelSubscriptionProviderPostProcessorTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(ProviderConfiguration.class);
+
+    @Test
+    public void testDecoratesProviderWhenThereIsReadModel() {
+        contextRunner
+                .withUserConfiguration(ReadModelConfiguration.class)
+                .run(context -> assertThat(context.getBean(SubscriptionProvider.class))
+                        .isInstanceOf(ReadModelSubscriptionProvider.class)
+                        .isNotInstanceOf(PassThroughSubscriptionProvider.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testKeepsPassThroughReadsOfTheProvider() {
+        ObjectProvider<SubscriptionReadModel<SubscriptionWithItems>> readModel =
+                mock(ObjectProvider.class);
+        when(readModel.getIfAvailable()).thenReturn(mock(SubscriptionReadModel.class));
+        SubscriptionProvider<SubscriptionWithItems> provider = mock(SubscriptionProvider.class,
+                withSettings().extraInterfaces(PassThroughSubscriptionProvider.class));
+
+        Object decorated = new ReadModelSubscriptionProviderPostProcessor(readModel)
+                .postProcessAfterInitialization(provider, "subscriptionProvider");
+
+        assertThat(decorated).isInstanceOf(PassThroughReadModelSubscriptionProvider.class);
+        ((PassThroughSubscriptionProvider) decorated)
+                .readSubscriptionByIdPassThrough("subscription", null);
+        verify((PassThroughSubscriptionProvider) provider)
+                .readSubscriptionByIdPassThrough("subscription", null);
+    }
+
+    @Test
+    public void testLeavesProviderWhenThereIsNoReadModel() {
+        contextRunner.run(context -> assertThat(context.getBean(SubscriptionProvider.class))
+                .isNotInstanceOf(ReadModelSubscriptionProvider.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testAppliesWritesMadeOutsideTheOperationService() {
+        contextRunner
+                .withUserConfiguration(ReadModelConfiguration.class,
+                        JobServiceConfiguration.class)
+                .run(context -> {
+                    Subscription subscription = new Subscription();
+                    subscription.setId("subscription");
+                    subscription.setSubscriptionStatus("ACTIVE");
+                    SubscriptionWithItems subscriptionWithItems = new SubscriptionWithItems();
+                    subscriptionWithItems.setSubscription(subscription);
+                    SubscriptionProvider<SubscriptionWithItems> delegate =
+                            context.getBean(ProviderConfiguration.class).getDelegate();
+                    when(delegate.readSubscriptionById(eq("subscription"), any()))
+                            .thenReturn(subscriptionWithItems);
+                    when(delegate.replaceSubscription(eq("subscription"), any(), any()))
+                            .thenAnswer(invocation -> invocation.getArgument(1));
+                    SubscriptionJob job = new SubscriptionJob();
+                    job.setType(SubscriptionJobType.CHANGE_STATUS);
+                    job.setSubscriptionStatus("SUSPENDED");
+
+                    context.getBean(SubscriptionJobService.class).apply(job, "subscription");
+
+                    SubscriptionReadModel<SubscriptionWithItems> readModel =
+                            context.getBean(SubscriptionReadModel.class);
+                    verify(readModel).applySubscription(eq(subscription), any());
+                });
+    }
+
+    @Configuration
+    static class ProviderConfiguration {
+
+        @SuppressWarnings("unchecked")
+        @Getter
+        private final SubscriptionProvider<SubscriptionWithItems> delegate =
+                mock(SubscriptionProvider.class);
+
+        @Bean
+        public static ReadModelSubscriptionProviderPostProcessor readModelSubscriptionProviderPostProcessor(
+                ObjectProvider<SubscriptionReadModel<SubscriptionWithItems>> readModel) {
+            return new ReadModelSubscriptionProviderPostProcessor(readModel);
+        }
+
+        @Bean
+        public SubscriptionProvider<SubscriptionWithItems> subscriptionProvider() {
+            return delegate;
+        }
+    }
+
+    @Configuration
+    static class ReadModelConfiguration {
+
+        @Bean
+        @SuppressWarnings("unchecked")
+        public SubscriptionReadModel<SubscriptionWithItems> subscriptionReadModel() {
+            return mock(SubscriptionReadModel.class);
+        }
+    }
+
+    @Configuration
+    static class JobServiceConfiguration {
+
+        @Bean
+        @SuppressWarnings("unchecked")
+        public SubscriptionJobService subscriptionJobService(
+                SubscriptionProvider<SubscriptionWithItems> subscriptionProvider) {
+            return new SubscriptionJobService(mock(SubscriptionJobStore.class),
+                    subscriptionProvider, mock(SubscriptionOperationService.class),
+                    mock(SubscriptionValidationService.class), mock(MessageSource.class),
+                    new ObjectMapper(), 10);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.provider;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import com.broadleafcommerce.subscriptionoperation.domain.Subscription;
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import cz.jirutka.rsql.parser.ast.ComparisonNode;
+import cz.jirutka.rsql.parser.ast.ComparisonOperator;
+
+@ExtendWith(MockitoExtension.class)
+public class ReadModelSubscriptionProviderTest {
+
+    private static final String USER_TYPE = "CUSTOMER";
+
+    private static final String USER = "customerId";
+
+    private static final Pageable PAGE = PageRequest.of(0, 10);
+
+    @Mock
+    private SubscriptionProvider<SubscriptionWithItems> delegate;
+
+    @Mock
+    private SubscriptionReadModel<SubscriptionWithItems> readModel;
+
+    private ReadModelSubscriptionProvider<SubscriptionWithItems> provider;
+
+    @BeforeEach
+    void setup() {
+        provider = new ReadModelSubscriptionProvider<>(delegate, readModel);
+    }
+
+    @Test
+    public void testServesCopiedSubscriptionsLocally() {
+        Page<SubscriptionWithItems> page = new PageImpl<>(subscriptions(2));
+        when(readModel.supportsQuery(PAGE, null)).thenReturn(true);
+        when(readModel.readSubscriptions(USER_TYPE, USER, PAGE, null))
+                .thenReturn(Optional.of(page));
+
+        assertThat(provider.readSubscriptionsForUserRefTypeAndUserRef(USER_TYPE, USER, PAGE,
+                null, null)).isSameAs(page);
+        verifyNoInteractions(delegate);
+    }
+
+    @Test
+    public void testCopiesSubscriptionsBeforeServingThemLocally() {
+        List<SubscriptionWithItems> subscriptions = subscriptions(2);
+        Page<SubscriptionWithItems> page = new PageImpl<>(subscriptions);
+        when(readModel.supportsQuery(null, null)).thenReturn(true);
+        when(readModel.countSubscriptions(USER_TYPE, USER, null))
+                .thenReturn(Optional.empty(), Optional.of(2L));
+        when(readModel.getMaxSubscriptionsPerOwner()).thenReturn(5);
+        when(delegate.readSubscriptionsForUserRefTypeAndUserRef(USER_TYPE, USER,
+                PageRequest.of(0, 6), null, null)).thenReturn(page);
+
+        assertThat(provider.countSubscriptions(USER_TYPE, USER, null, null)).isEqualTo(2);
+        verify(readModel).sync(USER_TYPE, USER, subscriptions, null);
+    }
+
+    @Test
+    public void testReadsUsersWithTooManySubscriptionsFromProvider() {
+        Page<SubscriptionWithItems> page = new PageImpl<>(subscriptions(2));
+        when(readModel.supportsQuery(PAGE, null)).thenReturn(true);
+        when(readModel.readSubscriptions(USER_TYPE, USER, PAGE, null))
+                .thenReturn(Optional.empty());
+        when(readModel.getMaxSubscriptionsPerOwner()).thenReturn(2);
+        when(delegate.readSubscriptionsForUserRefTypeAndUserRef(USER_TYPE, USER,
+                PageRequest.of(0, 3), null, null)).thenReturn(new PageImpl<>(subscriptions(3)));
+        when(delegate.readSubscriptionsForUserRefTypeAndUserRef(USER_TYPE, USER, PAGE, null,
+                null)).thenReturn(page);
+
+        assertThat(provider.readSubscriptionsForUserRefTypeAndUserRef(USER_TYPE, USER, PAGE,
+                null, null)).isSameAs(page);
+        verify(readModel).markTooLarge(USER_TYPE, USER, null);
+        verify(readModel, never()).sync(any(), any(), any(), isNull());
+    }
+
+    @Test
+    public void testReadsUnsupportedPagesFromProviderWithoutCopying() {
+        // The list endpoints sort by the audit creation time by default
+        Pageable sorted = PageRequest.of(0, 10,
+                Sort.by(Sort.Direction.DESC, "tracking.basicAudit.creationTime"));
+        Page<SubscriptionWithItems> page = new PageImpl<>(subscriptions(1));
+        when(readModel.supportsQuery(sorted, null)).thenReturn(false);
+        when(delegate.readSubscriptionsForUserRefTypeAndUserRef(USER_TYPE, USER, sorted, null,
+                null)).thenReturn(page);
+
+        assertThat(provider.readSubscriptionsForUserRefTypeAndUserRef(USER_TYPE, USER, sorted,
+                null, null)).isSameAs(page);
+        verify(readModel, never()).isSynced(any(), any(), any());
+        verify(readModel, never()).sync(any(), any(), any(), any());
+    }
+
+    @Test
+    public void testReadsFilteredSubscriptionsFromProvider() {
+        ComparisonNode filters =
+                new ComparisonNode(new ComparisonOperator("=="), "subscriptionStatus",
+                        List.of("ACTIVE"));
+        Page<SubscriptionWithItems> page = new PageImpl<>(subscriptions(1));
+        when(delegate.readSubscriptionsForUserRefTypeAndUserRef(USER_TYPE, USER, PAGE, filters,
+                null)).thenReturn(page);
+
+        assertThat(provider.readSubscriptionsForUserRefTypeAndUserRef(USER_TYPE, USER, PAGE,
+                filters, null)).isSameAs(page);
+        verifyNoInteractions(readModel);
+    }
+
+    @Test
+    public void testAppliesCreatedSubscriptions() {
+        SubscriptionWithItems subscription = subscriptions(1).get(0);
+        when(delegate.create(eq(subscription), isNull())).thenReturn(subscription);
+
+        provider.create(subscription, null);
+
+        verify(readModel).apply(subscription, null);
+    }
+
+    private List<SubscriptionWithItems> subscriptions(int count) {
+        return IntStream.range(0, count).mapToObj(i -> {
+            Subscription subscription = new Subscription();
+            subscription.setId("subscription" + i);
+            subscription.setUserRefType(USER_TYPE);
+            subscription.setUserRef(USER);
+            SubscriptionWithItems subscriptionWithItems = new SubscriptionWithItems();
+            subscriptionWithItems.setSubscription(subscription);
+            return subscriptionWithItems;
+        }).toList();
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.provider.external;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+import com.broadleafcommerce.subscriptionoperation.exception.ProviderOverloadedException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class AdaptiveConcurrencyLimitTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    public void testRejectsOverLimitWithoutQueue() {
+        AdaptiveConcurrencyLimit limit = limit(2, Duration.ZERO);
+        limit.acquire();
+        limit.acquire();
+
+        assertThatThrownBy(limit::acquire).isInstanceOf(ProviderOverloadedException.class);
+        assertThat(limit.getInFlight()).isEqualTo(2);
+    }
+
+    @Test
+    public void testQueuedRequestTimesOut() {
+        AdaptiveConcurrencyLimit limit = limit(1, Duration.ofMillis(10));
+        limit.acquire();
+
+        assertThatThrownBy(limit::acquire).isInstanceOf(ProviderOverloadedException.class)
+                .hasMessageContaining("Timed out");
+    }
+
+    @Test
+    public void testQueuedRequestProceedsOnRelease() throws Exception {
+        AdaptiveConcurrencyLimit limit = limit(1, Duration.ofSeconds(10));
+        AdaptiveConcurrencyLimit.Permit first = limit.acquire();
+
+        Thread waiter = new Thread(() -> limit.acquire().release(false));
+        waiter.start();
+        Thread.sleep(50);
+        first.release(false);
+        waiter.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertThat(waiter.isAlive()).isFalse();
+        assertThat(limit.getInFlight()).isZero();
+    }
+
+    @Test
+    public void testLimitGrowsWhileRttIsSteady() {
+        AdaptiveConcurrencyLimit limit = limit(10, Duration.ZERO);
+        for (int i = 0; i < 20; i++) {
+            runBatch(limit, limit.getLimit(), 10);
+        }
+
+        assertThat(limit.getLimit()).isGreaterThan(10);
+    }
+
+    @Test
+    public void testLimitShrinksWhenRttRises() {
+        AdaptiveConcurrencyLimit limit = limit(50, Duration.ZERO);
+        for (int i = 0; i < 10; i++) {
+            runBatch(limit, limit.getLimit(), 10);
+        }
+        int steady = limit.getLimit();
+
+        for (int i = 0; i < 5; i++) {
+            runBatch(limit, limit.getLimit(), 40);
+        }
+
+        assertThat(limit.getLimit()).isLessThan(steady);
+    }
+
+    @Test
+    public void testDropsBackOff() {
+        AdaptiveConcurrencyLimit limit = limit(20, Duration.ZERO);
+        for (int i = 0; i < 10; i++) {
+            limit.acquire().release(true);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(6);
+    }
+
+    @Test
+    public void testIgnoredSamplesDoNotChangeLimit() {
+        AdaptiveConcurrencyLimit limit = limit(10, Duration.ZERO);
+        runBatch(limit, 10, 10);
+        int limitBefore = limit.getLimit();
+
+        List<AdaptiveConcurrencyLimit.Permit> permits = acquire(limit, limitBefore);
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+        permits.forEach(permit -> {
+            permit.ignoreSample();
+            permit.release(false);
+        });
+
+        assertThat(limit.getLimit()).isEqualTo(limitBefore);
+    }
+
+    private AdaptiveConcurrencyLimit limit(int initialLimit, Duration maxWait) {
+        return new AdaptiveConcurrencyLimit("subscription", initialLimit, 1, 1000, 10, maxWait,
+                0.2, 0.9, 100, now::get);
+    }
+
+    private void runBatch(AdaptiveConcurrencyLimit limit, int size, long rttMillis) {
+        List<AdaptiveConcurrencyLimit.Permit> permits = acquire(limit, size);
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(rttMillis));
+        permits.forEach(permit -> permit.release(false));
+    }
+
+    private List<AdaptiveConcurrencyLimit.Permit> acquire(AdaptiveConcurrencyLimit limit,
+            int count) {
+        List<AdaptiveConcurrencyLimit.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            permits.add(limit.acquire());
+        }
+        return permits;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.provider.external;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.broadleafcommerce.common.extension.TypeFactory;
+import com.broadleafcommerce.data.tracking.core.context.ContextInfo;
+import com.broadleafcommerce.subscriptionoperation.domain.Subscription;
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class ExternalSubscriptionProviderTest {
+
+    private final List<List<String>> chunks = new ArrayList<>();
+
+    @Test
+    public void testIdsAreQuotedInTheFilter() {
+        ExternalSubscriptionProvider<SubscriptionWithItems> provider = provider(50);
+
+        assertThat(provider.buildReadSubscriptionsByIdsFilters(
+                List.of("sub-1", "a\",id=out=(\"b", "c\\")))
+                .isEqualTo("id=in=(\"sub-1\",\"a\\\",id=out=(\\\"b\",\"c\\\\\")");
+    }
+
+    @Test
+    public void testIdsAreReadInChunks() {
+        ExternalSubscriptionProvider<SubscriptionWithItems> provider = provider(2);
+
+        provider.readSubscriptionsByIds(List.of("1", "2", "3", "2", "4", "5"), null);
+
+        assertThat(chunks).containsExactly(List.of("1", "2"), List.of("3", "4"), List.of("5"));
+    }
+
+    @Test
+    public void testSubscriptionsAreReturnedInTheRequestedOrder() {
+        ExternalSubscriptionProvider<SubscriptionWithItems> provider = provider(2);
+
+        List<SubscriptionWithItems> subscriptions =
+                provider.readSubscriptionsByIds(List.of("3", "missing", "1", "2"), null);
+
+        assertThat(subscriptions)
+                .extracting(subscription -> subscription.getSubscription().getId())
+                .containsExactly("3", "1", "2");
+    }
+
+    private ExternalSubscriptionProvider<SubscriptionWithItems> provider(int chunkSize) {
+        ExternalSubscriptionProperties properties = new ExternalSubscriptionProperties();
+        properties.setReadByIdsChunkSize(chunkSize);
+        return new ExternalSubscriptionProvider<>(mock(WebClient.class), new ObjectMapper(),
+                mock(TypeFactory.class), properties) {
+            @Override
+            protected List<SubscriptionWithItems> readSubscriptionsByIdsChunk(
+                    List<String> subscriptionIds,
+                    ContextInfo contextInfo) {
+                chunks.add(List.copyOf(subscriptionIds));
+                // Providers return matches in their own order, and omit ids they do not know
+                List<String> ids = new ArrayList<>(subscriptionIds);
+                Collections.reverse(ids);
+                return ids.stream()
+                        .filter(id -> !"missing".equals(id))
+                        .map(ExternalSubscriptionProviderTest::subscription)
+                        .toList();
+            }
+        };
+    }
+
+    private static SubscriptionWithItems subscription(String id) {
+        Subscription subscription = new Subscription();
+        subscription.setId(id);
+        SubscriptionWithItems subscriptionWithItems = new SubscriptionWithItems();
+        subscriptionWithItems.setSubscription(subscription);
+        return subscriptionWithItems;
+    }
+}
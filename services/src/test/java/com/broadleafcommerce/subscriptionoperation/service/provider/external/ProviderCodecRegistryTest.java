@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.provider.external;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+
+import com.broadleafcommerce.subscriptionoperation.domain.Subscription;
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+
+public class ProviderCodecRegistryTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private final ProviderCodecRegistry registry = new ProviderCodecRegistry(objectMapper);
+
+    @Test
+    public void testBuildsEachReaderAndWriterOnce() {
+        assertThat(registry.getJavaType(Subscription.class))
+                .isSameAs(registry.getJavaType(Subscription.class));
+        assertThat(registry.getReader(Subscription.class))
+                .isSameAs(registry.getReader(Subscription.class));
+        assertThat(registry.getWriter(Subscription.class))
+                .isSameAs(registry.getWriter(Subscription.class));
+        assertThat(registry.getReader(registry.getPageType(SubscriptionWithItems.class)))
+                .isSameAs(registry.getReader(registry.getPageType(SubscriptionWithItems.class)));
+    }
+
+    @Test
+    public void testReadsWhatItWrites() {
+        Subscription subscription = new Subscription();
+        subscription.setId("subscription");
+        subscription.setUserRef("customer");
+        byte[] bytes = registry.write(subscription);
+
+        Subscription fromBytes = registry.read(bytes, Subscription.class);
+        Subscription fromBuffer = registry.read(buffer(bytes), Subscription.class);
+
+        assertThat(fromBytes.getId()).isEqualTo("subscription");
+        assertThat(fromBytes.getUserRef()).isEqualTo("customer");
+        assertThat(fromBuffer.getId()).isEqualTo("subscription");
+    }
+
+    @Test
+    public void testWrapsMalformedInput() {
+        byte[] malformed = "{\"id\":".getBytes(StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> registry.read(malformed, Subscription.class))
+                .isInstanceOf(DecodingException.class);
+        assertThatThrownBy(() -> registry.read(buffer(malformed), Subscription.class))
+                .isInstanceOf(DecodingException.class);
+    }
+
+    @Test
+    public void testReadsSmileAndFallsBackToJson() throws Exception {
+        ObjectMapper smileMapper = ProviderCodecRegistry.smileMapper(objectMapper);
+        ProviderCodecRegistry smileRegistry = new ProviderCodecRegistry(objectMapper, smileMapper);
+        Subscription subscription = new Subscription();
+        subscription.setId("subscription");
+        byte[] smile = smileMapper.writeValueAsBytes(subscription);
+        byte[] json = smileRegistry.write(subscription);
+
+        assertThat(smileRegistry.<Subscription>read(smile, Subscription.class).getId())
+                .isEqualTo("subscription");
+        assertThat(smileRegistry.<Subscription>read(buffer(smile), Subscription.class).getId())
+                .isEqualTo("subscription");
+        assertThat(smileRegistry.<Subscription>read(buffer(json), Subscription.class).getId())
+                .isEqualTo("subscription");
+        assertThat(new String(json, StandardCharsets.UTF_8)).startsWith("{");
+    }
+
+    @Test
+    public void testAcceptsSmileOnlyWhenEnabled() {
+        ProviderCodecRegistry smileRegistry = new ProviderCodecRegistry(objectMapper,
+                ProviderCodecRegistry.smileMapper(objectMapper));
+
+        assertThat(registry.getAcceptedMediaTypes()).containsExactly(MediaType.APPLICATION_JSON);
+        assertThat(smileRegistry.getAcceptedMediaTypes()).first()
+                .isEqualTo(ProviderCodecRegistry.SMILE_MEDIA_TYPE);
+        assertThat(smileRegistry.getAcceptedMediaTypes().get(1)
+                .isCompatibleWith(MediaType.APPLICATION_JSON)).isTrue();
+    }
+
+    private DataBuffer buffer(byte[] bytes) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(bytes);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.provider.external;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.broadleafcommerce.common.extension.TypeFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public class ProviderReadMemoTest {
+
+    private final ProviderReadMemo memo = new ProviderReadMemo(2, 8);
+
+    @BeforeEach
+    void setup() {
+        RequestContextHolder.setRequestAttributes(
+                new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void testReadsAreRememberedForTheCurrentRequest() {
+        memo.remember(memo.getReads("subscription"), "key", new byte[] {1});
+
+        assertThat(memo.getReads("subscription")).containsKey("key");
+        assertThat(memo.getReads("catalog")).isEmpty();
+
+        RequestContextHolder.setRequestAttributes(
+                new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertThat(memo.getReads("subscription")).isEmpty();
+    }
+
+    @Test
+    public void testReadsAreNotRememberedWithoutARequest() {
+        RequestContextHolder.resetRequestAttributes();
+
+        assertThat(memo.getReads("subscription")).isNull();
+    }
+
+    @Test
+    public void testReadsAreBounded() {
+        Map<String, byte[]> reads = memo.getReads("subscription");
+        memo.remember(reads, "large", new byte[9]);
+        memo.remember(reads, "first", new byte[8]);
+        memo.remember(reads, "second", new byte[1]);
+        memo.remember(reads, "third", new byte[1]);
+
+        assertThat(reads).containsOnlyKeys("first", "second");
+    }
+
+    @Test
+    public void testForgetRemovesOnlyTheGivenProvider() {
+        memo.remember(memo.getReads("subscription"), "key", new byte[] {1});
+        memo.remember(memo.getReads("catalog"), "key", new byte[] {1});
+
+        memo.forget("subscription");
+
+        assertThat(memo.getReads("subscription")).isEmpty();
+        assertThat(memo.getReads("catalog")).containsKey("key");
+    }
+
+    @Test
+    public void testReusedReadsDoNotTakeAConcurrencySlot() {
+        ProviderConcurrencyLimiter limiter =
+                spy(new ProviderConcurrencyLimiter(new ProviderConcurrencyLimitProperties()));
+        AbstractExternalProvider provider = new AbstractExternalProvider(mock(WebClient.class),
+                new ObjectMapper(), mock(TypeFactory.class)) {};
+        provider.setReadMemo(memo);
+        provider.setConcurrencyLimiter(limiter);
+
+        AtomicInteger requests = new AtomicInteger();
+        Supplier<Optional<DataBuffer>> request = () -> {
+            requests.incrementAndGet();
+            return Optional.of(DefaultDataBufferFactory.sharedInstance
+                    .wrap("\"value\"".getBytes(StandardCharsets.UTF_8)));
+        };
+        for (int i = 0; i < 2; i++) {
+            assertThat(provider.readMemoized("read", "/uri", new HttpHeaders(),
+                    new ParameterizedTypeReference<String>() {}, request)).contains("value");
+        }
+
+        assertThat(requests).hasValue(1);
+        verify(limiter, times(1)).acquire(anyString());
+        assertThat(limiter.getLimit(provider.getProviderName()).getInFlight()).isZero();
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.transition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.broadleafcommerce.data.tracking.core.context.ContextInfo;
+import com.broadleafcommerce.data.tracking.core.exception.EntityMissingException;
+import com.broadleafcommerce.subscriptionoperation.domain.Subscription;
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
+import com.broadleafcommerce.subscriptionoperation.domain.enums.SubscriptionStatuses;
+import com.broadleafcommerce.subscriptionoperation.service.SubscriptionChangeListener;
+import com.broadleafcommerce.subscriptionoperation.service.metrics.SubscriptionOperationMetrics;
+import com.broadleafcommerce.subscriptionoperation.service.provider.SubscriptionProvider;
+import com.broadleafcommerce.subscriptionoperation.service.provider.SubscriptionReadModel;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+
+@ExtendWith(MockitoExtension.class)
+public class SubscriptionTransitionProcessorTest {
+
+    private static final String SUBSCRIPTION_ID = "subscriptionId";
+
+    private static final String TENANT = "tenant";
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    @Mock
+    private DueTransitionSource source;
+
+    @Mock
+    private TransitionPartitionLeases leases;
+
+    @Mock
+    private SubscriptionProvider<SubscriptionWithItems> subscriptionProvider;
+
+    @Mock
+    private SubscriptionReadModel<SubscriptionWithItems> readModel;
+
+    @Mock
+    private SubscriptionOperationMetrics metrics;
+
+    @Mock
+    private SubscriptionChangeListener changeListener;
+
+    private SubscriptionTransitionProcessor processor;
+
+    @BeforeEach
+    void setup() {
+        processor = new SubscriptionTransitionProcessor(source, leases, subscriptionProvider,
+                readModel, 4, Duration.ofSeconds(30), Duration.ofMinutes(2), 10, 2,
+                Duration.ofMinutes(5), 5, 4, Clock.fixed(NOW, ZoneOffset.UTC));
+        processor.setMetrics(metrics);
+        processor.setChangeListeners(List.of(changeListener));
+    }
+
+    @Test
+    public void testAppliesDueTransition() {
+        SubscriptionWithItems current = subscription(SubscriptionStatuses.CANCELLED.name(),
+                NOW.minusSeconds(60));
+        when(subscriptionProvider.readSubscriptionById(eq(SUBSCRIPTION_ID),
+                any(ContextInfo.class))).thenReturn(current);
+        when(subscriptionProvider.replaceSubscription(eq(SUBSCRIPTION_ID), any(),
+                any(ContextInfo.class))).thenAnswer(invocation -> invocation.getArgument(1));
+
+        assertThat(processor.apply(transition(), NOW))
+                .isEqualTo(SubscriptionOperationMetrics.TRANSITION_APPLIED);
+
+        ArgumentCaptor<Subscription> replaced = ArgumentCaptor.forClass(Subscription.class);
+        ArgumentCaptor<ContextInfo> context = ArgumentCaptor.forClass(ContextInfo.class);
+        verify(subscriptionProvider).replaceSubscription(eq(SUBSCRIPTION_ID),
+                replaced.capture(), context.capture());
+        assertThat(replaced.getValue().getSubscriptionStatus())
+                .isEqualTo(SubscriptionStatuses.CANCELLED.name());
+        assertThat(replaced.getValue().getSubscriptionNextStatus()).isNull();
+        assertThat(replaced.getValue().getNextStatusChangeDate()).isNull();
+        assertThat(replaced.getValue().getNextStatusChangeReason()).isNull();
+        assertThat(context.getValue().getContextRequest().getTenantId()).isEqualTo(TENANT);
+        verify(readModel).applySubscription(replaced.getValue(), context.getValue());
+        verify(changeListener).onSubscriptionChanged(replaced.getValue(), context.getValue());
+    }
+
+    @Test
+    public void testSkipsTransitionNoLongerDue() {
+        // Auto-renewal was enabled again since the subscription was copied
+        SubscriptionWithItems current = subscription(null, null);
+        when(subscriptionProvider.readSubscriptionById(eq(SUBSCRIPTION_ID),
+                any(ContextInfo.class))).thenReturn(current);
+
+        assertThat(processor.apply(transition(), NOW))
+                .isEqualTo(SubscriptionOperationMetrics.TRANSITION_SKIPPED);
+
+        verify(subscriptionProvider, never()).replaceSubscription(anyString(), any(), any());
+        verify(readModel).apply(eq(current), any(ContextInfo.class));
+        verifyNoInteractions(changeListener);
+    }
+
+    @Test
+    public void testSkipsTransitionOfMissingSubscription() {
+        when(subscriptionProvider.readSubscriptionById(eq(SUBSCRIPTION_ID),
+                any(ContextInfo.class))).thenThrow(new EntityMissingException());
+
+        assertThat(processor.apply(transition(), NOW))
+                .isEqualTo(SubscriptionOperationMetrics.TRANSITION_SKIPPED);
+
+        verify(readModel).remove(eq(SUBSCRIPTION_ID), any(ContextInfo.class));
+    }
+
+    @Test
+    public void testPostponesFailedTransition() {
+        when(subscriptionProvider.readSubscriptionById(eq(SUBSCRIPTION_ID),
+                any(ContextInfo.class))).thenThrow(new IllegalStateException("unavailable"));
+
+        processor.process(transition(), true);
+
+        verify(source).postpone(SUBSCRIPTION_ID, NOW.plus(Duration.ofMinutes(5)));
+        verify(metrics).recordTransition(eq(SubscriptionOperationMetrics.ERROR), eq(true),
+                anyLong());
+    }
+
+    private DueTransition transition() {
+        return new DueTransition(SUBSCRIPTION_ID, TENANT, SubscriptionStatuses.CANCELLED.name(),
+                NOW.minusSeconds(60), null);
+    }
+
+    private SubscriptionWithItems subscription(String nextStatus, Instant nextStatusChangeDate) {
+        Subscription subscription = new Subscription();
+        subscription.setId(SUBSCRIPTION_ID);
+        subscription.setSubscriptionStatus(SubscriptionStatuses.ACTIVE.name());
+        subscription.setSubscriptionNextStatus(nextStatus);
+        subscription.setNextStatusChangeDate(
+                nextStatusChangeDate == null ? null : Date.from(nextStatusChangeDate));
+        subscription.setNextStatusChangeReason(nextStatus == null ? null : "Auto-renewal disabled");
+        SubscriptionWithItems subscriptionWithItems = new SubscriptionWithItems();
+        subscriptionWithItems.setSubscription(subscription);
+        return subscriptionWithItems;
+    }
+}
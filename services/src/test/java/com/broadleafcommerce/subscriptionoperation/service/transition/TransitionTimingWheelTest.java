@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.service.transition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+public class TransitionTimingWheelTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    private TransitionTimingWheel wheel;
+
+    @BeforeEach
+    public void setUp() {
+        wheel = new TransitionTimingWheel(Duration.ofSeconds(1), 60, 10);
+        wheel.reset(NOW, List.of(), null);
+    }
+
+    @Test
+    public void testAdvanceReturnsTransitionsOnceDue() {
+        assertThat(wheel.schedule(transition("a", NOW.plusSeconds(5)))).isTrue();
+        assertThat(wheel.schedule(transition("b", NOW.plusSeconds(10)))).isTrue();
+
+        assertThat(wheel.advance(NOW.plusSeconds(4))).isEmpty();
+        assertThat(wheel.advance(NOW.plusSeconds(7)))
+                .extracting(DueTransition::getSubscriptionId)
+                .containsExactly("a");
+        assertThat(wheel.advance(NOW.plusSeconds(30)))
+                .extracting(DueTransition::getSubscriptionId)
+                .containsExactly("b");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    public void testScheduleReplacesAndCancelRemoves() {
+        wheel.schedule(transition("a", NOW.plusSeconds(5)));
+        wheel.schedule(transition("a", NOW.plusSeconds(20)));
+        wheel.schedule(transition("b", NOW.plusSeconds(5)));
+
+        assertThat(wheel.cancel("b")).isTrue();
+        assertThat(wheel.cancel("b")).isFalse();
+        assertThat(wheel.advance(NOW.plusSeconds(10))).isEmpty();
+        assertThat(wheel.advance(NOW.plusSeconds(20)))
+                .extracting(DueTransition::getSubscriptionId)
+                .containsExactly("a");
+    }
+
+    @Test
+    public void testOverdueTransitionsAreDueOnNextTick() {
+        wheel.reset(NOW, List.of(transition("a", NOW.minusSeconds(600))), null);
+
+        assertThat(wheel.advance(NOW.plusSeconds(1)))
+                .extracting(DueTransition::getSubscriptionId)
+                .containsExactly("a");
+    }
+
+    @Test
+    public void testScheduleRejectsTransitionsBeyondLimit() {
+        assertThat(wheel.schedule(transition("a", NOW.plusSeconds(60)))).isFalse();
+
+        wheel.reset(NOW, List.of(), NOW.plusSeconds(10));
+
+        assertThat(wheel.schedule(transition("a", NOW.plusSeconds(9)))).isTrue();
+        assertThat(wheel.schedule(transition("b", NOW.plusSeconds(10)))).isFalse();
+    }
+
+    @Test
+    public void testAdvanceFarAheadDrainsEveryBucketOnce() {
+        wheel.schedule(transition("a", NOW.plusSeconds(30)));
+
+        assertThat(wheel.advance(NOW.plusSeconds(3600))).hasSize(1);
+        assertThat(wheel.schedule(transition("b", NOW.plusSeconds(3630)))).isTrue();
+        assertThat(wheel.advance(NOW.plusSeconds(3629))).isEmpty();
+        assertThat(wheel.advance(NOW.plusSeconds(3630))).hasSize(1);
+    }
+
+    private DueTransition transition(String subscriptionId, Instant date) {
+        return new DueTransition(subscriptionId, null, "CANCELLED", date, null);
+    }
+}
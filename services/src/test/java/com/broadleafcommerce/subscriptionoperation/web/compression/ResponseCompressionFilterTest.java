@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2020 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.web.compression;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+
+import com.broadleafcommerce.subscriptionoperation.web.compression.DeflaterPool.Encoding;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import jakarta.servlet.FilterChain;
+
+public class ResponseCompressionFilterTest {
+
+    private static final String LARGE_BODY = "{\"subscription\":\"value\"},".repeat(200);
+
+    private DeflaterPool pool;
+
+    private ResponseCompressionFilter filter;
+
+    @BeforeEach
+    void setup() {
+        pool = new DeflaterPool(Deflater.DEFAULT_COMPRESSION, 512, 4);
+        filter = new ResponseCompressionFilter(pool, 1024,
+                List.of(MediaType.APPLICATION_JSON, MediaType.parseMediaType("text/*")));
+    }
+
+    @Test
+    public void testGzipCompression() throws Exception {
+        MockHttpServletResponse response =
+                filter("gzip, deflate", MediaType.APPLICATION_JSON_VALUE, LARGE_BODY);
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(response.getHeader(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT_ENCODING);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_LENGTH)).isNull();
+        assertThat(response.getContentAsByteArray().length).isLessThan(LARGE_BODY.length());
+        assertThat(decompress(new GZIPInputStream(
+                new ByteArrayInputStream(response.getContentAsByteArray()))))
+                        .isEqualTo(LARGE_BODY);
+    }
+
+    @Test
+    public void testDeflateCompressionByQuality() throws Exception {
+        MockHttpServletResponse response =
+                filter("gzip;q=0.5, deflate", MediaType.APPLICATION_JSON_VALUE, LARGE_BODY);
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("deflate");
+        assertThat(decompress(new InflaterInputStream(
+                new ByteArrayInputStream(response.getContentAsByteArray()))))
+                        .isEqualTo(LARGE_BODY);
+    }
+
+    @Test
+    public void testSmallResponseNotCompressed() throws Exception {
+        MockHttpServletResponse response =
+                filter("gzip", MediaType.APPLICATION_JSON_VALUE, "{\"small\":true}");
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(response.getContentAsString()).isEqualTo("{\"small\":true}");
+        assertThat(response.getContentLength()).isEqualTo(14);
+    }
+
+    @Test
+    public void testNotAcceptedNotCompressed() throws Exception {
+        MockHttpServletResponse response =
+                filter("identity, gzip;q=0", MediaType.APPLICATION_JSON_VALUE, LARGE_BODY);
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(response.getContentAsString()).isEqualTo(LARGE_BODY);
+    }
+
+    @Test
+    public void testIncompressibleTypeNotCompressed() throws Exception {
+        MockHttpServletResponse response =
+                filter("gzip", MediaType.IMAGE_PNG_VALUE, LARGE_BODY);
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(response.getContentAsString()).isEqualTo(LARGE_BODY);
+    }
+
+    @Test
+    public void testDeflatersReused() throws Exception {
+        filter("gzip", MediaType.APPLICATION_JSON_VALUE, LARGE_BODY);
+        assertThat(pool.getPooled(Encoding.GZIP)).isEqualTo(1);
+
+        MockHttpServletResponse response =
+                filter("gzip", MediaType.APPLICATION_JSON_VALUE, LARGE_BODY);
+        assertThat(pool.getPooled(Encoding.GZIP)).isEqualTo(1);
+        assertThat(decompress(new GZIPInputStream(
+                new ByteArrayInputStream(response.getContentAsByteArray()))))
+                        .isEqualTo(LARGE_BODY);
+    }
+
+    private MockHttpServletResponse filter(String acceptEncoding, String contentType, String body)
+            throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/subscriptions");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        FilterChain chain = (req, res) -> {
+            res.setContentType(contentType);
+            res.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            res.getWriter().write(body);
+        };
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private String decompress(InputStream in) throws Exception {
+        try (in) {
+            return StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+        }
+    }
+}
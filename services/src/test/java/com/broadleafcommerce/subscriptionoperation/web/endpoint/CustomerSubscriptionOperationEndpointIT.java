@@ -23,6 +23,8 @@ import static org.mockito.Mockito.spy;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -35,6 +37,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -47,13 +50,16 @@ import com.broadleafcommerce.subscriptionoperation.domain.Subscription;
 import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
 import com.broadleafcommerce.subscriptionoperation.domain.enums.DefaultSubscriptionActionType;
 import com.broadleafcommerce.subscriptionoperation.domain.enums.DefaultUserRefTypes;
+import com.broadleafcommerce.subscriptionoperation.domain.enums.SubscriptionProjection;
 import com.broadleafcommerce.subscriptionoperation.service.provider.SubscriptionProvider;
 import com.broadleafcommerce.subscriptionoperation.web.domain.SubscriptionActionRequest;
+import com.broadleafcommerce.subscriptionoperation.web.domain.SubscriptionBatchActionRequest;
 import com.broadleafcommerce.subscriptionoperation.web.endpoint.util.InMemorySubscriptionProvider;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import io.azam.ulidj.ULID;
@@ -168,6 +174,53 @@ class CustomerSubscriptionOperationEndpointIT {
                         .value(REGISTERED_CUSTOMER_ID));
     }
 
+    @Test
+    void readsSubscriptionSummariesWithoutItems() throws Exception {
+        inMemorySubscriptionProvider.create(getSubscriptionForCustomer(REGISTERED_CUSTOMER_ID),
+                createContextInfo());
+
+        Map<String, Object> authDetails = new HashMap<>();
+        authDetails.put("customer_id", REGISTERED_CUSTOMER_ID);
+
+        mockMvc.perform(get(CUSTOMER_URI + CUSTOMER_READ_URI, REGISTERED_CUSTOMER_ID)
+                .param("projection", SubscriptionProjection.SUMMARY.name())
+                .with(authUtil.withAuthoritiesAndDetails(Sets.newSet("READ_CUSTOMER_SUBSCRIPTION"),
+                        authDetails))
+                .header(CONTEXT_REQUEST_HEADER, getContextRequest(TENANT))
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].subscription.userRef")
+                        .value(REGISTERED_CUSTOMER_ID))
+                .andExpect(jsonPath("$.content[0].subscriptionItems").doesNotExist());
+    }
+
+    @Test
+    void countsSubscriptionsWithPermission() throws Exception {
+        inMemorySubscriptionProvider.create(getSubscriptionForCustomer(REGISTERED_CUSTOMER_ID),
+                createContextInfo());
+        inMemorySubscriptionProvider.create(getSubscriptionForCustomer(REGISTERED_CUSTOMER_ID),
+                createContextInfo());
+
+        Map<String, Object> authDetails = new HashMap<>();
+        authDetails.put("customer_id", REGISTERED_CUSTOMER_ID);
+
+        mockMvc.perform(get(CUSTOMER_URI + CUSTOMER_READ_URI + "/count", REGISTERED_CUSTOMER_ID)
+                .with(authUtil.withAuthoritiesAndDetails(Sets.newSet("READ_CUSTOMER_SUBSCRIPTION"),
+                        authDetails))
+                .header(CONTEXT_REQUEST_HEADER, getContextRequest(TENANT))
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().string("2"));
+
+        mockMvc.perform(get(CUSTOMER_URI + CUSTOMER_READ_URI + "/exists", REGISTERED_CUSTOMER_ID)
+                .with(authUtil.withAuthoritiesAndDetails(Sets.newSet("READ_CUSTOMER_SUBSCRIPTION"),
+                        authDetails))
+                .header(CONTEXT_REQUEST_HEADER, getContextRequest(TENANT))
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().string("true"));
+    }
+
     @Test
     void cannotReadSubscriptionByIdWithoutPermissionAndWrongCustomer() throws Exception {
         SubscriptionWithItems subscriptionWithItems =
@@ -465,6 +518,88 @@ class CustomerSubscriptionOperationEndpointIT {
                         .value("Downgrade is not supported"));
     }
 
+    @Test
+    void readsSubscriptionByIdConditionally() throws Exception {
+        SubscriptionWithItems subscriptionWithItems =
+                getSubscriptionForCustomer(REGISTERED_CUSTOMER_ID);
+        subscriptionWithItems.getSubscription().setVersion(3);
+        String subscriptionId = subscriptionWithItems.getSubscription().getId();
+        inMemorySubscriptionProvider.create(subscriptionWithItems, createContextInfo());
+
+        Map<String, Object> authDetails = new HashMap<>();
+        authDetails.put("customer_id", REGISTERED_CUSTOMER_ID);
+
+        String eTag = mockMvc.perform(
+                get(CUSTOMER_URI + CUSTOMER_READ_BY_ID_URI, REGISTERED_CUSTOMER_ID, subscriptionId)
+                        .with(authUtil.withAuthoritiesAndDetails(
+                                Sets.newSet("READ_CUSTOMER_SUBSCRIPTION"), authDetails))
+                        .header(CONTEXT_REQUEST_HEADER, getContextRequest(TENANT))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(
+                get(CUSTOMER_URI + CUSTOMER_READ_BY_ID_URI, REGISTERED_CUSTOMER_ID, subscriptionId)
+                        .with(authUtil.withAuthoritiesAndDetails(
+                                Sets.newSet("READ_CUSTOMER_SUBSCRIPTION"), authDetails))
+                        .header(CONTEXT_REQUEST_HEADER, getContextRequest(TENANT))
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        // Actions are part of the tag, so reading with them is a different representation
+        mockMvc.perform(
+                get(CUSTOMER_URI + CUSTOMER_READ_BY_ID_URI, REGISTERED_CUSTOMER_ID, subscriptionId)
+                        .param("getActions", "true")
+                        .with(authUtil.withAuthoritiesAndDetails(
+                                Sets.newSet("READ_CUSTOMER_SUBSCRIPTION"), authDetails))
+                        .header(CONTEXT_REQUEST_HEADER, getContextRequest(TENANT))
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void readsBatchSubscriptionActionsForOwnedSubscriptions() throws Exception {
+        SubscriptionWithItems first = getSubscriptionForCustomer(REGISTERED_CUSTOMER_ID);
+        SubscriptionWithItems second = getSubscriptionForCustomer(REGISTERED_CUSTOMER_ID);
+        SubscriptionWithItems otherCustomers = getSubscriptionForCustomer("2");
+        inMemorySubscriptionProvider.create(first, createContextInfo());
+        inMemorySubscriptionProvider.create(second, createContextInfo());
+        inMemorySubscriptionProvider.create(otherCustomers, createContextInfo());
+
+        SubscriptionBatchActionRequest request = new SubscriptionBatchActionRequest();
+        request.setSubscriptionIds(List.of(first.getSubscription().getId(),
+                second.getSubscription().getId(),
+                otherCustomers.getSubscription().getId()));
+
+        Map<String, Object> authDetails = new HashMap<>();
+        authDetails.put("customer_id", REGISTERED_CUSTOMER_ID);
+
+        mockMvc.perform(
+                post(CUSTOMER_URI + CUSTOMER_READ_URI + "/actions", REGISTERED_CUSTOMER_ID)
+                        .with(authUtil.withAuthoritiesAndDetails(
+                                Sets.newSet("READ_CUSTOMER_SUBSCRIPTION"),
+                                authDetails))
+                        .contentType(APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(request))
+                        .header(CONTEXT_REQUEST_HEADER, getContextRequest(TENANT))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$['" + first.getSubscription().getId()
+                        + "'].unavailableReasonsByActionType.DOWNGRADE[0]")
+                                .value("Downgrade is not supported"))
+                .andExpect(jsonPath("$['" + second.getSubscription().getId()
+                        + "'].availableActions").isNotEmpty())
+                .andExpect(jsonPath("$['" + otherCustomers.getSubscription().getId() + "']")
+                        .doesNotExist());
+    }
+
     private SubscriptionWithItems getSubscriptionForCustomer(String userRef) {
         SubscriptionWithItems subscriptionWithItems = new SubscriptionWithItems();
         Subscription subscription = new Subscription();
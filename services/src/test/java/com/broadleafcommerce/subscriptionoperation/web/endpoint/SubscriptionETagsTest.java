@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.web.endpoint;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import com.broadleafcommerce.subscriptionoperation.domain.Subscription;
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
+import com.broadleafcommerce.subscriptionoperation.service.provider.ConditionalRead;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SubscriptionETagsTest {
+
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Test
+    public void testBuildsTagsFromProviderTagOrVersion() {
+        assertThat(SubscriptionETags.build("\"abc\"", 3, null)).isEqualTo("W/\"ps:abc;n\"");
+        assertThat(SubscriptionETags.build("W/\"abc\"", null, "1")).isEqualTo("W/\"pw:abc;a1\"");
+        assertThat(SubscriptionETags.build(null, 3, null)).isEqualTo("W/\"v:3;n\"");
+        assertThat(SubscriptionETags.build(null, null, null)).isNull();
+    }
+
+    @Test
+    public void testResolvesProviderTagForTheSameActionInputs() {
+        String ifNoneMatch = "W/\"v:3;n\", W/\"pw:abc;a1\", W/\"ps:def;n\"";
+
+        assertThat(SubscriptionETags.resolveProviderETag(ifNoneMatch, "1"))
+                .isEqualTo("W/\"abc\"");
+        assertThat(SubscriptionETags.resolveProviderETag(ifNoneMatch, null))
+                .isEqualTo("\"def\"");
+        assertThat(SubscriptionETags.resolveProviderETag(ifNoneMatch, "2")).isNull();
+        assertThat(SubscriptionETags.resolveProviderETag(null, null)).isNull();
+    }
+
+    @Test
+    public void testMatchesTagsWeakly() {
+        assertThat(SubscriptionETags.matches("\"ps:abc;n\"", "W/\"ps:abc;n\"")).isTrue();
+        assertThat(SubscriptionETags.matches("W/\"v:1;n\", W/\"ps:abc;n\"", "\"ps:abc;n\""))
+                .isTrue();
+        assertThat(SubscriptionETags.matches("*", "W/\"ps:abc;n\"")).isTrue();
+        assertThat(SubscriptionETags.matches("W/\"ps:def;n\"", "W/\"ps:abc;n\"")).isFalse();
+        assertThat(SubscriptionETags.matches(null, "W/\"ps:abc;n\"")).isFalse();
+    }
+
+    @Test
+    public void testNotModifiedWhenProviderTagLeadsBackToClientTag() {
+        AtomicInteger rereads = new AtomicInteger();
+
+        SubscriptionWithItems body = SubscriptionETags.checkNotModified(
+                ConditionalRead.notModified(null), "\"abc\"", null, request("W/\"ps:abc;n\""),
+                () -> {
+                    rereads.incrementAndGet();
+                    return ConditionalRead.of(subscription(), "\"abc\"");
+                });
+
+        assertThat(body).isNull();
+        assertThat(rereads).hasValue(0);
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+    }
+
+    @Test
+    public void testRereadsWhenProviderTagDoesNotLeadBackToClientTag() {
+        SubscriptionWithItems subscription = subscription();
+
+        SubscriptionWithItems body = SubscriptionETags.checkNotModified(
+                ConditionalRead.notModified("\"def\""), "\"abc\"", null,
+                request("W/\"ps:abc;n\""), () -> ConditionalRead.of(subscription, "\"def\""));
+
+        assertThat(body).isSameAs(subscription);
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("W/\"ps:def;n\"");
+    }
+
+    @Test
+    public void testFailsWhenUnconditionalReadIsNotModified() {
+        assertThatThrownBy(() -> SubscriptionETags.checkNotModified(
+                ConditionalRead.notModified("\"def\""), "\"abc\"", null,
+                request("W/\"ps:abc;n\""), () -> ConditionalRead.notModified("\"def\"")))
+                        .isInstanceOf(IllegalStateException.class);
+    }
+
+    private ServletWebRequest request(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/subscriptions/id");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        return new ServletWebRequest(request, response);
+    }
+
+    private SubscriptionWithItems subscription() {
+        Subscription subscription = new Subscription();
+        subscription.setId("id");
+        SubscriptionWithItems subscriptionWithItems = new SubscriptionWithItems();
+        subscriptionWithItems.setSubscription(subscription);
+        return subscriptionWithItems;
+    }
+}
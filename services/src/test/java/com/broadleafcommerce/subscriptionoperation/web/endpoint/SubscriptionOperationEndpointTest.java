@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.web.endpoint;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.broadleafcommerce.subscriptionoperation.domain.Subscription;
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionItem;
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
+import com.broadleafcommerce.subscriptionoperation.service.SubscriptionOperationService;
+import com.broadleafcommerce.subscriptionoperation.service.exception.InvalidSubscriptionReadRequestException;
+import com.broadleafcommerce.subscriptionoperation.service.provider.external.ExternalSubscriptionProperties;
+
+import java.util.List;
+
+@ExtendWith(MockitoExtension.class)
+public class SubscriptionOperationEndpointTest {
+
+    @Mock
+    private SubscriptionOperationService<Subscription, SubscriptionItem, SubscriptionWithItems> subscriptionOperationService;
+
+    private SubscriptionOperationEndpoint endpoint;
+
+    @BeforeEach
+    void setup() {
+        ExternalSubscriptionProperties properties = new ExternalSubscriptionProperties();
+        properties.setMaxReadByIds(2);
+        endpoint = new SubscriptionOperationEndpoint(subscriptionOperationService);
+        endpoint.setSubscriptionProviderProperties(properties);
+    }
+
+    @Test
+    public void testReadsUpToTheMaximumNumberOfIds() {
+        List<SubscriptionWithItems> subscriptions = List.of(new SubscriptionWithItems());
+        when(subscriptionOperationService.readSubscriptionsByIds(List.of("1", "2"), null))
+                .thenReturn(subscriptions);
+
+        assertThat(endpoint.readSubscriptionsByIds(List.of("1", "2"), null))
+                .isSameAs(subscriptions);
+    }
+
+    @Test
+    public void testRejectsMoreThanTheMaximumNumberOfIds() {
+        assertThatThrownBy(() -> endpoint.readSubscriptionsByIds(List.of("1", "2", "3"), null))
+                .isInstanceOf(InvalidSubscriptionReadRequestException.class);
+        verifyNoInteractions(subscriptionOperationService);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.web.endpoint.load;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import lombok.Getter;
+
+/**
+ * The outcome of running a single load scenario in a single execution mode.
+ */
+@Getter
+public class LoadTestResult {
+
+    private static final String ROW_FORMAT =
+            "%-28s %-9s %9s %7s %10s %10s %10s %11s %12s %10s%n";
+
+    private final String scenario;
+
+    private final String mode;
+
+    private final int requests;
+
+    private final int errors;
+
+    private final long p50Nanos;
+
+    private final long p99Nanos;
+
+    private final long maxNanos;
+
+    private final double throughput;
+
+    private final long allocatedBytesPerRequest;
+
+    private final double allocationRateMbPerSecond;
+
+    /**
+     * @param scenario the name of the scenario that was run
+     * @param mode the execution mode the requests were issued from
+     * @param latencies the latency, in nanoseconds, of each measured request
+     * @param errors the number of requests that did not complete successfully
+     * @param elapsedNanos the wall-clock duration of the measured run
+     * @param allocatedBytes the bytes allocated by the server and driver while measuring, or
+     *        {@code -1} if allocation could not be measured
+     */
+    public LoadTestResult(String scenario,
+            String mode,
+            long[] latencies,
+            int errors,
+            long elapsedNanos,
+            long allocatedBytes) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        double elapsedSeconds = Math.max(elapsedNanos, 1) / (double) TimeUnit.SECONDS.toNanos(1);
+
+        this.scenario = scenario;
+        this.mode = mode;
+        this.requests = sorted.length;
+        this.errors = errors;
+        this.p50Nanos = percentile(sorted, 50);
+        this.p99Nanos = percentile(sorted, 99);
+        this.maxNanos = sorted.length == 0 ? 0 : sorted[sorted.length - 1];
+        this.throughput = sorted.length / elapsedSeconds;
+        this.allocatedBytesPerRequest =
+                allocatedBytes < 0 || sorted.length == 0 ? -1 : allocatedBytes / sorted.length;
+        this.allocationRateMbPerSecond =
+                allocatedBytes < 0 ? -1 : allocatedBytes / (1024d * 1024d) / elapsedSeconds;
+    }
+
+    /**
+     * Determines the nearest-rank percentile of the given, already sorted, values.
+     *
+     * @param sorted the values in ascending order
+     * @param percentile the percentile to resolve, between 0 and 100
+     * @return the value at the given percentile, or {@code 0} if there are no values
+     */
+    public static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100d * sorted.length);
+        return sorted[Math.min(Math.max(rank, 1), sorted.length) - 1];
+    }
+
+    /**
+     * Renders the given results as a plain-text table, one row per scenario and mode.
+     *
+     * @param results the results to render
+     * @return the rendered table
+     */
+    public static String format(List<LoadTestResult> results) {
+        StringBuilder table = new StringBuilder(System.lineSeparator());
+        table.append(String.format(ROW_FORMAT, "scenario", "mode", "requests", "errors",
+                "p50 (ms)", "p99 (ms)", "max (ms)", "req/s", "alloc B/req", "alloc MB/s"));
+        for (LoadTestResult result : results) {
+            table.append(String.format(ROW_FORMAT,
+                    result.getScenario(),
+                    result.getMode(),
+                    result.getRequests(),
+                    result.getErrors(),
+                    millis(result.getP50Nanos()),
+                    millis(result.getP99Nanos()),
+                    millis(result.getMaxNanos()),
+                    String.format("%.1f", result.getThroughput()),
+                    result.getAllocatedBytesPerRequest() < 0 ? "n/a"
+                            : String.valueOf(result.getAllocatedBytesPerRequest()),
+                    result.getAllocationRateMbPerSecond() < 0 ? "n/a"
+                            : String.format("%.1f", result.getAllocationRateMbPerSecond())));
+        }
+        return table.toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2f", nanos / 1_000_000d);
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.web.endpoint.load;
+
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import com.broadleafcommerce.common.error.ApiError;
+import com.broadleafcommerce.data.tracking.core.exception.EntityMissingException;
+import com.broadleafcommerce.subscriptionoperation.domain.Product;
+import com.broadleafcommerce.subscriptionoperation.domain.Subscription;
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
+import com.broadleafcommerce.subscriptionoperation.service.provider.external.ExternalCatalogProvider;
+import com.broadleafcommerce.subscriptionoperation.service.provider.external.ExternalSubscriptionProvider;
+import com.broadleafcommerce.subscriptionoperation.web.endpoint.util.InMemorySubscriptionProvider;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+/**
+ * A local stand-in for the billing and catalog services, used to drive the subscription operation
+ * endpoints under load. Data is held by an {@link InMemorySubscriptionProvider}, but unlike the
+ * endpoint integration tests it is served over HTTP, so every request exercises the real
+ * {@link ExternalSubscriptionProvider} and {@link ExternalCatalogProvider} client path: the OAuth2
+ * client credentials exchange, the WebClient and JSON (de)serialization.
+ * <p>
+ * Every response can be delayed by a fixed latency plus a random jitter, and a configurable
+ * fraction of requests can be failed with a {@code 503} to simulate a degraded upstream.
+ */
+@Slf4j
+public class StubBillingCatalogServer implements AutoCloseable {
+
+    public static final String BILLING_CONTEXT_PATH = "/billing";
+    public static final String CATALOG_CONTEXT_PATH = "/catalog";
+    public static final String TOKEN_PATH = "/oauth/token";
+
+    private static final String SUBSCRIPTIONS_PATH = BILLING_CONTEXT_PATH + "/subscriptions";
+    private static final String PRODUCTS_PATH = CATALOG_CONTEXT_PATH + "/products";
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * The backing store for the subscriptions served by this stub.
+     */
+    @Getter
+    private final InMemorySubscriptionProvider subscriptionProvider;
+
+    private final Map<String, Product> products = new ConcurrentHashMap<>();
+
+    private final Duration latency;
+
+    private final Duration jitter;
+
+    private final double errorRate;
+
+    /**
+     * The number of requests served, including injected failures.
+     */
+    @Getter
+    private final AtomicLong requestCount = new AtomicLong();
+
+    /**
+     * The number of requests that were failed on purpose.
+     */
+    @Getter
+    private final AtomicLong injectedErrorCount = new AtomicLong();
+
+    private DisposableServer server;
+
+    /**
+     * @param objectMapper the mapper used to (de)serialize payloads, mimicking the resource-tier
+     *        service
+     * @param latency the fixed delay applied to every response
+     * @param jitter the upper bound of the random delay added on top of {@code latency}
+     * @param errorRate the fraction of requests, between 0 and 1, that should fail with a
+     *        {@code 503}
+     */
+    public StubBillingCatalogServer(ObjectMapper objectMapper,
+            Duration latency,
+            Duration jitter,
+            double errorRate) {
+        this.objectMapper = objectMapper;
+        this.subscriptionProvider = new InMemorySubscriptionProvider(objectMapper);
+        this.latency = latency;
+        this.jitter = jitter;
+        this.errorRate = errorRate;
+    }
+
+    public StubBillingCatalogServer start() {
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes
+                        .post(TOKEN_PATH, this::issueToken)
+                        .get(SUBSCRIPTIONS_PATH, this::readSubscriptionPage)
+                        .post(SUBSCRIPTIONS_PATH, this::createSubscription)
+                        .get(SUBSCRIPTIONS_PATH + "/{subscriptionId}/items",
+                                this::readSubscriptionWithItems)
+                        .put(SUBSCRIPTIONS_PATH + "/{subscriptionId}", this::replaceSubscription)
+                        .get(PRODUCTS_PATH, this::readProductPage)
+                        .get(PRODUCTS_PATH + "/{productId}", this::readProduct))
+                .bindNow();
+        log.info("Stub billing/catalog server listening on {}", getBaseUrl());
+        return this;
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.disposeNow();
+            server = null;
+        }
+    }
+
+    public String getBaseUrl() {
+        return "http://localhost:" + server.port();
+    }
+
+    public String getBillingUrl() {
+        return getBaseUrl() + BILLING_CONTEXT_PATH;
+    }
+
+    public String getCatalogUrl() {
+        return getBaseUrl() + CATALOG_CONTEXT_PATH;
+    }
+
+    public String getTokenUri() {
+        return getBaseUrl() + TOKEN_PATH;
+    }
+
+    public void addProduct(Product product) {
+        products.put(product.getId(), product);
+    }
+
+    public void clear() {
+        subscriptionProvider.clearStore();
+        products.clear();
+        requestCount.set(0);
+        injectedErrorCount.set(0);
+    }
+
+    protected Mono<Void> issueToken(HttpServerRequest request, HttpServerResponse response) {
+        // The token endpoint is not subject to latency or error injection, as it is only hit once
+        // per token lifetime and would otherwise skew the first measurements.
+        Map<String, Object> token = new LinkedHashMap<>();
+        token.put("access_token", "stub-access-token");
+        token.put("token_type", "Bearer");
+        token.put("expires_in", 3600);
+        return send(response, HttpResponseStatus.OK, token);
+    }
+
+    protected Mono<Void> readSubscriptionPage(HttpServerRequest request,
+            HttpServerResponse response) {
+        QueryStringDecoder query = new QueryStringDecoder(request.uri());
+        String userRefType = getParameter(query, "userRefType");
+        String userRef = getParameter(query, "userRef");
+
+        return respond(response, () -> {
+            Page<SubscriptionWithItems> page = subscriptionProvider
+                    .readSubscriptionsForUserRefTypeAndUserRef(userRefType, userRef, null, null,
+                            null);
+            return toPage(page.getContent());
+        });
+    }
+
+    protected Mono<Void> readSubscriptionWithItems(HttpServerRequest request,
+            HttpServerResponse response) {
+        QueryStringDecoder query = new QueryStringDecoder(request.uri());
+        String subscriptionId = request.param("subscriptionId");
+        String userRefType = getParameter(query, "userRefType");
+        String userRef = getParameter(query, "userRef");
+
+        return respond(response, () -> userRefType == null
+                ? subscriptionProvider.readSubscriptionById(subscriptionId, null)
+                : subscriptionProvider.readUserSubscriptionById(userRefType, userRef,
+                        subscriptionId, null));
+    }
+
+    protected Mono<Void> createSubscription(HttpServerRequest request,
+            HttpServerResponse response) {
+        return request.receive().aggregate().asString()
+                .flatMap(body -> respond(response, () -> subscriptionProvider
+                        .create(read(body, SubscriptionWithItems.class), null)));
+    }
+
+    protected Mono<Void> replaceSubscription(HttpServerRequest request,
+            HttpServerResponse response) {
+        String subscriptionId = request.param("subscriptionId");
+        return request.receive().aggregate().asString()
+                .flatMap(body -> respond(response, () -> subscriptionProvider
+                        .replaceSubscription(subscriptionId, read(body, Subscription.class),
+                                null)));
+    }
+
+    protected Mono<Void> readProductPage(HttpServerRequest request, HttpServerResponse response) {
+        return respond(response, () -> toPage(products.values()));
+    }
+
+    protected Mono<Void> readProduct(HttpServerRequest request, HttpServerResponse response) {
+        String productId = request.param("productId");
+        return respond(response, () -> Optional.ofNullable(products.get(productId))
+                .orElseThrow(EntityMissingException::new));
+    }
+
+    /**
+     * Applies the configured latency and error injection before producing the response body.
+     *
+     * @param response the response to write to
+     * @param body supplies the response body, or throws {@link EntityMissingException} to produce
+     *        a {@code 404}
+     * @return a publisher completing once the response has been written
+     */
+    protected Mono<Void> respond(HttpServerResponse response, Supplier<Object> body) {
+        requestCount.incrementAndGet();
+        return Mono.delay(nextDelay())
+                .then(Mono.defer(() -> {
+                    if (shouldInjectError()) {
+                        injectedErrorCount.incrementAndGet();
+                        return send(response, HttpResponseStatus.SERVICE_UNAVAILABLE,
+                                new ApiError("SERVICE_UNAVAILABLE",
+                                        "Failure injected by the stub billing/catalog server",
+                                        HttpStatus.SERVICE_UNAVAILABLE));
+                    }
+                    try {
+                        return send(response, HttpResponseStatus.OK, body.get());
+                    } catch (EntityMissingException e) {
+                        return send(response, HttpResponseStatus.NOT_FOUND,
+                                new ApiError("ENTITY_NOT_FOUND", "Entity not found",
+                                        HttpStatus.NOT_FOUND));
+                    }
+                }));
+    }
+
+    protected Mono<Void> send(HttpServerResponse response,
+            HttpResponseStatus status,
+            Object body) {
+        return response.status(status)
+                .header(HttpHeaderNames.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .sendString(Mono.fromCallable(() -> objectMapper.writeValueAsString(body)))
+                .then();
+    }
+
+    protected Map<String, Object> toPage(Collection<?> content) {
+        List<?> items = new ArrayList<>(content);
+        Map<String, Object> pageable = new LinkedHashMap<>();
+        pageable.put("pageNumber", 0);
+        pageable.put("pageSize", Math.max(items.size(), 1));
+
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("content", items);
+        page.put("totalElements", items.size());
+        page.put("pageable", pageable);
+        return page;
+    }
+
+    private <T> T read(String body, Class<T> type) {
+        try {
+            return objectMapper.readValue(body, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Unable to read the request body", e);
+        }
+    }
+
+    private Duration nextDelay() {
+        if (jitter.isZero()) {
+            return latency;
+        }
+        return latency.plusMillis(ThreadLocalRandom.current().nextLong(jitter.toMillis() + 1));
+    }
+
+    private boolean shouldInjectError() {
+        return errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+    }
+
+    private static String getParameter(QueryStringDecoder query, String name) {
+        List<String> values = query.parameters().get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+}
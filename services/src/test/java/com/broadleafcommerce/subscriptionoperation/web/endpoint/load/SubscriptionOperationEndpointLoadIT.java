@@ -0,0 +1,468 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.web.endpoint.load;
+
+import static com.broadleafcommerce.data.tracking.core.context.ContextInfoHandlerMethodArgumentResolver.CONTEXT_REQUEST_HEADER;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.internal.util.collections.Sets;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import com.broadleafcommerce.data.tracking.core.context.ContextInfo;
+import com.broadleafcommerce.data.tracking.core.context.ContextRequest;
+import com.broadleafcommerce.data.tracking.core.filtering.business.domain.ContextState;
+import com.broadleafcommerce.data.tracking.core.type.OperationType;
+import com.broadleafcommerce.oauth2.resource.security.test.MockMvcOAuth2AuthenticationUtil;
+import com.broadleafcommerce.subscriptionoperation.domain.Product;
+import com.broadleafcommerce.subscriptionoperation.domain.Subscription;
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionItem;
+import com.broadleafcommerce.subscriptionoperation.domain.SubscriptionWithItems;
+import com.broadleafcommerce.subscriptionoperation.domain.enums.DefaultUserRefTypes;
+import com.broadleafcommerce.subscriptionoperation.domain.enums.SubscriptionStatuses;
+import com.broadleafcommerce.subscriptionoperation.web.domain.SubscriptionActionRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.azam.ulidj.ULID;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Drives the customer, account and system subscription operation endpoints with concurrent load
+ * and reports latency percentiles, throughput and allocation for each scenario.
+ * <p>
+ * Unlike the other endpoint integration tests, no {@code SubscriptionProvider} or
+ * {@code CatalogProvider} is replaced, so every request calls out over HTTP to a
+ * {@link StubBillingCatalogServer} with configurable latency, jitter and error injection. Each
+ * scenario is run from a fixed pool of platform threads ({@code BLOCKING}) and, when the running
+ * JVM supports it, from virtual threads ({@code VIRTUAL}), so the cost of blocking on the
+ * downstream services can be compared between the two.
+ * <p>
+ * This harness is disabled by default. Run it with
+ * {@code -Dsubscriptionoperation.loadtest=true}, optionally tuning it with the following system
+ * properties, all prefixed with {@code subscriptionoperation.loadtest.}:
+ * <ul>
+ * <li>{@code requests} - the measured requests per scenario and mode (default 2000)</li>
+ * <li>{@code warmup} - the unmeasured requests issued first (default 500)</li>
+ * <li>{@code concurrency} - the number of concurrent callers (default 32)</li>
+ * <li>{@code subscriptions} - the subscriptions seeded per customer and account (default 20)</li>
+ * <li>{@code items} - the items seeded per subscription (default 3)</li>
+ * <li>{@code latencyMs} - the fixed downstream latency (default 5)</li>
+ * <li>{@code jitterMs} - the maximum random downstream latency added (default 5)</li>
+ * <li>{@code errorRate} - the fraction of downstream calls failed with a 503 (default 0)</li>
+ * <li>{@code modes} - a comma-separated subset of {@code BLOCKING,VIRTUAL}</li>
+ * </ul>
+ */
+@Slf4j
+@WithMockUser
+@SpringBootTest
+@AutoConfigureMockMvc
+@EnabledIfSystemProperty(named = "subscriptionoperation.loadtest", matches = "true")
+class SubscriptionOperationEndpointLoadIT {
+
+    protected static final String PROPERTY_PREFIX = "subscriptionoperation.loadtest.";
+
+    protected static final String TENANT = "tenant1";
+    protected static final String CUSTOMER_ID = "loadCustomer";
+    protected static final String ACCOUNT_ID = "loadAccount";
+
+    protected static final String CUSTOMER_URI = "/customers/{customerId}/subscriptions";
+    protected static final String ACCOUNT_URI = "/accounts/{accountId}/subscriptions";
+    protected static final String SYSTEM_URI = "/subscription-ops";
+
+    protected static final int REQUESTS = intProperty("requests", 2000);
+    protected static final int WARMUP = intProperty("warmup", 500);
+    protected static final int CONCURRENCY = intProperty("concurrency", 32);
+    protected static final int SUBSCRIPTIONS = intProperty("subscriptions", 20);
+    protected static final int ITEMS = intProperty("items", 3);
+
+    private static StubBillingCatalogServer stubServer;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    MockMvcOAuth2AuthenticationUtil authUtil;
+
+    @Autowired
+    ObjectMapper mapper;
+
+    @Configuration
+    @EnableAutoConfiguration
+    static class Config {}
+
+    @DynamicPropertySource
+    static void stubServerProperties(DynamicPropertyRegistry registry) {
+        ObjectMapper stubMapper = JsonMapper.builder()
+                .findAndAddModules()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+        stubServer = new StubBillingCatalogServer(stubMapper,
+                Duration.ofMillis(intProperty("latencyMs", 5)),
+                Duration.ofMillis(intProperty("jitterMs", 5)),
+                Double.parseDouble(System.getProperty(PROPERTY_PREFIX + "errorRate", "0")))
+                .start();
+
+        registry.add("broadleaf.subscriptionoperation.subscriptionprovider.url",
+                stubServer::getBillingUrl);
+        registry.add("broadleaf.subscriptionoperation.catalogprovider.url",
+                stubServer::getCatalogUrl);
+        registry.add("spring.security.oauth2.client.provider.subscriptionopsclient.token-uri",
+                stubServer::getTokenUri);
+    }
+
+    @AfterAll
+    static void stopStubServer() {
+        if (stubServer != null) {
+            stubServer.close();
+        }
+    }
+
+    @Test
+    void measureEndpointsUnderLoad() throws Exception {
+        List<String> customerSubscriptionIds =
+                seed(DefaultUserRefTypes.BLC_CUSTOMER.name(), CUSTOMER_ID);
+        List<String> accountSubscriptionIds =
+                seed(DefaultUserRefTypes.BLC_ACCOUNT.name(), ACCOUNT_ID);
+
+        List<LoadTestResult> results = new ArrayList<>();
+        for (ExecutionMode mode : getModes()) {
+            for (Scenario scenario : getScenarios(customerSubscriptionIds,
+                    accountSubscriptionIds)) {
+                run(scenario, mode, WARMUP);
+                LoadTestResult result = run(scenario, mode, REQUESTS);
+                results.add(result);
+                assertThat(result.getRequests()).isEqualTo(REQUESTS);
+            }
+        }
+
+        log.info("Subscription operation endpoint load results (downstream requests: {}, "
+                + "injected downstream errors: {}):{}",
+                stubServer.getRequestCount().get(),
+                stubServer.getInjectedErrorCount().get(),
+                LoadTestResult.format(results));
+    }
+
+    protected List<Scenario> getScenarios(List<String> customerSubscriptionIds,
+            List<String> accountSubscriptionIds) throws JsonProcessingException {
+        String contextRequest = getContextRequest();
+        String actionRequest = mapper.writeValueAsString(new SubscriptionActionRequest());
+        Map<String, Object> customerDetails = Map.of("customer_id", CUSTOMER_ID);
+        Map<String, Object> accountDetails = Map.of("acct_id", ACCOUNT_ID);
+
+        return List.of(
+                new Scenario("customer list", () -> get(CUSTOMER_URI, CUSTOMER_ID)
+                        .with(authUtil.withAuthoritiesAndDetails(
+                                Sets.newSet("READ_CUSTOMER_SUBSCRIPTION"), customerDetails))
+                        .header(CONTEXT_REQUEST_HEADER, contextRequest)
+                        .accept(MediaType.APPLICATION_JSON)),
+                new Scenario("customer read with actions", () -> get(CUSTOMER_URI + "/{id}",
+                        CUSTOMER_ID, pick(customerSubscriptionIds))
+                        .with(authUtil.withAuthoritiesAndDetails(
+                                Sets.newSet("READ_CUSTOMER_SUBSCRIPTION"), customerDetails))
+                        .header(CONTEXT_REQUEST_HEADER, contextRequest)
+                        .accept(MediaType.APPLICATION_JSON)),
+                new Scenario("customer actions", () -> post(CUSTOMER_URI + "/{id}/actions",
+                        CUSTOMER_ID, pick(customerSubscriptionIds))
+                        .with(authUtil.withAuthoritiesAndDetails(
+                                Sets.newSet("READ_CUSTOMER_SUBSCRIPTION"), customerDetails))
+                        .header(CONTEXT_REQUEST_HEADER, contextRequest)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(actionRequest)
+                        .accept(MediaType.APPLICATION_JSON)),
+                new Scenario("account list", () -> get(ACCOUNT_URI, ACCOUNT_ID)
+                        .with(authUtil.withAuthoritiesAndDetails(
+                                Sets.newSet("READ_ACCOUNT_SUBSCRIPTION"), accountDetails))
+                        .header(CONTEXT_REQUEST_HEADER, contextRequest)
+                        .accept(MediaType.APPLICATION_JSON)),
+                new Scenario("account read with actions", () -> get(ACCOUNT_URI + "/{id}",
+                        ACCOUNT_ID, pick(accountSubscriptionIds))
+                        .with(authUtil.withAuthoritiesAndDetails(
+                                Sets.newSet("READ_ACCOUNT_SUBSCRIPTION"), accountDetails))
+                        .header(CONTEXT_REQUEST_HEADER, contextRequest)
+                        .accept(MediaType.APPLICATION_JSON)),
+                new Scenario("account actions", () -> post(ACCOUNT_URI + "/{id}/actions",
+                        ACCOUNT_ID, pick(accountSubscriptionIds))
+                        .with(authUtil.withAuthoritiesAndDetails(
+                                Sets.newSet("READ_ACCOUNT_SUBSCRIPTION"), accountDetails))
+                        .header(CONTEXT_REQUEST_HEADER, contextRequest)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(actionRequest)
+                        .accept(MediaType.APPLICATION_JSON)),
+                new Scenario("system list", () -> get(SYSTEM_URI)
+                        .param("userRefType", DefaultUserRefTypes.BLC_CUSTOMER.name())
+                        .param("userRef", CUSTOMER_ID)
+                        .with(authUtil.withAuthoritiesAndDetails(
+                                Sets.newSet("READ_SYSTEM_SUBSCRIPTION"), Map.of()))
+                        .header(CONTEXT_REQUEST_HEADER, contextRequest)
+                        .accept(MediaType.APPLICATION_JSON)),
+                new Scenario("system read", () -> get(SYSTEM_URI + "/{id}",
+                        pick(customerSubscriptionIds))
+                        .with(authUtil.withAuthoritiesAndDetails(
+                                Sets.newSet("READ_SYSTEM_SUBSCRIPTION"), Map.of()))
+                        .header(CONTEXT_REQUEST_HEADER, contextRequest)
+                        .accept(MediaType.APPLICATION_JSON)));
+    }
+
+    /**
+     * Issues {@code requestCount} requests for the given scenario, spread over
+     * {@link #CONCURRENCY} callers.
+     * <p>
+     * Callers are held open until the measurement has been taken so that, when only per-thread
+     * allocation counters are available, the allocation of every caller is still included.
+     */
+    protected LoadTestResult run(Scenario scenario, ExecutionMode mode, int requestCount)
+            throws InterruptedException {
+        long[] latencies = new long[requestCount];
+        AtomicInteger nextRequest = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        CountDownLatch finished = new CountDownLatch(CONCURRENCY);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = mode.newExecutor(CONCURRENCY);
+        long allocatedBefore = getAllocatedBytes();
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < CONCURRENCY; i++) {
+                executor.execute(() -> {
+                    try {
+                        int index;
+                        while ((index = nextRequest.getAndIncrement()) < requestCount) {
+                            long requestStart = System.nanoTime();
+                            try {
+                                int status = mockMvc.perform(scenario.request().build())
+                                        .andReturn()
+                                        .getResponse()
+                                        .getStatus();
+                                if (status >= 400) {
+                                    errors.incrementAndGet();
+                                }
+                            } catch (Exception e) {
+                                errors.incrementAndGet();
+                            }
+                            latencies[index] = System.nanoTime() - requestStart;
+                        }
+                    } finally {
+                        finished.countDown();
+                    }
+                    awaitQuietly(release);
+                });
+            }
+            finished.await();
+            long elapsed = System.nanoTime() - start;
+            long allocatedAfter = getAllocatedBytes();
+            long allocated = allocatedBefore < 0 || allocatedAfter < 0 ? -1
+                    : allocatedAfter - allocatedBefore;
+            return new LoadTestResult(scenario.name(), mode.name(), latencies, errors.get(),
+                    elapsed, allocated);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    protected List<String> seed(String userRefType, String userRef) {
+        ContextInfo contextInfo = new ContextInfo(OperationType.CREATE,
+                new ContextRequest().withTenantId(TENANT));
+        List<String> subscriptionIds = new ArrayList<>();
+        for (int i = 0; i < SUBSCRIPTIONS; i++) {
+            Product product = new Product();
+            product.setId(ULID.random());
+            product.setName("Load Product " + i);
+            stubServer.addProduct(product);
+
+            Subscription subscription = new Subscription();
+            subscription.setId(ULID.random());
+            subscription.setName("Load Subscription " + i);
+            subscription.setSubscriptionStatus(SubscriptionStatuses.ACTIVE.name());
+            subscription.setUserRefType(userRefType);
+            subscription.setUserRef(userRef);
+            subscription.setRootItemRefType("BLC_PRODUCT");
+            subscription.setRootItemRef(product.getId());
+
+            List<SubscriptionItem> items = new ArrayList<>();
+            for (int j = 0; j < ITEMS; j++) {
+                SubscriptionItem item = new SubscriptionItem();
+                item.setId(ULID.random());
+                item.setSubscriptionId(subscription.getId());
+                item.setItemName("Load Item " + j);
+                item.setItemRefType("BLC_PRODUCT");
+                item.setItemRef(product.getId());
+                item.setItemUnitPrice(BigDecimal.TEN);
+                item.setContextState(new ContextState());
+                items.add(item);
+            }
+
+            SubscriptionWithItems subscriptionWithItems = new SubscriptionWithItems();
+            subscriptionWithItems.setSubscription(subscription);
+            subscriptionWithItems.setSubscriptionItems(items);
+            stubServer.getSubscriptionProvider().create(subscriptionWithItems, contextInfo);
+            subscriptionIds.add(subscription.getId());
+        }
+        return subscriptionIds;
+    }
+
+    protected String getContextRequest() throws JsonProcessingException {
+        ContextRequest contextRequest = new ContextRequest();
+        contextRequest.setTenantId(TENANT);
+
+        return mapper.writeValueAsString(contextRequest);
+    }
+
+    protected List<ExecutionMode> getModes() {
+        String modes = System.getProperty(PROPERTY_PREFIX + "modes");
+        List<ExecutionMode> selected = modes == null
+                ? Arrays.asList(ExecutionMode.values())
+                : Arrays.stream(modes.split(","))
+                        .map(String::trim)
+                        .map(ExecutionMode::valueOf)
+                        .toList();
+        return selected.stream()
+                .filter(mode -> {
+                    if (!mode.isSupported()) {
+                        log.info("Skipping the {} mode as it is not supported by this JVM", mode);
+                        return false;
+                    }
+                    return true;
+                })
+                .toList();
+    }
+
+    /**
+     * Resolves the bytes allocated so far, preferring the JVM-wide total, which also accounts for
+     * terminated and virtual threads, and falling back to the sum over all live platform threads.
+     *
+     * @return the allocated bytes, or {@code -1} if allocation cannot be measured
+     */
+    protected static long getAllocatedBytes() {
+        if (!(ManagementFactory
+                .getThreadMXBean() instanceof com.sun.management.ThreadMXBean threadMXBean)
+                || !threadMXBean.isThreadAllocatedMemorySupported()
+                || !threadMXBean.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        try {
+            Method total = com.sun.management.ThreadMXBean.class
+                    .getMethod("getTotalThreadAllocatedBytes");
+            return (long) total.invoke(threadMXBean);
+        } catch (ReflectiveOperationException e) {
+            return Arrays.stream(
+                    threadMXBean.getThreadAllocatedBytes(threadMXBean.getAllThreadIds()))
+                    .filter(bytes -> bytes > 0)
+                    .sum();
+        }
+    }
+
+    private static String pick(List<String> ids) {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+
+    private static int intProperty(String name, int defaultValue) {
+        return Integer.getInteger(PROPERTY_PREFIX + name, defaultValue);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A named request against the endpoints. The request is rebuilt for every call so that
+     * request-scoped state, such as the authentication, is never shared between callers.
+     */
+    protected record Scenario(String name, RequestFactory request) {}
+
+    @FunctionalInterface
+    protected interface RequestFactory {
+        RequestBuilder build();
+    }
+
+    /**
+     * The kind of threads the load is issued from.
+     */
+    protected enum ExecutionMode {
+        BLOCKING {
+            @Override
+            ExecutorService newExecutor(int concurrency) {
+                return Executors.newFixedThreadPool(concurrency);
+            }
+        },
+        VIRTUAL {
+            @Override
+            ExecutorService newExecutor(int concurrency) {
+                try {
+                    return (ExecutorService) Executors.class
+                            .getMethod("newVirtualThreadPerTaskExecutor")
+                            .invoke(null);
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException("Virtual threads are not supported", e);
+                }
+            }
+
+            @Override
+            boolean isSupported() {
+                try {
+                    Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                    return true;
+                } catch (NoSuchMethodException e) {
+                    return false;
+                }
+            }
+        };
+
+        abstract ExecutorService newExecutor(int concurrency);
+
+        boolean isSupported() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.web.ratelimit;
+
+import static com.broadleafcommerce.data.tracking.core.context.ContextInfoHandlerMethodArgumentResolver.CONTEXT_REQUEST_HEADER;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.core.DefaultOAuth2AuthenticatedPrincipal;
+
+import com.broadleafcommerce.subscriptionoperation.web.endpoint.EndpointClass;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class RateLimitInterceptorTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private StripedRateLimiter rateLimiter;
+
+    private RateLimitInterceptor interceptor;
+
+    @BeforeEach
+    void setup() {
+        rateLimiter = new StripedRateLimiter(4, 2, Duration.ZERO, now::get);
+        interceptor = new RateLimitInterceptor(rateLimiter,
+                new PrincipalRateLimitKeyResolver("tenantId"), new ObjectMapper(),
+                Map.of(EndpointClass.CUSTOMER, RateLimit.of(3, Duration.ofSeconds(1), 0),
+                        EndpointClass.ADMIN, RateLimit.of(1, Duration.ofSeconds(1), 0)),
+                Map.of(EndpointClass.CUSTOMER, RateLimit.of(1, Duration.ofSeconds(2), 2)));
+    }
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void testEndpointClassification() {
+        assertThat(EndpointClass.classify("/customers/c1/subscriptions")).hasValue(
+                EndpointClass.CUSTOMER);
+        assertThat(EndpointClass.classify("/accounts/a1/subscriptions/s1/actions")).hasValue(
+                EndpointClass.ACCOUNT);
+        assertThat(EndpointClass.classify("/subscription-ops/jobs/j1")).hasValue(
+                EndpointClass.ADMIN);
+        assertThat(EndpointClass.classify("/actuator/health")).isEmpty();
+    }
+
+    @Test
+    public void testUserLimitAllowsBurstThenRejects() throws Exception {
+        assertThat(handle("c1", "t1", "/customers/c1/subscriptions").getStatus()).isEqualTo(200);
+        assertThat(handle("c1", "t1", "/customers/c1/subscriptions").getStatus()).isEqualTo(200);
+
+        MockHttpServletResponse rejected = handle("c1", "t1", "/customers/c1/subscriptions");
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(rejected.getContentAsString()).contains("RATE_LIMITED");
+
+        // Another customer of the same tenant is unaffected
+        assertThat(handle("c2", "t1", "/customers/c2/subscriptions").getStatus()).isEqualTo(200);
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertThat(handle("c1", "t1", "/customers/c1/subscriptions").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    public void testTenantLimitIsSharedByUsers() throws Exception {
+        assertThat(handle("c1", "t1", "/customers/c1/subscriptions").getStatus()).isEqualTo(200);
+        assertThat(handle("c2", "t1", "/customers/c2/subscriptions").getStatus()).isEqualTo(200);
+        assertThat(handle("c3", "t1", "/customers/c3/subscriptions").getStatus()).isEqualTo(200);
+        assertThat(handle("c4", "t1", "/customers/c4/subscriptions").getStatus()).isEqualTo(429);
+
+        // Another tenant has its own bucket
+        assertThat(handle("c4", "t2", "/customers/c4/subscriptions").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    public void testSpoofedKeysDoNotSpendAnotherCallersLimit() throws Exception {
+        // The attacker names the victim's tenant in the header and the victim in the path
+        for (int i = 0; i < 5; i++) {
+            MockHttpServletRequest request = request("attacker", "t2",
+                    "/customers/victim/subscriptions");
+            request.addHeader(CONTEXT_REQUEST_HEADER, "{\"tenantId\":\"t1\"}");
+            interceptor.preHandle(request, new MockHttpServletResponse(), new Object());
+        }
+
+        assertThat(handle("victim", "t1", "/customers/victim/subscriptions").getStatus())
+                .isEqualTo(200);
+        assertThat(handle("victim", "t1", "/customers/victim/subscriptions").getStatus())
+                .isEqualTo(200);
+    }
+
+    @Test
+    public void testChangingTheContextHeaderDoesNotEscapeTheLimit() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletRequest request = request("c1", "t1", "/customers/c1/subscriptions");
+            request.addHeader(CONTEXT_REQUEST_HEADER, "{\"tenantId\":\"spoofed" + i + "\"}");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            assertThat(interceptor.preHandle(request, response, new Object())).isTrue();
+        }
+
+        MockHttpServletRequest request = request("c1", "t1", "/customers/c1/subscriptions");
+        request.addHeader(CONTEXT_REQUEST_HEADER, "{\"tenantId\":\"spoofed2\"}");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertThat(interceptor.preHandle(request, response, new Object())).isFalse();
+        assertThat(response.getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    public void testUnclassifiedRequestsAreNotLimited() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertThat(handle("c1", "t1", "/actuator/health").getStatus()).isEqualTo(200);
+        }
+        assertThat(rateLimiter.size()).isZero();
+    }
+
+    @Test
+    public void testRefilledBucketsAreEvicted() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            handle("admin", "t" + i, "/subscription-ops/s1");
+            now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        }
+        assertThat(rateLimiter.size()).isLessThanOrEqualTo(4 * 2 + 4);
+    }
+
+    private MockHttpServletResponse handle(String user, String tenant, String path)
+            throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        interceptor.preHandle(request(user, tenant, path), response, new Object());
+        return response;
+    }
+
+    private MockHttpServletRequest request(String user, String tenant, String path) {
+        DefaultOAuth2AuthenticatedPrincipal principal = new DefaultOAuth2AuthenticatedPrincipal(
+                user, Map.of("tenantId", tenant), List.of());
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken(principal, null, List.of()));
+        return new MockHttpServletRequest("GET", path);
+    }
+}
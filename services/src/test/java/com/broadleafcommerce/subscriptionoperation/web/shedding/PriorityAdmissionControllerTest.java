@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2024 Broadleaf Commerce
+ *
+ * Licensed under the Broadleaf End User License Agreement (EULA), Version 1.1 (the
+ * "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt).
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the
+ * "Custom License") between you and Broadleaf Commerce. You may not use this file except in
+ * compliance with the applicable license.
+ *
+ * NOTICE: All information contained herein is, and remains the property of Broadleaf Commerce, LLC
+ * The intellectual and technical concepts contained herein are proprietary to Broadleaf Commerce,
+ * LLC and may be covered by U.S. and Foreign Patents, patents in process, and are protected by
+ * trade secret or copyright law. Dissemination of this information or reproduction of this material
+ * is strictly forbidden unless prior written permission is obtained from Broadleaf Commerce, LLC.
+ */
+package com.broadleafcommerce.subscriptionoperation.web.shedding;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+public class PriorityAdmissionControllerTest {
+
+    @Test
+    public void testLowPriorityIsLimitedToItsShare() {
+        PriorityAdmissionController controller =
+                controller(4, Duration.ZERO, Duration.ofSeconds(1), Duration.ofSeconds(1));
+        controller.acquire(RequestPriority.LOW);
+        controller.acquire(RequestPriority.LOW);
+
+        assertThatThrownBy(() -> controller.acquire(RequestPriority.LOW))
+                .isInstanceOf(RequestShedException.class)
+                .extracting("reason").isEqualTo(RequestShedException.QUEUE_FULL);
+
+        controller.acquire(RequestPriority.HIGH);
+        controller.acquire(RequestPriority.HIGH);
+        assertThat(controller.getInFlight()).isEqualTo(4);
+    }
+
+    @Test
+    public void testHighPriorityIsAdmittedFirst() throws Exception {
+        PriorityAdmissionController controller = controller(1, Duration.ofSeconds(10),
+                Duration.ofSeconds(1), Duration.ofSeconds(1));
+        controller.acquire(RequestPriority.HIGH);
+
+        List<RequestPriority> admitted = new CopyOnWriteArrayList<>();
+        Thread low = waiter(controller, RequestPriority.LOW, admitted);
+        Thread.sleep(50);
+        Thread high = waiter(controller, RequestPriority.HIGH, admitted);
+        Thread.sleep(50);
+
+        controller.release();
+        high.join(TimeUnit.SECONDS.toMillis(5));
+        low.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertThat(admitted).containsExactly(RequestPriority.HIGH, RequestPriority.LOW);
+        assertThat(controller.getInFlight()).isZero();
+    }
+
+    @Test
+    public void testStandingQueueShedsLowerPriorities() {
+        PriorityAdmissionController controller = controller(1, Duration.ofMillis(20),
+                Duration.ofMillis(1), Duration.ZERO);
+        controller.acquire(RequestPriority.HIGH);
+
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> controller.acquire(RequestPriority.HIGH))
+                    .isInstanceOf(RequestShedException.class)
+                    .extracting("reason").isEqualTo(RequestShedException.TIMEOUT);
+        }
+        assertThat(controller.isOverloaded()).isTrue();
+
+        assertThatThrownBy(() -> controller.acquire(RequestPriority.NORMAL))
+                .isInstanceOf(RequestShedException.class)
+                .extracting("reason").isEqualTo(RequestShedException.OVERLOADED);
+
+        // Admitting a request without waiting shows the overload has passed
+        controller.release();
+        assertThat(controller.acquire(RequestPriority.LOW)).isZero();
+        assertThat(controller.isOverloaded()).isFalse();
+    }
+
+    @Test
+    public void testImmediateHigherPriorityAdmissionsKeepLowQueueStanding() {
+        PriorityAdmissionController controller = controller(4, Duration.ofMillis(20),
+                Duration.ofMillis(1), Duration.ZERO);
+        controller.acquire(RequestPriority.LOW);
+        controller.acquire(RequestPriority.LOW);
+
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> controller.acquire(RequestPriority.LOW))
+                    .isInstanceOf(RequestShedException.class)
+                    .extracting("reason").isEqualTo(RequestShedException.TIMEOUT);
+        }
+        assertThat(controller.isOverloaded(RequestPriority.LOW)).isTrue();
+        assertThat(controller.isOverloaded(RequestPriority.NORMAL)).isFalse();
+
+        // HIGH and NORMAL still fit in their larger shares, which says nothing of the LOW queue
+        assertThat(controller.acquire(RequestPriority.HIGH)).isZero();
+        controller.release();
+        assertThat(controller.acquire(RequestPriority.NORMAL)).isZero();
+        assertThat(controller.isOverloaded(RequestPriority.LOW)).isTrue();
+        assertThatThrownBy(() -> controller.acquire(RequestPriority.LOW))
+                .isInstanceOf(RequestShedException.class)
+                .extracting("reason").isEqualTo(RequestShedException.OVERLOADED);
+
+        controller.release();
+        controller.release();
+        assertThat(controller.acquire(RequestPriority.LOW)).isZero();
+        assertThat(controller.isOverloaded()).isFalse();
+    }
+
+    private PriorityAdmissionController controller(int maxInFlight,
+            Duration maxWait,
+            Duration targetQueueDelay,
+            Duration interval) {
+        return new PriorityAdmissionController(maxInFlight,
+                Map.of(RequestPriority.NORMAL, 0.75, RequestPriority.LOW, 0.5), 10, maxWait,
+                targetQueueDelay, interval);
+    }
+
+    private Thread waiter(PriorityAdmissionController controller,
+            RequestPriority priority,
+            List<RequestPriority> admitted) {
+        Thread thread = new Thread(() -> {
+            controller.acquire(priority);
+            admitted.add(priority);
+            controller.release();
+        });
+        thread.start();
+        return thread;
+    }
+}